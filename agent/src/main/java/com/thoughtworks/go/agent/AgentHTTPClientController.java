@@ -30,6 +30,7 @@ import com.thoughtworks.go.publishers.GoArtifactsManipulator;
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.AgentInstruction;
 import com.thoughtworks.go.remote.work.AgentWorkContext;
+import com.thoughtworks.go.remote.work.NoWork;
 import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.util.SubprocessLogger;
 import com.thoughtworks.go.util.SystemEnvironment;
@@ -52,6 +53,7 @@ public class AgentHTTPClientController extends AgentController {
     private final ArtifactExtension artifactExtension;
     private final PluginRequestProcessorRegistry pluginRequestProcessorRegistry;
     private final PluginJarLocationMonitor pluginJarLocationMonitor;
+    private final SystemEnvironment systemEnvironment;
 
     private final SCMExtension scmExtension;
     private final TaskExtension taskExtension;
@@ -82,6 +84,7 @@ public class AgentHTTPClientController extends AgentController {
         this.artifactExtension = artifactExtension;
         this.pluginRequestProcessorRegistry = pluginRequestProcessorRegistry;
         this.pluginJarLocationMonitor = pluginJarLocationMonitor;
+        this.systemEnvironment = systemEnvironment;
     }
 
     @Override
@@ -132,7 +135,16 @@ public class AgentHTTPClientController extends AgentController {
         LOG.debug("[Agent Loop] {} is checking for work from Go", agentIdentifier);
         try {
             getAgentRuntimeInfo().idle();
-            Work work = client.getWork(getAgentRuntimeInfo());
+            boolean serverWaited = false;
+            Work work;
+            long waitMillis = systemEnvironment.getAgentGetWorkLongPollWaitMillis();
+            if (waitMillis > 0) {
+                RemotingClient.PolledWork polledWork = client.awaitWork(getAgentRuntimeInfo(), waitMillis);
+                work = polledWork.work();
+                serverWaited = polledWork.serverWaited();
+            } else {
+                work = client.getWork(getAgentRuntimeInfo());
+            }
             if (LOG.isDebugEnabled()) {
                 LOG.debug("[Agent Loop] Got work from server: [{}]", work.description());
             }
@@ -141,6 +153,10 @@ public class AgentHTTPClientController extends AgentController {
                 new AgentWorkContext(agentIdentifier, client, manipulator, getAgentRuntimeInfo(), scmExtension, taskExtension, artifactExtension, pluginRequestProcessorRegistry)
             );
             LOG.debug("[Agent Loop] Successfully executed work.");
+            if (serverWaited && work instanceof NoWork) {
+                // the server already waited for work to turn up, there is no need to back off before asking again
+                return WorkAttempt.OK;
+            }
             return WorkAttempt.fromWork(work);
         } catch (UnregisteredAgentException e) {
             LOG.warn("[Agent Loop] Agent is not registered. [{}] Registering with server on next iteration.", e.getMessage());
@@ -49,6 +49,8 @@ import static com.thoughtworks.go.agent.ResponseHelpers.readBodyAsString;
 import static com.thoughtworks.go.agent.ResponseHelpers.readBodyAsStringOrElse;
 import static com.thoughtworks.go.remote.StandardHeaders.REQUEST_AUTH;
 import static com.thoughtworks.go.remote.StandardHeaders.REQUEST_UUID;
+import static com.thoughtworks.go.remote.StandardHeaders.REQUEST_WORK_WAIT_MILLIS;
+import static com.thoughtworks.go.remote.StandardHeaders.RESPONSE_WORK_WAITED;
 import static java.lang.String.format;
 
 @Component
@@ -76,6 +78,22 @@ public class RemotingClient implements BuildRepositoryRemote {
         return Serialization.fromJson(post("get_work", new GetWorkRequest(info)), Work.class);
     }
 
+    /**
+     * Asks the server for work, allowing it to hold on to the request for up to {@code waitMillis} until there is some.
+     * Servers which do not support waiting, or which have too many agents waiting already, answer straight away.
+     */
+    public PolledWork awaitWork(AgentRuntimeInfo info, long waitMillis) {
+        HttpRequestBase request = postRequestFor("get_work", new GetWorkRequest(info));
+        request.setHeader(REQUEST_WORK_WAIT_MILLIS, String.valueOf(waitMillis));
+        try (CloseableHttpResponse response = client.execute(injectCredentials(request))) {
+            validateResponse(response, "get_work");
+            Work work = Serialization.fromJson(readBodyAsString(response), Work.class);
+            return new PolledWork(work, response.containsHeader(RESPONSE_WORK_WAITED));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void reportCurrentStatus(AgentRuntimeInfo info, JobIdentifier jobId, JobState state) {
         post("report_current_status", new ReportCurrentStatusRequest(info, jobId, state));
@@ -159,4 +177,11 @@ public class RemotingClient implements BuildRepositoryRemote {
         final String body = readBodyAsStringOrElse(response, "<ERROR: UNABLE TO READ RESPONSE BODY>");
         LOG.error("Server responded to action `{}` with: status[{} {}], body[{}]", action, status.getStatusCode(), status.getReasonPhrase(), body);
     }
+
+    /**
+     * @param work         the work the server handed out
+     * @param serverWaited whether the server held on to the request waiting for work before answering
+     */
+    public record PolledWork(Work work, boolean serverWaited) {
+    }
 }
@@ -147,6 +147,24 @@ public class AgentHTTPClientControllerTest {
         assertThat(agentController.tryDoWork()).isEqualTo(WorkAttempt.NOTHING_TO_DO);
     }
 
+    @Test
+    void shouldRetrieveWorkImmediatelyAgainWhenTheServerWaitedForWork() throws Exception {
+        prepareForLongPolledWork(new RemotingClient.PolledWork(mock(NoWork.class), true));
+        assertThat(agentController.tryDoWork()).isEqualTo(WorkAttempt.OK);
+    }
+
+    @Test
+    void shouldBackOffWhenTheServerDidNotWaitForWork() throws Exception {
+        prepareForLongPolledWork(new RemotingClient.PolledWork(mock(NoWork.class), false));
+        assertThat(agentController.tryDoWork()).isEqualTo(WorkAttempt.NOTHING_TO_DO);
+    }
+
+    @Test
+    void shouldBackOffWhenDeniedWorkEvenIfTheServerWaited() throws Exception {
+        prepareForLongPolledWork(new RemotingClient.PolledWork(mock(DeniedAgentWork.class), true));
+        assertThat(agentController.tryDoWork()).isEqualTo(WorkAttempt.NOTHING_TO_DO);
+    }
+
     private void prepareForWork() {
         when(loopServer.getWork(any())).thenReturn(work);
         when(agentRegistry.uuid()).thenReturn(agentUuid);
@@ -154,6 +172,14 @@ public class AgentHTTPClientControllerTest {
         agentController.init();
     }
 
+    private void prepareForLongPolledWork(RemotingClient.PolledWork polledWork) {
+        when(systemEnvironment.getAgentGetWorkLongPollWaitMillis()).thenReturn(20_000L);
+        when(loopServer.awaitWork(any(), eq(20_000L))).thenReturn(polledWork);
+        when(agentRegistry.uuid()).thenReturn(agentUuid);
+        agentController = createAgentController();
+        agentController.init();
+    }
+
     @Test
     void shouldRegisterSubprocessLoggerAtExit() {
         agentController = createAgentController();
@@ -172,6 +172,30 @@ class JsonOutputWriterTest {
     ])
   }
 
+  @Test
+  void 'should be able to add already serialized objects to child lists'() {
+    def result = new StringWriter()
+
+    new JsonOutputWriter(result, new TestRequestContext()).forTopLevelObject { writer ->
+      writer
+        .addChildList('parent1') { listWriter ->
+        listWriter.addRawJson('{"key1": "value1"}')
+        listWriter.addChild { listChildWriter ->
+          listChildWriter.add('key1', 'value2')
+        }
+        listWriter.addRawJson('{"key1": "value3"}')
+      }
+    }
+
+    assertThat(fromJSON(result.toString())).isEqualTo([
+      parent1: [
+        [key1: 'value1'],
+        [key1: 'value2'],
+        [key1: 'value3']
+      ]
+    ])
+  }
+
   @Test
   void 'should be able to add links'() {
     def result = new StringWriter()
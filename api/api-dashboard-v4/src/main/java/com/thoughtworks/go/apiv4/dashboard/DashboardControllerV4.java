@@ -30,6 +30,7 @@ import com.thoughtworks.go.server.service.GoDashboardService;
 import com.thoughtworks.go.server.service.PipelineSelectionsService;
 import com.thoughtworks.go.server.service.support.toggle.Toggles;
 import com.thoughtworks.go.spark.GlobalExceptionMapper;
+import com.thoughtworks.go.spark.RequestContext;
 import com.thoughtworks.go.spark.Routes;
 import com.thoughtworks.go.spark.spring.SparkSpringController;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -114,7 +115,8 @@ public class DashboardControllerV4 extends ApiController implements SparkSpringC
         return writerForTopLevelObject(request, response, outputWriter ->
             DashboardRepresenter.toJSON(
                 outputWriter,
-                new DashboardFor(pipelineGroups, environments, userName, personalization.etag())
+                new DashboardFor(pipelineGroups, environments, userName, personalization.etag()),
+                RequestContext.requestContext(request)
             )
         );
     }
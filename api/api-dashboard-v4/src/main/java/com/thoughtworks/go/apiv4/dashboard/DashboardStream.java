@@ -0,0 +1,135 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.apiv4.dashboard;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.server.dashboard.GoDashboardCacheListener;
+import com.thoughtworks.go.server.dashboard.GoDashboardPipeline;
+import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.domain.user.DashboardFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Collects the changes to the dashboard that one streaming client should be told about. Changes are filtered by what
+ * the user may see and what their dashboard filter shows, and are coalesced per pipeline, so a slow client only ever
+ * has the latest state of each pipeline waiting for it, however many times the pipeline changed.
+ * <p>
+ * Every stream starts by asking for a reload, since the dashboard may have changed between the client fetching it and
+ * opening the stream. Removals are only sent for pipelines the client was shown, so that a stream never names a
+ * pipeline the user may not see.
+ */
+class DashboardStream implements GoDashboardCacheListener {
+    private final Username username;
+    private final DashboardFilter filter;
+    private final Supplier<Collection<GoDashboardPipeline>> dashboard;
+    private final Map<CaseInsensitiveString, Change> pending = new LinkedHashMap<>();
+    private final Set<CaseInsensitiveString> shown = new HashSet<>();
+    private boolean reloadPending = true;
+
+    /**
+     * @param dashboard the pipelines currently on the dashboard, which the client is shown when it reloads
+     */
+    DashboardStream(Username username, DashboardFilter filter, Supplier<Collection<GoDashboardPipeline>> dashboard) {
+        this.username = username;
+        this.filter = filter;
+        this.dashboard = dashboard;
+    }
+
+    @Override
+    public synchronized void pipelineUpdated(GoDashboardPipeline pipeline) {
+        CaseInsensitiveString name = pipeline.name();
+        if (isVisible(pipeline)) {
+            shown.add(name);
+            addPending(new Change(name, pipeline));
+        } else if (shown.remove(name)) {
+            addPending(new Change(name, null));
+        }
+    }
+
+    @Override
+    public synchronized void pipelineRemoved(CaseInsensitiveString pipelineName) {
+        if (shown.remove(pipelineName)) {
+            addPending(new Change(pipelineName, null));
+        }
+    }
+
+    @Override
+    public synchronized void allPipelinesReplaced() {
+        // the config changed, which can change groups, environments and permissions as well as pipelines
+        pending.clear();
+        reloadPending = true;
+        notifyAll();
+    }
+
+    private boolean isVisible(GoDashboardPipeline pipeline) {
+        return pipeline.canBeViewedBy(username.getUsername().toString()) && filter.isPipelineVisible(pipeline.name());
+    }
+
+    private void addPending(Change change) {
+        if (reloadPending) {
+            return;
+        }
+        pending.remove(change.pipelineName());
+        pending.put(change.pipelineName(), change);
+        notifyAll();
+    }
+
+    /**
+     * Waits for changes, and takes all of them.
+     *
+     * @return the changes, which are empty if there were none within the timeout
+     */
+    synchronized Changes await(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (!reloadPending && pending.isEmpty() && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+
+        Changes changes = new Changes(reloadPending, new ArrayList<>(pending.values()));
+        if (reloadPending) {
+            shown.clear();
+            dashboard.get().stream().filter(this::isVisible).forEach(pipeline -> shown.add(pipeline.name()));
+        }
+        pending.clear();
+        reloadPending = false;
+        return changes;
+    }
+
+    /**
+     * @param pipeline the new state of the pipeline, or null if it was removed from the dashboard
+     */
+    record Change(CaseInsensitiveString pipelineName, GoDashboardPipeline pipeline) {
+    }
+
+    /**
+     * @param reload true if the whole dashboard should be fetched again, in which case there are no other changes
+     */
+    record Changes(boolean reload, List<Change> pipelines) {
+        boolean isEmpty() {
+            return !reload && pipelines.isEmpty();
+        }
+    }
+}
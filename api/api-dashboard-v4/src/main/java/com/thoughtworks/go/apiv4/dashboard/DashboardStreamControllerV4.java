@@ -0,0 +1,189 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.apiv4.dashboard;
+
+import com.thoughtworks.go.api.ApiController;
+import com.thoughtworks.go.api.ApiVersion;
+import com.thoughtworks.go.api.base.JsonOutputWriter;
+import com.thoughtworks.go.api.spring.ApiAuthenticationHelper;
+import com.thoughtworks.go.apiv4.dashboard.representers.PipelineRepresenter;
+import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.server.domain.user.PipelineSelections;
+import com.thoughtworks.go.server.service.GoDashboardService;
+import com.thoughtworks.go.server.service.PipelineSelectionsService;
+import com.thoughtworks.go.spark.GlobalExceptionMapper;
+import com.thoughtworks.go.spark.RequestContext;
+import com.thoughtworks.go.spark.Routes;
+import com.thoughtworks.go.spark.spring.SparkSpringController;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.Semaphore;
+
+import static com.thoughtworks.go.server.domain.user.DashboardFilter.DEFAULT_NAME;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static spark.Spark.*;
+
+/**
+ * Streams changes to the dashboard as server-sent events, so that a dashboard which stays open only has to fetch the
+ * whole of it once. Each event is one of:
+ * <ul>
+ * <li>{@code pipeline}: a pipeline changed; the data is the pipeline, as it appears in the dashboard API</li>
+ * <li>{@code pipeline_removed}: a pipeline is no longer on the dashboard</li>
+ * <li>{@code reload}: the whole dashboard should be fetched again; this is the first event of every stream, since the
+ * dashboard may have changed after the client last fetched it, and is sent again when the configuration changes</li>
+ * </ul>
+ * A stream is closed after a while, and the client is expected to reconnect (as {@code EventSource} does).
+ * <p>
+ * A stream holds its request thread while it is open, taking it away from the server's other requests. The number of
+ * open streams is therefore capped well below the size of the server's thread pool, by
+ * {@link SystemEnvironment#DASHBOARD_STREAM_MAX_CONNECTIONS}; dashboards over the cap are told to keep polling.
+ */
+@Component
+public class DashboardStreamControllerV4 extends ApiController implements SparkSpringController {
+    static final String EVENT_STREAM = "text/event-stream";
+    private static final long HEARTBEAT_INTERVAL_IN_MILLIS = SECONDS.toMillis(15);
+    private static final long RETRY_INTERVAL_IN_MILLIS = SECONDS.toMillis(5);
+
+    private static final String COOKIE_NAME = "selected_pipelines";
+    private static final String VIEW_NAME = "viewName";
+
+    private final ApiAuthenticationHelper apiAuthenticationHelper;
+    private final PipelineSelectionsService pipelineSelectionsService;
+    private final GoDashboardService goDashboardService;
+    private final Semaphore connections;
+    private final long maxDurationInMillis;
+
+    @Autowired
+    public DashboardStreamControllerV4(ApiAuthenticationHelper apiAuthenticationHelper, PipelineSelectionsService pipelineSelectionsService,
+                                       GoDashboardService goDashboardService, SystemEnvironment systemEnvironment) {
+        super(ApiVersion.v4);
+        this.apiAuthenticationHelper = apiAuthenticationHelper;
+        this.pipelineSelectionsService = pipelineSelectionsService;
+        this.goDashboardService = goDashboardService;
+        this.connections = new Semaphore(systemEnvironment.get(SystemEnvironment.DASHBOARD_STREAM_MAX_CONNECTIONS));
+        this.maxDurationInMillis = systemEnvironment.get(SystemEnvironment.DASHBOARD_STREAM_MAX_DURATION_IN_MILLIS);
+    }
+
+    @Override
+    public String controllerBasePath() {
+        return Routes.Dashboard.STREAM;
+    }
+
+    @Override
+    public void setupRoutes(GlobalExceptionMapper exceptionMapper) {
+        path(controllerBasePath(), () -> {
+            // EventSource cannot send a versioned Accept header, so this does not insist on one
+            before("", this::setContentType);
+            before("", apiAuthenticationHelper::checkUserAnd403);
+
+            get("", this::stream);
+        });
+    }
+
+    public Object stream(Request request, Response response) throws IOException {
+        if (!connections.tryAcquire()) {
+            response.header("Retry-After", String.valueOf(MILLISECONDS.toSeconds(RETRY_INTERVAL_IN_MILLIS)));
+            return renderMessage(response, 503, "Too many dashboards are streaming changes, please poll the dashboard instead.");
+        }
+
+        try {
+            Username username = currentUsername();
+            PipelineSelections personalization = pipelineSelectionsService.load(request.cookie(COOKIE_NAME), currentUserId(request));
+            DashboardStream stream = new DashboardStream(username, personalization.namedFilter(getViewName(request)), goDashboardService::allPipelines);
+
+            goDashboardService.addListener(stream);
+            try {
+                streamChanges(stream, username, RequestContext.requestContext(request), response);
+            } finally {
+                goDashboardService.removeListener(stream);
+            }
+        } finally {
+            connections.release();
+        }
+        return NOTHING;
+    }
+
+    private void streamChanges(DashboardStream stream, Username username, RequestContext requestContext, Response response) throws IOException {
+        response.raw().setCharacterEncoding("utf-8");
+        response.type(EVENT_STREAM);
+        response.header("Cache-Control", "no-cache");
+        response.header("X-Accel-Buffering", "no");
+
+        Writer writer = new OutputStreamWriter(response.raw().getOutputStream(), UTF_8);
+        writer.write("retry: " + RETRY_INTERVAL_IN_MILLIS + "\n\n");
+        writer.flush();
+
+        long deadline = System.currentTimeMillis() + maxDurationInMillis;
+        try {
+            for (long remaining = maxDurationInMillis; remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+                DashboardStream.Changes changes = stream.await(Math.min(HEARTBEAT_INTERVAL_IN_MILLIS, remaining));
+                if (changes.isEmpty()) {
+                    // lets proxies know the connection is in use, and lets us find out if the client went away
+                    writer.write(": heartbeat\n\n");
+                } else if (changes.reload()) {
+                    writeEvent(writer, "reload", "{}");
+                } else {
+                    for (DashboardStream.Change change : changes.pipelines()) {
+                        if (change.pipeline() == null) {
+                            writeEvent(writer, "pipeline_removed", pipelineNameJson(requestContext, change.pipelineName().toString()));
+                        } else {
+                            writeEvent(writer, "pipeline", PipelineRepresenter.toJSONFragment(change.pipeline(), username, requestContext));
+                        }
+                    }
+                }
+                writer.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.debug("Dashboard stream for user {} closed by the client", username.getUsername(), e);
+        }
+    }
+
+    private static String pipelineNameJson(RequestContext requestContext, String pipelineName) {
+        StringWriter json = new StringWriter();
+        new JsonOutputWriter(json, requestContext).forTopLevelObject(writer -> writer.add("name", pipelineName));
+        return json.toString();
+    }
+
+    static void writeEvent(Writer writer, String event, String data) throws IOException {
+        writer.write("event: ");
+        writer.write(event);
+        writer.write('\n');
+        for (String line : data.split("\\R")) {
+            writer.write("data: ");
+            writer.write(line);
+            writer.write('\n');
+        }
+        writer.write('\n');
+    }
+
+    private String getViewName(Request request) {
+        final String viewName = request.queryParams(VIEW_NAME);
+        return isBlank(viewName) ? DEFAULT_NAME : viewName;
+    }
+}
@@ -15,12 +15,29 @@
  */
 package com.thoughtworks.go.apiv4.dashboard.representers;
 
+import com.thoughtworks.go.api.base.OutputListWriter;
 import com.thoughtworks.go.api.base.OutputWriter;
+import com.thoughtworks.go.server.dashboard.GoDashboardPipeline;
+import com.thoughtworks.go.spark.RequestContext;
 import com.thoughtworks.go.spark.Routes;
 
+import java.util.function.BiConsumer;
+
 public class DashboardRepresenter {
 
     public static void toJSON(OutputWriter jsonOutputWriter, DashboardFor dashboardFor) {
+        toJSON(jsonOutputWriter, dashboardFor, (listWriter, pipeline) -> listWriter.addChild(childItemWriter -> PipelineRepresenter.toJSON(childItemWriter, pipeline, dashboardFor.getUsername())));
+    }
+
+    /**
+     * Splices in the pipelines as they were rendered for earlier requests, rendering only the pipelines which changed
+     * since, or which were not rendered for a user with the same permissions yet.
+     */
+    public static void toJSON(OutputWriter jsonOutputWriter, DashboardFor dashboardFor, RequestContext requestContext) {
+        toJSON(jsonOutputWriter, dashboardFor, (listWriter, pipeline) -> listWriter.addRawJson(PipelineRepresenter.toJSONFragment(pipeline, dashboardFor.getUsername(), requestContext)));
+    }
+
+    private static void toJSON(OutputWriter jsonOutputWriter, DashboardFor dashboardFor, BiConsumer<OutputListWriter, GoDashboardPipeline> pipelineWriter) {
         jsonOutputWriter
                 .addLinks(linksWriter -> linksWriter.addLink("self", Routes.Dashboard.SELF)
                         .addAbsoluteLink("doc", Routes.Dashboard.DOC))
@@ -32,6 +49,6 @@ public class DashboardRepresenter {
                         .addChildList("environments", listWriter -> dashboardFor.getEnvironments().forEach(group -> listWriter.addChild(childItemWriter -> DashboardGroupRepresenter.toJSON(childItemWriter, group, dashboardFor.getUsername()))))
 
                         .addChildList("pipelines", listWriter -> dashboardFor.getPipelines()
-                                    .forEach(pipeline -> listWriter.addChild(childItemWriter -> PipelineRepresenter.toJSON(childItemWriter, pipeline, dashboardFor.getUsername())))));
+                                    .forEach(pipeline -> pipelineWriter.accept(listWriter, pipeline))));
     }
 }
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.apiv4.dashboard.representers;
 
+import com.thoughtworks.go.api.base.JsonOutputWriter;
 import com.thoughtworks.go.api.base.OutputLinkWriter;
 import com.thoughtworks.go.api.base.OutputListWriter;
 import com.thoughtworks.go.api.base.OutputWriter;
@@ -22,10 +23,13 @@ import com.thoughtworks.go.config.TrackingTool;
 import com.thoughtworks.go.config.remote.RepoConfigOrigin;
 import com.thoughtworks.go.domain.PipelinePauseInfo;
 import com.thoughtworks.go.presentation.pipelinehistory.EmptyPipelineInstanceModel;
+import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModel;
 import com.thoughtworks.go.server.dashboard.GoDashboardPipeline;
 import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.spark.RequestContext;
 import com.thoughtworks.go.spark.Routes;
 
+import java.io.StringWriter;
 import java.util.function.Consumer;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -67,6 +71,39 @@ public class PipelineRepresenter {
         jsonOutputWriter.addChild("_embedded", childWriter -> childWriter.addChildList("instances", writeInstances(model, username)));
     }
 
+    /**
+     * Renders the pipeline as a standalone JSON object, reusing an earlier rendering of the same pipeline when it was
+     * for the same server URL and for a user who could do the same things with the pipeline.
+     */
+    public static String toJSONFragment(GoDashboardPipeline model, Username username, RequestContext requestContext) {
+        return model.renderedFragment(fragmentKey(model, username, requestContext), () -> {
+            StringWriter writer = new StringWriter(1024);
+            new JsonOutputWriter(writer, requestContext).forTopLevelObject(outputWriter -> toJSON(outputWriter, model, username));
+            return writer.toString();
+        });
+    }
+
+    private static String fragmentKey(GoDashboardPipeline model, Username username, RequestContext requestContext) {
+        String usernameString = username.getUsername().toString();
+        StringBuilder key = new StringBuilder(requestContext.urlFor("")).append('|')
+                .append(flag(model.isPipelineOperator(usernameString)))
+                .append(flag(model.canBeAdministeredBy(usernameString)))
+                .append(flag(model.canBeOperatedBy(usernameString)));
+
+        model.model().getActivePipelineInstances().stream()
+                .filter(instanceModel -> !(instanceModel instanceof EmptyPipelineInstanceModel))
+                .forEach(instanceModel -> instanceModel.getStageHistory().forEach(stage -> {
+                    for (StageInstanceModel current = stage; current != null; current = current.getPreviousStage()) {
+                        key.append(flag(model.isStageOperator(current.getName(), usernameString)));
+                    }
+                }));
+        return key.toString();
+    }
+
+    private static char flag(boolean value) {
+        return value ? '1' : '0';
+    }
+
     private static Consumer<OutputListWriter> writeInstances(GoDashboardPipeline model, Username username) {
         return listWriter -> model.model().getActivePipelineInstances().stream()
                 .filter(instanceModel -> !(instanceModel instanceof EmptyPipelineInstanceModel))
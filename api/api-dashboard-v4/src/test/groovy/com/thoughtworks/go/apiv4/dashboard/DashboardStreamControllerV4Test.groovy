@@ -0,0 +1,159 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.apiv4.dashboard
+
+import com.thoughtworks.go.api.SecurityTestTrait
+import com.thoughtworks.go.api.spring.ApiAuthenticationHelper
+import com.thoughtworks.go.config.CaseInsensitiveString
+import com.thoughtworks.go.config.security.Permissions
+import com.thoughtworks.go.config.security.permissions.EveryonePermission
+import com.thoughtworks.go.config.security.users.Everyone
+import com.thoughtworks.go.config.security.users.NoOne
+import com.thoughtworks.go.server.dashboard.GoDashboardCacheListener
+import com.thoughtworks.go.server.domain.user.ExcludesFilter
+import com.thoughtworks.go.server.domain.user.Filters
+import com.thoughtworks.go.server.domain.user.PipelineSelections
+import com.thoughtworks.go.server.service.GoDashboardService
+import com.thoughtworks.go.server.service.PipelineSelectionsService
+import com.thoughtworks.go.spark.ControllerTrait
+import com.thoughtworks.go.spark.NormalUserSecurity
+import com.thoughtworks.go.spark.SecurityServiceTrait
+import com.thoughtworks.go.util.SystemEnvironment
+import groovy.json.JsonSlurper
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Nested
+import org.junit.jupiter.api.Test
+import org.mockito.Mock
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.junit.jupiter.MockitoSettings
+import org.mockito.quality.Strictness
+
+import static com.thoughtworks.go.server.domain.user.DashboardFilter.DEFAULT_NAME
+import static org.assertj.core.api.Assertions.assertThat
+import static org.mockito.ArgumentMatchers.any
+import static org.mockito.ArgumentMatchers.isNull
+import static org.mockito.Mockito.*
+
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DashboardStreamControllerV4Test implements SecurityServiceTrait, ControllerTrait<DashboardStreamControllerV4> {
+  @Mock
+  private GoDashboardService goDashboardService
+
+  @Mock
+  private PipelineSelectionsService pipelineSelectionsService
+
+  @Mock
+  private SystemEnvironment systemEnvironment
+
+  @BeforeEach
+  void setup() {
+    when(systemEnvironment.get(SystemEnvironment.DASHBOARD_STREAM_MAX_CONNECTIONS)).thenReturn(1)
+    when(systemEnvironment.get(SystemEnvironment.DASHBOARD_STREAM_MAX_DURATION_IN_MILLIS)).thenReturn(1000L)
+  }
+
+  @Override
+  DashboardStreamControllerV4 createControllerInstance() {
+    new DashboardStreamControllerV4(new ApiAuthenticationHelper(securityService, goConfigService), pipelineSelectionsService, goDashboardService, systemEnvironment)
+  }
+
+  @Nested
+  class Stream {
+
+    @Nested
+    class Security implements SecurityTestTrait, NormalUserSecurity {
+
+      @Override
+      String getControllerMethodUnderTest() {
+        return "stream"
+      }
+
+      @Override
+      void makeHttpCall() {
+        get(controller.controllerBasePath())
+      }
+    }
+
+    @Nested
+    class AsAuthorizedUser {
+      def noOneCanView = new Permissions(NoOne.INSTANCE, Everyone.INSTANCE, Everyone.INSTANCE, EveryonePermission.INSTANCE)
+
+      @Test
+      void 'should start with a reload and then stream the changes the user may see'() {
+        loginAsUser()
+        def selections = new PipelineSelections(new Filters([new ExcludesFilter(DEFAULT_NAME, [new CaseInsensitiveString('hidden')], Set.of())]), new Date(), 1L)
+        when(pipelineSelectionsService.load((String) isNull(), any(Long.class))).thenReturn(selections)
+
+        GoDashboardCacheListener listener = null
+        doAnswer({ InvocationOnMock invocation -> listener = invocation.getArgument(0) }).when(goDashboardService).addListener(any())
+        def updated = GoDashboardPipelineMother.dashboardPipeline('up42')
+        when(goDashboardService.allPipelines()).thenAnswer({
+          // the stream is reloading, so changes from now on are streamed once it is done
+          Thread.start {
+            listener.pipelineUpdated(updated)
+            listener.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('hidden'))
+            listener.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('secret', 'group1', noOneCanView))
+            listener.pipelineRemoved(new CaseInsensitiveString('secret'))
+            listener.pipelineRemoved(new CaseInsensitiveString('other'))
+          }
+          [
+            GoDashboardPipelineMother.dashboardPipeline('up42'),
+            GoDashboardPipelineMother.dashboardPipeline('other'),
+            GoDashboardPipelineMother.dashboardPipeline('secret', 'group1', noOneCanView)
+          ]
+        })
+
+        get(controller.controllerBasePath())
+
+        assertThatResponse().isOk()
+        assertThat(response.contentType).startsWith(DashboardStreamControllerV4.EVENT_STREAM)
+        assertThat(response.contentAsString).startsWith("retry: 5000\n\n")
+        def events = events(response.contentAsString)
+        assertThat(events*.event).containsExactly('reload', 'pipeline', 'pipeline_removed')
+        assertThat(events[1].data.name).isEqualTo('up42')
+        assertThat(events[2].data).isEqualTo([name: 'other'])
+        assertThat(response.contentAsString).doesNotContain('hidden').doesNotContain('secret')
+        verify(goDashboardService).removeListener(listener)
+      }
+
+      @Test
+      void 'should ask the client to poll instead once too many streams are open'() {
+        loginAsUser()
+        when(systemEnvironment.get(SystemEnvironment.DASHBOARD_STREAM_MAX_CONNECTIONS)).thenReturn(0)
+
+        get(controller.controllerBasePath())
+
+        assertThatResponse()
+          .hasStatus(503)
+          .hasContentType(controller.mimeType)
+          .hasHeader('Retry-After', '5')
+          .hasJsonMessage('Too many dashboards are streaming changes, please poll the dashboard instead.')
+        verify(goDashboardService, never()).addListener(any())
+      }
+
+      private static List<Map> events(String body) {
+        body.split('\n\n')
+          .findAll { it.startsWith('event: ') }
+          .collect { block ->
+            def lines = block.readLines()
+            [
+              event: lines.first().substring('event: '.length()),
+              data : new JsonSlurper().parseText(lines.tail().collect { it.substring('data: '.length()) }.join('\n'))
+            ]
+          }
+      }
+    }
+  }
+}
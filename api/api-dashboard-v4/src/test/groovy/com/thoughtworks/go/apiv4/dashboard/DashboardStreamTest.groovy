@@ -0,0 +1,147 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.apiv4.dashboard
+
+import com.thoughtworks.go.config.CaseInsensitiveString
+import com.thoughtworks.go.config.security.Permissions
+import com.thoughtworks.go.config.security.permissions.EveryonePermission
+import com.thoughtworks.go.config.security.users.Everyone
+import com.thoughtworks.go.config.security.users.NoOne
+import com.thoughtworks.go.server.domain.Username
+import com.thoughtworks.go.server.dashboard.GoDashboardPipeline
+import com.thoughtworks.go.server.domain.user.ExcludesFilter
+import com.thoughtworks.go.server.domain.user.Filters
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+import static org.assertj.core.api.Assertions.assertThat
+
+class DashboardStreamTest {
+  def user = new Username(new CaseInsensitiveString('bob'))
+  def noOneCanView = new Permissions(NoOne.INSTANCE, Everyone.INSTANCE, Everyone.INSTANCE, EveryonePermission.INSTANCE)
+  List<GoDashboardPipeline> dashboard = []
+  def stream = new DashboardStream(user, new ExcludesFilter('Default', [new CaseInsensitiveString('hidden')], Set.of()), { dashboard })
+
+  @BeforeEach
+  void takeInitialReload() {
+    assertThat(stream.await(0).reload()).isTrue()
+  }
+
+  @Test
+  void 'should start by asking for a reload, to catch up with changes made since the client fetched the dashboard'() {
+    def fresh = new DashboardStream(user, Filters.WILDCARD_FILTER, { dashboard })
+    fresh.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('up42'))
+
+    def changes = fresh.await(0)
+
+    assertThat(changes.reload()).isTrue()
+    assertThat(changes.pipelines()).isEmpty()
+  }
+
+  @Test
+  void 'should only keep the latest change of each pipeline'() {
+    def first = GoDashboardPipelineMother.dashboardPipeline('up42')
+    def other = GoDashboardPipelineMother.dashboardPipeline('other')
+    def latest = GoDashboardPipelineMother.dashboardPipeline('up42')
+
+    stream.pipelineUpdated(first)
+    stream.pipelineUpdated(other)
+    stream.pipelineUpdated(latest)
+    def changes = stream.await(0)
+
+    assertThat(changes.reload()).isFalse()
+    assertThat(changes.pipelines()*.pipeline()).containsExactly(other, latest)
+    assertThat(stream.await(0).isEmpty()).isTrue()
+  }
+
+  @Test
+  void 'should leave out pipelines the user cannot view or has filtered out'() {
+    stream.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('secret', 'group1', noOneCanView))
+    stream.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('hidden'))
+
+    assertThat(stream.await(0).isEmpty()).isTrue()
+  }
+
+  @Test
+  void 'should tell about removed pipelines'() {
+    stream.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('up42'))
+    stream.pipelineRemoved(new CaseInsensitiveString('up42'))
+
+    def changes = stream.await(0)
+
+    assertThat(changes.pipelines()).containsExactly(new DashboardStream.Change(new CaseInsensitiveString('up42'), null))
+  }
+
+  @Test
+  void 'should tell about removed pipelines which were on the dashboard when the client reloaded'() {
+    dashboard.add(GoDashboardPipelineMother.dashboardPipeline('up42'))
+    stream.allPipelinesReplaced()
+    assertThat(stream.await(0).reload()).isTrue()
+
+    stream.pipelineRemoved(new CaseInsensitiveString('up42'))
+
+    assertThat(stream.await(0).pipelines()).containsExactly(new DashboardStream.Change(new CaseInsensitiveString('up42'), null))
+  }
+
+  @Test
+  void 'should not name removed pipelines the client was never shown'() {
+    dashboard.add(GoDashboardPipelineMother.dashboardPipeline('secret', 'group1', noOneCanView))
+    dashboard.add(GoDashboardPipelineMother.dashboardPipeline('hidden'))
+    stream.allPipelinesReplaced()
+    stream.await(0)
+
+    stream.pipelineRemoved(new CaseInsensitiveString('secret'))
+    stream.pipelineRemoved(new CaseInsensitiveString('hidden'))
+    stream.pipelineRemoved(new CaseInsensitiveString('never-seen'))
+
+    assertThat(stream.await(0).isEmpty()).isTrue()
+  }
+
+  @Test
+  void 'should tell that a pipeline was removed when the user can no longer view it'() {
+    stream.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('up42'))
+    stream.await(0)
+
+    stream.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('up42', 'group1', noOneCanView))
+
+    assertThat(stream.await(0).pipelines()).containsExactly(new DashboardStream.Change(new CaseInsensitiveString('up42'), null))
+  }
+
+  @Test
+  void 'should ask for a reload instead of individual changes when all pipelines are replaced'() {
+    stream.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('up42'))
+    stream.allPipelinesReplaced()
+    stream.pipelineUpdated(GoDashboardPipelineMother.dashboardPipeline('other'))
+
+    def changes = stream.await(0)
+
+    assertThat(changes.reload()).isTrue()
+    assertThat(changes.pipelines()).isEmpty()
+  }
+
+  @Test
+  void 'should wake up a waiting stream when a pipeline changes'() {
+    def pipeline = GoDashboardPipelineMother.dashboardPipeline('up42')
+    Thread.start {
+      Thread.sleep(50)
+      stream.pipelineUpdated(pipeline)
+    }
+
+    def changes = stream.await(10_000)
+
+    assertThat(changes.pipelines()*.pipeline()).containsExactly(pipeline)
+  }
+}
@@ -23,6 +23,7 @@ import com.thoughtworks.go.config.security.users.Everyone
 import com.thoughtworks.go.server.dashboard.GoDashboardEnvironment
 import com.thoughtworks.go.server.dashboard.GoDashboardPipelineGroup
 import com.thoughtworks.go.server.domain.Username
+import com.thoughtworks.go.spark.mocks.TestRequestContext
 import com.thoughtworks.go.spark.util.SecureRandom
 import org.junit.jupiter.api.Test
 
@@ -79,4 +80,19 @@ class DashboardRepresenterTest {
 
     assertThat(actualJson._personalization).isEqualTo(personalizationEtag)
   }
+
+  @Test
+  void 'renders the same dashboard when splicing in pre-rendered pipelines'() {
+    def user = new Username(new CaseInsensitiveString(SecureRandom.hex()))
+    def permissions = new Permissions(Everyone.INSTANCE, Everyone.INSTANCE, Everyone.INSTANCE, EveryonePermission.INSTANCE)
+    def group = new GoDashboardPipelineGroup('group1', permissions, true)
+    group.addPipeline(GoDashboardPipelineMother.dashboardPipeline('pipeline1'))
+    group.addPipeline(GoDashboardPipelineMother.dashboardPipeline('pipeline2'))
+    def dashboardFor = new DashboardFor([group], [], user, "sha256hash")
+
+    def expectedJson = toObject({ DashboardRepresenter.toJSON(it, dashboardFor) })
+
+    assertThatJson(toObject({ DashboardRepresenter.toJSON(it, dashboardFor, new TestRequestContext()) })).isEqualTo(expectedJson)
+    assertThatJson(toObject({ DashboardRepresenter.toJSON(it, dashboardFor, new TestRequestContext()) })).isEqualTo(expectedJson)
+  }
 }
@@ -23,6 +23,7 @@ import com.thoughtworks.go.config.remote.RepoConfigOrigin
 import com.thoughtworks.go.config.security.Permissions
 import com.thoughtworks.go.config.security.permissions.EveryonePermission
 import com.thoughtworks.go.config.security.permissions.NoOnePermission
+import com.thoughtworks.go.config.security.users.AllowedUsers
 import com.thoughtworks.go.config.security.users.Everyone
 import com.thoughtworks.go.config.security.users.NoOne
 import com.thoughtworks.go.helper.MaterialConfigsMother
@@ -30,6 +31,7 @@ import com.thoughtworks.go.helper.PipelineConfigMother
 import com.thoughtworks.go.server.dashboard.Counter
 import com.thoughtworks.go.server.dashboard.GoDashboardPipeline
 import com.thoughtworks.go.server.domain.Username
+import com.thoughtworks.go.spark.mocks.TestRequestContext
 import com.thoughtworks.go.spark.util.SecureRandom
 import org.junit.jupiter.api.Nested
 import org.junit.jupiter.api.Test
@@ -37,6 +39,7 @@ import org.junit.jupiter.api.Test
 import static com.thoughtworks.go.api.base.JsonUtils.toObject
 import static com.thoughtworks.go.helpers.PipelineModelMother.pipeline_model
 import static net.javacrumbs.jsonunit.assertj.JsonAssertions.assertThatJson
+import static org.assertj.core.api.Assertions.assertThat
 import static org.mockito.Mockito.mock
 import static org.mockito.Mockito.when
 
@@ -108,6 +111,26 @@ class PipelineRepresenterTest {
     assertThatJson(json).node("from_config_repo").isEqualTo(false)
   }
 
+  @Test
+  void 'should reuse a rendered fragment only for users with the same permissions on the pipeline'() {
+    def counter = mock(Counter.class)
+    when(counter.getNext()).thenReturn(1l)
+    def operators = new AllowedUsers(Set.of('operator', 'another-operator'), Set.of())
+    def permissions = new Permissions(Everyone.INSTANCE, operators, NoOne.INSTANCE, NoOnePermission.INSTANCE)
+    def pipeline = new GoDashboardPipeline(pipeline_model('p1', 'p1l1'), permissions, "grp", counter, PipelineConfigMother.pipelineConfig("p1"))
+    def requestContext = new TestRequestContext()
+    def operator = new Username(new CaseInsensitiveString('operator'))
+    def anotherOperator = new Username(new CaseInsensitiveString('another-operator'))
+    def viewer = new Username(new CaseInsensitiveString('viewer'))
+
+    def operatorFragment = PipelineRepresenter.toJSONFragment(pipeline, operator, requestContext)
+
+    assertThat(PipelineRepresenter.toJSONFragment(pipeline, anotherOperator, requestContext)).isSameAs(operatorFragment)
+    assertThatJson(operatorFragment).isEqualTo(toObject({ PipelineRepresenter.toJSON(it, pipeline, operator) }))
+    assertThatJson(operatorFragment).node("can_pause").isEqualTo(true)
+    assertThatJson(PipelineRepresenter.toJSONFragment(pipeline, viewer, requestContext)).node("can_pause").isEqualTo(false)
+  }
+
   @Test
   void 'should render pause info'() {
     def counter = mock(Counter.class)
@@ -28,6 +28,7 @@ import com.thoughtworks.go.spark.GlobalExceptionMapper;
 import com.thoughtworks.go.spark.Routes;
 import com.thoughtworks.go.spark.spring.SparkSpringController;
 import org.apache.commons.lang3.Strings;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import spark.Request;
@@ -130,7 +131,17 @@ public class InternalAgentControllerV1 extends ApiController implements SparkSpr
         GetWorkRequest workRequest = GetWorkRequestRepresenter.fromJSON(request.body());
         ensureAgentIsMakingARequestForItself(workRequest, request);
 
-        Work work = buildRepositoryMessageProducer.getWork(workRequest.getAgentRuntimeInfo());
+        long waitMillis = NumberUtils.toLong(request.headers(StandardHeaders.REQUEST_WORK_WAIT_MILLIS), 0L);
+        Work work = null;
+        if (waitMillis > 0) {
+            work = buildRepositoryMessageProducer.awaitWork(workRequest.getAgentRuntimeInfo(), waitMillis);
+            if (work != null) {
+                response.header(StandardHeaders.RESPONSE_WORK_WAITED, "true");
+            }
+        }
+        if (work == null) {
+            work = buildRepositoryMessageProducer.getWork(workRequest.getAgentRuntimeInfo());
+        }
 
         return WorkRepresenter.toJSON(work);
     }
@@ -335,6 +335,53 @@ class InternalAgentControllerV1Test implements ControllerTrait<InternalAgentCont
               .hasBodyContaining(WorkRepresenter.toJSON(new NoWork()))
     }
 
+    @Test
+    void 'should wait for work when the agent asks the server to'() {
+      def agent = new Agent("uuid", "localhost", "176.19.4.1")
+      def runtimeInfo = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0", () -> "Mac OS X")
+
+      when(buildRepositoryMessageProducer.awaitWork(runtimeInfo, 20000L)).thenReturn(new NoWork())
+
+      def headers = [
+              'accept'                 : controller.mimeType,
+              'content-type'           : 'application/json',
+              'X-Agent-GUID'           : 'uuid',
+              'X-GoCD-Work-Wait-Millis': '20000'
+      ]
+      postWithApiHeader(controller.controllerPath("/get_work"), headers, GetWorkRequestRepresenter.toJSON(
+              new GetWorkRequest(runtimeInfo)))
+
+      assertThatResponse()
+              .isOk()
+              .hasHeader('X-GoCD-Work-Waited', 'true')
+              .hasBodyContaining(WorkRepresenter.toJSON(new NoWork()))
+    }
+
+    @Test
+    void 'should answer straight away when too many agents are already waiting for work'() {
+      def agent = new Agent("uuid", "localhost", "176.19.4.1")
+      def runtimeInfo = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0", () -> "Mac OS X")
+
+      when(buildRepositoryMessageProducer.awaitWork(runtimeInfo, 20000L)).thenReturn(null)
+      when(buildRepositoryMessageProducer.getWork(runtimeInfo)).thenReturn(new NoWork())
+
+      def headers = [
+              'accept'                 : controller.mimeType,
+              'content-type'           : 'application/json',
+              'X-Agent-GUID'           : 'uuid',
+              'X-GoCD-Work-Wait-Millis': '20000'
+      ]
+      postWithApiHeader(controller.controllerPath("/get_work"), headers, GetWorkRequestRepresenter.toJSON(
+              new GetWorkRequest(runtimeInfo)))
+
+      assertThatResponse()
+              .isOk()
+              .doesNotContainHeader('X-GoCD-Work-Waited')
+              .hasBodyContaining(WorkRepresenter.toJSON(new NoWork()))
+    }
+
     @Test
     void 'ensure agent is making a request for itself'() {
       def agent = new Agent("different_agent_uuid", "localhost", "176.19.4.1")
@@ -23,8 +23,10 @@ public interface StandardHeaders {
 
     String REQUEST_UUID = "X-Agent-GUID";
     String REQUEST_AUTH = "Authorization";
+    String REQUEST_WORK_WAIT_MILLIS = "X-GoCD-Work-Wait-Millis";
 
     String RESPONSE_CONTENT_MD5 = "Content-MD5";
+    String RESPONSE_WORK_WAITED = "X-GoCD-Work-Waited";
 
     String RESPONSE_AGENT_CONTENT_MD5 = "Agent-Content-MD5";
     String RESPONSE_AGENT_LAUNCHER_CONTENT_MD5 = "Agent-Launcher-Content-MD5";
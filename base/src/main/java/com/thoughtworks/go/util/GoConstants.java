@@ -51,4 +51,7 @@ public class GoConstants {
     public static final String REGULAR_MULTIPART_FILENAME = "file";
     public static final String CHECKSUM_MULTIPART_FILENAME = "file_checksum";
     public static final String ZIP_MULTIPART_FILENAME = "zipfile";
+    public static final String ZIP_STREAM_CONTENT_TYPE = "application/zip";
+    // the leading slash keeps it apart from the entries for the uploaded files, which are all relative
+    public static final String ZIP_STREAM_CHECKSUM_ENTRY = "/md5.checksum";
 }
@@ -0,0 +1,392 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.util;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes a zip archive to a stream, deflating the contents of files on several threads at once.
+ * <p>
+ * Files are read in blocks, and each block is deflated on its own and flushed to a byte boundary, so the deflated
+ * blocks of a file can be written one after the other as a single deflate stream (as {@code pigz --independent} does).
+ * Blocks are written out in order as soon as they are deflated, and at most {@code maxPendingBlocks} are held in memory
+ * at any time, so archives of any size can be streamed. The MD5 of each file is computed while it is read.
+ * <p>
+ * Entries are written with data descriptors, since their sizes are not known up front, which means the archive can be
+ * read by {@link java.util.zip.ZipInputStream} as it arrives.
+ */
+public class ParallelZipWriter implements AutoCloseable {
+    static final int BLOCK_SIZE = 128 * 1024;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x08;
+    private static final int FLAG_UTF8 = 0x800;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final byte[] FINAL_EMPTY_BLOCK = deflate(new byte[0], 0, Deflater.DEFAULT_COMPRESSION, true);
+
+    private final OutputStream out;
+    private final int level;
+    private final ExecutorService compressors;
+    private final int maxPendingBlocks;
+    private final Deque<Piece> pending = new ArrayDeque<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private long written;
+    private boolean finished;
+
+    /**
+     * @param out              the stream to write the archive to, which is not closed by this writer
+     * @param level            the compression level, as used by {@link Deflater}
+     * @param compressors      the threads to deflate blocks on
+     * @param maxPendingBlocks the most blocks to read ahead of those written out
+     */
+    public ParallelZipWriter(OutputStream out, int level, ExecutorService compressors, int maxPendingBlocks) {
+        this.out = out;
+        this.level = level;
+        this.compressors = compressors;
+        this.maxPendingBlocks = Math.max(1, maxPendingBlocks);
+    }
+
+    /**
+     * Adds a file, or a directory along with everything in it, to the root of the archive, naming entries the same way
+     * {@link ZipUtil#zip(File, OutputStream, int)} does.
+     *
+     * @return the MD5 of each file added, keyed by the name of its entry
+     */
+    public Map<String, String> add(File source) throws IOException {
+        Map<String, String> checksums = new LinkedHashMap<>();
+        add("", source, checksums);
+        return checksums;
+    }
+
+    private void add(String parent, File source, Map<String, String> checksums) throws IOException {
+        String name = parent.isEmpty() ? source.getName() : parent + "/" + source.getName();
+        if (source.isDirectory()) {
+            enqueue(new Header(new Entry(name + "/", dosTime(source.lastModified()), false)));
+            File[] children = source.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    add(name, child, checksums);
+                }
+            }
+        } else {
+            try (InputStream in = new FileInputStream(source)) {
+                checksums.put(name, add(name, source.lastModified(), in));
+            }
+        }
+    }
+
+    /**
+     * Adds an entry with the contents of the given stream.
+     *
+     * @return the MD5 of the contents
+     */
+    public String add(String name, long lastModified, InputStream in) throws IOException {
+        Entry entry = new Entry(name, dosTime(lastModified), true);
+        enqueue(new Header(entry));
+
+        MessageDigest md5 = md5();
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BLOCK_SIZE];
+        int read;
+        while ((read = in.readNBytes(buffer, 0, BLOCK_SIZE)) > 0) {
+            md5.update(buffer, 0, read);
+            crc.update(buffer, 0, read);
+            entry.size += read;
+            byte[] block = Arrays.copyOf(buffer, read);
+            enqueue(new Block(entry, compressors.submit(() -> deflate(block, block.length, level, false))));
+        }
+        entry.crc = crc.getValue();
+        enqueue(new Descriptor(entry));
+        return HexFormat.of().formatHex(md5.digest());
+    }
+
+    /**
+     * Writes out all pending blocks and the central directory of the archive. Nothing may be added afterwards.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+
+        long centralDirectoryOffset = written;
+        for (Entry entry : entries) {
+            write(centralDirectoryHeader(entry));
+        }
+        writeEndOfCentralDirectory(centralDirectoryOffset, written - centralDirectoryOffset);
+        out.flush();
+        finished = true;
+    }
+
+    /**
+     * Abandons any blocks which were not written out. The underlying stream is not closed.
+     */
+    @Override
+    public void close() {
+        for (Piece piece : pending) {
+            if (piece instanceof Block block) {
+                block.data.cancel(false);
+            }
+        }
+        pending.clear();
+        finished = true;
+    }
+
+    private void enqueue(Piece piece) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Cannot add to a zip which is already finished");
+        }
+        pending.add(piece);
+        while (pending.size() > maxPendingBlocks) {
+            writeNext();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        switch (pending.poll()) {
+            case Header header -> {
+                header.entry.offset = written;
+                entries.add(header.entry);
+                write(localHeader(header.entry));
+            }
+            case Block block -> {
+                byte[] data = await(block.data);
+                block.entry.compressedSize += data.length;
+                write(data);
+            }
+            case Descriptor descriptor -> {
+                descriptor.entry.compressedSize += FINAL_EMPTY_BLOCK.length;
+                write(FINAL_EMPTY_BLOCK);
+                write(dataDescriptor(descriptor.entry));
+            }
+            case null -> {
+            }
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        written += bytes.length;
+    }
+
+    private static byte[] await(Future<byte[]> data) throws IOException {
+        try {
+            return data.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress", e.getCause());
+        }
+    }
+
+    static byte[] deflate(byte[] input, int length, int level, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(input, 0, length);
+            if (last) {
+                deflater.finish();
+            }
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            int count;
+            do {
+                count = last ? deflater.deflate(buffer) : deflater.deflate(buffer, 0, buffer.length, Deflater.FULL_FLUSH);
+                deflated.write(buffer, 0, count);
+            } while (last ? !deflater.finished() : count == buffer.length);
+            return deflated.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] localHeader(Entry entry) {
+        ByteBuffer header = buffer(30 + entry.name.length);
+        header.putInt(0x04034b50);
+        header.putShort((short) VERSION);
+        header.putShort((short) entry.flags());
+        header.putShort((short) entry.method());
+        header.putInt(entry.dosTime);
+        header.putInt(0); // crc, sizes follow in the data descriptor
+        header.putInt(0);
+        header.putInt(0);
+        header.putShort((short) entry.name.length);
+        header.putShort((short) 0);
+        header.put(entry.name);
+        return header.array();
+    }
+
+    private static byte[] dataDescriptor(Entry entry) {
+        boolean zip64 = entry.compressedSize >= ZIP64_MAGIC || entry.size >= ZIP64_MAGIC;
+        ByteBuffer descriptor = buffer(zip64 ? 24 : 16);
+        descriptor.putInt(0x08074b50);
+        descriptor.putInt((int) entry.crc);
+        if (zip64) {
+            descriptor.putLong(entry.compressedSize);
+            descriptor.putLong(entry.size);
+        } else {
+            descriptor.putInt((int) entry.compressedSize);
+            descriptor.putInt((int) entry.size);
+        }
+        return descriptor.array();
+    }
+
+    private static byte[] centralDirectoryHeader(Entry entry) {
+        List<Long> zip64Fields = new ArrayList<>();
+        for (long field : new long[]{entry.size, entry.compressedSize, entry.offset}) {
+            if (field >= ZIP64_MAGIC) {
+                zip64Fields.add(field);
+            }
+        }
+        int extraLength = zip64Fields.isEmpty() ? 0 : 4 + 8 * zip64Fields.size();
+        int version = zip64Fields.isEmpty() ? VERSION : VERSION_ZIP64;
+
+        ByteBuffer header = buffer(46 + entry.name.length + extraLength);
+        header.putInt(0x02014b50);
+        header.putShort((short) version);
+        header.putShort((short) version);
+        header.putShort((short) entry.flags());
+        header.putShort((short) entry.method());
+        header.putInt(entry.dosTime);
+        header.putInt((int) entry.crc);
+        header.putInt((int) Math.min(entry.compressedSize, ZIP64_MAGIC));
+        header.putInt((int) Math.min(entry.size, ZIP64_MAGIC));
+        header.putShort((short) entry.name.length);
+        header.putShort((short) extraLength);
+        header.putShort((short) 0); // comment length
+        header.putShort((short) 0); // disk number
+        header.putShort((short) 0); // internal attributes
+        header.putInt(0); // external attributes
+        header.putInt((int) Math.min(entry.offset, ZIP64_MAGIC));
+        header.put(entry.name);
+        if (!zip64Fields.isEmpty()) {
+            header.putShort((short) 0x0001);
+            header.putShort((short) (8 * zip64Fields.size()));
+            zip64Fields.forEach(header::putLong);
+        }
+        return header.array();
+    }
+
+    private void writeEndOfCentralDirectory(long offset, long length) throws IOException {
+        int count = entries.size();
+        if (count >= ZIP64_MAGIC_COUNT || offset >= ZIP64_MAGIC || length >= ZIP64_MAGIC) {
+            long zip64EndOffset = written;
+            ByteBuffer zip64End = buffer(56 + 20);
+            zip64End.putInt(0x06064b50);
+            zip64End.putLong(44);
+            zip64End.putShort((short) VERSION_ZIP64);
+            zip64End.putShort((short) VERSION_ZIP64);
+            zip64End.putInt(0);
+            zip64End.putInt(0);
+            zip64End.putLong(count);
+            zip64End.putLong(count);
+            zip64End.putLong(length);
+            zip64End.putLong(offset);
+            zip64End.putInt(0x07064b50); // locator
+            zip64End.putInt(0);
+            zip64End.putLong(zip64EndOffset);
+            zip64End.putInt(1);
+            write(zip64End.array());
+        }
+
+        ByteBuffer end = buffer(22);
+        end.putInt(0x06054b50);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+        end.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+        end.putInt((int) Math.min(length, ZIP64_MAGIC));
+        end.putInt((int) Math.min(offset, ZIP64_MAGIC));
+        end.putShort((short) 0);
+        write(end.array());
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static int dosTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+            | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+        private final byte[] name;
+        private final int dosTime;
+        private final boolean deflated;
+        private long crc;
+        private long size;
+        private long compressedSize;
+        private long offset;
+
+        private Entry(String name, int dosTime, boolean deflated) {
+            this.name = name.getBytes(UTF_8);
+            this.dosTime = dosTime;
+            this.deflated = deflated;
+        }
+
+        private int flags() {
+            return deflated ? FLAG_UTF8 | FLAG_DATA_DESCRIPTOR : FLAG_UTF8;
+        }
+
+        private int method() {
+            return deflated ? Deflater.DEFLATED : 0;
+        }
+    }
+
+    private sealed interface Piece permits Header, Block, Descriptor {
+    }
+
+    private record Header(Entry entry) implements Piece {
+    }
+
+    private record Block(Entry entry, Future<byte[]> data) implements Piece {
+    }
+
+    private record Descriptor(Entry entry) implements Piece {
+    }
+}
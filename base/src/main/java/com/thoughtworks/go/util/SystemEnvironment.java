@@ -105,6 +105,8 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
 
     public static final String MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY = "material.update.idle.interval";
     private static final GoSystemProperty<Long> MATERIAL_UPDATE_IDLE_INTERVAL_IN_MILLIS = new GoLongSystemProperty(MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, SECONDS.toMillis(60));
+    public static final GoSystemProperty<Boolean> MATERIAL_UPDATE_ADAPTIVE_INTERVAL = new GoBooleanSystemProperty("material.update.adaptive.interval", false);
+    public static final GoSystemProperty<Long> MATERIAL_UPDATE_ADAPTIVE_MAX_INTERVAL_IN_MILLIS = new GoLongSystemProperty("material.update.adaptive.max.interval", MINUTES.toMillis(15));
 
     public static final GoSystemProperty<Integer> PLUGIN_LOCATION_MONITOR_INTERVAL_IN_SECONDS = new GoIntSystemProperty("pluginLocationMonitor.sleepTimeInSecs", -1);
     public static final String PLUGINS_PATH = "plugins";
@@ -128,6 +130,8 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Boolean> GO_SERVER_SESSION_COOKIE_SECURE = new GoBooleanSystemProperty("go.sessioncookie.secure", false);
     public static final GoSystemProperty<String> AGENT_EXTRA_PROPERTIES = new GoStringSystemProperty("gocd.agent.extra.properties", "");
     public static final GoSystemProperty<Long> JMS_LISTENER_BACKOFF_TIME_IN_MILLIS = new GoLongSystemProperty("go.jms.listener.backoff.time.in.milliseconds", SECONDS.toMillis(5));
+    public static final GoSystemProperty<String> GO_MESSAGING_SERVICE = new GoStringSystemProperty("go.messaging.service", "activemq");
+    public static final GoSystemProperty<Integer> IN_MEMORY_MESSAGING_BUFFER_SIZE = new GoIntSystemProperty("go.messaging.in.memory.buffer.size", 10_000);
 
     public static final GoSystemProperty<Integer> GO_SERVER_AUTHORIZATION_EXTENSION_CALLS_CACHE_TIMEOUT_IN_SECONDS = new GoIntSystemProperty("go.server.authorization.extension.calls.cache.timeout.in.secs", 60);
 
@@ -144,6 +148,9 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Long> GO_CONFIG_REPO_GC_EXPIRE_IN_HOURS = new GoLongSystemProperty("go.config.repo.gc.expire", 24L);
     public static final GoSystemProperty<Long> GO_CONFIG_REPO_GC_LOOSE_OBJECT_WARNING_THRESHOLD = new GoLongSystemProperty("go.config.repo.gc.warning.looseobject.threshold", 10000L);
     public static final GoSystemProperty<Boolean> GO_CONFIG_REPO_PERIODIC_GC = new GoBooleanSystemProperty("go.config.repo.gc.periodic", false);
+    public static final GoSystemProperty<Boolean> GO_CONFIG_REPO_ASYNC_COMMIT = new GoBooleanSystemProperty("go.config.repo.async.commit", false);
+    public static final GoSystemProperty<Long> GO_CONFIG_REPO_ASYNC_COMMIT_DELAY_IN_MILLIS = new GoLongSystemProperty("go.config.repo.async.commit.delay", 1000L);
+    public static final GoSystemProperty<Integer> GO_CONFIG_REPO_ASYNC_COMMIT_PACK_INTERVAL = new GoIntSystemProperty("go.config.repo.async.commit.pack.interval", 1000);
 
     public static final GoSystemProperty<Integer> GO_ELASTIC_PLUGIN_CREATE_AGENT_THREADS = new GoIntSystemProperty("go.elasticplugin.createagent.threads", 5);
     public static final GoSystemProperty<Integer> GO_ELASTIC_PLUGIN_SERVER_PING_THREADS = new GoIntSystemProperty("go.elasticplugin.serverping.threads", 1);
@@ -153,9 +160,11 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Boolean> AUTO_REGISTER_LOCAL_AGENT_ENABLED = new GoBooleanSystemProperty("go.auto.register.local.agent.enabled", true);
 
     public static final GoSystemProperty<Boolean> GO_SERVER_SHALLOW_CLONE = new GoBooleanSystemProperty("go.server.shallowClone", false);
+    public static final GoSystemProperty<Boolean> GO_SERVER_GIT_POLLER_IN_PROCESS = new GoBooleanSystemProperty("go.server.git.poller.inProcess", false);
 
     public static final GoSystemProperty<Integer> MAX_PENDING_AGENTS_ALLOWED = new GoIntSystemProperty("max.pending.agents.allowed", 100);
     public static final GoSystemProperty<Boolean> CHECK_AND_REMOVE_DUPLICATE_MODIFICATIONS = new GoBooleanSystemProperty("go.modifications.removeDuplicates", true);
+    public static final GoSystemProperty<Integer> MODIFICATIONS_INSERT_BATCH_SIZE = new GoIntSystemProperty("go.modifications.insert.batch.size", 1000);
     public static final GoSystemProperty<Boolean> GO_DIAGNOSTICS_MODE = new GoBooleanSystemProperty("go.diagnostics.mode", false);
 
     public static final GoSystemProperty<Integer> DEPENDENCY_MATERIAL_UPDATE_LISTENERS = new GoIntSystemProperty("dependency.material.check.threads", 3);
@@ -168,6 +177,26 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static final GoSystemProperty<Boolean> CONSOLE_OUT_TO_STDOUT = new GoBooleanSystemProperty("go.console.stdout", false);
     private static final GoSystemProperty<String> CONSOLE_LOG_CHARSET = new GoStringSystemProperty("go.console.log.charset", "utf-8");
     public static final GoSystemProperty<Integer> CONSOLE_LOG_MAX_LINE_LENGTH = new GoIntSystemProperty("go.console.log.max.line.length", 1_000_000);
+    public static final GoSystemProperty<Integer> CONSOLE_LOG_BROADCAST_THREADS = new GoIntSystemProperty("go.console.log.broadcast.threads", 4);
+    public static final GoSystemProperty<Integer> CONSOLE_LOG_SUBSCRIBER_MAX_PENDING_BYTES = new GoIntSystemProperty("go.console.log.subscriber.max.pending.bytes", 8 * 1024 * 1024);
+    public static final GoSystemProperty<Boolean> CONSOLE_LOG_LINE_INDEX_ENABLED = new GoBooleanSystemProperty("go.console.log.line.index.enabled", true);
+    public static final GoSystemProperty<Long> JOB_PLANS_FULL_RELOAD_INTERVAL_IN_MILLIS = new GoLongSystemProperty("go.job.plans.full.reload.interval", MINUTES.toMillis(5));
+    public static final GoSystemProperty<Long> GET_WORK_MAX_WAIT_IN_MILLIS = new GoLongSystemProperty("go.get.work.max.wait", SECONDS.toMillis(20));
+    public static final GoSystemProperty<Integer> GET_WORK_MAX_WAITING_AGENTS = new GoIntSystemProperty("go.get.work.max.waiting.agents", 50);
+    public static final GoSystemProperty<Integer> DASHBOARD_STREAM_MAX_CONNECTIONS = new GoIntSystemProperty("go.dashboard.stream.max.connections", 10);
+    public static final GoSystemProperty<Long> DASHBOARD_STREAM_MAX_DURATION_IN_MILLIS = new GoLongSystemProperty("go.dashboard.stream.max.duration", MINUTES.toMillis(5));
+    public static final GoSystemProperty<Boolean> PIPELINE_TIMELINE_SNAPSHOT_ENABLED = new GoBooleanSystemProperty("go.pipeline.timeline.snapshot.enabled", true);
+    public static final GoSystemProperty<Integer> VALUE_STREAM_MAP_CACHE_SIZE = new GoIntSystemProperty("go.value.stream.map.cache.size", 100);
+    public static final GoSystemProperty<Boolean> CONFIG_INCREMENTAL_VALIDATION_ENABLED = new GoBooleanSystemProperty("go.config.incremental.validation.enabled", false);
+    public static final GoSystemProperty<Long> CONFIG_FULL_VALIDATION_INTERVAL_IN_MILLIS = new GoLongSystemProperty("go.config.full.validation.interval", MINUTES.toMillis(60));
+    public static final GoSystemProperty<Integer> ARTIFACT_ZIP_CACHE_CREATION_THREADS = new GoIntSystemProperty("go.artifact.zip.cache.creation.threads", 2);
+    public static final GoSystemProperty<Integer> ARTIFACT_ZIP_CACHE_CREATION_QUEUE_SIZE = new GoIntSystemProperty("go.artifact.zip.cache.creation.queue.size", 20);
+    public static final GoSystemProperty<Long> ARTIFACT_ZIP_CACHE_MAX_SIZE_IN_BYTES = new GoLongSystemProperty("go.artifact.zip.cache.max.size", 10L * 1024 * 1024 * 1024);
+    public static final GoSystemProperty<Long> ARTIFACT_ZIP_CACHE_EVICTION_GRACE_PERIOD_IN_MILLIS = new GoLongSystemProperty("go.artifact.zip.cache.eviction.grace.period", MINUTES.toMillis(1));
+    private static final GoSystemProperty<Boolean> AGENT_GET_WORK_LONG_POLL_ENABLED = new GoBooleanSystemProperty("go.agent.get.work.long.poll.enabled", false);
+    private static final GoSystemProperty<Long> AGENT_GET_WORK_LONG_POLL_WAIT_IN_MILLIS = new GoLongSystemProperty("go.agent.get.work.long.poll.wait", SECONDS.toMillis(20));
+    private static final GoSystemProperty<Boolean> AGENT_ARTIFACT_UPLOAD_STREAMING_ENABLED = new GoBooleanSystemProperty("go.agent.artifact.upload.streaming.enabled", false);
+    private static final GoSystemProperty<Integer> AGENT_ARTIFACT_UPLOAD_COMPRESSION_THREADS = new GoIntSystemProperty("go.agent.artifact.upload.compression.threads", 0);
     private static final GoSystemProperty<Boolean> AGENT_STATUS_API_ENABLED = new GoBooleanSystemProperty("go.agent.status.api.enabled", true);
     private static final GoSystemProperty<String> AGENT_STATUS_API_BIND_HOST = new GoStringSystemProperty("go.agent.status.api.bind.host", "localhost");
     private static final GoSystemProperty<Integer> AGENT_STATUS_API_BIND_PORT = new GoIntSystemProperty("go.agent.status.api.bind.port", 8152);
@@ -346,6 +375,10 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return new File(properties().getProperty(CRUISE_CONFIG_REPO_DIR, CONFIG_REPO_DEFAULT_PATH));
     }
 
+    public File getPipelineTimelineSnapshotFile() {
+        return new File(DB_BASE_DIR, "pipeline-timeline.snapshot");
+    }
+
     public File getDESCipherFile() {
         return new File(getConfigDir(), DES_CONFIG_CIPHER);
     }
@@ -589,6 +622,29 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return AGENT_STATUS_API_ENABLED.getValue();
     }
 
+    /**
+     * @return how long the agent asks the server to hold on to a request for work until there is some, or 0 if the
+     * agent should not ask the server to wait
+     */
+    public long getAgentGetWorkLongPollWaitMillis() {
+        return AGENT_GET_WORK_LONG_POLL_ENABLED.getValue() ? AGENT_GET_WORK_LONG_POLL_WAIT_IN_MILLIS.getValue() : 0L;
+    }
+
+    /**
+     * @return whether the agent should zip artifacts as it uploads them, rather than to a temporary file first
+     */
+    public boolean isAgentArtifactUploadStreamingEnabled() {
+        return AGENT_ARTIFACT_UPLOAD_STREAMING_ENABLED.getValue();
+    }
+
+    /**
+     * @return the number of threads an agent compresses streamed artifact uploads on, by default one per processor
+     */
+    public int getAgentArtifactUploadCompressionThreads() {
+        int threads = AGENT_ARTIFACT_UPLOAD_COMPRESSION_THREADS.getValue();
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
     public long getPacCloneTimeout() {
         return GO_PAC_CLONE_TIMEOUT_IN_MILLIS.getValue();
     }
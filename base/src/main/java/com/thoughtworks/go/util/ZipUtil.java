@@ -19,6 +19,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -113,22 +119,55 @@ public class ZipUtil {
         }
     }
 
+    /**
+     * Extracts a zip as it is read, computing the MD5 of each file while writing it out. Entries with the given name are
+     * handed to the handler rather than extracted.
+     *
+     * @return the MD5 of each extracted file, keyed by the name of its entry
+     */
+    public Map<String, String> unzipWithChecksums(ZipInputStream zipInputStream, File destDir, String manifestEntryName, ZipEntryHandler manifestHandler) throws IOException {
+        Map<String, String> checksums = new LinkedHashMap<>();
+        try (ZipInputStream zis = zipInputStream) {
+            destDir.mkdirs();
+            ZipEntry zipEntry = zis.getNextEntry();
+            while (zipEntry != null) {
+                if (zipEntry.getName().equals(manifestEntryName)) {
+                    manifestHandler.handleEntry(zipEntry, zis);
+                } else {
+                    MessageDigest md5 = md5();
+                    if (extractTo(zipEntry, zis, destDir, md5)) {
+                        checksums.put(nonRootedEntryName(zipEntry), HexFormat.of().formatHex(md5.digest()));
+                    }
+                }
+                zipEntry = zis.getNextEntry();
+            }
+        }
+        return checksums;
+    }
+
     public void unzip(File zip, File destDir) throws IOException {
         unzip(new ZipInputStream(new BufferedInputStream(new FileInputStream(zip))), destDir);
     }
 
     private void extractTo(ZipEntry entry, InputStream entryInputStream, File toDir) throws IOException {
+        extractTo(entry, entryInputStream, toDir, null);
+    }
+
+    /**
+     * @return true if a file was extracted, false if the entry was a directory
+     */
+    private boolean extractTo(ZipEntry entry, InputStream entryInputStream, File toDir, MessageDigest digest) throws IOException {
         bombIfZipEntryPathContainsDirectoryTraversalCharacters(entry.getName());
         String entryName = nonRootedEntryName(entry);
 
         File outputFile = new File(toDir, entryName);
         if (isDirectory(entryName)) {
             outputFile.mkdirs();
-            return;
+            return false;
         }
         try {
             FileUtil.mkdirsParentQuietly(outputFile);
-            try (FileOutputStream os = new FileOutputStream(outputFile)) {
+            try (OutputStream os = digest == null ? new FileOutputStream(outputFile) : new DigestOutputStream(new FileOutputStream(outputFile), digest)) {
                 entryInputStream.transferTo(os);
                 if (zipEntryHandler != null) {
                     try (FileInputStream stream = new FileInputStream(outputFile)) {
@@ -136,12 +175,21 @@ public class ZipUtil {
                     }
                 }
             }
+            return true;
         } catch (IOException e) {
             LOGGER.error("Failed to unzip file [{}] to directory [{}]", entryName, toDir.getAbsolutePath(), e);
             throw e;
         }
     }
 
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private String nonRootedEntryName(ZipEntry entry) {
         String entryName = entry.getName();
         if (entryName.startsWith("/")) {
@@ -0,0 +1,131 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelZipWriterTest {
+    @TempDir
+    Path tempDir;
+
+    private final ExecutorService compressors = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    void tearDown() {
+        compressors.shutdownNow();
+    }
+
+    @Test
+    void shouldZipDirectoryWithTheSameEntryNamesAsZipUtil() throws Exception {
+        File dir = Files.createDirectories(tempDir.resolve("dist")).toFile();
+        Files.createDirectories(dir.toPath().resolve("empty"));
+        Files.writeString(dir.toPath().resolve("first.txt"), "first", UTF_8);
+        Files.writeString(Files.createDirectories(dir.toPath().resolve("child")).resolve("second.txt"), "second", UTF_8);
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        Map<String, String> checksums;
+        try (ParallelZipWriter writer = new ParallelZipWriter(zip, Deflater.DEFAULT_COMPRESSION, compressors, 2)) {
+            checksums = writer.add(dir);
+            writer.finish();
+        }
+
+        assertThat(checksums)
+            .containsEntry("dist/first.txt", md5Hex("first".getBytes(UTF_8)))
+            .containsEntry("dist/child/second.txt", md5Hex("second".getBytes(UTF_8)))
+            .hasSize(2);
+        assertThat(readWithZipInputStream(zip.toByteArray()))
+            .containsEntry("dist/", "")
+            .containsEntry("dist/empty/", "")
+            .containsEntry("dist/first.txt", "first")
+            .containsEntry("dist/child/second.txt", "second");
+    }
+
+    @Test
+    void shouldWriteEntriesSpanningManyBlocksWhichCanBeReadFromTheCentralDirectory() throws Exception {
+        byte[] content = new byte[ParallelZipWriter.BLOCK_SIZE * 5 + 17];
+        new Random(42).nextBytes(content);
+        for (int i = 0; i < content.length; i += 3) {
+            content[i] = 'a';
+        }
+
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        String md5;
+        try (ParallelZipWriter writer = new ParallelZipWriter(zip, Deflater.BEST_SPEED, compressors, 2)) {
+            md5 = writer.add("big.bin", System.currentTimeMillis(), new ByteArrayInputStream(content));
+            writer.add("empty.txt", System.currentTimeMillis(), new ByteArrayInputStream(new byte[0]));
+            writer.finish();
+        }
+
+        assertThat(md5).isEqualTo(md5Hex(content));
+        File zipFile = Files.write(tempDir.resolve("big.zip"), zip.toByteArray()).toFile();
+        try (ZipFile actual = new ZipFile(zipFile)) {
+            ZipEntry big = actual.getEntry("big.bin");
+            assertThat(big.getSize()).isEqualTo(content.length);
+            assertThat(actual.getInputStream(big).readAllBytes()).isEqualTo(content);
+            assertThat(actual.getInputStream(actual.getEntry("empty.txt")).readAllBytes()).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldNotAllowAddingToAFinishedZip() throws IOException {
+        try (ParallelZipWriter writer = new ParallelZipWriter(new ByteArrayOutputStream(), Deflater.DEFAULT_COMPRESSION, compressors, 1)) {
+            writer.finish();
+
+            assertThatThrownBy(() -> writer.add("late.txt", 0, new ByteArrayInputStream(new byte[0])))
+                .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private static Map<String, String> readWithZipInputStream(byte[] zip) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(in.readAllBytes(), UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static String md5Hex(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+    }
+}
@@ -21,16 +21,20 @@ import org.junit.jupiter.api.condition.EnabledOnOs;
 import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
@@ -245,6 +249,27 @@ public class ZipUtilTest {
         }
     }
 
+    @Test
+    void shouldComputeChecksumsOfExtractedFilesAndHandTheManifestEntryToTheHandler() throws IOException {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            out.putNextEntry(new ZipEntry("dist/"));
+            out.putNextEntry(new ZipEntry("dist/file.txt"));
+            out.write("content".getBytes(UTF_8));
+            out.putNextEntry(new ZipEntry("/manifest"));
+            out.write("manifest content".getBytes(UTF_8));
+        }
+
+        StringBuilder manifest = new StringBuilder();
+        Map<String, String> checksums = zipUtil.unzipWithChecksums(new ZipInputStream(new ByteArrayInputStream(zip.toByteArray())), destDir, "/manifest",
+            (entry, in) -> manifest.append(new String(in.readAllBytes(), UTF_8)));
+
+        assertThat(checksums).containsExactly(Map.entry("dist/file.txt", "9a0364b9e99bb480dd25e1f0284c8555"));
+        assertThat(manifest.toString()).isEqualTo("manifest content");
+        assertThat(fileContent(new File(destDir, "dist/file.txt"))).isEqualTo("content");
+        assertThat(new File(destDir, "manifest")).doesNotExist();
+    }
+
     private void assertContent(File targetZipFile, String file, String expectedContent) throws IOException {
         try (ZipFile actualZip = new ZipFile(targetZipFile)) {
             ZipEntry entry = actualZip.getEntry(file);
@@ -344,6 +344,25 @@ public class CommandLine {
         return result;
     }
 
+    /**
+     * Runs the command like {@link #runOrBomb(ProcessTag, String...)}, but hands each line of standard output to the
+     * given consumer as it is read instead of keeping it in memory. The result only holds the standard error.
+     */
+    public ConsoleResult runOrBomb(StreamConsumer stdOutConsumer, ProcessTag processTag, String... input) {
+        LOG.debug("Running {}", this);
+        addInput(input);
+        InMemoryConsumer errors = new InMemoryConsumer();
+        ProcessWrapper process = execute(new ProcessOutputStreamConsumer<>(stdOutConsumer, errors), new EnvironmentVariableContext(), processTag);
+        int returnValue = process.waitForExit();
+
+        ConsoleResult result = new ConsoleResult(returnValue, List.of(), errors.asList(), arguments, secrets, true);
+
+        if (result.failed()) {
+            throw new CommandLineException(this, result);
+        }
+        return result;
+    }
+
     public int run(ConsoleOutputStreamConsumer outputStreamConsumer, ProcessTag processTag, String... input) {
         LOG.debug("Running {}", this);
         addInput(input);
@@ -25,6 +25,8 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentProducer;
+import org.apache.http.entity.EntityTemplate;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.ByteArrayBody;
 import org.apache.http.entity.mime.content.FileBody;
@@ -73,6 +75,24 @@ public class HttpService {
         }
     }
 
+    /**
+     * Uploads the content written by the producer as the body of the request, while it is being written.
+     */
+    public int uploadStream(String url, long size, String contentType, ContentProducer producer) throws IOException {
+        LOGGER.info("Streaming upload to url [{}]", url);
+
+        HttpPost filePost = httpClientFactory.createPost(url);
+        setSizeHeader(filePost, size);
+        filePost.setHeader(REQUEST_CONFIRM_MODIFICATION, "true");
+        filePost.setEntity(httpClientFactory.createStreamingRequestEntity(contentType, producer));
+        try (CloseableHttpResponse response = execute(filePost)) {
+            return response.getStatusLine().getStatusCode();
+        } catch (IOException e) {
+            LOGGER.error("Error while streaming upload to url [{}]", url, e);
+            throw e;
+        }
+    }
+
     private HttpPost createHttpPostForUpload(String url, long size, File artifactFile, Properties artifactChecksums) throws IOException {
         HttpPost filePost = httpClientFactory.createPost(url);
         setSizeHeader(filePost, size);
@@ -151,5 +171,12 @@ public class HttpService {
             }
             return entityBuilder.build();
         }
+
+        public HttpEntity createStreamingRequestEntity(String contentType, ContentProducer producer) {
+            EntityTemplate entity = new EntityTemplate(producer);
+            entity.setContentType(contentType);
+            entity.setChunked(true);
+            return entity;
+        }
     }
 }
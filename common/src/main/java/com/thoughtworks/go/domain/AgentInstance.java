@@ -299,7 +299,6 @@ public class AgentInstance implements Comparable<AgentInstance> {
         return agent.getAgentIdentifier();
     }
 
-    @TestOnly
     public Stream<String> getResourceNames() {
         return agent.getResourcesAsStream();
     }
@@ -24,6 +24,8 @@ import java.util.function.Consumer;
 public interface ConsoleConsumer extends AutoCloseable {
     long stream(Consumer<String> action) throws IOException;
 
+    long stream(Consumer<String> action, long maxLines) throws IOException;
+
     long totalLinesConsumed();
 
     @Override
@@ -0,0 +1,231 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A sparse line number to byte offset index of a console log, which can be saved to a file. Every
+ * {@link #DEFAULT_INTERVAL}th line has its starting byte offset recorded, so that a reader wanting to start at line
+ * {@code n} only has to decode at most {@code interval - 1} lines after seeking, rather than every line in the file.
+ * <p>
+ * Line terminators are counted the same way as {@link BufferedReader#readLine()} does ({@code \n}, {@code \r} or
+ * {@code \r\n}) so that line numbers agree with {@link ConsoleStreamer}. The index is append-only and is brought up to
+ * date by scanning only the bytes written after the last update.
+ * <p>
+ * The index of a log which is still being written is meant to be kept in memory, and only saved once the log is
+ * complete. Indexes are saved to a file of their own, which callers should keep out of the artifacts of a job.
+ */
+public class ConsoleLogLineIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleLogLineIndex.class);
+
+    public static final String FILE_EXTENSION = ".idx";
+    static final int DEFAULT_INTERVAL = 1000;
+
+    private static final int MAGIC = 0x474f4349; // "GOCI"
+    private static final int VERSION = 1;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final int interval;
+    private long[] checkpoints;
+    private int checkpointCount;
+    private long scannedBytes;
+    private long terminatorsSeen;
+    private boolean lastByteWasCarriageReturn;
+    private boolean checkpointPending;
+
+    ConsoleLogLineIndex(int interval) {
+        this.interval = interval;
+        this.checkpoints = new long[16];
+    }
+
+    /**
+     * Loads the saved index of the given log (rebuilding it if it is missing or stale), brings it up to date with the
+     * current contents of the log, and saves it again if it changed. Failures to save the index are logged and
+     * ignored, as the index can always be rebuilt from the log itself.
+     *
+     * @param log   the console log
+     * @param saved the file the index of the log is saved in
+     * @return an up-to-date index of the log
+     * @throws IOException if the log itself could not be read
+     */
+    public static ConsoleLogLineIndex forLog(Path log, Path saved) throws IOException {
+        ConsoleLogLineIndex index = load(saved, Files.size(log));
+        if (index.update(log)) {
+            index.saveQuietly(saved);
+        }
+        return index;
+    }
+
+    /**
+     * @return an index of nothing, to be brought up to date with {@link #update(Path)}
+     */
+    public static ConsoleLogLineIndex empty() {
+        return new ConsoleLogLineIndex(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Line terminators can only be located by scanning bytes when the charset encodes them as single bytes which
+     * never appear inside multi-byte sequences, which is true for UTF-8 and the single byte charsets.
+     */
+    public static boolean supports(Charset charset) {
+        return "UTF-8".equals(charset.name()) || "US-ASCII".equals(charset.name()) || "ISO-8859-1".equals(charset.name());
+    }
+
+    static ConsoleLogLineIndex load(Path saved, long logSize) {
+        if (!Files.exists(saved)) {
+            return new ConsoleLogLineIndex(DEFAULT_INTERVAL);
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(saved)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return new ConsoleLogLineIndex(DEFAULT_INTERVAL);
+            }
+            ConsoleLogLineIndex index = new ConsoleLogLineIndex(in.readInt());
+            index.scannedBytes = in.readLong();
+            index.terminatorsSeen = in.readLong();
+            index.lastByteWasCarriageReturn = in.readBoolean();
+            index.checkpointPending = in.readBoolean();
+            int count = in.readInt();
+            index.checkpoints = new long[Math.max(count, 16)];
+            for (int i = 0; i < count; i++) {
+                index.checkpoints[i] = in.readLong();
+            }
+            index.checkpointCount = count;
+
+            if (index.interval <= 0 || index.scannedBytes > logSize) {
+                // the log was truncated or replaced since the index was written
+                return new ConsoleLogLineIndex(DEFAULT_INTERVAL);
+            }
+            return index;
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable console log index [{}], it will be rebuilt.", saved, e);
+            return new ConsoleLogLineIndex(DEFAULT_INTERVAL);
+        }
+    }
+
+    /**
+     * Scans any bytes appended to the log since the last update.
+     *
+     * @return true if the index changed
+     */
+    public synchronized boolean update(Path log) throws IOException {
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= scannedBytes) {
+                return false;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            channel.position(scannedBytes);
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    scan(buffer.get());
+                }
+                buffer.clear();
+            }
+            return true;
+        }
+    }
+
+    private void scan(byte b) {
+        boolean continuesCrLf = b == '\n' && lastByteWasCarriageReturn;
+
+        if (checkpointPending && !continuesCrLf) {
+            addCheckpoint(scannedBytes);
+            checkpointPending = false;
+        }
+
+        if ((b == '\n' && !continuesCrLf) || b == '\r') {
+            terminatorsSeen++;
+            if (terminatorsSeen % interval == 0) {
+                checkpointPending = true;
+            }
+        }
+
+        lastByteWasCarriageReturn = b == '\r';
+        scannedBytes++;
+    }
+
+    private void addCheckpoint(long offset) {
+        if (checkpointCount == checkpoints.length) {
+            checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+        }
+        checkpoints[checkpointCount++] = offset;
+    }
+
+    /**
+     * @param line the zero based line number to start reading from
+     * @return the closest known position at or before the start of the given line
+     */
+    public synchronized Position seek(long line) {
+        long checkpoint = Math.min(Math.max(line, 0L) / interval, checkpointCount);
+        if (checkpoint == 0) {
+            return Position.START;
+        }
+        return new Position(checkpoints[(int) checkpoint - 1], checkpoint * interval);
+    }
+
+    public synchronized void saveQuietly(Path saved) {
+        try {
+            Files.createDirectories(saved.getParent());
+            Path temp = Files.createTempFile(saved.getParent(), saved.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(interval);
+                    out.writeLong(scannedBytes);
+                    out.writeLong(terminatorsSeen);
+                    out.writeBoolean(lastByteWasCarriageReturn);
+                    out.writeBoolean(checkpointPending);
+                    out.writeInt(checkpointCount);
+                    for (int i = 0; i < checkpointCount; i++) {
+                        out.writeLong(checkpoints[i]);
+                    }
+                }
+                Files.move(temp, saved, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write console log index [{}].", saved, e);
+        }
+    }
+
+    synchronized long linesTerminated() {
+        return terminatorsSeen;
+    }
+
+    /**
+     * A byte offset in the log along with the zero based number of the line which starts at that offset.
+     */
+    public record Position(long offset, long line) {
+        public static final Position START = new Position(0L, 0L);
+    }
+}
@@ -17,16 +17,23 @@ package com.thoughtworks.go.domain;
 
 import com.thoughtworks.go.util.SystemEnvironment;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
  * Encapsulates a stream of lines from a console log file while keeping track of the number of lines processed
- * as well as the starting line to read.
+ * as well as the starting line to read. When given a {@link ConsoleLogLineIndex.Position} at or before the starting
+ * line, the file is opened at that byte offset instead of being decoded from the beginning.
  */
 public class ConsoleStreamer implements ConsoleConsumer, AutoCloseable {
     private final Path path;
@@ -34,11 +41,17 @@ public class ConsoleStreamer implements ConsoleConsumer, AutoCloseable {
     private Iterator<String> iterator;
 
     private final long start;
+    private final ConsoleLogLineIndex.Position seekTo;
     private long count = 0L;
 
     public ConsoleStreamer(Path path, long start) {
+        this(path, start, ConsoleLogLineIndex.Position.START);
+    }
+
+    public ConsoleStreamer(Path path, long start, ConsoleLogLineIndex.Position seekTo) {
         this.path = path;
         this.start = Math.max(start, 0L);
+        this.seekTo = seekTo.line() > this.start ? ConsoleLogLineIndex.Position.START : seekTo;
     }
 
     /**
@@ -52,16 +65,30 @@ public class ConsoleStreamer implements ConsoleConsumer, AutoCloseable {
      */
     @Override
     public long stream(Consumer<String> action) throws IOException {
+        return stream(action, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #stream(Consumer)}, but stops after at most {@code maxLines} lines, leaving the remaining lines
+     * for a subsequent invocation.
+     *
+     * @param action   the lambda to apply to each line
+     * @param maxLines the maximum number of lines to stream in this invocation
+     * @return the number of lines streamed by this invocation
+     * @throws IOException if the file does not exist or is otherwise not readable
+     */
+    @Override
+    public long stream(Consumer<String> action, long maxLines) throws IOException {
         long linesStreamed = 0L;
 
         if (null == stream) {
-            stream = Files.lines(path, new SystemEnvironment().consoleLogCharset()).skip(start);
+            stream = openStream(new SystemEnvironment().consoleLogCharset());
         }
         if (null == iterator) {
             iterator = stream.iterator();
         }
 
-        while (iterator.hasNext()) {
+        while (linesStreamed < maxLines && iterator.hasNext()) {
             action.accept(iterator.next());
             ++linesStreamed;
             ++count;
@@ -70,6 +97,28 @@ public class ConsoleStreamer implements ConsoleConsumer, AutoCloseable {
         return linesStreamed;
     }
 
+    private Stream<String> openStream(Charset charset) throws IOException {
+        if (seekTo.offset() == 0L) {
+            return Files.lines(path, charset).skip(start);
+        }
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            channel.position(seekTo.offset());
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, charset.newDecoder(), -1));
+            return reader.lines().skip(start - seekTo.line()).onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
     @Override
     public void close() {
         if (stream != null) {
@@ -52,7 +52,8 @@ public class PipelineTimelineEntry implements Comparable<PipelineTimelineEntry>
     }
 
     public boolean addRevision(String fingerprint, Revision rev) {
-        return revisions().computeIfAbsent(fingerprint, k -> new ArrayList<>()).add(rev);
+        // almost every material has a single revision per pipeline, so grow from one rather than the default capacity
+        return revisions().computeIfAbsent(fingerprint, k -> new ArrayList<>(1)).add(rev);
     }
 
     @Override
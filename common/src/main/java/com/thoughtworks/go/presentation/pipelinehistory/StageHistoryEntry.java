@@ -42,6 +42,20 @@ public class StageHistoryEntry extends PersistentObject {
         this.configVersion = firstStage.getConfigVersion();
     }
 
+    /**
+     * @return an identical entry which can be changed independently of this one
+     */
+    public StageHistoryEntry copy() {
+        StageHistoryEntry copy = new StageHistoryEntry();
+        copy.id = id;
+        copy.identifier = identifier == null ? null : identifier.copy();
+        copy.state = state;
+        copy.naturalOrder = naturalOrder;
+        copy.rerunOfCounter = rerunOfCounter;
+        copy.configVersion = configVersion;
+        return copy;
+    }
+
     //make ibatis happy - start
     public StageHistoryEntry() {
     }
@@ -17,6 +17,7 @@ package com.thoughtworks.go.presentation.pipelinehistory;
 
 import com.thoughtworks.go.server.util.Pagination;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -33,6 +34,18 @@ public class StageHistoryPage {
         this.immediateChronologicallyForwardStageHistoryEntry = immediateChronologicallyForwardStageHistoryEntry;
     }
 
+    /**
+     * @return an identical page whose entries can be changed independently of the entries of this page
+     */
+    public StageHistoryPage copy() {
+        List<StageHistoryEntry> stagesCopy = new ArrayList<>(stages.size());
+        for (StageHistoryEntry stage : stages) {
+            stagesCopy.add(stage.copy());
+        }
+        StageHistoryEntry forwardEntry = immediateChronologicallyForwardStageHistoryEntry;
+        return new StageHistoryPage(stagesCopy, pagination, forwardEntry == null ? null : forwardEntry.copy());
+    }
+
     public List<StageHistoryEntry> getStages() {
         return stages;
     }
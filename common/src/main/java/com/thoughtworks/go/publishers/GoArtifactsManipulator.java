@@ -25,6 +25,8 @@ import com.thoughtworks.go.remote.work.ConsoleOutputTransmitter;
 import com.thoughtworks.go.remote.work.RemoteConsoleAppender;
 import com.thoughtworks.go.util.ArtifactUtil;
 import com.thoughtworks.go.util.FileUtil;
+import com.thoughtworks.go.util.ParallelZipWriter;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.SystemTimeClock;
 import com.thoughtworks.go.util.ZipUtil;
 import com.thoughtworks.go.work.DefaultGoPublisher;
@@ -34,36 +36,52 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.Deflater;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static com.thoughtworks.go.util.GoConstants.PUBLISH_MAX_RETRIES;
+import static com.thoughtworks.go.util.GoConstants.ZIP_STREAM_CHECKSUM_ENTRY;
+import static com.thoughtworks.go.util.GoConstants.ZIP_STREAM_CONTENT_TYPE;
 import static com.thoughtworks.go.util.command.TaggedStreamConsumer.PUBLISH;
 import static com.thoughtworks.go.util.command.TaggedStreamConsumer.PUBLISH_ERR;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
 @Component
-public class GoArtifactsManipulator {
+public class GoArtifactsManipulator implements DisposableBean {
     private final HttpService httpService;
     private final URLService urlService;
     private final ZipUtil zipUtil;
+    private final SystemEnvironment systemEnvironment;
+    private ExecutorService compressors;
     private static final Logger LOGGER = LoggerFactory.getLogger(GoArtifactsManipulator.class);
+    private static final int PENDING_BLOCKS_PER_COMPRESSOR = 4;
 
-    @Autowired
     public GoArtifactsManipulator(HttpService httpService, URLService urlService, ZipUtil zipUtil) {
+        this(httpService, urlService, zipUtil, new SystemEnvironment());
+    }
+
+    @Autowired
+    public GoArtifactsManipulator(HttpService httpService, URLService urlService, ZipUtil zipUtil, SystemEnvironment systemEnvironment) {
         this.httpService = httpService;
         this.urlService = urlService;
         this.zipUtil = zipUtil;
+        this.systemEnvironment = systemEnvironment;
     }
 
     public void publish(DefaultGoPublisher goPublisher, String destPath, File source, JobIdentifier jobIdentifier) {
@@ -80,10 +98,6 @@ public class GoArtifactsManipulator {
             try {
                 publishingAttempts++;
 
-                tmpDir = FileUtil.createTempFolder();
-                File dataToUpload = new File(tmpDir, source.getName() + ".zip");
-                zipUtil.zip(source, dataToUpload, Deflater.BEST_SPEED);
-
                 long size;
                 if (source.isDirectory()) {
                     size = FileUtils.sizeOfDirectory(source);
@@ -96,7 +110,15 @@ public class GoArtifactsManipulator {
                 String normalizedDestPath = FilenameUtils.separatorsToUnix(destPath);
                 String url = urlService.getUploadUrlOfAgent(jobIdentifier, normalizedDestPath, publishingAttempts);
 
-                int statusCode = httpService.upload(url, size, dataToUpload, artifactChecksums(source, normalizedDestPath));
+                int statusCode;
+                if (systemEnvironment.isAgentArtifactUploadStreamingEnabled()) {
+                    statusCode = httpService.uploadStream(url, size, ZIP_STREAM_CONTENT_TYPE, out -> writeZipStream(source, normalizedDestPath, out));
+                } else {
+                    tmpDir = FileUtil.createTempFolder();
+                    File dataToUpload = new File(tmpDir, source.getName() + ".zip");
+                    zipUtil.zip(source, dataToUpload, Deflater.BEST_SPEED);
+                    statusCode = httpService.upload(url, size, dataToUpload, artifactChecksums(source, normalizedDestPath));
+                }
 
                 if (statusCode == HttpURLConnection.HTTP_ENTITY_TOO_LARGE) {
                     String message = String.format("Artifact upload for file %s (Size: %s) was denied by the server. This usually happens when server runs out of disk space.",
@@ -122,6 +144,45 @@ public class GoArtifactsManipulator {
         throw new RuntimeException(lastException);
     }
 
+    /**
+     * Zips the source straight into the request, computing the checksums of the files as they are compressed. The
+     * checksums are sent as the last entry of the zip, for the server to verify the files it extracted against.
+     */
+    private void writeZipStream(File source, String destPath, OutputStream out) throws IOException {
+        int pendingBlocks = PENDING_BLOCKS_PER_COMPRESSOR * systemEnvironment.getAgentArtifactUploadCompressionThreads();
+        try (ParallelZipWriter zip = new ParallelZipWriter(out, Deflater.BEST_SPEED, compressors(), pendingBlocks)) {
+            Properties checksums = new Properties();
+            zip.add(source).forEach((entryName, md5) -> checksums.setProperty(getEffectiveFileName(destPath, entryName), md5));
+
+            ByteArrayOutputStream checksumFile = new ByteArrayOutputStream();
+            checksums.store(checksumFile, "");
+            zip.add(ZIP_STREAM_CHECKSUM_ENTRY, System.currentTimeMillis(), new ByteArrayInputStream(checksumFile.toByteArray()));
+            zip.finish();
+        }
+    }
+
+    private synchronized ExecutorService compressors() {
+        if (compressors == null) {
+            compressors = Executors.newFixedThreadPool(systemEnvironment.getAgentArtifactUploadCompressionThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "artifact-upload-compressor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compressors;
+    }
+
+    /**
+     * Stops the threads compressing streamed uploads, if any were started.
+     */
+    @Override
+    public synchronized void destroy() {
+        if (compressors != null) {
+            compressors.shutdownNow();
+            compressors = null;
+        }
+    }
+
     private Properties artifactChecksums(File source, String destPath) throws IOException {
         if (source.isDirectory()) {
             return computeChecksumForContentsOfDirectory(source, destPath);
@@ -154,12 +215,7 @@ public class GoArtifactsManipulator {
     }
 
     private String getEffectiveFileName(String computedDestPath, String filePath) {
-        File artifactDest = computedDestPath.isEmpty() ? new File(filePath) : new File(computedDestPath, filePath);
-        return removeLeadingSlash(artifactDest);
-    }
-
-    private String removeLeadingSlash(File artifactDest) {
-        return Strings.CS.removeStart(FilenameUtils.separatorsToUnix(artifactDest.getPath()), "/");
+        return ArtifactUtil.checksumPath(computedDestPath, filePath);
     }
 
 
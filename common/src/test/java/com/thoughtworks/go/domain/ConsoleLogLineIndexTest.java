@@ -0,0 +1,141 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConsoleLogLineIndexTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void shouldReturnStartOfFileForLinesBeforeFirstCheckpoint() throws Exception {
+        Path log = writeLog("a\nb\nc\n");
+        ConsoleLogLineIndex index = ConsoleLogLineIndex.forLog(log, savedIndex());
+
+        assertThat(index.seek(2)).isEqualTo(ConsoleLogLineIndex.Position.START);
+        assertThat(index.linesTerminated()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldSeekToTheClosestCheckpointBeforeTheRequestedLine() throws Exception {
+        Path log = writeLog(lines(0, 2500));
+        ConsoleLogLineIndex index = ConsoleLogLineIndex.forLog(log, savedIndex());
+
+        ConsoleLogLineIndex.Position position = index.seek(2100);
+
+        assertThat(position.line()).isEqualTo(2000);
+        assertThat(position.offset()).isEqualTo(lines(0, 2000).getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void shouldCountCarriageReturnsTheSameWayAsReadLine() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < ConsoleLogLineIndex.DEFAULT_INTERVAL; i++) {
+            content.append("line ").append(i).append(i % 3 == 0 ? "\r\n" : i % 3 == 1 ? "\r" : "\n");
+        }
+        content.append("after checkpoint\n");
+        Path log = writeLog(content.toString());
+
+        ConsoleLogLineIndex.Position position = ConsoleLogLineIndex.forLog(log, savedIndex()).seek(ConsoleLogLineIndex.DEFAULT_INTERVAL);
+
+        assertThat(position.line()).isEqualTo(ConsoleLogLineIndex.DEFAULT_INTERVAL);
+        assertThat(streamFrom(log, ConsoleLogLineIndex.DEFAULT_INTERVAL, position)).containsExactly("after checkpoint");
+    }
+
+    @Test
+    public void shouldIncrementallyIndexAppendedContentUsingTheSavedIndex() throws Exception {
+        Path log = writeLog(lines(0, 999) + "partial");
+        ConsoleLogLineIndex.forLog(log, savedIndex());
+        assertThat(savedIndex()).exists();
+
+        Files.writeString(log, " line\n" + lines(1000, 1500), StandardOpenOption.APPEND);
+        ConsoleLogLineIndex index = ConsoleLogLineIndex.forLog(log, savedIndex());
+
+        ConsoleLogLineIndex.Position position = index.seek(1200);
+        assertThat(position.line()).isEqualTo(1000);
+        assertThat(streamFrom(log, 1001, position)).startsWith("line 1001").hasSize(499);
+    }
+
+    @Test
+    public void shouldRebuildIndexWhenLogHasBeenTruncated() throws Exception {
+        Path log = writeLog(lines(0, 1500));
+        ConsoleLogLineIndex.forLog(log, savedIndex());
+
+        Files.writeString(log, "first\nsecond\n");
+        ConsoleLogLineIndex index = ConsoleLogLineIndex.forLog(log, savedIndex());
+
+        assertThat(index.seek(1200)).isEqualTo(ConsoleLogLineIndex.Position.START);
+        assertThat(index.linesTerminated()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldIgnoreCorruptSavedIndex() throws Exception {
+        Path log = writeLog(lines(0, 1500));
+        Files.createDirectories(savedIndex().getParent());
+        Files.writeString(savedIndex(), "garbage");
+
+        ConsoleLogLineIndex.Position position = ConsoleLogLineIndex.forLog(log, savedIndex()).seek(1200);
+
+        assertThat(position.line()).isEqualTo(1000);
+    }
+
+    private List<String> streamFrom(Path log, long start, ConsoleLogLineIndex.Position position) throws Exception {
+        List<String> actual = new ArrayList<>();
+        try (ConsoleStreamer streamer = new ConsoleStreamer(log, start, position)) {
+            streamer.stream(actual::add);
+        }
+        return actual;
+    }
+
+    @Test
+    public void shouldKeepAnEmptyIndexUpToDateWithoutSavingIt() throws Exception {
+        Path log = writeLog(lines(0, 1500));
+        ConsoleLogLineIndex index = ConsoleLogLineIndex.empty();
+
+        assertThat(index.update(log)).isTrue();
+        assertThat(index.update(log)).isFalse();
+
+        assertThat(index.seek(1200).line()).isEqualTo(1000);
+        assertThat(tempDir.resolve("index")).doesNotExist();
+    }
+
+    private Path savedIndex() {
+        return tempDir.resolve("index").resolve("console.log" + ConsoleLogLineIndex.FILE_EXTENSION);
+    }
+
+    private Path writeLog(String content) throws Exception {
+        return Files.writeString(tempDir.resolve("console.log"), content);
+    }
+
+    private static String lines(int from, int to) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            builder.append("line ").append(i).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -98,4 +98,16 @@ public class JobIdentifierTest {
 
         assertThat(context.hasProperty("GO_RERUN_OF_STAGE_COUNTER")).isTrue();
     }
+
+    @Test
+    public void shouldCopyAllAttributesIntoAnIndependentIdentifier() {
+        JobIdentifier id = new JobIdentifier("cruise", 1234, "1.0.1234", "dev", "1", "linux-firefox-1", 100L);
+        id.setRerunOfCounter(2);
+
+        JobIdentifier copy = id.copy();
+        assertThat(copy).isNotSameAs(id).usingRecursiveComparison().isEqualTo(id);
+
+        copy.setBuildName("windows-firefox-1");
+        assertThat(id.getBuildName()).isEqualTo("linux-firefox-1");
+    }
 }
@@ -73,4 +73,15 @@ public class StageIdentifierTest {
         StageIdentifier id = new StageIdentifier("cruise", 1, "dev", "1");
         assertThat(id.asURN()).isEqualTo("urn:x-go.studios.thoughtworks.com:stage-id:cruise:1:dev:1");
     }
+
+    @Test
+    public void shouldCopyAllAttributesIntoAnIndependentIdentifier() {
+        StageIdentifier id = new StageIdentifier("cruise", 1, "1.0.1", 42L, "dev", "2");
+
+        StageIdentifier copy = id.copy();
+        assertThat(copy).isNotSameAs(id).usingRecursiveComparison().isEqualTo(id);
+
+        copy.setId(43L);
+        assertThat(id.getId()).isEqualTo(42L);
+    }
 }
@@ -23,22 +23,33 @@ import com.thoughtworks.go.remote.work.BuildRepositoryRemoteStub;
 import com.thoughtworks.go.remote.work.GoArtifactsManipulatorStub;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
 import com.thoughtworks.go.util.ReflectionUtil;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TempDirUtils;
 import com.thoughtworks.go.work.DefaultGoPublisher;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections4.queue.CircularFifoQueue;
 import org.apache.commons.io.FileUtils;
+import org.apache.http.entity.ContentProducer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+import static com.thoughtworks.go.util.GoConstants.ZIP_STREAM_CHECKSUM_ENTRY;
+import static com.thoughtworks.go.util.GoConstants.ZIP_STREAM_CONTENT_TYPE;
 import static com.thoughtworks.go.util.SystemUtil.currentWorkingDirectory;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -137,6 +148,70 @@ public class GoArtifactsManipulatorTest {
         goArtifactsManipulatorStub.publish(goPublisher, "dest", artifactFolder.toFile(), jobIdentifier);
     }
 
+    @Test
+    public void shouldStreamAZipOfTheArtifactWithItsChecksumsAsTheLastEntryAndRetryOnFailure() throws IOException {
+        String data = "Some text whose checksum can be asserted";
+        String secondData = "some more";
+        Files.writeString(tempFile, data, UTF_8);
+        Path anotherFile = artifactFolder.resolve("bond/james_bond/another_file");
+        Files.createDirectories(anotherFile.getParent());
+        Files.writeString(anotherFile, secondData, UTF_8);
+
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.isAgentArtifactUploadStreamingEnabled()).thenReturn(true);
+        when(systemEnvironment.getAgentArtifactUploadCompressionThreads()).thenReturn(2);
+        List<byte[]> bodies = new ArrayList<>();
+        when(httpService.uploadStream(any(), eq(FileUtils.sizeOfDirectory(artifactFolder.toFile())), eq(ZIP_STREAM_CONTENT_TYPE), any())).thenAnswer(invocation -> {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            invocation.<ContentProducer>getArgument(3).writeTo(body);
+            bodies.add(body.toByteArray());
+            return bodies.size() == 1 ? HttpURLConnection.HTTP_INTERNAL_ERROR : HttpURLConnection.HTTP_CREATED;
+        });
+
+        GoArtifactsManipulatorStub manipulator = new GoArtifactsManipulatorStub(httpService, systemEnvironment);
+        try {
+            manipulator.publish(goPublisher, "dest", artifactFolder.toFile(), jobIdentifier);
+        } finally {
+            manipulator.destroy();
+        }
+
+        verify(httpService, never()).upload(any(), anyLong(), any(), any());
+        assertThat(bodies).hasSize(2);
+        for (byte[] body : bodies) {
+            List<String> entries = new ArrayList<>();
+            Properties checksums = new Properties();
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(body))) {
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    entries.add(entry.getName());
+                    if (entry.getName().equals(ZIP_STREAM_CHECKSUM_ENTRY)) {
+                        checksums.load(zip);
+                    }
+                }
+            }
+            assertThat(entries).last().isEqualTo(ZIP_STREAM_CHECKSUM_ENTRY);
+            assertThat(checksums).isEqualTo(expectedProperties(data, secondData));
+        }
+    }
+
+    @Test
+    public void shouldStopCompressingStreamedUploadsWhenDestroyed() throws IOException {
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.isAgentArtifactUploadStreamingEnabled()).thenReturn(true);
+        when(systemEnvironment.getAgentArtifactUploadCompressionThreads()).thenReturn(1);
+        when(httpService.uploadStream(any(), anyLong(), any(), any())).thenAnswer(invocation -> {
+            invocation.<ContentProducer>getArgument(3).writeTo(new ByteArrayOutputStream());
+            return HttpURLConnection.HTTP_CREATED;
+        });
+        GoArtifactsManipulatorStub manipulator = new GoArtifactsManipulatorStub(httpService, systemEnvironment);
+        manipulator.publish(goPublisher, "dest", tempFile.toFile(), jobIdentifier);
+        ExecutorService compressors = ReflectionUtil.getField(manipulator, "compressors");
+
+        manipulator.destroy();
+
+        assertThat(compressors.isShutdown()).isTrue();
+        assertThat((Object) ReflectionUtil.getField(manipulator, "compressors")).isNull();
+    }
+
     private Properties expectedProperties(String data, String secondData) {
         Properties properties = new Properties();
         properties.setProperty("dest/artifact_folder/file.txt", DigestUtils.md5Hex(data));
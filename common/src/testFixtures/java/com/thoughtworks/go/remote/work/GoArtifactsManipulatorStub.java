@@ -23,6 +23,7 @@ import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
 import com.thoughtworks.go.matchers.UploadEntry;
 import com.thoughtworks.go.publishers.GoArtifactsManipulator;
 import com.thoughtworks.go.remote.AgentIdentifier;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.ZipUtil;
 import com.thoughtworks.go.work.DefaultGoPublisher;
 
@@ -46,6 +47,11 @@ public class GoArtifactsManipulatorStub extends GoArtifactsManipulator {
         consoleOuts = new ArrayList<>();
     }
 
+    public GoArtifactsManipulatorStub(HttpService service, SystemEnvironment systemEnvironment) {
+        super(service, new URLService(), new ZipUtil(), systemEnvironment);
+        consoleOuts = new ArrayList<>();
+    }
+
     public GoArtifactsManipulatorStub(List<String> consoleOuts, HttpService service, URLService urlService, ZipUtil zipUtil) {
         super(service, urlService, zipUtil);
         this.consoleOuts = consoleOuts;
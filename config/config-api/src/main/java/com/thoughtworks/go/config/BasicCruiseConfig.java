@@ -47,6 +47,7 @@ import javax.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static com.thoughtworks.go.config.exceptions.EntityType.Pipeline;
 import static com.thoughtworks.go.config.exceptions.EntityType.Template;
@@ -157,6 +158,25 @@ public class BasicCruiseConfig implements CruiseConfig {
         resetAllPipelineConfigsCache();
     }
 
+    @Override
+    public CruiseConfig mergedWith(List<PartialConfig> partList, boolean forEdit) {
+        BasicCruiseConfig merged = new BasicCruiseConfig();
+        merged.serverConfig = serverConfig;
+        merged.elasticConfig = elasticConfig;
+        merged.packageRepositories = packageRepositories;
+        merged.scms = scms;
+        merged.configRepos = configRepos;
+        merged.artifactStores = artifactStores;
+        merged.secretConfigs = secretConfigs;
+        merged.groups = groups;
+        merged.templatesConfig = templatesConfig;
+        merged.environments = environments;
+        merged.md5 = md5;
+        merged.partials = new ArrayList<>(partials);
+        merged.merge(partList, forEdit);
+        return merged;
+    }
+
     private List<PartialConfig> removePartialsThatDoNotCorrespondToTheCurrentConfigReposList(List<PartialConfig> partList) {
         List<Object> notToBeMerged = new ArrayList<>();
         for (PartialConfig partialConfig : partList) {
@@ -1110,6 +1130,18 @@ public class BasicCruiseConfig implements CruiseConfig {
         return allErrors;
     }
 
+    @Override
+    public List<ConfigErrors> validateAfterPreprocess(Predicate<CaseInsensitiveString> shouldValidatePipeline) {
+        final List<ConfigErrors> allErrors = new ArrayList<>();
+        // pipelines which are not validated again still have their errors collected, since validations of other
+        // entities (such as the dependency cycle check) add errors to them
+        new GoConfigGraphWalker(this)
+            .walk(new ErrorCollectingHandler(allErrors, Validatable::validate),
+                validatable -> validatable instanceof PipelineConfig pipelineConfig && !shouldValidatePipeline.test(pipelineConfig.name()),
+                new ErrorCollectingHandler(allErrors));
+        return allErrors;
+    }
+
     @Override
     public PipelineConfigs findGroupOfPipeline(PipelineConfig pipelineConfig) {
         String groupName = getGroups().findGroupNameByPipeline(pipelineConfig.name());
@@ -18,6 +18,8 @@ package com.thoughtworks.go.config;
 import com.thoughtworks.go.security.GoCipher;
 
 import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
@@ -25,14 +27,26 @@ import static com.thoughtworks.go.util.ExceptionUtils.bomb;
  * Understands creating instance of a config element class
  */
 public class ConfigElementInstantiator {
+    private static final Map<Class<?>, Constructor<?>> constructors = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
     public static <T> T instantiateConfigElement(GoCipher goCipher, Class<T> toGenerate) {
         try {
             boolean isPasswordEncrypter = PasswordEncrypter.class.isAssignableFrom(toGenerate);
-            Constructor<T> tConstructor = isPasswordEncrypter ? toGenerate.getDeclaredConstructor(GoCipher.class) : toGenerate.getDeclaredConstructor();
-            tConstructor.setAccessible(true);
+            Constructor<T> tConstructor = (Constructor<T>) constructors.computeIfAbsent(toGenerate, ConfigElementInstantiator::accessibleConstructorOf);
             return isPasswordEncrypter ? tConstructor.newInstance(goCipher) : tConstructor.newInstance();
         } catch (Exception e1) {
             throw bomb("Error creating new instance of class " + toGenerate.getName(), e1);
         }
     }
+
+    private static Constructor<?> accessibleConstructorOf(Class<?> type) {
+        try {
+            Constructor<?> constructor = PasswordEncrypter.class.isAssignableFrom(type) ? type.getDeclaredConstructor(GoCipher.class) : type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
 }
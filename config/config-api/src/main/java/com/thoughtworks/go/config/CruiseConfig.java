@@ -35,6 +35,7 @@ import javax.annotation.PostConstruct;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Understands the configuration for cruise
@@ -44,6 +45,12 @@ public interface CruiseConfig extends Validatable, ConfigOriginTraceable {
 
     void merge(List<PartialConfig> partList, boolean forEdit);
 
+    /**
+     * Merges the given partials into a new config which shares everything else with this config, rather than into a
+     * deep copy of it. Since a change to a shared part shows up in both configs, neither should be changed afterwards.
+     */
+    CruiseConfig mergedWith(List<PartialConfig> partList, boolean forEdit);
+
     @PostConstruct
     void initializeServer();
 
@@ -197,6 +204,12 @@ public interface CruiseConfig extends Validatable, ConfigOriginTraceable {
 
     List<ConfigErrors> validateAfterPreprocess();
 
+    /**
+     * Validates like {@link #validateAfterPreprocess()}, but only runs the validations of the pipelines (and everything
+     * within them) accepted by the given predicate.
+     */
+    List<ConfigErrors> validateAfterPreprocess(Predicate<CaseInsensitiveString> shouldValidatePipeline);
+
     PipelineConfigs findGroupOfPipeline(PipelineConfig pipelineConfig);
 
     Map<CaseInsensitiveString, List<PipelineConfig>> generatePipelineVsDownstreamMap();
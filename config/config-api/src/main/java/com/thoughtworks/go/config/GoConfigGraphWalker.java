@@ -20,11 +20,14 @@ import com.thoughtworks.go.config.preprocessor.ConcurrentFieldCache;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
+import java.util.function.Predicate;
 
 /**
  * Understands visits all the nodes in the cruise config once using Java reflection
  */
 public class GoConfigGraphWalker {
+    private static final Predicate<Validatable> NOTHING = validatable -> false;
+
     private final Validatable rootValidatable;
 
     public GoConfigGraphWalker(Validatable rootValidatable) {
@@ -36,29 +39,41 @@ public class GoConfigGraphWalker {
     }
 
     public void walk(Validatable.Handler handler) {
-        walkSubtree(this.rootValidatable, new ConfigSaveValidationContext(null), handler);
+        walkSubtree(this.rootValidatable, new ConfigSaveValidationContext(null), handler, NOTHING, handler);
+    }
+
+    /**
+     * Visits the nodes like {@link #walk(Validatable.Handler)}, except that a node matching {@code skip}, and every node
+     * below it, is handed to {@code skippedHandler} instead of {@code handler}.
+     */
+    public void walk(Validatable.Handler handler, Predicate<Validatable> skip, Validatable.Handler skippedHandler) {
+        walkSubtree(this.rootValidatable, new ConfigSaveValidationContext(null), handler, skip, skippedHandler);
     }
 
-    private void walkSubtree(Object current, ConfigSaveValidationContext context, Validatable.Handler handler) {
+    private void walkSubtree(Object current, ConfigSaveValidationContext context, Validatable.Handler handler, Predicate<Validatable> skip, Validatable.Handler skippedHandler) {
         if (!shouldWalk(current)) {
             return;
         }
         if (current instanceof Validatable validatable) {
+            if (skip.test(validatable)) {
+                handler = skippedHandler;
+                skip = NOTHING;
+            }
             handler.handle(validatable, context);
             context = context.withParent(validatable);
         }
-        tryWalkCollection(current, context, handler);
-        tryWalkFields(current, context, handler);
+        tryWalkCollection(current, context, handler, skip, skippedHandler);
+        tryWalkFields(current, context, handler, skip, skippedHandler);
     }
 
-    private void tryWalkFields(Object current, ConfigSaveValidationContext ctx, Validatable.Handler handler) {
+    private void tryWalkFields(Object current, ConfigSaveValidationContext ctx, Validatable.Handler handler, Predicate<Validatable> skip, Validatable.Handler skippedHandler) {
         for (Field field : ConcurrentFieldCache.nonStaticOrSyntheticFieldsFor(current.getClass())) {
             if (isFinal(field) || field.isAnnotationPresent(IgnoreTraversal.class)) {
                 continue;
             }
             try {
                 field.setAccessible(true);
-                walkSubtree(field.get(current), ctx, handler);
+                walkSubtree(field.get(current), ctx, handler, skip, skippedHandler);
             } catch (IllegalAccessException e) {
                 throw new RuntimeException(e);
             }
@@ -70,12 +85,12 @@ public class GoConfigGraphWalker {
         return Modifier.isFinal(field.getModifiers());
     }
 
-    private void tryWalkCollection(Object current, ConfigSaveValidationContext ctx, Validatable.Handler handler) {
+    private void tryWalkCollection(Object current, ConfigSaveValidationContext ctx, Validatable.Handler handler, Predicate<Validatable> skip, Validatable.Handler skippedHandler) {
         // We can only expect java to honor the contract of data structure interfaces(read: List),
         // and not depend on how they choose to implement it, so we short-circuit at a level that we know will continue to work(bad, but safe)
         if (current instanceof Collection<?> collection) {
             for (Object collectionItem : collection) {
-                walkSubtree(collectionItem, ctx, handler);
+                walkSubtree(collectionItem, ctx, handler, skip, skippedHandler);
             }
         }
     }
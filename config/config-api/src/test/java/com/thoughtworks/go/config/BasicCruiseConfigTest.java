@@ -169,6 +169,22 @@ public class BasicCruiseConfigTest extends CruiseConfigTestBase {
         assertThat(cruiseConfig.getAllPipelineNames().contains(new CaseInsensitiveString("pipeline_in_repo2"))).isTrue();
     }
 
+    @Test
+    public void shouldMergePartialsIntoANewConfigSharingTheUnmergedPartsOfTheConfig() {
+        BasicCruiseConfig cruiseConfig = GoConfigMother.configWithPipelines("p1", "p2");
+        ConfigRepoConfig repoConfig = ConfigRepoConfig.createConfigRepoConfig(gitMaterialConfig("url1"), "plugin", "id-1");
+        cruiseConfig.setConfigRepos(new ConfigReposConfig(repoConfig));
+        PartialConfig partialConfigInRepo = PartialConfigMother.withPipeline("pipeline_in_repo", new RepoConfigOrigin(repoConfig, "repo_r1"));
+
+        CruiseConfig merged = cruiseConfig.mergedWith(List.of(partialConfigInRepo), true);
+
+        assertThat(merged.getAllPipelineNames()).contains(new CaseInsensitiveString("p1"), new CaseInsensitiveString("pipeline_in_repo"));
+        assertThat(merged.pipelineConfigByName(new CaseInsensitiveString("p1"))).isSameAs(cruiseConfig.pipelineConfigByName(new CaseInsensitiveString("p1")));
+        assertThat(merged.server()).isSameAs(cruiseConfig.server());
+        assertThat(cruiseConfig.getAllPipelineNames()).doesNotContain(new CaseInsensitiveString("pipeline_in_repo"));
+        assertThat(cruiseConfig.isLocal()).isTrue();
+    }
+
     @Test
     public void shouldRejectRemotePipelinesNotOriginatingFromRegisteredConfigReposFromCachedPipelineConfigs() {
         BasicCruiseConfig cruiseConfig = GoConfigMother.configWithPipelines("p1", "p2");
@@ -0,0 +1,107 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.domain.PipelineGroups;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Understands which pipelines of a preprocessed config need to be validated again, when a config which only differs
+ * from it in some pipelines has already been validated successfully.
+ * <p>
+ * Validations of a pipeline look at its upstream pipelines, so the pipelines downstream of a changed pipeline are
+ * validated again too. Any change outside the pipelines, such as to templates, environments, security or the groups
+ * themselves, can affect any pipeline, in which case the whole config needs to be validated.
+ */
+public class IncrementalValidationScope {
+    private IncrementalValidationScope() {
+    }
+
+    /**
+     * @param validated    a preprocessed config which passed validation
+     * @param preprocessed the preprocessed config to be validated
+     * @return the names of the pipelines to validate, or null if the whole config needs to be validated
+     */
+    @Nullable
+    public static Set<CaseInsensitiveString> pipelinesToValidate(CruiseConfig validated, CruiseConfig preprocessed) {
+        if (!sameOutsideOfPipelines(validated, preprocessed)) {
+            return null;
+        }
+
+        Map<CaseInsensitiveString, PipelineConfig> validatedPipelines = new HashMap<>();
+        for (PipelineConfig pipelineConfig : validated.getAllPipelineConfigs()) {
+            validatedPipelines.put(pipelineConfig.name(), pipelineConfig);
+        }
+
+        Deque<CaseInsensitiveString> changed = new ArrayDeque<>();
+        for (PipelineConfig pipelineConfig : preprocessed.getAllPipelineConfigs()) {
+            if (!pipelineConfig.equals(validatedPipelines.get(pipelineConfig.name()))) {
+                changed.add(pipelineConfig.name());
+            }
+        }
+
+        Map<CaseInsensitiveString, List<PipelineConfig>> downstreamOf = preprocessed.generatePipelineVsDownstreamMap();
+        Set<CaseInsensitiveString> toValidate = new HashSet<>();
+        CaseInsensitiveString pipelineName;
+        while ((pipelineName = changed.poll()) != null) {
+            if (toValidate.add(pipelineName)) {
+                for (PipelineConfig downstream : downstreamOf.getOrDefault(pipelineName, List.of())) {
+                    changed.add(downstream.name());
+                }
+            }
+        }
+        return toValidate;
+    }
+
+    private static boolean sameOutsideOfPipelines(CruiseConfig validated, CruiseConfig preprocessed) {
+        return Objects.equals(validated.server(), preprocessed.server())
+            && Objects.equals(validated.getElasticConfig(), preprocessed.getElasticConfig())
+            && Objects.equals(validated.getArtifactStores(), preprocessed.getArtifactStores())
+            && Objects.equals(validated.getSecretConfigs(), preprocessed.getSecretConfigs())
+            && Objects.equals(validated.getSCMs(), preprocessed.getSCMs())
+            && Objects.equals(validated.getPackageRepositories(), preprocessed.getPackageRepositories())
+            && Objects.equals(validated.getConfigRepos(), preprocessed.getConfigRepos())
+            && Objects.equals(validated.getTemplates(), preprocessed.getTemplates())
+            && Objects.equals(validated.getEnvironments(), preprocessed.getEnvironments())
+            && sameGroups(validated.getGroups(), preprocessed.getGroups());
+    }
+
+    private static boolean sameGroups(PipelineGroups validated, PipelineGroups preprocessed) {
+        if (validated.size() != preprocessed.size()) {
+            return false;
+        }
+        for (int i = 0; i < validated.size(); i++) {
+            PipelineConfigs validatedGroup = validated.get(i);
+            PipelineConfigs group = preprocessed.get(i);
+            if (!Objects.equals(validatedGroup.getGroup(), group.getGroup())
+                || !Objects.equals(validatedGroup.getAuthorization(), group.getAuthorization())
+                || !pipelineNames(validatedGroup).equals(pipelineNames(group))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<CaseInsensitiveString> pipelineNames(PipelineConfigs group) {
+        List<CaseInsensitiveString> names = new ArrayList<>(group.size());
+        for (PipelineConfig pipelineConfig : group) {
+            names.add(pipelineConfig.name());
+        }
+        return names;
+    }
+}
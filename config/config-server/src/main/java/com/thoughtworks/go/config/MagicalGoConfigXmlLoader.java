@@ -41,6 +41,8 @@ import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import static com.thoughtworks.go.config.parser.GoConfigClassLoader.classParser;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
@@ -131,9 +133,32 @@ public class MagicalGoConfigXmlLoader {
         return cloned;
     }
 
+    /**
+     * Preprocesses and validates like {@link #preprocessAndValidate(CruiseConfig)}, but only validates the pipelines
+     * affected by the changes since the given config was validated (see {@link IncrementalValidationScope}).
+     *
+     * @param lastValidatedConfig a config returned by an earlier, successful call to validate
+     */
+    public CruiseConfig preprocessAndValidate(CruiseConfig config, CruiseConfig lastValidatedConfig) {
+        LOGGER.debug("[Config Validation] In preprocessAndValidate: Cloning.");
+        CruiseConfig cloned = CLONER.deepClone(config);
+        preprocess(cloned);
+        Set<CaseInsensitiveString> pipelinesToValidate = IncrementalValidationScope.pipelinesToValidate(lastValidatedConfig, cloned);
+        LOGGER.debug("[Config Validation] In preprocessAndValidate: Validating {} pipelines.", pipelinesToValidate == null ? "all" : pipelinesToValidate.size());
+        validatePreprocessed(cloned, pipelinesToValidate == null ? pipelineName -> true : pipelinesToValidate::contains);
+        LOGGER.debug("[Config Validation] In preprocessAndValidate: Done.");
+        config.encryptSecureProperties(cloned);
+        return cloned;
+    }
+
     public CruiseConfig validateCruiseConfig(CruiseConfig config) {
         LOGGER.debug("[Config Save] In validateCruiseConfig: Starting.");
-        List<ConfigErrors> allErrors = validate(config);
+        preprocess(config);
+        return validatePreprocessed(config, pipelineName -> true);
+    }
+
+    private CruiseConfig validatePreprocessed(CruiseConfig config, Predicate<CaseInsensitiveString> shouldValidatePipeline) {
+        List<ConfigErrors> allErrors = config.validateAfterPreprocess(shouldValidatePipeline);
         if (!allErrors.isEmpty()) {
             throw config.isLocal()
                 ? new GoConfigInvalidException(config, allErrors)
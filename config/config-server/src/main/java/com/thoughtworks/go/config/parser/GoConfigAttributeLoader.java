@@ -21,13 +21,13 @@ import com.thoughtworks.go.util.ConfigUtil;
 import org.jdom2.Element;
 
 import java.lang.reflect.Field;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
 public class GoConfigAttributeLoader {
-    private static final Map<Field, ConfigAttribute> isAttributes = new HashMap<>();
+    private static final Map<Field, ConfigAttribute> isAttributes = new ConcurrentHashMap<>();
 
     private final Element e;
     private final Field field;
@@ -0,0 +1,156 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config.parser;
+
+import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.config.preprocessor.ConcurrentFieldCache;
+
+import javax.annotation.PostConstruct;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Understands how to load the fields of a config element class, worked out once per class rather than for every
+ * element loaded: which fields are loaded and from what, how they are read and written, and which
+ * {@link PostConstruct} methods to call once they are.
+ */
+class GoConfigClassDescriptor {
+    private static final Map<Class<?>, GoConfigClassDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    private final List<LoadedField> fields = new ArrayList<>();
+    private final List<MethodHandle> postConstructMethods = new ArrayList<>();
+
+    static GoConfigClassDescriptor of(Class<?> type) {
+        return descriptors.computeIfAbsent(type, GoConfigClassDescriptor::new);
+    }
+
+    private GoConfigClassDescriptor(Class<?> type) {
+        for (Field field : ConcurrentFieldCache.nonStaticOrSyntheticFieldsFor(type)) {
+            Kind kind = kindOf(field);
+            if (kind != null) {
+                fields.add(new LoadedField(field, kind));
+            }
+        }
+        for (Method method : type.getMethods()) {
+            if (method.isAnnotationPresent(PostConstruct.class)) {
+                postConstructMethods.add(handleFor(method));
+            }
+        }
+    }
+
+    private static Kind kindOf(Field field) {
+        if (field.isAnnotationPresent(ConfigSubtag.class)) {
+            return GoConfigClassLoader.isImplicitCollection(field.getType()) ? Kind.IMPLICIT_COLLECTION : Kind.SUBTAG;
+        } else if (field.isAnnotationPresent(ConfigAttribute.class)) {
+            return Kind.ATTRIBUTE;
+        } else if (field.isAnnotationPresent(ConfigValue.class)) {
+            return Kind.VALUE;
+        } else if (field.isAnnotationPresent(ConfigReferenceElement.class)) {
+            return Kind.REFERENCE;
+        }
+        return null;
+    }
+
+    List<LoadedField> fields() {
+        return fields;
+    }
+
+    void postConstruct(Object instance) throws Throwable {
+        for (MethodHandle method : postConstructMethods) {
+            method.invokeExact(instance);
+        }
+    }
+
+    private static MethodHandle handleFor(Method method) {
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(methodType(void.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Unable to access method " + method, e);
+        }
+    }
+
+    enum Kind {
+        IMPLICIT_COLLECTION, SUBTAG, ATTRIBUTE, VALUE, REFERENCE
+    }
+
+    static class LoadedField {
+        private final Field field;
+        private final Kind kind;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        private final ConfigAttributeValue attributeValue;
+        private final MethodHandle attributeValueConstructor;
+
+        private LoadedField(Field field, Kind kind) {
+            this.field = field;
+            this.kind = kind;
+            try {
+                field.setAccessible(true);
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                this.getter = lookup.unreflectGetter(field).asType(methodType(Object.class, Object.class));
+                this.setter = lookup.unreflectSetter(field).asType(methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Unable to access configField: " + field.getName(), e);
+            }
+            this.attributeValue = field.getType().getAnnotation(ConfigAttributeValue.class);
+            this.attributeValueConstructor = attributeValue == null ? null : stringConstructorOf(field.getType());
+        }
+
+        private static MethodHandle stringConstructorOf(Class<?> type) {
+            try {
+                Constructor<?> constructor = type.getConstructor(String.class);
+                return MethodHandles.lookup().unreflectConstructor(constructor).asType(methodType(Object.class, String.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // reported when a value is set, as it was before the constructor was looked up once per class
+                return null;
+            }
+        }
+
+        Field field() {
+            return field;
+        }
+
+        Kind kind() {
+            return kind;
+        }
+
+        Object get(Object instance) throws Throwable {
+            return getter.invokeExact(instance);
+        }
+
+        void set(Object instance, Object value) throws Throwable {
+            setter.invokeExact(instance, value);
+        }
+
+        ConfigAttributeValue attributeValue() {
+            return attributeValue;
+        }
+
+        MethodHandle attributeValueConstructor() {
+            return attributeValueConstructor;
+        }
+    }
+}
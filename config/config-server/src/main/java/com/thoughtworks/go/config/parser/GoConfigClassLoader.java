@@ -16,7 +16,7 @@
 package com.thoughtworks.go.config.parser;
 
 import com.thoughtworks.go.config.*;
-import com.thoughtworks.go.config.preprocessor.ConcurrentFieldCache;
+import com.thoughtworks.go.config.parser.GoConfigClassDescriptor.LoadedField;
 import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.security.GoCipher;
 import com.thoughtworks.go.util.ConfigUtil;
@@ -24,12 +24,7 @@ import org.jdom2.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.annotation.PostConstruct;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 import static com.thoughtworks.go.config.parser.GoConfigFieldLoader.fieldParser;
 import static com.thoughtworks.go.util.ExceptionUtils.*;
@@ -70,28 +65,24 @@ public class GoConfigClassLoader<T> {
                 configReferenceElements.add(collectionName, id, o);
             }
         }
-        for (GoConfigFieldLoader<?> field : allFields(o)) {
-            field.parse();
+        GoConfigClassDescriptor descriptor = GoConfigClassDescriptor.of(o.getClass());
+        for (LoadedField field : descriptor.fields()) {
+            fieldParser(e, o, field, goCipher, registry, configReferenceElements).parse();
         }
         if (isConfigCollection()) {
             parseCollection((Collection<Object>) o);
         }
         //check whether there are public PostConstruct methods and call them
-        postConstruct(o);
+        postConstruct(descriptor, o);
         return o;
     }
 
-    private void postConstruct(T o) {
-        Method[] methods = o.getClass().getMethods();
-        for (Method method : methods) {
-            if (method.isAnnotationPresent(PostConstruct.class)) {
-                try {
-                    method.invoke(o);
-                } catch (Exception e) {
-                    LOGGER.error("Failed to save config: ", e);
-                    throw bomb(e);
-                }
-            }
+    private void postConstruct(GoConfigClassDescriptor descriptor, T o) {
+        try {
+            descriptor.postConstruct(o);
+        } catch (Throwable e) {
+            LOGGER.error("Failed to save config: ", e);
+            throw e instanceof Exception exception ? bomb(exception) : new RuntimeException(e);
         }
     }
 
@@ -109,7 +100,7 @@ public class GoConfigClassLoader<T> {
         for (Element childElement : e.getChildren()) {
             if (isInCollection(childElement, elementType)) {
                 Class<?> collectionType = findConcreteType(childElement, elementType);
-                collection.add(classParser(childElement, collectionType, new GoCipher(), registry, configReferenceElements).parse());
+                collection.add(classParser(childElement, collectionType, goCipher, registry, configReferenceElements).parse());
             }
         }
         int minimumSize = collectionAnnotation.minimum();
@@ -118,14 +109,6 @@ public class GoConfigClassLoader<T> {
                 + "Found " + collection.size() + ".");
     }
 
-    private <I> List<GoConfigFieldLoader<?>> allFields(I o) {
-        List<GoConfigFieldLoader<?>> fields = new ArrayList<>();
-        for (Field field : ConcurrentFieldCache.nonStaticOrSyntheticFieldsFor(o.getClass())) {
-            fields.add(fieldParser(e, o, field, registry, configReferenceElements));
-        }
-        return fields;
-    }
-
     private boolean atElement() {
         AttributeAwareConfigTag attributeAwareConfigTag = aClass.getAnnotation(AttributeAwareConfigTag.class);
         if (attributeAwareConfigTag != null) {
@@ -17,110 +17,100 @@ package com.thoughtworks.go.config.parser;
 
 import com.thoughtworks.go.config.ConfigAttributeValue;
 import com.thoughtworks.go.config.ConfigReferenceElement;
-import com.thoughtworks.go.config.ConfigSubtag;
-import com.thoughtworks.go.config.ConfigValue;
+import com.thoughtworks.go.config.parser.GoConfigClassDescriptor.LoadedField;
 import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.security.GoCipher;
 import org.jdom2.Attribute;
 import org.jdom2.Element;
 import org.springframework.beans.TypeMismatchException;
 
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static com.thoughtworks.go.config.parser.GoConfigAttributeLoader.attributeParser;
-import static com.thoughtworks.go.config.parser.GoConfigAttributeLoader.isAttribute;
-import static com.thoughtworks.go.config.parser.GoConfigSubtagLoader.isSubtag;
 import static com.thoughtworks.go.config.parser.GoConfigSubtagLoader.subtagParser;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static java.text.MessageFormat.format;
 
 public class GoConfigFieldLoader<T> {
-    private static final Map<Field, Boolean> isImplicitCollection = new ConcurrentHashMap<>();
-
     private final Element e;
     private final T instance;
+    private final LoadedField loadedField;
     private final Field field;
+    private final GoCipher goCipher;
     private final ConfigReferenceElements configReferenceElements;
     private final ConfigElementImplementationRegistry registry;
 
-    public static <T> GoConfigFieldLoader<T> fieldParser(Element e, T instance, Field field, final ConfigElementImplementationRegistry registry,
-                                                         ConfigReferenceElements configReferenceElements) {
-        return new GoConfigFieldLoader<>(e, instance, field, registry, configReferenceElements);
+    static <T> GoConfigFieldLoader<T> fieldParser(Element e, T instance, LoadedField field, GoCipher goCipher, final ConfigElementImplementationRegistry registry,
+                                                  ConfigReferenceElements configReferenceElements) {
+        return new GoConfigFieldLoader<>(e, instance, field, goCipher, registry, configReferenceElements);
     }
 
-    private GoConfigFieldLoader(Element e, T instance, Field field, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
+    private GoConfigFieldLoader(Element e, T instance, LoadedField loadedField, GoCipher goCipher, final ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
         this.e = e;
         this.instance = instance;
-        this.field = field;
+        this.loadedField = loadedField;
+        this.field = loadedField.field();
+        this.goCipher = goCipher;
         this.configReferenceElements = configReferenceElements;
         this.registry = registry;
     }
 
     public void parse() {
-        if (isImplicitCollection()) {
-            field.setAccessible(true);
-            Object val = GoConfigClassLoader.classParser(e, field.getType(), new GoCipher(), registry, configReferenceElements).parseImplicitCollection();
-            setValue(val);
-        } else if (isSubtag(field)) {
-            field.setAccessible(true);
-            Object val = subtagParser(e, field, registry, configReferenceElements).parse();
-            setValue(val);
-        } else if (isAttribute(field)) {
-            field.setAccessible(true);
-            Object val = attributeParser(e, field).parse(defaultValue());
-            setValue(val);
-        } else if (field.isAnnotationPresent(ConfigValue.class)) {
-            field.setAccessible(true);
-            Object val = e.getText();
-            setValue(val);
-        } else if (field.isAnnotationPresent(ConfigReferenceElement.class)) {
-            field.setAccessible(true);
-            ConfigReferenceElement referenceField = field.getAnnotation(ConfigReferenceElement.class);
-            Attribute attribute = e.getAttribute(referenceField.referenceAttribute());
-            if (attribute == null) {
-                bomb(String.format("Expected attribute `%s` to be present for %s.", referenceField.referenceAttribute(), e.getName()));
+        switch (loadedField.kind()) {
+            case IMPLICIT_COLLECTION -> setValue(GoConfigClassLoader.classParser(e, field.getType(), goCipher, registry, configReferenceElements).parseImplicitCollection());
+            case SUBTAG -> setValue(subtagParser(e, field, goCipher, registry, configReferenceElements).parse());
+            case ATTRIBUTE -> setValue(attributeParser(e, field).parse(defaultValue()));
+            case VALUE -> setValue(e.getText());
+            case REFERENCE -> {
+                ConfigReferenceElement referenceField = field.getAnnotation(ConfigReferenceElement.class);
+                Attribute attribute = e.getAttribute(referenceField.referenceAttribute());
+                if (attribute == null) {
+                    bomb(String.format("Expected attribute `%s` to be present for %s.", referenceField.referenceAttribute(), e.getName()));
+                }
+                String refId = attribute.getValue();
+                Object referredObject = configReferenceElements.get(referenceField.referenceCollection(), refId);
+                setValue(referredObject);
             }
-            String refId = attribute.getValue();
-            Object referredObject = configReferenceElements.get(referenceField.referenceCollection(), refId);
-            setValue(referredObject);
         }
     }
 
-    private boolean isImplicitCollection() {
-        return isImplicitCollection.computeIfAbsent(field, f -> f.isAnnotationPresent(ConfigSubtag.class) && GoConfigClassLoader.isImplicitCollection(f.getType()));
-    }
-
     private void setValue(Object val) {
         try {
-            ConfigAttributeValue configAttributeValue = field.getType().getAnnotation(ConfigAttributeValue.class);
+            ConfigAttributeValue configAttributeValue = loadedField.attributeValue();
             if (configAttributeValue != null) {
                 if (val != null || configAttributeValue.createForNull()) {
-                    Constructor<?> constructor = field.getType().getConstructor(String.class);
-                    field.set(instance, constructor.newInstance((String) val));
+                    MethodHandle constructor = loadedField.attributeValueConstructor();
+                    if (constructor == null) {
+                        throw bomb("Error setting configField: " + field.getName() + " as " + field.getType());
+                    }
+                    loadedField.set(instance, newAttributeValue(constructor, (String) val));
                 }
             } else if (val != null) {
-                field.set(instance, GoConfigFieldTypeConverter.forThread().convertIfNecessary(val, field.getType()));
+                loadedField.set(instance, GoConfigFieldTypeConverter.forThread().convertIfNecessary(val, field.getType()));
             }
-        } catch (IllegalAccessException e) {
-            throw bomb("Error setting configField: " + field.getName(), e);
         } catch (TypeMismatchException e) {
             throw bomb(format("Could not set value [{0}] on field [{1}] of type [{2}] ", val, field.getName(), field.getType()), e);
-        } catch (NoSuchMethodException e) {
-            throw bomb("Error setting configField: " + field.getName() + " as " + field.getType(), e);
-        } catch (InstantiationException | InvocationTargetException e) {
-            throw bomb("Error creating configAttribute: " + field.getName() + " as " + field.getType(), e);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("Error setting configField: " + field.getName(), e);
+        }
+    }
+
+    private Object newAttributeValue(MethodHandle constructor, String val) {
+        try {
+            return constructor.invokeExact(val);
+        } catch (Throwable e) {
+            throw new RuntimeException("Error creating configAttribute: " + field.getName() + " as " + field.getType(), e);
         }
     }
 
     private Object defaultValue() {
         try {
-            return field.get(instance);
-        } catch (IllegalAccessException e) {
-            throw bomb("Error getting configField: " + field.getName(), e);
+            return loadedField.get(instance);
+        } catch (Throwable e) {
+            throw new RuntimeException("Error getting configField: " + field.getName(), e);
         }
     }
 
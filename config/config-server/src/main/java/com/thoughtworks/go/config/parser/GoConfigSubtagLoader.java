@@ -24,16 +24,17 @@ import com.thoughtworks.go.util.ConfigUtil;
 import org.jdom2.Element;
 
 import java.lang.reflect.Field;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
 public class GoConfigSubtagLoader {
-    private static final Map<Field, ConfigSubtag> isSubTags = new HashMap<>();
+    private static final Map<Field, ConfigSubtag> isSubTags = new ConcurrentHashMap<>();
 
     private final Element e;
     private final Field field;
+    private final GoCipher goCipher;
     private final ConfigElementImplementationRegistry registry;
     private final ConfigReferenceElements configReferenceElements;
 
@@ -45,14 +46,15 @@ public class GoConfigSubtagLoader {
         return isSubTags.computeIfAbsent(field, f -> f.getAnnotation(ConfigSubtag.class));
     }
 
-    public static GoConfigSubtagLoader subtagParser(Element e, Field field, ConfigElementImplementationRegistry registry,
+    public static GoConfigSubtagLoader subtagParser(Element e, Field field, GoCipher goCipher, ConfigElementImplementationRegistry registry,
                                                     ConfigReferenceElements configReferenceElements) {
-        return new GoConfigSubtagLoader(e, field, registry, configReferenceElements);
+        return new GoConfigSubtagLoader(e, field, goCipher, registry, configReferenceElements);
     }
 
-    private GoConfigSubtagLoader(Element e, Field field, ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
+    private GoConfigSubtagLoader(Element e, Field field, GoCipher goCipher, ConfigElementImplementationRegistry registry, ConfigReferenceElements configReferenceElements) {
         this.e = e;
         this.field = field;
+        this.goCipher = goCipher;
         this.registry = registry;
         this.configReferenceElements = configReferenceElements;
     }
@@ -66,7 +68,7 @@ public class GoConfigSubtagLoader {
             return null;
         }
 
-        return GoConfigClassLoader.classParser(ConfigUtil.getChild(e, tag), type, new GoCipher(), registry, configReferenceElements).parse();
+        return GoConfigClassLoader.classParser(ConfigUtil.getChild(e, tag), type, goCipher, registry, configReferenceElements).parse();
     }
 
     private Class<?> findTypeOfField() {
@@ -42,6 +42,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
@@ -49,6 +50,9 @@ import java.nio.file.Files;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.StreamSupport;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -56,6 +60,10 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
  * Understands versioning cruise-config
+ * <p>
+ * With {@link SystemEnvironment#GO_CONFIG_REPO_ASYNC_COMMIT} enabled, check-ins are queued and committed a little later
+ * by a single background thread, so that a burst of config saves is committed in one go rather than each save waiting
+ * on git. Anything which reads the repository commits the queued revisions first, so readers never see it behind.
  */
 @Component
 public class ConfigRepository {
@@ -75,6 +83,15 @@ public class ConfigRepository {
     private final Git git;
     private final Repository gitRepo;
 
+    private final boolean asyncCommit;
+    private final Object checkinQueueLock = new Object();
+    private final Queue<GoConfigRevision> pendingCheckins = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean commitScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService committer;
+    private GoConfigRevision lastQueuedRevision;
+    private boolean committingPendingCheckins;
+    private int commitsSinceLastPack;
+
     @Autowired
     public ConfigRepository(SystemEnvironment systemEnvironment) throws IOException {
         this.systemEnvironment = systemEnvironment;
@@ -83,6 +100,12 @@ public class ConfigRepository {
         gitRepo = new FileRepositoryBuilder().setGitDir(configRepoDir).build();
         updateWithDefaults(gitRepo.getConfig());
         git = new Git(gitRepo);
+        asyncCommit = systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_ASYNC_COMMIT);
+        committer = asyncCommit ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "config-repo-committer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
     }
 
     private void updateWithDefaults(StoredConfig config) {
@@ -118,6 +141,82 @@ public class ConfigRepository {
     }
 
     public void checkin(final GoConfigRevision rev) throws IOException, GitAPIException {
+        if (asyncCommit) {
+            queueCheckin(rev);
+        } else {
+            commit(rev);
+        }
+    }
+
+    private void queueCheckin(GoConfigRevision rev) {
+        // not synchronized on this, so that saves don't wait for queued check-ins being committed
+        synchronized (checkinQueueLock) {
+            if (rev.equals(lastQueuedRevision)) {
+                return;
+            }
+            lastQueuedRevision = rev;
+            pendingCheckins.add(rev);
+        }
+        if (commitScheduled.compareAndSet(false, true)) {
+            committer.schedule(() -> {
+                commitScheduled.set(false);
+                commitPendingCheckins();
+            }, systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_ASYNC_COMMIT_DELAY_IN_MILLIS), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Commits any queued check-ins, in the order they were made. Errors are logged and the revision dropped, as its
+     * config has been saved regardless and the next check-in will contain it.
+     */
+    void commitPendingCheckins() {
+        if (pendingCheckins.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (committingPendingCheckins) {
+                return;
+            }
+            committingPendingCheckins = true;
+            try {
+                GoConfigRevision rev;
+                while ((rev = pendingCheckins.poll()) != null) {
+                    try {
+                        commit(rev);
+                        commitsSinceLastPack++;
+                    } catch (Exception e) {
+                        // already logged by commit
+                    }
+                }
+                packIfRequired();
+            } finally {
+                committingPendingCheckins = false;
+            }
+        }
+    }
+
+    private void packIfRequired() {
+        int packInterval = systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_ASYNC_COMMIT_PACK_INTERVAL);
+        if (packInterval <= 0 || commitsSinceLastPack < packInterval) {
+            return;
+        }
+        commitsSinceLastPack = 0;
+        try {
+            git.gc().setAggressive(false).call();
+        } catch (GitAPIException e) {
+            LOGGER.warn("[CONFIG REPOSITORY] Could not pack the config repository", e);
+        }
+    }
+
+    @PreDestroy
+    public void stopCommitter() {
+        if (committer != null) {
+            committer.shutdown();
+        }
+        commitPendingCheckins();
+    }
+
+    private void commit(final GoConfigRevision rev) throws IOException, GitAPIException {
         try {
             if (rev.equals(getCurrentRevision())) {
                 return;
@@ -140,6 +239,7 @@ public class ConfigRepository {
 
     public <T, E extends Exception> T doLocked(ThrowingFn<T, E> runnable) throws E {
         synchronized (this) {
+            commitPendingCheckins();
             return runnable.call();
         }
     }
@@ -313,6 +413,11 @@ public class ConfigRepository {
     }
 
     public String getConfigMergedWithLatestRevision(GoConfigRevision configRevision, String oldMD5) throws IOException {
+        // holds the lock throughout, so that queued check-ins are not committed while on another branch
+        return doLocked(() -> mergeWithLatestRevision(configRevision, oldMD5));
+    }
+
+    private String mergeWithLatestRevision(GoConfigRevision configRevision, String oldMD5) throws IOException {
         try {
             LOGGER.debug("[Config Save] Starting git merge of config");
             createBranch(BRANCH_AT_REVISION, getRevCommitForMd5(oldMD5));
@@ -349,7 +454,7 @@ public class ConfigRepository {
     RevCommit checkinToBranch(String branchName, GoConfigRevision rev) throws GitAPIException, IOException {
         try {
             checkout(branchName);
-            checkin(rev);
+            commit(rev);
             return getCurrentRevCommit();
         } catch (Exception e) {
             LOGGER.error("[CONFIG_MERGE] Check-in to branch {} failed", branchName, e);
@@ -0,0 +1,59 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.helper.EnvironmentConfigMother;
+import com.thoughtworks.go.helper.GoConfigMother;
+import com.thoughtworks.go.helper.PipelineConfigMother;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncrementalValidationScopeTest {
+    private final CruiseConfig validated = GoConfigMother.simpleDiamond();
+
+    @Test
+    public void shouldValidateNothingWhenNothingChanged() {
+        CruiseConfig changed = GoConfigMother.deepClone(validated);
+
+        assertThat(IncrementalValidationScope.pipelinesToValidate(validated, changed)).isEmpty();
+    }
+
+    @Test
+    public void shouldValidateChangedPipelinesAlongWithThePipelinesDownstreamOfThem() {
+        CruiseConfig changed = GoConfigMother.deepClone(validated);
+        changed.pipelineConfigByName(new CaseInsensitiveString("p1")).addEnvironmentVariable("FOO", "bar");
+
+        assertThat(IncrementalValidationScope.pipelinesToValidate(validated, changed))
+            .containsExactlyInAnyOrder(new CaseInsensitiveString("p1"), new CaseInsensitiveString("p3"));
+    }
+
+    @Test
+    public void shouldValidateEverythingWhenAPipelineIsAdded() {
+        CruiseConfig changed = GoConfigMother.deepClone(validated);
+        changed.addPipeline("group-1", PipelineConfigMother.pipelineConfig("p4"));
+
+        assertThat(IncrementalValidationScope.pipelinesToValidate(validated, changed)).isNull();
+    }
+
+    @Test
+    public void shouldValidateEverythingWhenSomethingOtherThanAPipelineChanged() {
+        CruiseConfig changed = GoConfigMother.deepClone(validated);
+        changed.addEnvironment(EnvironmentConfigMother.environment("uat", "p1"));
+
+        assertThat(IncrementalValidationScope.pipelinesToValidate(validated, changed)).isNull();
+    }
+}
@@ -18,6 +18,7 @@ package com.thoughtworks.go.config.parser;
 import com.thoughtworks.go.config.AttributeAwareConfigTag;
 import com.thoughtworks.go.config.ConfigAttribute;
 import com.thoughtworks.go.config.ConfigTag;
+import com.thoughtworks.go.config.ConfigValue;
 import com.thoughtworks.go.config.registry.ConfigElementImplementationRegistry;
 import com.thoughtworks.go.security.GoCipher;
 import org.jdom2.Element;
@@ -26,6 +27,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.annotation.PostConstruct;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -129,6 +133,47 @@ public class GoConfigClassLoaderTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Attribute `type` is not allowed in com.thoughtworks.go.config.parser.AttributeAwareConfigTagHasConfigAttributeWithSameName. You cannot use @ConfigAttribute annotation with attribute name `type` when @AttributeAwareConfigTag is configured with same name.");
     }
+
+    @Test
+    public void shouldSetFieldsAndCallPostConstructMethodsEachTimeAnElementIsParsed() {
+        for (int i = 1; i <= 2; i++) {
+            final Element element = new Element("example");
+            element.setAttribute("name", "name-" + i);
+            element.setAttribute("count", String.valueOf(i));
+            element.setText("text-" + i);
+
+            final ConfigWithFieldsAndPostConstruct config = GoConfigClassLoader.classParser(element, ConfigWithFieldsAndPostConstruct.class, goCipher, registry, referenceElements).parse();
+
+            assertThat(config.name).isEqualTo("name-" + i);
+            assertThat(config.count).isEqualTo(i);
+            assertThat(config.text).isEqualTo("text-" + i);
+            assertThat(config.postConstructed).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldKeepDefaultValueOfAttributeMissingFromElement() {
+        final ConfigWithFieldsAndPostConstruct config = GoConfigClassLoader.classParser(new Element("example"), ConfigWithFieldsAndPostConstruct.class, goCipher, registry, referenceElements).parse();
+
+        assertThat(config.name).isEqualTo("default");
+        assertThat(config.count).isZero();
+    }
+}
+
+@ConfigTag("example")
+class ConfigWithFieldsAndPostConstruct {
+    @ConfigAttribute("name")
+    String name = "default";
+    @ConfigAttribute("count")
+    int count;
+    @ConfigValue
+    String text;
+    boolean postConstructed;
+
+    @PostConstruct
+    public void markPostConstructed() {
+        postConstructed = true;
+    }
 }
 
 class ConfigWithoutAnnotation {
@@ -40,6 +40,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -58,6 +59,7 @@ public class ConfigRepositoryTest {
         when(systemEnvironment.getConfigRepoDir()).thenReturn(configRepoDir);
         when(systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_GC_AGGRESSIVE)).thenReturn(true);
         when(systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_PERIODIC_GC)).thenReturn(true);
+        when(systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_ASYNC_COMMIT)).thenReturn(false);
         configRepo = new ConfigRepository(systemEnvironment);
         configRepo.initialize();
         configRepoRawGit = configRepo.git();
@@ -77,6 +79,28 @@ public class ConfigRepositoryTest {
         assertThat(configRepo.getRevision("md5-v2").getContent()).isEqualTo("v1 v2");
     }
 
+    @Test
+    public void shouldQueueCheckinsWhenCommittingAsynchronouslyAndCommitThemBeforeReading() throws Exception {
+        when(systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_ASYNC_COMMIT)).thenReturn(true);
+        when(systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_ASYNC_COMMIT_DELAY_IN_MILLIS)).thenReturn(TimeUnit.HOURS.toMillis(1));
+        when(systemEnvironment.get(SystemEnvironment.GO_CONFIG_REPO_ASYNC_COMMIT_PACK_INTERVAL)).thenReturn(1000);
+        ConfigRepository asyncConfigRepo = new ConfigRepository(systemEnvironment);
+        try {
+            asyncConfigRepo.checkin(new GoConfigRevision("v1", "md5-v1", "user-name", "100.3.9", new TimeProvider()));
+            asyncConfigRepo.checkin(new GoConfigRevision("v1", "md5-v1", "user-name", "100.3.9", new TimeProvider()));
+            asyncConfigRepo.checkin(new GoConfigRevision("v1 v2", "md5-v2", "user-name", "100.9.8", new TimeProvider()));
+
+            assertThat(asyncConfigRepo.commitCountOnMaster()).isEqualTo(-1L);
+
+            assertThat(asyncConfigRepo.getCurrentRevision().getMd5()).isEqualTo("md5-v2");
+            assertThat(asyncConfigRepo.getRevision("md5-v1").getContent()).isEqualTo("v1");
+            assertThat(asyncConfigRepo.commitCountOnMaster()).isEqualTo(2L);
+        } finally {
+            asyncConfigRepo.stopCommitter();
+            asyncConfigRepo.getGitRepo().close();
+        }
+    }
+
     @Test @SuppressWarnings("try")
     public void shouldBeAbleToCheckInWithGlobalGpgSigningEnabled() throws Exception {
         try (UndoableUserGitConfig ignored = new UndoableUserGitConfig(c -> c.setBoolean(ConfigConstants.CONFIG_COMMIT_SECTION, null, ConfigConstants.CONFIG_KEY_GPGSIGN, true))) {
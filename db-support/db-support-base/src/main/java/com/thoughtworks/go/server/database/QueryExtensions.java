@@ -17,6 +17,7 @@
 package com.thoughtworks.go.server.database;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -72,6 +73,26 @@ public abstract class QueryExtensions {
             """;
     }
 
+    /**
+     * The default search matches the search string anywhere in the revision, user name and comment of a modification,
+     * relying on the database to index these with trigrams if it can.
+     */
+    public RevisionSearchQuery queryRevisionsMatching(String searchString) {
+        return new RevisionSearchQuery("""
+            SELECT m.* \
+            FROM modifications AS m \
+                INNER JOIN materials mat ON mat.id = m.materialId \
+            WHERE mat.fingerprint = :finger_print \
+                AND (m.revision || ' ' || COALESCE(m.username, '') || ' ' || COALESCE(m.comment, '') LIKE :search_string OR m.pipelineLabel LIKE :search_string) \
+            ORDER BY m.id DESC \
+            LIMIT 5 \
+            """, Map.of("search_string", likePattern(searchString)));
+    }
+
+    protected String likePattern(String searchString) {
+        return "%" + searchString + "%";
+    }
+
     protected String joinWithQuotesForSql(List<? extends Number> array) {
         return array.stream()
             .map(Objects::toString)
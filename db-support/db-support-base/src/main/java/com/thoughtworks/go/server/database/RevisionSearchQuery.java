@@ -0,0 +1,25 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database;
+
+import java.util.Map;
+
+/**
+ * A query for the latest modifications of a material matching a search string, along with the values of its
+ * named parameters other than {@code finger_print}, the fingerprint of the material.
+ */
+public record RevisionSearchQuery(String sql, Map<String, String> parameters) {
+}
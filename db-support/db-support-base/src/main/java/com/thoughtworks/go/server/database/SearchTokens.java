@@ -0,0 +1,66 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Understands how modification texts are split into the words indexed for revision search, on databases which do not
+ * have a suitable full-text index of their own.
+ */
+public final class SearchTokens {
+    public static final int MIN_INDEXED_SEARCH_LENGTH = 3;
+    public static final int MAX_TOKEN_LENGTH = 255;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private SearchTokens() {
+    }
+
+    /**
+     * @return the distinct, lower-cased words in the given texts, ignoring texts which are null
+     */
+    public static Set<String> of(String... texts) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+                if (!token.isEmpty()) {
+                    tokens.add(token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return the first word of a search string, if it is long enough to be worth looking up in an index, otherwise
+     * null. Short search strings match so many modifications that scanning the latest ones is faster.
+     */
+    public static String leading(String searchString) {
+        Set<String> tokens = of(searchString);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        String first = tokens.iterator().next();
+        return first.length() < MIN_INDEXED_SEARCH_LENGTH ? null : first;
+    }
+}
@@ -17,8 +17,41 @@
 package com.thoughtworks.go.server.database.h2;
 
 import com.thoughtworks.go.server.database.QueryExtensions;
+import com.thoughtworks.go.server.database.RevisionSearchQuery;
+import com.thoughtworks.go.server.database.SearchTokens;
+
+import java.util.Map;
 
 public class H2QueryExtensions extends QueryExtensions {
+    /**
+     * Narrows down the modifications to search using the words maintained in {@code modificationSearchTokens} by
+     * {@link UpdateModificationSearchTokens}, so only the modifications with a word starting like the search string
+     * are matched against it.
+     */
+    @Override
+    public RevisionSearchQuery queryRevisionsMatching(String searchString) {
+        String token = SearchTokens.leading(searchString);
+        if (token == null) {
+            return super.queryRevisionsMatching(searchString);
+        }
+        return new RevisionSearchQuery("""
+            SELECT m.* \
+            FROM modifications AS m \
+                INNER JOIN materials mat ON mat.id = m.materialId \
+            WHERE mat.fingerprint = :finger_print \
+                AND m.id IN ( \
+                    SELECT t.modificationId \
+                    FROM modificationSearchTokens t \
+                        INNER JOIN materials tmat ON tmat.id = t.materialId \
+                    WHERE tmat.fingerprint = :finger_print \
+                        AND t.token LIKE :search_token \
+                ) \
+                AND (m.revision || ' ' || COALESCE(m.username, '') || ' ' || COALESCE(m.comment, '') LIKE :search_string OR m.pipelineLabel LIKE :search_string) \
+            ORDER BY m.id DESC \
+            LIMIT 5 \
+            """, Map.of("search_string", likePattern(searchString), "search_token", token + "%"));
+    }
+
     @Override
     public boolean accepts(String url) {
         return url == null || url.isBlank() || url.startsWith("jdbc:h2:");
@@ -0,0 +1,73 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database.h2;
+
+import com.thoughtworks.go.server.database.SearchTokens;
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Keeps the words of the revision, user name, comment and pipeline label of each modification in
+ * {@code modificationSearchTokens}, which H2 uses in place of a full-text index when searching revisions.
+ */
+public class UpdateModificationSearchTokens implements Trigger {
+
+    private static final int ID = 0;
+    private static final int USERNAME = 2;
+    private static final int COMMENT = 3;
+    private static final int REVISION = 5;
+    private static final int MATERIAL_ID = 8;
+    private static final int PIPELINE_LABEL = 9;
+
+    @Override
+    public void init(Connection connection, String schemaName, String triggerName, String tableName, boolean before, int type) {
+
+    }
+
+    @Override
+    public void fire(Connection connection, Object[] oldRows, Object[] newRows) throws SQLException {
+        if (oldRows != null) {
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM modificationSearchTokens WHERE modificationId = ?")) {
+                statement.setLong(1, (Long) oldRows[ID]);
+                statement.execute();
+            }
+        }
+        if (newRows == null) {
+            return;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO modificationSearchTokens (modificationId, materialId, token) VALUES (?, ?, ?)")) {
+            for (String token : SearchTokens.of((String) newRows[REVISION], (String) newRows[USERNAME], (String) newRows[COMMENT], (String) newRows[PIPELINE_LABEL])) {
+                statement.setLong(1, (Long) newRows[ID]);
+                statement.setObject(2, newRows[MATERIAL_ID]);
+                statement.setString(3, token);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void remove() {
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database.h2;
+
+import com.thoughtworks.go.server.database.migration.DatabaseMigrator;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpdateModificationSearchTokensTest {
+
+    private BasicDataSource dataSource;
+
+    @BeforeEach
+    void migrate() throws SQLException {
+        dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:h2:mem:search-tokens-test;DB_CLOSE_DELAY=0");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+
+        try (Connection connection = dataSource.getConnection()) {
+            new DatabaseMigrator().migrate(connection);
+        }
+        execute("INSERT INTO materials (id, type, fingerprint, flyweightName) VALUES (1, 'GitMaterial', 'fingerprint', 'flyweight')");
+    }
+
+    @AfterEach
+    void destroyDatasource() throws SQLException {
+        dataSource.close();
+    }
+
+    @Test
+    void shouldIndexTheWordsOfInsertedModifications() throws SQLException {
+        execute("INSERT INTO modifications (id, revision, username, comment, materialId) VALUES (10, 'c30c4711', 'Turn_Her', 'Fix the build', 1)");
+
+        assertThat(tokensOf(10)).containsExactlyInAnyOrder("c30c4711", "turn", "her", "fix", "the", "build");
+    }
+
+    @Test
+    void shouldReindexUpdatedModificationsAndDropTheTokensOfDeletedOnes() throws SQLException {
+        execute("INSERT INTO modifications (id, revision, comment, materialId) VALUES (10, 'c30c4711', 'first', 1)");
+
+        execute("UPDATE modifications SET comment = 'second' WHERE id = 10");
+        assertThat(tokensOf(10)).containsExactlyInAnyOrder("c30c4711", "second");
+
+        execute("DELETE FROM modifications WHERE id = 10");
+        assertThat(tokensOf(10)).isEmpty();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private List<String> tokensOf(long modificationId) throws SQLException {
+        List<String> tokens = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            ResultSet resultSet = statement.executeQuery("SELECT token FROM modificationSearchTokens WHERE modificationId = " + modificationId);
+            while (resultSet.next()) {
+                tokens.add(resultSet.getString("token"));
+            }
+        }
+        return tokens;
+    }
+}
@@ -17,8 +17,55 @@
 package com.thoughtworks.go.server.database.mysql;
 
 import com.thoughtworks.go.server.database.QueryExtensions;
+import com.thoughtworks.go.server.database.RevisionSearchQuery;
+import com.thoughtworks.go.server.database.SearchTokens;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 public class MySQLQueryExtensions extends QueryExtensions {
+    /**
+     * InnoDB's default full-text stopwords (<code>INFORMATION_SCHEMA.INNODB_FT_DEFAULT_STOPWORD</code>), which are not
+     * indexed, so a boolean mode search for one of them matches nothing.
+     */
+    private static final Set<String> INNODB_DEFAULT_STOPWORDS = Set.of(
+        "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for", "from", "how", "i", "in", "is", "it",
+        "la", "of", "on", "or", "that", "the", "this", "to", "was", "what", "when", "where", "who", "will", "with", "und",
+        "www");
+
+    /**
+     * Uses the full-text index on modifications to find those with a word starting like the search string, before
+     * matching them against it. `||` is a logical OR in MySQL, so `CONCAT` is used to join the searched columns.
+     * Search strings whose first word is not indexed (a stopword, or shorter than the default
+     * <code>innodb_ft_min_token_size</code>) are matched with the plain LIKE only, since the full-text search would
+     * find nothing for them.
+     */
+    @Override
+    public RevisionSearchQuery queryRevisionsMatching(String searchString) {
+        String token = indexedToken(searchString);
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("search_string", likePattern(searchString));
+        if (token != null) {
+            parameters.put("search_token", token + "*");
+        }
+        return new RevisionSearchQuery("""
+            SELECT m.* \
+            FROM modifications AS m \
+                INNER JOIN materials mat ON mat.id = m.materialId \
+            WHERE mat.fingerprint = :finger_print \
+                %s\
+                AND (CONCAT(m.revision, ' ', COALESCE(m.username, ''), ' ', COALESCE(m.comment, '')) LIKE :search_string OR m.pipelineLabel LIKE :search_string) \
+            ORDER BY m.id DESC \
+            LIMIT 5 \
+            """.formatted(token == null ? "" : "AND MATCH (m.revision, m.username, m.comment, m.pipelineLabel) AGAINST (:search_token IN BOOLEAN MODE) "), parameters);
+    }
+
+    private static String indexedToken(String searchString) {
+        String token = SearchTokens.leading(searchString);
+        return token == null || INNODB_DEFAULT_STOPWORDS.contains(token) ? null : token;
+    }
+
     @Override
     public boolean accepts(String url) {
         return url != null && url.startsWith("jdbc:mysql:");
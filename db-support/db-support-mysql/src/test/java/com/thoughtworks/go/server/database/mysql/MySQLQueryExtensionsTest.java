@@ -0,0 +1,49 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.database.mysql;
+
+import com.thoughtworks.go.server.database.RevisionSearchQuery;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MySQLQueryExtensionsTest {
+    private final MySQLQueryExtensions extensions = new MySQLQueryExtensions();
+
+    @Test
+    void shouldNarrowDownModificationsWithTheFullTextIndexWhenTheFirstWordIsIndexed() {
+        RevisionSearchQuery query = extensions.queryRevisionsMatching("Widget fix");
+
+        assertTrue(query.sql().contains("AGAINST (:search_token IN BOOLEAN MODE)"));
+        assertEquals("widget*", query.parameters().get("search_token"));
+        assertEquals("%Widget fix%", query.parameters().get("search_string"));
+    }
+
+    @Test
+    void shouldOnlyUseLikeWhenTheFirstWordIsAStopword() {
+        RevisionSearchQuery query = extensions.queryRevisionsMatching("the widget");
+
+        assertFalse(query.sql().contains("MATCH"));
+        assertFalse(query.parameters().containsKey("search_token"));
+        assertEquals("%the widget%", query.parameters().get("search_string"));
+    }
+
+    @Test
+    void shouldOnlyUseLikeWhenTheFirstWordIsShorterThanTheMinimumTokenSize() {
+        assertFalse(extensions.queryRevisionsMatching("ab widget").sql().contains("MATCH"));
+        assertFalse(extensions.queryRevisionsMatching("-- ").sql().contains("MATCH"));
+    }
+}
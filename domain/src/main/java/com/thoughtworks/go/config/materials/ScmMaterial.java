@@ -160,6 +160,21 @@ public abstract class ScmMaterial extends AbstractMaterial implements SecretPara
 
     protected abstract UrlArgument getUrlArgument();
 
+    /**
+     * Asks the remote which revision the material is at, without fetching anything. Nothing has changed on most polls,
+     * and this is far cheaper than fetching and logging, so a material which can tell uses it to skip the fetch when
+     * looking for modifications since a revision, and when its working copy already has the latest revision.
+     *
+     * @return the revision, or empty if the material cannot tell or the remote could not be asked
+     */
+    protected Optional<String> remoteHead() {
+        return Optional.empty();
+    }
+
+    protected boolean isRemoteHeadAt(Revision revision) {
+        return remoteHead().map(revision.getRevision()::equals).orElse(false);
+    }
+
     protected abstract String getLocation();
 
     public void setFilter(Filter filter) {
@@ -121,10 +121,15 @@ public class GitMaterial extends ScmMaterial implements PasswordAwareMaterial {
     }
 
     public List<Modification> latestModification(File baseDir, final SubprocessExecutionContext execCtx) {
-        return getGit(baseDir, execCtx).latestModification();
+        GitCommand gitCommand = getGit(baseDir, execCtx);
+        boolean alreadyFetched = remoteHead().map(gitCommand::isRemoteBranchAt).orElse(false);
+        return gitCommand.latestModification(!alreadyFetched);
     }
 
     public List<Modification> modificationsSince(File baseDir, Revision revision, final SubprocessExecutionContext execCtx) {
+        if (isRemoteHeadAt(revision)) {
+            return new ArrayList<>();
+        }
         GitCommand gitCommand = getGit(baseDir, execCtx);
         if (!execCtx.isGitShallowClone()) {
             fullyUnshallow(gitCommand, inMemoryConsumer());
@@ -349,6 +354,15 @@ public class GitMaterial extends ScmMaterial implements PasswordAwareMaterial {
         setVariableWithName(environmentVariableContext, effectiveLocalBranch(), GO_MATERIAL_BRANCH);
     }
 
+    @Override
+    protected Optional<String> remoteHead() {
+        if (isSubmoduleFolder()) {
+            return Optional.empty();
+        }
+        GitCommand gitCommand = new GitCommand(getFingerprint(), null, refSpecOrBranch, false, secrets());
+        return gitCommand.remoteHead(new UrlArgument(urlForCommandLine()));
+    }
+
     private GitCommand getGit(File workingdir, SubprocessExecutionContext executionContext) {
         InMemoryStreamConsumer output = inMemoryConsumer();
         try {
@@ -101,11 +101,15 @@ public class HgMaterial extends ScmMaterial implements PasswordAwareMaterial {
 
     public List<Modification> latestModification(File baseDir, final SubprocessExecutionContext execCtx) {
         HgCommand hgCommand = getHg(baseDir);
-        return hgCommand.latestOneModificationAsModifications();
+        boolean alreadyPulled = remoteHead().map(hgCommand::hasChangeset).orElse(false);
+        return hgCommand.latestOneModificationAsModifications(!alreadyPulled);
     }
 
 
     public List<Modification> modificationsSince(File baseDir, Revision revision, final SubprocessExecutionContext execCtx) {
+        if (isRemoteHeadAt(revision)) {
+            return new ArrayList<>();
+        }
         return getHg(baseDir).modificationsSince(revision);
     }
 
@@ -127,6 +131,13 @@ public class HgMaterial extends ScmMaterial implements PasswordAwareMaterial {
         parameters.put("url", url);
     }
 
+    @Override
+    protected Optional<String> remoteHead() {
+        UrlArgument urlArgument = new HgUrlArgument(urlForCommandLine());
+        HgCommand hgCommand = new HgCommand(getFingerprint(), null, getBranch(), urlArgument.forCommandLine(), secrets());
+        return hgCommand.remoteHead(urlArgument);
+    }
+
     private HgCommand getHg(File baseDir) {
         InMemoryStreamConsumer output =
                 ProcessOutputStreamConsumer.inMemoryConsumer();
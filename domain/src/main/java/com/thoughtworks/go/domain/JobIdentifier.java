@@ -74,6 +74,15 @@ public class JobIdentifier implements Serializable, LocatableEntity {
         this.buildId = buildId;
     }
 
+    /**
+     * @return an identical identifier which can be changed independently of this one
+     */
+    public JobIdentifier copy() {
+        JobIdentifier copy = new JobIdentifier(pipelineName, pipelineCounter, pipelineLabel, stageName, stageCounter, buildName, buildId);
+        copy.rerunOfCounter = rerunOfCounter;
+        return copy;
+    }
+
     public void setPipelineName(String pipelineName) {
         this.pipelineName = pipelineName;
     }
@@ -63,6 +63,31 @@ public class JobInstance extends PersistentObject implements Serializable, Compa
     }
 
 
+    /**
+     * @return an identical job instance which can be changed independently of this one. The plan, which is not loaded
+     * along with job instances, is not copied.
+     */
+    public JobInstance copy() {
+        JobInstance copy = new JobInstance();
+        copy.id = id;
+        copy.timeProvider = timeProvider;
+        copy.stageId = stageId;
+        copy.name = name;
+        copy.state = state;
+        copy.result = result;
+        copy.agentUuid = agentUuid;
+        copy.stateTransitions = stateTransitions == null ? null : stateTransitions.copy();
+        copy.scheduledDate = scheduledDate == null ? null : new Date(scheduledDate.getTime());
+        copy.ignored = ignored;
+        copy.identifier = identifier == null ? null : identifier.copy();
+        copy.runOnAllAgents = runOnAllAgents;
+        copy.runMultipleInstance = runMultipleInstance;
+        copy.originalJobId = originalJobId;
+        copy.rerun = rerun;
+        copy.pipelineStillConfigured = pipelineStillConfigured;
+        return copy;
+    }
+
     public void schedule() {
         this.scheduledDate = timeProvider.currentUtilDate();
         changeState(JobState.Scheduled, this.scheduledDate);
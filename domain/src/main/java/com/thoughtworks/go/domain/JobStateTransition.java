@@ -34,6 +34,17 @@ public class JobStateTransition extends PersistentObject {
         this.stateChangeTime = stateChangeTime;
     }
 
+    /**
+     * @return an identical transition which can be changed independently of this one
+     */
+    public JobStateTransition copy() {
+        JobStateTransition copy = new JobStateTransition(currentState, stateChangeTime == null ? null : new Date(stateChangeTime.getTime()));
+        copy.id = id;
+        copy.jobId = jobId;
+        copy.stageId = stageId;
+        return copy;
+    }
+
     public JobState getCurrentState() {
         return currentState;
     }
@@ -33,6 +33,17 @@ public class JobStateTransitions extends LinkedHashSet<JobStateTransition> {
         super(Arrays.asList(list));
     }
 
+    /**
+     * @return identical transitions which can be changed independently of these
+     */
+    public JobStateTransitions copy() {
+        JobStateTransitions copy = new JobStateTransitions();
+        for (JobStateTransition transition : this) {
+            copy.add(transition.copy());
+        }
+        return copy;
+    }
+
     public JobStateTransition byState(JobState state) {
         for (JobStateTransition jobStateTransition : this) {
             if (jobStateTransition.getCurrentState().equals(state)) {
@@ -63,6 +63,20 @@ public class StageIdentifier implements Serializable, LocatableEntity {
         this.id = stageId;
     }
 
+    /**
+     * @return an identical identifier which can be changed independently of this one
+     */
+    public StageIdentifier copy() {
+        StageIdentifier copy = new StageIdentifier();
+        copy.pipelineName = pipelineName;
+        copy.pipelineCounter = pipelineCounter;
+        copy.pipelineLabel = pipelineLabel;
+        copy.stageName = stageName;
+        copy.stageCounter = stageCounter;
+        copy.id = id;
+        return copy;
+    }
+
     private void setLocatorAttributes(String pipelineName, int pipelineCounter, String label, String stageName, String stageCounter) {
         this.pipelineName = pipelineName;
         this.pipelineCounter = pipelineCounter;
@@ -155,12 +155,24 @@ public class GitCommand extends SCMCommand {
     }
 
     public List<Modification> latestModification() {
-        return gitLog("-1", "--date=iso-strict", "--no-decorate", "--pretty=medium", "--no-color", remoteBranch());
+        return latestModification(true);
+    }
 
+    public List<Modification> latestModification(boolean fetchFirst) {
+        return gitLog(fetchFirst, "-1", remoteBranch());
     }
 
     public List<Modification> modificationsSince(Revision revision) {
-        return gitLog("--date=iso-strict", "--no-decorate", "--pretty=medium", "--no-color", format("%s..%s", revision.getRevision(), remoteBranch()));
+        return gitLog(true, format("%s..%s", revision.getRevision(), remoteBranch()));
+    }
+
+    /**
+     * @return true if the remote branch in the working copy already points at the given commit
+     */
+    public boolean isRemoteBranchAt(String revision) {
+        CommandLine revParse = gitWd().withArgs("rev-parse", "--verify", "--quiet", remoteBranch() + "^{commit}");
+        ConsoleResult result = runOrBomb(revParse, false);
+        return result.returnValue() == 0 && revision.equals(result.outputAsString().trim());
     }
 
     public void resetWorkingDir(ConsoleOutputStreamConsumer outputStreamConsumer, Revision revision, boolean shallow) {
@@ -228,6 +240,24 @@ public class GitCommand extends SCMCommand {
         }
     }
 
+    /**
+     * Asks the remote which commit the upstream ref points at, without fetching anything.
+     *
+     * @return the commit, or empty if the remote could not be asked or did not name exactly one commit
+     */
+    public Optional<String> remoteHead(UrlArgument repoUrl) {
+        try {
+            ConsoleResult result = runOrBomb(git().withArgs("ls-remote", "--").withArg(repoUrl).withArg(fullUpstreamRef()));
+            if (!hasExactlyOneMatchingBranch(result)) {
+                return Optional.empty();
+            }
+            return Optional.of(result.output().getFirst().split("\\s+")[0]);
+        } catch (Exception e) {
+            LOG.debug("Unable to find the remote head of {}", repoUrl.forDisplay(), e);
+            return Optional.empty();
+        }
+    }
+
     public GitVersion version() {
         CommandLine gitVersion = git().withArgs("version");
 
@@ -399,23 +429,23 @@ public class GitCommand extends SCMCommand {
         return git().withArg("clone");
     }
 
-    private List<Modification> gitLog(String... args) {
+    private List<Modification> gitLog(boolean fetchFirst, String... args) {
         // Git log will only show changes before the currently checked out revision
         InMemoryStreamConsumer outputStreamConsumer = inMemoryConsumer();
 
         try {
-            if (!isSubmodule) {
+            if (fetchFirst && !isSubmodule) {
                 fetch(outputStreamConsumer);
             }
         } catch (Exception e) {
             throw new RuntimeException(format("Working directory: %s\n%s", workingDir, outputStreamConsumer.getStdError()), e);
         }
 
-        CommandLine gitCmd = gitWd().withArg("log").withArgs(args);
-        ConsoleResult result = runOrBomb(gitCmd);
+        CommandLine gitCmd = gitWd().withArgs("log", "--no-color", "--format=" + GitLogStreamParser.FORMAT).withArgs(args);
+        GitLogStreamParser parser = new GitLogStreamParser();
+        runOrBomb(gitCmd, parser);
 
-        GitModificationParser parser = new GitModificationParser();
-        List<Modification> mods = parser.parse(result.output());
+        List<Modification> mods = parser.getModifications();
         for (Modification mod : mods) {
             addModifiedFiles(mod);
         }
@@ -0,0 +1,104 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain.materials.git;
+
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.util.Dates;
+import com.thoughtworks.go.util.command.StreamConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.thoughtworks.go.util.ExceptionUtils.bomb;
+
+/**
+ * Builds modifications from the output of {@code git log --format=}{@link #FORMAT} one line at a time, as it is
+ * pumped from the process, so that the log itself is never held in memory.
+ * <p>
+ * Each commit is written as its hash, author, author date and raw message, each terminated by a NUL. Commit messages
+ * may span many lines (and can never contain a NUL), so a commit is complete once its fourth NUL has been seen.
+ * <p>
+ * Lines keep being consumed after a commit fails to parse, so that the process is never left blocked on a full pipe;
+ * the failure is reported by {@link #getModifications()} instead.
+ */
+public class GitLogStreamParser implements StreamConsumer {
+    public static final String FORMAT = "%H%x00%aN <%aE>%x00%aI%x00%B%x00";
+
+    private static final int FIELDS_PER_COMMIT = 4;
+
+    private final List<Modification> modifications = new ArrayList<>();
+    private final List<String> fields = new ArrayList<>(FIELDS_PER_COMMIT);
+    private final StringBuilder field = new StringBuilder();
+    private boolean inCommit;
+    private RuntimeException failure;
+
+    @Override
+    public void consumeLine(String line) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            parse(line);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    public List<Modification> getModifications() {
+        if (failure != null) {
+            throw bomb("Unable to parse the output of git log", failure);
+        }
+        return modifications;
+    }
+
+    private void parse(String line) {
+        if (inCommit) {
+            field.append('\n');
+        }
+
+        int start = 0;
+        int terminator;
+        while ((terminator = line.indexOf('\0', start)) >= 0) {
+            field.append(line, start, terminator);
+            fields.add(field.toString());
+            field.setLength(0);
+            start = terminator + 1;
+
+            if (fields.size() == FIELDS_PER_COMMIT) {
+                modifications.add(toModification(fields));
+                fields.clear();
+            }
+        }
+        field.append(line, start, line.length());
+
+        inCommit = !fields.isEmpty() || !field.isEmpty();
+    }
+
+    private static Modification toModification(List<String> fields) {
+        return new Modification(fields.get(1), stripTrailingNewlines(fields.get(3)), null, Dates.parseIso8601StrictOffset(fields.get(2)), fields.get(0));
+    }
+
+    /**
+     * @return the message of a commit the way it is shown for a modification, without the newlines git ends it with
+     */
+    public static String stripTrailingNewlines(String message) {
+        int end = message.length();
+        while (end > 0 && message.charAt(end - 1) == '\n') {
+            end--;
+        }
+        return message.substring(0, end);
+    }
+}
@@ -31,6 +31,8 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static com.thoughtworks.go.util.ExceptionUtils.bombUnless;
@@ -43,6 +45,7 @@ import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 public class HgCommand extends SCMCommand {
     private static final Logger LOGGER = LoggerFactory.getLogger(HgCommand.class);
     private static final Path TEMPLATE_PATH = findTemplate();
+    private static final Pattern CHANGESET_ID = Pattern.compile("[0-9a-f]{40}");
     private final File workingDir;
     private final String branch;
     private final String url;
@@ -93,6 +96,26 @@ public class HgCommand extends SCMCommand {
         execute(hg, new NamedProcessTag(repositoryURL.forDisplay()));
     }
 
+    /**
+     * Asks the remote which changeset is the head of the branch, without pulling anything.
+     *
+     * @return the full changeset id, or empty if the remote could not be asked
+     */
+    public Optional<String> remoteHead(UrlArgument repositoryURL) {
+        CommandLine hg = createCommandLine("hg")
+                .withArgs("identify", "--debug", "--id", "--rev", branch, "--")
+                .withArg(repositoryURL)
+                .withNonArgSecrets(secrets)
+                .withEncoding(UTF_8);
+        try {
+            List<String> changesetIds = execute(hg).output().stream().map(String::trim).filter(line -> CHANGESET_ID.matcher(line).matches()).toList();
+            return changesetIds.size() == 1 ? Optional.of(changesetIds.getFirst()) : Optional.empty();
+        } catch (Exception e) {
+            LOGGER.debug("Unable to find the remote head of {}", repositoryURL.forDisplay(), e);
+            return Optional.empty();
+        }
+    }
+
     public void updateTo(Revision revision, ConsoleOutputStreamConsumer outputStreamConsumer) {
         if (!pull(outputStreamConsumer) || !update(revision, outputStreamConsumer)) {
             bomb(format("Unable to update to revision [%s]", revision));
@@ -125,13 +148,26 @@ public class HgCommand extends SCMCommand {
     }
 
     public List<Modification> latestOneModificationAsModifications() {
-        return findRecentModifications(1);
+        return latestOneModificationAsModifications(true);
+    }
+
+    public List<Modification> latestOneModificationAsModifications(boolean pullFirst) {
+        return findRecentModifications(1, pullFirst);
     }
 
-    private List<Modification> findRecentModifications(int count) {
+    /**
+     * @return true if the working copy already has the given changeset
+     */
+    public boolean hasChangeset(String changeset) {
+        CommandLine hg = hg("log", "--rev", changeset, "--template", "{node}");
+        ConsoleResult result = runOrBomb(hg, false);
+        return result.returnValue() == 0 && changeset.equals(result.outputAsString().trim());
+    }
+
+    private List<Modification> findRecentModifications(int count, boolean pullFirst) {
         // Currently impossible to check modifications on a remote repository.
         InMemoryStreamConsumer consumer = inMemoryConsumer();
-        bombUnless(pull(consumer), () -> "Failed to run hg pull command: " + consumer.getAllOutput());
+        bombUnless(!pullFirst || pull(consumer), () -> "Failed to run hg pull command: " + consumer.getAllOutput());
         CommandLine hg = hg("log", "--limit", String.valueOf(count), branchArg(), "--style", TEMPLATE_PATH.toString());
         return new HgModificationSplitter(execute(hg)).modifications();
     }
@@ -15,6 +15,8 @@
  */
 package com.thoughtworks.go.util;
 
+import java.io.File;
+
 public class ArtifactUtil {
     public static final String CRUISE_OUTPUT_FOLDER = "cruise-output";
     public static final String PLUGGABLE_ARTIFACT_METADATA_FOLDER = "pluggable-artifact-metadata";
@@ -31,4 +33,15 @@ public class ArtifactUtil {
     public static boolean artifactDirectoryIsSystemManaged(String filePath) {
         return filePath.equals(CRUISE_OUTPUT_FOLDER) || filePath.equals(PLUGGABLE_ARTIFACT_METADATA_FOLDER);
     }
+
+    /**
+     * @param destPath     the destination an artifact was uploaded to
+     * @param relativePath the path of a file relative to that destination
+     * @return the path the file is listed under in the {@link #MD5_CHECKSUM_FILENAME} of the job
+     */
+    public static String checksumPath(String destPath, String relativePath) {
+        File artifactDest = destPath.isEmpty() ? new File(relativePath) : new File(destPath, relativePath);
+        String path = artifactDest.getPath().replace('\\', '/');
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
 }
@@ -187,6 +187,14 @@ public class GitMaterialTest {
             assertThat(modifications.get(3).getComment()).isEqualTo("Added second line");
         }
 
+        @Test
+        void shouldNotFetchWhenTheRemoteHeadIsStillAtTheRevision() {
+            List<Modification> modifications = git.modificationsSince(workingDir, GitTestRepo.REVISION_4, new TestSubprocessExecutionContext());
+
+            assertThat(modifications).isEmpty();
+            assertThat(new File(workingDir, ".git")).doesNotExist();
+        }
+
         @Test
         void shouldRetrieveLatestModificationIfRevisionIsNotFound() {
             List<Modification> modifications = git.modificationsSince(workingDir, GitTestRepo.NON_EXISTENT_REVISION, new TestSubprocessExecutionContext());
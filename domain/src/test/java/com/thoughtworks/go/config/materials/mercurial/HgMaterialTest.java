@@ -159,6 +159,13 @@ public class HgMaterialTest {
             assertThat(modification.isEmpty()).isTrue();
         }
 
+        @Test
+        void shouldNotPullWhenTheRemoteHeadIsStillAtTheRevision() {
+            hgMaterial.modificationsSince(workingFolder, new StringRevision(REVISION_2), new TestSubprocessExecutionContext());
+
+            assertThat(new File(workingFolder, ".hg")).doesNotExist();
+        }
+
         @Test
         void shouldUpdateToSpecificRevision() {
             updateMaterial(hgMaterial, new StringRevision("0"));
@@ -15,17 +15,22 @@
  */
 package com.thoughtworks.go.domain;
 
+import com.rits.cloning.Cloner;
+import com.sun.management.ThreadMXBean;
 import com.thoughtworks.go.helper.JobInstanceMother;
+import com.thoughtworks.go.util.ClonerFactory;
 import com.thoughtworks.go.util.Dates;
 import com.thoughtworks.go.util.TimeProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -252,4 +257,50 @@ public class JobInstanceTest {
         jobInstance = new JobInstance();
         assertThat(jobInstance.jobType()).isInstanceOf(SingleJobInstance.class);
     }
+
+    @Test
+    public void shouldCopyAllAttributesIntoAnIndependentJobInstance() {
+        JobInstance instance = completedWithIdentifier();
+
+        JobInstance copy = instance.copy();
+        assertThat(copy).isNotSameAs(instance).usingRecursiveComparison().isEqualTo(instance);
+
+        copy.getIdentifier().setBuildName("other");
+        copy.getTransitions().byState(JobState.Completed).setStateChangeTime(new Date(0));
+        copy.setAgentUuid("other-agent");
+        assertThat(instance.getIdentifier().getBuildName()).isEqualTo("unit");
+        assertThat(instance.getTransitions().byState(JobState.Completed).getStateChangeTime()).isNotEqualTo(new Date(0));
+        assertThat(instance.getAgentUuid()).isEqualTo("agent");
+    }
+
+    @Test
+    public void shouldAllocateLessToCopyAJobInstanceThanToDeepCloneIt() {
+        JobInstance instance = completedWithIdentifier();
+        Cloner cloner = ClonerFactory.instance();
+
+        long bytesToCopy = bytesAllocatedBy(instance::copy);
+        long bytesToDeepClone = bytesAllocatedBy(() -> cloner.deepClone(instance));
+
+        assertThat(bytesToCopy).isLessThan(bytesToDeepClone);
+    }
+
+    private static JobInstance completedWithIdentifier() {
+        JobInstance instance = JobInstanceMother.completed("unit", JobResult.Passed);
+        instance.setId(42);
+        instance.setAgentUuid("agent");
+        instance.setIdentifier(new JobIdentifier("up42", 1, "label-1", "dev", "1", "unit", 42L));
+        return instance;
+    }
+
+    private static long bytesAllocatedBy(Supplier<JobInstance> copier) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 1_000; i++) {
+            copier.get();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            copier.get();
+        }
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
 }
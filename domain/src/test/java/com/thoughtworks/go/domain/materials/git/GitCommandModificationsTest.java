@@ -27,19 +27,16 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.time.Instant;
 import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.List;
-import java.util.Objects;
 
 import static com.thoughtworks.go.domain.materials.git.GitTestRepo.GIT_FOO_BRANCH_BUNDLE;
 import static com.thoughtworks.go.domain.materials.git.GitTestRepo.REVISION_4;
 import static com.thoughtworks.go.util.Dates.parseIso8601StrictOffset;
 import static com.thoughtworks.go.util.command.ProcessOutputStreamConsumer.inMemoryConsumer;
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class GitCommandModificationsTest extends GitCommandIntegrationTestBase {
@@ -58,6 +55,22 @@ public class GitCommandModificationsTest extends GitCommandIntegrationTestBase {
         assertEquals(ModifiedAction.modified, files.getFirst().getAction());
     }
 
+    @Test
+    void shouldTellWhetherTheRemoteBranchHasBeenFetchedUpToARevision() {
+        assertTrue(git.isRemoteBranchAt(REVISION_4.getRevision()));
+        assertFalse(git.isRemoteBranchAt(GitTestRepo.REVISION_3.getRevision()));
+    }
+
+    @Test
+    void shouldOnlyLookAtWhatHasBeenFetchedWhenNotFetchingForTheLatestModification() throws IOException {
+        Modification pushed = gitRepo.addFileAndPush("new-file.txt", "Added a new file").getFirst();
+
+        assertEquals(REVISION_4.getRevision(), git.latestModification(false).getFirst().getRevision());
+        assertFalse(git.isRemoteBranchAt(pushed.getRevision()));
+        assertEquals(pushed.getRevision(), git.latestModification(true).getFirst().getRevision());
+        assertTrue(git.isRemoteBranchAt(pushed.getRevision()));
+    }
+
     @Test
     void shouldRetrieveLatestModificationWhenColoringIsSetToAlways() {
         setColoring();
@@ -246,34 +259,6 @@ public class GitCommandModificationsTest extends GitCommandIntegrationTestBase {
         );
     }
 
-    @Test
-    void shouldParseGitOutputCorrectly() throws IOException {
-        List<String> stringList;
-        try (InputStream resourceAsStream = Objects.requireNonNull(getClass().getResourceAsStream("git_sample_output.text"))) {
-            stringList = new String(resourceAsStream.readAllBytes(), UTF_8).lines().toList();
-        }
-
-        GitModificationParser parser = new GitModificationParser();
-        List<Modification> mods = parser.parse(stringList);
-        assertEquals(3, mods.size());
-
-        Modification mod = mods.get(2);
-        assertEquals("46cceff864c830bbeab0a7aaa31707ae2302762f", mod.getRevision());
-        assertEquals(parseIso8601StrictOffset("2009-08-11T12:37:09-07:00"), mod.getModifiedTime());
-        assertEquals("Cruise Developer <cruise@cruise-sf3.(none)>", mod.getUserDisplayName());
-        final String expected = """
-            author:cruise <cceuser@CceDev01.(none)>
-            node:ecfab84dd4953105e3301c5992528c2d381c1b8a
-            date:2008-12-31T14:32:40+08:00
-            description:Moving rakefile to build subdirectory for #2266
-
-            author:CceUser <cceuser@CceDev01.(none)>
-            node:fd16efeb70fcdbe63338c49995ce9ff7659e6e77
-            date:2008-12-31T14:17:06+08:00
-            description:Adding rakefile""";
-        assertEquals(expected, mod.getComment());
-    }
-
     private File checkInNewRemoteFile() throws IOException {
         GitCommand remoteGit = new GitCommand(null, repoLocation, GitMaterialConfig.DEFAULT_BRANCH, false, null);
         File testingFile = new File(repoLocation, "testing-file" + System.currentTimeMillis() + ".txt");
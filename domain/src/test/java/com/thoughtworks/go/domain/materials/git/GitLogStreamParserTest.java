@@ -0,0 +1,123 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain.materials.git;
+
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.util.Dates;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GitLogStreamParserTest {
+
+    GitLogStreamParser parser = new GitLogStreamParser();
+
+    @Test
+    public void shouldCreateModificationForEachCommit() {
+        parser.consumeLine("4e55d27dc7aad26dadb02a33db0518cb5ec54888\0Cruise Developer <cruise@cruise-sf3.(none)>\0002009-08-11T13:08:51-07:00\0My Comment");
+        parser.consumeLine("\0");
+        parser.consumeLine("a8d1ac0f4bb1b1c2fc4ff21e5b2d3a5bd5b9ad5c\0Other Developer <other@example.com>\0002009-08-10T10:00:00Z\0Earlier");
+        parser.consumeLine("\0");
+
+        List<Modification> modifications = parser.getModifications();
+
+        assertThat(modifications).hasSize(2);
+        Modification first = modifications.getFirst();
+        assertThat(first.getRevision()).isEqualTo("4e55d27dc7aad26dadb02a33db0518cb5ec54888");
+        assertThat(first.getUserDisplayName()).isEqualTo("Cruise Developer <cruise@cruise-sf3.(none)>");
+        assertThat(first.getModifiedTime()).isEqualTo(Dates.parseIso8601StrictOffset("2009-08-11T13:08:51-07:00"));
+        assertThat(first.getComment()).isEqualTo("My Comment");
+        assertThat(modifications.get(1).getRevision()).isEqualTo("a8d1ac0f4bb1b1c2fc4ff21e5b2d3a5bd5b9ad5c");
+    }
+
+    @Test
+    public void shouldKeepEveryLineOfMultipleLineComments() {
+        parser.consumeLine("4e55d27dc7aad26dadb02a33db0518cb5ec54888\0Cruise Developer <cruise@cruise-sf3.(none)>\0002009-08-11T13:08:51-07:00\0My Comment");
+        parser.consumeLine("");
+        parser.consumeLine("    indented line 2");
+        parser.consumeLine("");
+        parser.consumeLine("\0");
+
+        assertThat(parser.getModifications().getFirst().getComment()).isEqualTo("My Comment\n\n    indented line 2");
+    }
+
+    @Test
+    public void shouldParseLongAndMultipleParagraphComments() {
+        String log = """
+            4e55d27dc7aad26dadb02a33db0518cb5ec54888\000Cruise Developer <cruise@cruise-sf3.(none)>\0002009-08-11T13:08:51-07:00\000%s
+            bar
+            \000
+            07fad0cee08f14a6d43d9e2cdc7dc95d6c6cc377\000Cruise Developer <cruise@cruise-sf3.(none)>\0002009-08-11T13:04:01-07:00\000author:cruise <cceuser@CceDev01.(none)>
+            node:ecfab84dd4953105e3301c5992528c2d381c1b8a
+            date:2008-12-31T14:32:40+08:00
+            description:Moving rakefile to build subdirectory for #2266
+
+            author:CceUser <cceuser@CceDev01.(none)>
+            node:fd16efeb70fcdbe63338c49995ce9ff7659e6e77
+            date:2008-12-31T14:17:06+08:00
+            description:Adding rakefile
+            \000
+            46cceff864c830bbeab0a7aaa31707ae2302762f\000Cruise Developer <cruise@cruise-sf3.(none)>\0002009-08-11T12:37:09-07:00\000author:cruise <cceuser@CceDev01.(none)>
+            node:ecfab84dd4953105e3301c5992528c2d381c1b8a
+            date:2008-12-31T14:32:40+08:00
+            description:Moving rakefile to build subdirectory for #2266
+
+            author:CceUser <cceuser@CceDev01.(none)>
+            node:fd16efeb70fcdbe63338c49995ce9ff7659e6e77
+            date:2008-12-31T14:17:06+08:00
+            description:Adding rakefile
+            \000""".formatted("foo".repeat(100));
+        log.lines().forEach(parser::consumeLine);
+
+        List<Modification> modifications = parser.getModifications();
+
+        assertThat(modifications).hasSize(3);
+        assertThat(modifications.getFirst().getComment()).isEqualTo("foo".repeat(100) + "\nbar");
+        Modification last = modifications.get(2);
+        assertThat(last.getRevision()).isEqualTo("46cceff864c830bbeab0a7aaa31707ae2302762f");
+        assertThat(last.getModifiedTime()).isEqualTo(Dates.parseIso8601StrictOffset("2009-08-11T12:37:09-07:00"));
+        assertThat(last.getUserDisplayName()).isEqualTo("Cruise Developer <cruise@cruise-sf3.(none)>");
+        assertThat(last.getComment()).isEqualTo("""
+            author:cruise <cceuser@CceDev01.(none)>
+            node:ecfab84dd4953105e3301c5992528c2d381c1b8a
+            date:2008-12-31T14:32:40+08:00
+            description:Moving rakefile to build subdirectory for #2266
+
+            author:CceUser <cceuser@CceDev01.(none)>
+            node:fd16efeb70fcdbe63338c49995ce9ff7659e6e77
+            date:2008-12-31T14:17:06+08:00
+            description:Adding rakefile""");
+    }
+
+    @Test
+    public void shouldAllowEmptyComments() {
+        parser.consumeLine("4e55d27dc7aad26dadb02a33db0518cb5ec54888\0Cruise Developer <cruise@cruise-sf3.(none)>\0002009-08-11T13:08:51-07:00\0\0");
+
+        assertThat(parser.getModifications().getFirst().getComment()).isEmpty();
+    }
+
+    @Test
+    public void shouldReportUnparseableOutputOnceAllOfItHasBeenConsumed() {
+        parser.consumeLine("4e55d27dc7aad26dadb02a33db0518cb5ec54888\0Cruise Developer <cruise@cruise-sf3.(none)>\0not a date\0Comment\0");
+        parser.consumeLine("a8d1ac0f4bb1b1c2fc4ff21e5b2d3a5bd5b9ad5c\0Other Developer <other@example.com>\0002009-08-10T10:00:00Z\0Earlier\0");
+
+        assertThatThrownBy(() -> parser.getModifications())
+            .hasMessage("Unable to parse the output of git log");
+    }
+}
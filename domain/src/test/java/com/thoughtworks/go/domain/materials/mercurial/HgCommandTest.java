@@ -100,6 +100,16 @@ public class HgCommandTest {
         assertThat(modification.getModifiedFiles().size()).isEqualTo(1);
     }
 
+    @Test
+    public void shouldOnlyLookAtWhatHasBeenPulledWhenNotPullingForTheLatestModification() {
+        Revision pushed = createNewFileAndCheckIn(serverRepo);
+
+        assertThat(hgCommand.hasChangeset(pushed.getRevision())).isFalse();
+        assertThat(hgCommand.latestOneModificationAsModifications(false).getFirst().getRevision()).isEqualTo(REVISION_2);
+        assertThat(hgCommand.latestOneModificationAsModifications(true).getFirst().getRevision()).isEqualTo(pushed.getRevision());
+        assertThat(hgCommand.hasChangeset(pushed.getRevision())).isTrue();
+    }
+
     @Test
     public void shouldNotIncludeCommitFromAnotherBranchInGetLatestModifications() {
         Modification lastCommit = hgCommand.latestOneModificationAsModifications().getFirst();
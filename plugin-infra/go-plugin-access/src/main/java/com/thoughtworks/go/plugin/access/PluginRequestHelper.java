@@ -20,8 +20,13 @@ import com.thoughtworks.go.plugin.api.request.DefaultGoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoApiResponse;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 import com.thoughtworks.go.plugin.infra.PluginManager;
+import com.thoughtworks.go.util.Clock;
+import com.thoughtworks.go.util.SystemTimeClock;
+import org.jetbrains.annotations.TestOnly;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 import static java.lang.String.format;
 
@@ -29,11 +34,28 @@ public class PluginRequestHelper {
     private final PluginManager pluginManager;
     private final List<String> goSupportedVersions;
     private final String extensionName;
+    private final Map<String, Duration> cacheableRequests;
+    private final PluginResponseCache responseCache;
 
     public PluginRequestHelper(PluginManager pluginManager, List<String> goSupportedVersions, String extensionName) {
+        this(pluginManager, goSupportedVersions, extensionName, Map.of());
+    }
+
+    /**
+     * @param cacheableRequests the names of the requests whose successful responses do not change often, along with how
+     *                          long a response to each may be reused for the same request to the same plugin
+     */
+    public PluginRequestHelper(PluginManager pluginManager, List<String> goSupportedVersions, String extensionName, Map<String, Duration> cacheableRequests) {
+        this(pluginManager, goSupportedVersions, extensionName, cacheableRequests, new SystemTimeClock());
+    }
+
+    @TestOnly
+    PluginRequestHelper(PluginManager pluginManager, List<String> goSupportedVersions, String extensionName, Map<String, Duration> cacheableRequests, Clock clock) {
         this.pluginManager = pluginManager;
         this.goSupportedVersions = goSupportedVersions;
         this.extensionName = extensionName;
+        this.cacheableRequests = cacheableRequests;
+        this.responseCache = new PluginResponseCache(clock);
     }
 
     public <T> T submitRequest(String pluginId, String requestName, PluginInteractionCallback<T> pluginInteractionCallback) {
@@ -46,16 +68,21 @@ public class PluginRequestHelper {
             apiRequest.setRequestBody(pluginInteractionCallback.requestBody(resolvedExtensionVersion));
             apiRequest.setRequestParams(pluginInteractionCallback.requestParams(resolvedExtensionVersion));
             apiRequest.setRequestHeaders(pluginInteractionCallback.requestHeaders(resolvedExtensionVersion));
-            GoPluginApiResponse response = pluginManager.submitTo(pluginId, extensionName, apiRequest);
-            if (response == null) {
-                throw new RuntimeException("The plugin sent a null response");
+
+            Duration timeToLive = cacheableRequests.get(requestName);
+            if (timeToLive == null) {
+                return submit(pluginId, apiRequest, pluginInteractionCallback, resolvedExtensionVersion);
             }
-            if (DefaultGoApiResponse.SUCCESS_RESPONSE_CODE == response.responseCode()) {
-                return pluginInteractionCallback.onSuccess(response.responseBody(), response.responseHeaders(), resolvedExtensionVersion);
+            Object pluginDescriptor = pluginManager.getPluginDescriptorFor(pluginId);
+            CacheableRequest cacheableRequest = new CacheableRequest(requestName, resolvedExtensionVersion, apiRequest.requestBody(), apiRequest.requestParameters(), apiRequest.requestHeaders());
+            @SuppressWarnings("unchecked")
+            T cachedResponse = (T) responseCache.get(pluginId, pluginDescriptor, cacheableRequest);
+            if (cachedResponse != null) {
+                return cachedResponse;
             }
-            pluginInteractionCallback.onFailure(response.responseCode(), response.responseBody(), resolvedExtensionVersion);
-
-            throw new RuntimeException(format("The plugin sent a response that could not be understood by Go. Plugin returned with code '%s' and the following response: '%s'", response.responseCode(), response.responseBody()));
+            T response = submit(pluginId, apiRequest, pluginInteractionCallback, resolvedExtensionVersion);
+            responseCache.put(pluginId, pluginDescriptor, cacheableRequest, response, timeToLive);
+            return response;
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
@@ -63,4 +90,27 @@ public class PluginRequestHelper {
         }
     }
 
+    /**
+     * Forgets any cached responses of the plugin, for instance because its settings have changed.
+     */
+    public void invalidateCachedResponses(String pluginId) {
+        responseCache.invalidate(pluginId);
+    }
+
+    private <T> T submit(String pluginId, DefaultGoPluginApiRequest apiRequest, PluginInteractionCallback<T> pluginInteractionCallback, String resolvedExtensionVersion) {
+        GoPluginApiResponse response = pluginManager.submitTo(pluginId, extensionName, apiRequest);
+        if (response == null) {
+            throw new RuntimeException("The plugin sent a null response");
+        }
+        if (DefaultGoApiResponse.SUCCESS_RESPONSE_CODE == response.responseCode()) {
+            return pluginInteractionCallback.onSuccess(response.responseBody(), response.responseHeaders(), resolvedExtensionVersion);
+        }
+        pluginInteractionCallback.onFailure(response.responseCode(), response.responseBody(), resolvedExtensionVersion);
+
+        throw new RuntimeException(format("The plugin sent a response that could not be understood by Go. Plugin returned with code '%s' and the following response: '%s'", response.responseCode(), response.responseBody()));
+    }
+
+    private record CacheableRequest(String requestName, String extensionVersion, String requestBody, Map<String, String> requestParams, Map<String, String> requestHeaders) {
+    }
+
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access;
+
+import com.thoughtworks.go.util.Clock;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Understands remembering, for a while, what plugins responded to requests whose results rarely change. Responses are
+ * remembered per plugin, against the descriptor of the plugin which sent them, so that they are not handed out once
+ * the plugin has been reloaded.
+ */
+class PluginResponseCache {
+    static final int MAX_RESPONSES_PER_PLUGIN = 256;
+
+    private final Clock clock;
+    private final Map<String, Map<Object, CachedResponse>> responses = new ConcurrentHashMap<>();
+
+    PluginResponseCache(Clock clock) {
+        this.clock = clock;
+    }
+
+    Object get(String pluginId, Object pluginDescriptor, Object request) {
+        Map<Object, CachedResponse> responsesOfPlugin = responses.get(pluginId);
+        if (responsesOfPlugin == null) {
+            return null;
+        }
+        CachedResponse cached = responsesOfPlugin.get(request);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.pluginDescriptor != pluginDescriptor || cached.hasExpired(clock.currentTimeMillis())) {
+            responsesOfPlugin.remove(request, cached);
+            return null;
+        }
+        return cached.response;
+    }
+
+    void put(String pluginId, Object pluginDescriptor, Object request, Object response, Duration timeToLive) {
+        if (response == null) {
+            return;
+        }
+        Map<Object, CachedResponse> responsesOfPlugin = responses.computeIfAbsent(pluginId, id -> new ConcurrentHashMap<>());
+        long now = clock.currentTimeMillis();
+        if (responsesOfPlugin.size() >= MAX_RESPONSES_PER_PLUGIN) {
+            responsesOfPlugin.values().removeIf(cached -> cached.hasExpired(now));
+            if (responsesOfPlugin.size() >= MAX_RESPONSES_PER_PLUGIN) {
+                responsesOfPlugin.clear();
+            }
+        }
+        responsesOfPlugin.put(request, new CachedResponse(pluginDescriptor, response, now + timeToLive.toMillis()));
+    }
+
+    void invalidate(String pluginId) {
+        responses.remove(pluginId);
+    }
+
+    private record CachedResponse(Object pluginDescriptor, Object response, long expiresAt) {
+        boolean hasExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.thoughtworks.go.plugin.access.ExtensionsRegistry;
 import com.thoughtworks.go.plugin.access.PluginRequestHelper;
 import com.thoughtworks.go.plugin.access.authorization.v2.AuthorizationMessageConverterV2;
 import com.thoughtworks.go.plugin.access.common.AbstractExtension;
+import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsConstants;
 import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsJsonMessageHandler;
 import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsJsonMessageHandler1_0;
 import com.thoughtworks.go.plugin.api.response.validation.ValidationResult;
@@ -36,6 +37,7 @@ import com.thoughtworks.go.plugin.infra.PluginManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,11 +48,18 @@ import static java.lang.String.format;
 
 @Component
 public class AuthorizationExtension extends AbstractExtension {
+    private static final Duration CACHED_RESPONSE_TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final Map<String, Duration> CACHEABLE_REQUESTS = Map.of(
+        PluginSettingsConstants.REQUEST_PLUGIN_SETTINGS_VIEW, CACHED_RESPONSE_TIME_TO_LIVE,
+        REQUEST_GET_CAPABILITIES, CACHED_RESPONSE_TIME_TO_LIVE,
+        REQUEST_GET_AUTH_CONFIG_VIEW, CACHED_RESPONSE_TIME_TO_LIVE,
+        REQUEST_GET_ROLE_CONFIG_VIEW, CACHED_RESPONSE_TIME_TO_LIVE
+    );
     private final Map<String, AuthorizationMessageConverter> messageHandlerMap = new HashMap<>();
 
     @Autowired
     public AuthorizationExtension(PluginManager pluginManager, ExtensionsRegistry extensionsRegistry) {
-        super(pluginManager, extensionsRegistry, new PluginRequestHelper(pluginManager, SUPPORTED_VERSIONS, AUTHORIZATION_EXTENSION), AUTHORIZATION_EXTENSION);
+        super(pluginManager, extensionsRegistry, new PluginRequestHelper(pluginManager, SUPPORTED_VERSIONS, AUTHORIZATION_EXTENSION, CACHEABLE_REQUESTS), AUTHORIZATION_EXTENSION);
         addHandler(AuthorizationMessageConverterV2.VERSION, new PluginSettingsJsonMessageHandler1_0(), new AuthorizationMessageConverterV2());
     }
 
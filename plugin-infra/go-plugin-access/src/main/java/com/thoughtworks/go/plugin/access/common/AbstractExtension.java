@@ -73,6 +73,7 @@ public abstract class AbstractExtension implements GoPluginExtension {
 
     @Override
     public void notifyPluginSettingsChange(String pluginId, Map<String, String> pluginSettings) {
+        pluginRequestHelper.invalidateCachedResponses(pluginId);
         String resolvedExtensionVersion = pluginManager.resolveExtensionVersion(pluginId, extensionName, goSupportedVersions());
 
         if (!pluginSettingsMessageHandlerMap.get(resolvedExtensionVersion).supportsPluginSettingsNotification()) {
@@ -20,11 +20,14 @@ import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.plugin.access.ExtensionsRegistry;
 import com.thoughtworks.go.plugin.access.PluginRequestHelper;
 import com.thoughtworks.go.plugin.access.common.AbstractExtension;
+import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsConstants;
 import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsJsonMessageHandler1_0;
 import com.thoughtworks.go.plugin.access.elastic.models.AgentMetadata;
 import com.thoughtworks.go.plugin.access.elastic.models.ElasticAgentInformation;
 import com.thoughtworks.go.plugin.access.elastic.v4.ElasticAgentExtensionV4;
+import com.thoughtworks.go.plugin.access.elastic.v4.ElasticAgentPluginConstantsV4;
 import com.thoughtworks.go.plugin.access.elastic.v5.ElasticAgentExtensionV5;
+import com.thoughtworks.go.plugin.access.elastic.v5.ElasticAgentPluginConstantsV5;
 import com.thoughtworks.go.plugin.api.response.validation.ValidationResult;
 import com.thoughtworks.go.plugin.domain.common.Image;
 import com.thoughtworks.go.plugin.domain.common.PluginConfiguration;
@@ -33,6 +36,7 @@ import com.thoughtworks.go.plugin.infra.PluginManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,11 +46,19 @@ import static com.thoughtworks.go.plugin.domain.common.PluginConstants.ELASTIC_A
 @Component
 public class ElasticAgentExtension extends AbstractExtension {
     public static final List<String> SUPPORTED_VERSIONS = List.of(ElasticAgentExtensionV4.VERSION, ElasticAgentExtensionV5.VERSION);
+    private static final Duration CACHED_RESPONSE_TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final Map<String, Duration> CACHEABLE_REQUESTS = Map.of(
+        PluginSettingsConstants.REQUEST_PLUGIN_SETTINGS_VIEW, CACHED_RESPONSE_TIME_TO_LIVE,
+        ElasticAgentPluginConstantsV4.REQUEST_GET_PROFILE_VIEW, CACHED_RESPONSE_TIME_TO_LIVE,
+        ElasticAgentPluginConstantsV5.REQUEST_GET_ELASTIC_AGENT_PROFILE_VIEW, CACHED_RESPONSE_TIME_TO_LIVE,
+        ElasticAgentPluginConstantsV5.REQUEST_GET_CLUSTER_PROFILE_VIEW, CACHED_RESPONSE_TIME_TO_LIVE,
+        ElasticAgentPluginConstantsV5.REQUEST_CAPABILITIES, CACHED_RESPONSE_TIME_TO_LIVE
+    );
     private final Map<String, VersionedElasticAgentExtension> elasticAgentExtensionMap = new HashMap<>();
 
     @Autowired
     public ElasticAgentExtension(PluginManager pluginManager, ExtensionsRegistry extensionsRegistry) {
-        super(pluginManager, extensionsRegistry, new PluginRequestHelper(pluginManager, SUPPORTED_VERSIONS, ELASTIC_AGENT_EXTENSION), ELASTIC_AGENT_EXTENSION);
+        super(pluginManager, extensionsRegistry, new PluginRequestHelper(pluginManager, SUPPORTED_VERSIONS, ELASTIC_AGENT_EXTENSION, CACHEABLE_REQUESTS), ELASTIC_AGENT_EXTENSION);
         elasticAgentExtensionMap.put(ElasticAgentExtensionV4.VERSION, new ElasticAgentExtensionV4(pluginRequestHelper));
         elasticAgentExtensionMap.put(ElasticAgentExtensionV5.VERSION, new ElasticAgentExtensionV5(pluginRequestHelper));
 
@@ -134,6 +146,7 @@ public class ElasticAgentExtension extends AbstractExtension {
     }
 
     public void clusterProfileChanged(String pluginId, ClusterProfilesChangedStatus status, Map<String, String> oldClusterProfile, Map<String, String> newClusterProfile) {
+        pluginRequestHelper.invalidateCachedResponses(pluginId);
         getVersionedElasticAgentExtension(pluginId).clusterProfilesChanged(pluginId, status, oldClusterProfile, newClusterProfile);
     }
 }
@@ -19,9 +19,12 @@ import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoApiResponse;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 import com.thoughtworks.go.plugin.infra.PluginManager;
+import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
+import com.thoughtworks.go.util.Clock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -231,4 +234,58 @@ public class PluginRequestHelperTest {
 
         verify(pluginInteractionCallback).onFailure(400, "Error response", "1.0");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReuseResponseToCacheableRequestUntilItExpires() {
+        Clock clock = mock(Clock.class);
+        when(clock.currentTimeMillis()).thenReturn(0L);
+        helper = new PluginRequestHelper(pluginManager, List.of("1.0"), extensionName, Map.of(requestName, Duration.ofMinutes(5)), clock);
+        when(response.responseCode()).thenReturn(DefaultGoApiResponse.SUCCESS_RESPONSE_CODE);
+        when(response.responseBody()).thenReturn("view-1", "view-2");
+        when(pluginManager.submitTo(eq(pluginId), eq(extensionName), any())).thenReturn(response);
+
+        assertThat(submitForResponseBody(requestName)).isEqualTo("view-1");
+        assertThat(submitForResponseBody(requestName)).isEqualTo("view-1");
+        verify(pluginManager, times(1)).submitTo(eq(pluginId), eq(extensionName), any());
+
+        when(clock.currentTimeMillis()).thenReturn(Duration.ofMinutes(5).toMillis());
+        assertThat(submitForResponseBody(requestName)).isEqualTo("view-2");
+        verify(pluginManager, times(2)).submitTo(eq(pluginId), eq(extensionName), any());
+    }
+
+    @Test
+    void shouldNotReuseResponsesToRequestsWhichAreNotCacheable() {
+        helper = new PluginRequestHelper(pluginManager, List.of("1.0"), extensionName, Map.of("some-other-request", Duration.ofMinutes(5)));
+        when(response.responseCode()).thenReturn(DefaultGoApiResponse.SUCCESS_RESPONSE_CODE);
+        when(response.responseBody()).thenReturn("view-1", "view-2");
+        when(pluginManager.submitTo(eq(pluginId), eq(extensionName), any())).thenReturn(response);
+
+        assertThat(submitForResponseBody(requestName)).isEqualTo("view-1");
+        assertThat(submitForResponseBody(requestName)).isEqualTo("view-2");
+    }
+
+    @Test
+    void shouldNotReuseCachedResponsesOnceInvalidatedOrThePluginHasBeenReloaded() {
+        helper = new PluginRequestHelper(pluginManager, List.of("1.0"), extensionName, Map.of(requestName, Duration.ofMinutes(5)));
+        when(response.responseCode()).thenReturn(DefaultGoApiResponse.SUCCESS_RESPONSE_CODE);
+        when(response.responseBody()).thenReturn("view-1", "view-2", "view-3");
+        when(pluginManager.submitTo(eq(pluginId), eq(extensionName), any())).thenReturn(response);
+        when(pluginManager.getPluginDescriptorFor(pluginId)).thenReturn(mock(GoPluginDescriptor.class));
+
+        assertThat(submitForResponseBody(requestName)).isEqualTo("view-1");
+        helper.invalidateCachedResponses(pluginId);
+        assertThat(submitForResponseBody(requestName)).isEqualTo("view-2");
+
+        when(pluginManager.getPluginDescriptorFor(pluginId)).thenReturn(mock(GoPluginDescriptor.class));
+        assertThat(submitForResponseBody(requestName)).isEqualTo("view-3");
+    }
+
+    private String submitForResponseBody(String requestName) {
+        return helper.submitRequest(pluginId, requestName, new DefaultPluginInteractionCallback<>() {
+            @Override
+            public String onSuccess(String responseBody, Map<String, String> responseHeaders, String resolvedExtensionVersion) {
+                return responseBody;
+            }
+        });
+    }
+}
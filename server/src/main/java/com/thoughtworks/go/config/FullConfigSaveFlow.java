@@ -41,7 +41,6 @@ public abstract class FullConfigSaveFlow {
     protected final CachedGoPartials cachedGoPartials;
     protected final GoConfigFileWriter fileWriter;
     protected final ConfigElementImplementationRegistry configElementImplementationRegistry;
-    protected final GoConfigCloner cloner = new GoConfigCloner();
     protected final Logger LOGGER = LoggerFactory.getLogger(getClass().getName());
 
     public FullConfigSaveFlow(MagicalGoConfigXmlLoader loader, MagicalGoConfigXmlWriter writer,
@@ -131,8 +130,7 @@ public abstract class FullConfigSaveFlow {
         }
 
         LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Starting.");
-        CruiseConfig mergedCruiseConfigForEdit = cloner.deepClone(validatedConfigHolder.configForEdit);
-        mergedCruiseConfigForEdit.merge(partials, true);
+        CruiseConfig mergedCruiseConfigForEdit = validatedConfigHolder.configForEdit.mergedWith(partials, true);
         validatedConfigHolder.mergedConfigForEdit = mergedCruiseConfigForEdit;
         LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Done.");
     }
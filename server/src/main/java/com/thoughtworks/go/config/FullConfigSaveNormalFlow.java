@@ -35,6 +35,10 @@ validating to writing the config in appropriate locations.
 */
 @Component
 public class FullConfigSaveNormalFlow extends FullConfigSaveFlow {
+    private final boolean incrementalValidationEnabled;
+    private final long fullValidationIntervalInMillis;
+    private volatile CruiseConfig lastValidatedConfig;
+    private volatile long lastFullValidationAt;
 
     @Autowired
     public FullConfigSaveNormalFlow(ConfigElementImplementationRegistry configElementImplementationRegistry,
@@ -42,7 +46,9 @@ public class FullConfigSaveNormalFlow extends FullConfigSaveFlow {
                                     ConfigRepository configRepository, CachedGoPartials cachedGoPartials) {
         this(new MagicalGoConfigXmlLoader(configElementImplementationRegistry),
             new MagicalGoConfigXmlWriter(configElementImplementationRegistry), configElementImplementationRegistry,
-            timeProvider, configRepository, cachedGoPartials, new GoConfigFileWriter(systemEnvironment));
+            timeProvider, configRepository, cachedGoPartials, new GoConfigFileWriter(systemEnvironment),
+            systemEnvironment.get(SystemEnvironment.CONFIG_INCREMENTAL_VALIDATION_ENABLED),
+            systemEnvironment.get(SystemEnvironment.CONFIG_FULL_VALIDATION_INTERVAL_IN_MILLIS));
     }
 
     public FullConfigSaveNormalFlow(MagicalGoConfigXmlLoader loader, MagicalGoConfigXmlWriter writer,
@@ -50,7 +56,17 @@ public class FullConfigSaveNormalFlow extends FullConfigSaveFlow {
                                     TimeProvider timeProvider,
                                     ConfigRepository configRepository, CachedGoPartials cachedGoPartials,
                                     GoConfigFileWriter fileWriter) {
+        this(loader, writer, configElementImplementationRegistry, timeProvider, configRepository, cachedGoPartials, fileWriter, false, 0);
+    }
+
+    FullConfigSaveNormalFlow(MagicalGoConfigXmlLoader loader, MagicalGoConfigXmlWriter writer,
+                             ConfigElementImplementationRegistry configElementImplementationRegistry,
+                             TimeProvider timeProvider,
+                             ConfigRepository configRepository, CachedGoPartials cachedGoPartials,
+                             GoConfigFileWriter fileWriter, boolean incrementalValidationEnabled, long fullValidationIntervalInMillis) {
         super(loader, writer, configElementImplementationRegistry, timeProvider, configRepository, cachedGoPartials, fileWriter);
+        this.incrementalValidationEnabled = incrementalValidationEnabled;
+        this.fullValidationIntervalInMillis = fullValidationIntervalInMillis;
     }
 
     @Override
@@ -59,7 +75,7 @@ public class FullConfigSaveNormalFlow extends FullConfigSaveFlow {
 
         CruiseConfig configForEdit = configForEditWithPartials(updatingCommand, partials);
 
-        CruiseConfig preProcessedConfig = preprocessAndValidate(configForEdit);
+        CruiseConfig preProcessedConfig = incrementalValidationEnabled ? preprocessAndValidateChanges(configForEdit) : preprocessAndValidate(configForEdit);
 
         String configForEditXmlString = toXmlString(configForEdit);
 
@@ -77,8 +93,27 @@ public class FullConfigSaveNormalFlow extends FullConfigSaveFlow {
 
         cachedGoPartials.markAsValid(partials);
 
+        if (incrementalValidationEnabled) {
+            lastValidatedConfig = preProcessedConfig;
+        }
+
         LOGGER.debug("[Config Save] Done Config Save using FullConfigSaveNormalFlow");
 
         return goConfigHolder;
     }
+
+    /*
+    Only validates the pipelines affected by what changed since the last successful save, falling back to validating
+    the whole config every so often, in case a validation depends on something outside the config (such as plugins).
+    */
+    private CruiseConfig preprocessAndValidateChanges(CruiseConfig configForEdit) {
+        CruiseConfig validated = lastValidatedConfig;
+        long now = timeProvider.currentTimeMillis();
+        if (validated == null || now - lastFullValidationAt >= fullValidationIntervalInMillis) {
+            CruiseConfig preProcessedConfig = preprocessAndValidate(configForEdit);
+            lastFullValidationAt = now;
+            return preProcessedConfig;
+        }
+        return loader.preprocessAndValidate(configForEdit, validated);
+    }
 }
@@ -547,8 +547,7 @@ public class GoFileConfigDataSource {
         if (partialConfigs.isEmpty()) {
             return;
         }
-        CruiseConfig mergedCruiseConfigForEdit = cloner.deepClone(validatedConfigHolder.configForEdit);
-        mergedCruiseConfigForEdit.merge(partialConfigs, true);
+        CruiseConfig mergedCruiseConfigForEdit = validatedConfigHolder.configForEdit.mergedWith(partialConfigs, true);
         validatedConfigHolder.mergedConfigForEdit = mergedCruiseConfigForEdit;
     }
 
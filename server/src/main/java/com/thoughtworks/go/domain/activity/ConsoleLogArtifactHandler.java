@@ -41,6 +41,8 @@ public class ConsoleLogArtifactHandler implements JobStatusListener {
         if (!job.isCopy() && job.isCompleted()) {
             JobIdentifier identifier = job.getIdentifier();
             consoleService.moveConsoleArtifacts(identifier);
+        } else if (job.isRescheduled()) {
+            consoleService.discardLineIndex(job.getIdentifier());
         }
     }
 }
@@ -87,6 +87,23 @@ public class PipelineDependencyNode extends Node {
         setViewType(VSMViewType.NO_PERMISSION);
     }
 
+    /**
+     * @return a node with the same revisions and edges as this one, which can be changed without changing this node
+     */
+    public PipelineDependencyNode copy() {
+        PipelineDependencyNode copy = new PipelineDependencyNode(getId(), getName());
+        copy.revisions.addAll(revisions);
+        copy.message = message;
+        copy.canEdit = canEdit;
+        copy.templateName = templateName;
+        copy.setViewType(getViewType());
+        copy.setLevel(getLevel());
+        copy.setDepth(getDepth());
+        getParents().forEach(copy::addParentIfAbsent);
+        getChildren().forEach(copy::addChildIfAbsent);
+        return copy;
+    }
+
     public void setDeleted() {
         emptyRevisions();
         setMessage("Pipeline has been deleted.");
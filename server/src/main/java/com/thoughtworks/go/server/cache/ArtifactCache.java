@@ -16,25 +16,71 @@
 package com.thoughtworks.go.server.cache;
 
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 /**
  * Understands serving prepared artifacts and preparing artifact offline
+ * <p>
+ * Cached files are prepared on a bounded pool of threads. When the pool and its queue are full, the request for a
+ * cached file is turned away as if the file were still being prepared, so that the client retries later. Once the
+ * cached files take more space than allowed, the least recently used ones are removed, apart from any which were used
+ * so recently that they may be about to be downloaded.
  */
 public abstract class ArtifactCache<T extends Comparable<T>> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactCache.class);
+
     protected final ArtifactsDirHolder artifactsDirHolder;
     protected ConcurrentSkipListSet<T> pendingCacheFiles = new ConcurrentSkipListSet<>();
     protected ConcurrentMap<T, Exception> pendingExceptions = new ConcurrentHashMap<>();
     public static final String CACHE_ARTIFACTS_FOLDER = "cache/artifacts/";
 
-    public ArtifactCache(ArtifactsDirHolder artifactsDirHolder) {
+    private final SystemEnvironment systemEnvironment;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<Path, CachedFile> cachedFiles = new ConcurrentHashMap<>();
+    private final AtomicLong cachedSize = new AtomicLong();
+    private final AtomicLong useSequence = new AtomicLong();
+    private boolean existingCachedFilesFound;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder creationTimeInMillis = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public ArtifactCache(ArtifactsDirHolder artifactsDirHolder, SystemEnvironment systemEnvironment) {
         this.artifactsDirHolder = artifactsDirHolder;
+        this.systemEnvironment = systemEnvironment;
+        this.executor = createExecutor(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_CREATION_THREADS),
+            systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_CREATION_QUEUE_SIZE));
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threads, int queueSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        BlockingQueue<Runnable> queue = queueSize > 0 ? new LinkedBlockingQueue<>(queueSize) : new SynchronousQueue<>();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, queue, runnable -> {
+            Thread thread = new Thread(runnable, "cache-creator-thread-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     public boolean cacheCreated(T artifactLocation) throws IOException {
@@ -42,9 +88,13 @@ public abstract class ArtifactCache<T extends Comparable<T>> {
 
         throwOnExceptionFor(artifactLocation);
 
-        if (cacheAlreadyCreated(artifactLocation)) { return true; }
+        if (cacheAlreadyCreated(artifactLocation)) {
+            hits.increment();
+            markUsed(cachedFile(artifactLocation).toPath());
+            return true;
+        }
 
-        startCacheCreationThread(artifactLocation);
+        startCacheCreation(artifactLocation);
         return false;
     }
 
@@ -67,26 +117,145 @@ public abstract class ArtifactCache<T extends Comparable<T>> {
         return pendingCacheFiles.contains(artifactLocation);
     }
 
-    protected void startCacheCreationThread(final T artifactLocation) {
+    protected void startCacheCreation(final T artifactLocation) {
         boolean inserted = pendingCacheFiles.add(artifactLocation);
         if (inserted) {
-            Thread cacheCreatorThread = new Thread("cache-creator-thread-" + UUID.randomUUID()) {
-                @Override
-                public void run() {
-                    try {
-                        createCachedFile(artifactLocation);
-                    } catch (Exception e) {
-                        pendingExceptions.putIfAbsent(artifactLocation, e);
-                    } finally {
-                        pendingCacheFiles.remove(artifactLocation);
-                    }
+            try {
+                executor.execute(() -> createCache(artifactLocation));
+                misses.increment();
+            } catch (RejectedExecutionException e) {
+                pendingCacheFiles.remove(artifactLocation);
+                rejected.increment();
+                LOGGER.debug("Too many cached artifacts being prepared, turning away [{}] for now.", artifactLocation);
+            }
+        }
+    }
+
+    private void createCache(T artifactLocation) {
+        try {
+            long startedAt = System.currentTimeMillis();
+            createCachedFile(artifactLocation);
+            creationTimeInMillis.add(System.currentTimeMillis() - startedAt);
+            created.increment();
+
+            Path cachedFile = cachedFile(artifactLocation).toPath();
+            forget(cachedFiles.get(cachedFile));
+            markUsed(cachedFile);
+            evictLeastRecentlyUsed(cachedFile);
+        } catch (Exception e) {
+            pendingExceptions.putIfAbsent(artifactLocation, e);
+        } finally {
+            pendingCacheFiles.remove(artifactLocation);
+        }
+    }
+
+    private void markUsed(Path path) {
+        CachedFile cachedFile = cachedFiles.computeIfAbsent(path, this::found);
+        if (cachedFile != null) {
+            cachedFile.used(useSequence.incrementAndGet(), System.currentTimeMillis());
+        }
+    }
+
+    private CachedFile found(Path path) {
+        try {
+            CachedFile cachedFile = new CachedFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+            cachedSize.addAndGet(cachedFile.size);
+            return cachedFile;
+        } catch (IOException e) {
+            // removed since it was found
+            return null;
+        }
+    }
+
+    private void forget(CachedFile cachedFile) {
+        if (cachedFile != null && cachedFiles.remove(cachedFile.path, cachedFile)) {
+            cachedSize.addAndGet(-cachedFile.size);
+        }
+    }
+
+    /**
+     * Removes the least recently used cached files until the ones left fit in the allowed size. Files which have not
+     * been used since the server started are considered older than any which have, in the order they were last
+     * modified. Files used within the grace period are left alone, as they may have just been handed out for download.
+     * <p>
+     * The size of the cache is kept as files are created and removed, so the cache folder is only walked once, to find
+     * the files cached before the server started.
+     *
+     * @param keep the cached file which was just created, which is never removed
+     */
+    synchronized void evictLeastRecentlyUsed(Path keep) {
+        if (!existingCachedFilesFound) {
+            Path cacheRoot = new File(artifactsDirHolder.getArtifactsDir(), CACHE_ARTIFACTS_FOLDER).toPath();
+            try (Stream<Path> paths = Files.walk(cacheRoot)) {
+                paths.filter(path -> Files.isRegularFile(path) && isCachedFile(path)).forEach(path -> cachedFiles.computeIfAbsent(path, this::found));
+                existingCachedFilesFound = true;
+            } catch (IOException | UncheckedIOException e) {
+                LOGGER.warn("Unable to determine the size of the artifact cache [{}].", cacheRoot, e);
+                return;
+            }
+        }
+
+        long maxSize = systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_MAX_SIZE_IN_BYTES);
+        if (cachedSize.get() <= maxSize) {
+            return;
+        }
+
+        long usedBefore = System.currentTimeMillis() - systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_EVICTION_GRACE_PERIOD_IN_MILLIS);
+        List<CachedFile> leastRecentlyUsedFirst = new ArrayList<>(cachedFiles.values());
+        leastRecentlyUsedFirst.sort(Comparator.comparingLong((CachedFile cachedFile) -> cachedFile.lastUsed).thenComparingLong(cachedFile -> cachedFile.lastModified));
+        for (CachedFile cachedFile : leastRecentlyUsedFirst) {
+            if (cachedSize.get() <= maxSize) {
+                break;
+            }
+            if (cachedFile.path.equals(keep) || cachedFile.lastUsedAt > usedBefore) {
+                continue;
+            }
+            try {
+                if (Files.deleteIfExists(cachedFile.path)) {
+                    evicted.increment();
                 }
-            };
-            cacheCreatorThread.start();
+                forget(cachedFile);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to remove cached artifact [{}].", cachedFile.path, e);
+            }
         }
     }
 
+    public Statistics statistics() {
+        return new Statistics(hits.sum(), misses.sum(), rejected.sum(), created.sum(), creationTimeInMillis.sum(), evicted.sum(),
+            pendingCacheFiles.size(), executor.getQueue().size());
+    }
+
     public abstract File cachedFile(T artifactLocation);
 
     abstract void createCachedFile(T artifactLocation) throws IOException;
+
+    /**
+     * @return true if the given file under the cache folder is a complete cached file, which may be removed to make
+     * space for others
+     */
+    abstract boolean isCachedFile(Path path);
+
+    private static final class CachedFile {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+        private volatile long lastUsed = -1;
+        private volatile long lastUsedAt;
+
+        private CachedFile(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        private void used(long sequence, long at) {
+            lastUsed = sequence;
+            lastUsedAt = at;
+        }
+    }
+
+    public record Statistics(long hits, long misses, long rejected, long created, long creationTimeInMillis, long evicted,
+                             int pending, int queued) {
+    }
 }
@@ -17,6 +17,7 @@ package com.thoughtworks.go.server.cache;
 
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
 import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.ZipUtil;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -25,6 +26,7 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.zip.Deflater;
 
 @Component
@@ -32,8 +34,8 @@ public class ZipArtifactCache extends ArtifactCache<ArtifactFolder> {
     private final ZipUtil zipUtil;
 
     @Autowired
-    public ZipArtifactCache(ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil) {
-        super(artifactsDirHolder);
+    public ZipArtifactCache(ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, SystemEnvironment systemEnvironment) {
+        super(artifactsDirHolder, systemEnvironment);
         this.zipUtil = zipUtil;
     }
 
@@ -64,6 +66,11 @@ public class ZipArtifactCache extends ArtifactCache<ArtifactFolder> {
         return new File(parent, cachedZip.getName() + ".tmp");
     }
 
+    @Override
+    boolean isCachedFile(Path path) {
+        return path.getFileName().toString().endsWith(".zip");
+    }
+
     @Override
     public File cachedFile(ArtifactFolder artifactFolder) {
         File root = artifactsDirHolder.getArtifactsDir();
@@ -45,12 +45,15 @@ import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 import static com.thoughtworks.go.util.ArtifactUtil.*;
 import static com.thoughtworks.go.util.GoConstants.*;
@@ -180,17 +183,76 @@ public class ArtifactsController {
     private boolean updateChecksumFile(MultipartHttpServletRequest request, JobIdentifier jobIdentifier, String filePath) throws IOException, IllegalArtifactLocationException {
         MultipartFile checksumMultipartFile = getChecksumFile(request);
         if (checksumMultipartFile != null) {
-            String checksumFilePath = String.format("%s/%s/%s", artifactsService.findArtifactRoot(jobIdentifier), CRUISE_OUTPUT_FOLDER, MD5_CHECKSUM_FILENAME);
-            File checksumFile = artifactsService.getArtifactLocation(checksumFilePath);
-            synchronized (checksumFilePath.intern()) {
-                return artifactsService.saveOrAppendFile(checksumFile, checksumMultipartFile.getInputStream());
-            }
+            return appendToChecksumFile(jobIdentifier, checksumMultipartFile.getInputStream());
         } else {
             LOGGER.warn("[Artifacts Upload] Checksum file not uploaded for artifact at path '{}'", filePath);
         }
         return true;
     }
 
+    private boolean appendToChecksumFile(JobIdentifier jobIdentifier, InputStream checksums) throws IllegalArtifactLocationException {
+        String checksumFilePath = String.format("%s/%s/%s", artifactsService.findArtifactRoot(jobIdentifier), CRUISE_OUTPUT_FOLDER, MD5_CHECKSUM_FILENAME);
+        File checksumFile = artifactsService.getArtifactLocation(checksumFilePath);
+        synchronized (checksumFilePath.intern()) {
+            return artifactsService.saveOrAppendFile(checksumFile, checksums);
+        }
+    }
+
+    /**
+     * Agents streaming a zip of the artifact send it as the body of the request rather than as a multipart upload, with
+     * the checksums of the files inside it as its last entry, so that it can be extracted while it is being received.
+     */
+    @RequestMapping(value = "/repository/restful/artifact/POST/*", method = RequestMethod.POST, headers = "Content-Type=" + ZIP_STREAM_CONTENT_TYPE)
+    public ModelAndView postStreamedArtifact(@RequestParam("pipelineName") String pipelineName,
+                                             @RequestParam("pipelineCounter") String pipelineCounter,
+                                             @RequestParam("stageName") String stageName,
+                                             @RequestParam(value = "stageCounter", required = false) String stageCounter,
+                                             @RequestParam("buildName") String buildName,
+                                             @RequestParam(value = "buildId", required = false) Long buildId,
+                                             @RequestParam("filePath") String filePath,
+                                             @RequestParam(value = "attempt", required = false) Integer attempt,
+                                             HttpServletRequest request) throws IOException {
+        if (!confirmationConstraint.isSatisfied(request)) {
+            return ResponseCodeView.create(HTTP_BAD_REQUEST, String.format("Missing required header '%s'", StandardHeaders.REQUEST_CONFIRM_MODIFICATION));
+        }
+        if (!isValidStageCounter(stageCounter)) {
+            return buildNotFound(pipelineName, pipelineCounter, stageName, stageCounter, buildName);
+        }
+        JobIdentifier jobIdentifier;
+        try {
+            jobIdentifier = restfulService.findJob(pipelineName, pipelineCounter, stageName, stageCounter, buildName, buildId);
+        } catch (Exception e) {
+            return buildNotFound(pipelineName, pipelineCounter, stageName, stageCounter, buildName);
+        }
+
+        int convertedAttempt = attempt == null ? 1 : attempt;
+
+        try {
+            File artifact = artifactsService.findArtifact(jobIdentifier, filePath);
+            if (artifact.exists() && artifact.isFile()) {
+                return FileModelAndView.fileAlreadyExists(filePath);
+            }
+
+            Properties checksums;
+            try (InputStream inputStream = request.getInputStream()) {
+                checksums = artifactsService.saveStreamedZip(artifact, filePath, inputStream, convertedAttempt);
+            }
+            if (checksums == null) {
+                return FileModelAndView.errorSavingFile(filePath);
+            }
+
+            ByteArrayOutputStream checksumContent = new ByteArrayOutputStream();
+            checksums.store(checksumContent, null);
+            if (!appendToChecksumFile(jobIdentifier, new ByteArrayInputStream(checksumContent.toByteArray()))) {
+                return FileModelAndView.errorSavingChecksumFile(filePath);
+            }
+
+            return FileModelAndView.fileCreated(filePath);
+        } catch (IllegalArtifactLocationException e) {
+            return FileModelAndView.forbiddenUrl(filePath);
+        }
+    }
+
     private boolean saveFile(int convertedAttempt, File artifact, MultipartFile multipartFile, boolean shouldUnzip) throws IOException {
         try (InputStream inputStream = multipartFile.getInputStream()) {
             return artifactsService.saveFile(artifact, inputStream, shouldUnzip, convertedAttempt);
@@ -312,7 +374,7 @@ public class ArtifactsController {
 
     private ModelAndView putConsoleOutput(final JobIdentifier jobIdentifier, final InputStream inputStream) throws IllegalArtifactLocationException {
         File consoleLogFile = consoleService.consoleLogFile(jobIdentifier);
-        boolean updated = consoleService.appendToConsoleLogIoSafe(consoleLogFile, inputStream);
+        boolean updated = consoleService.appendToConsoleLogIoSafe(jobIdentifier, consoleLogFile, inputStream);
         if (updated) {
             consoleActivityMonitor.consoleUpdatedFor(jobIdentifier);
             return FileModelAndView.fileAppended(consoleLogFile.getPath());
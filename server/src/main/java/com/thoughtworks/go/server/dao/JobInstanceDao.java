@@ -28,6 +28,13 @@ public interface JobInstanceDao {
 
     List<JobPlan> orderedScheduledBuilds();
 
+    List<Long> orderedScheduledBuildIds();
+
+    /**
+     * @return the plan of the job with the given id, or null if the job is no longer scheduled
+     */
+    JobPlan scheduledPlan(long jobId);
+
     JobInstances latestCompletedJobs(String pipelineName, String stageName, String jobConfigName, int count);
 
     JobInstance save(long stageId, JobInstance jobInstance);
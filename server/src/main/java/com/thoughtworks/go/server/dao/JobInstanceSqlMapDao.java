@@ -115,7 +115,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
                 instance = job(buildInstanceId, "buildByIdWithTransitions");
                 goCache.put(cacheKey, instance);
             }
-            return cloner.deepClone(instance);
+            return instance.copy();
         }
     }
 
@@ -240,7 +240,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
             }
         }
 
-        return cloner.deepClone(jobIdentifier);
+        return jobIdentifier == null ? null : jobIdentifier.copy();
     }
 
     @VisibleForTesting
@@ -403,26 +403,38 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
 
     @Override
     public List<JobPlan> orderedScheduledBuilds() {
-        List<Long> jobIds = getSqlMapClientTemplate().queryForList("scheduledPlanIds");
-
         List<JobPlan> plans = new ArrayList<>();
-        for (Long jobId : jobIds) {
-            String cacheKey = cacheKeyForJobPlan(jobId);
-            synchronized (cacheKey) {
-                JobPlan jobPlan = goCache.get(cacheKey);
-                if (jobPlan == null) {
-                    jobPlan = _loadJobPlan(jobId);
-                }
-                if (jobPlan != null) {
-                    jobPlan = cloner.deepClone(jobPlan);
-                    goCache.put(cacheKey, jobPlan);
-                    plans.add(jobPlan);
-                }
+        for (Long jobId : orderedScheduledBuildIds()) {
+            JobPlan jobPlan = scheduledPlan(jobId);
+            if (jobPlan != null) {
+                plans.add(jobPlan);
             }
         }
         return plans;
     }
 
+    @Override
+    public List<Long> orderedScheduledBuildIds() {
+        return getSqlMapClientTemplate().queryForList("scheduledPlanIds");
+    }
+
+    @Override
+    public JobPlan scheduledPlan(long jobId) {
+        String cacheKey = cacheKeyForJobPlan(jobId);
+        synchronized (cacheKey) {
+            JobPlan jobPlan = goCache.get(cacheKey);
+            if (jobPlan == null) {
+                jobPlan = _loadJobPlan(jobId);
+            }
+            if (jobPlan == null) {
+                return null;
+            }
+            jobPlan = cloner.deepClone(jobPlan);
+            goCache.put(cacheKey, jobPlan);
+            return jobPlan;
+        }
+    }
+
     private JobPlan _loadJobPlan(Long jobId) {
         DefaultJobPlan jobPlan = getSqlMapClientTemplate().queryForObject("scheduledPlan", arguments("id", jobId).asMap());
         if (jobPlan == null) {
@@ -456,7 +456,10 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
                 stageInstanceModels.addAll(detailedStageHistory);
                 goCache.put(key, subKey, stageInstanceModels);
             }
-            return cloner.deepClone(stageInstanceModels);
+            // the stage history is only ever rendered, so the cached models are shared rather than deep cloned
+            StageInstanceModels page = new StageInstanceModels();
+            page.addAll(stageInstanceModels);
+            return page;
         } finally {
             readWriteLock.releaseReadLock(mutex);
         }
@@ -496,7 +499,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
                 stageHistoryPage = new StageHistoryPage(stageHistoryEntries, pagination, findImmediateChronologicallyForwardStageHistoryEntry(stageHistoryEntries.getFirst()));
                 goCache.put(key, subKey, stageHistoryPage);
             }
-            return cloner.deepClone(stageHistoryPage);
+            return stageHistoryPage.copy();
         } finally {
             readWriteLock.releaseReadLock(mutex);
         }
@@ -23,11 +23,16 @@ import com.thoughtworks.go.config.remote.ConfigOrigin;
 import com.thoughtworks.go.config.security.Permissions;
 import com.thoughtworks.go.presentation.pipelinehistory.PipelineModel;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /* Represents a pipeline on the dashboard. Cacheable, since the permissions are not specific to a user. */
 public class GoDashboardPipeline {
+    private static final int MAX_RENDERED_FRAGMENTS = 32;
+
     private final PipelineModel pipelineModel;
     private final Permissions permissions;
     private final String groupName;
@@ -36,6 +41,7 @@ public class GoDashboardPipeline {
     private final ConfigOrigin origin;
     private final int displayOrderWeight;
     private final PipelineConfig pipelineConfig;
+    private final Map<String, String> renderedFragments = new ConcurrentHashMap<>();
 
     public GoDashboardPipeline(PipelineModel pipelineModel, Permissions permissions, String groupName, Counter timeStampBasedCounter, PipelineConfig pipelineConfig) {
         this.pipelineModel = pipelineModel;
@@ -96,6 +102,27 @@ public class GoDashboardPipeline {
         return lastUpdatedTimeStamp;
     }
 
+    /**
+     * Remembers how this pipeline was rendered, for as long as it stays in the {@link GoDashboardCache}. Any change to
+     * the pipeline replaces it in the cache with a new instance (with a new timestamp, and so a new etag), which starts
+     * out with no rendered fragments.
+     *
+     * @param key      identifies everything other than this pipeline that the rendering depends on, such as the
+     *                 permissions of the user it is rendered for
+     * @param renderer renders the fragment, if it has not been rendered for the key yet
+     */
+    public String renderedFragment(String key, Supplier<String> renderer) {
+        String fragment = renderedFragments.get(key);
+        if (fragment != null) {
+            return fragment;
+        }
+        fragment = renderer.get();
+        if (renderedFragments.size() < MAX_RENDERED_FRAGMENTS) {
+            renderedFragments.putIfAbsent(key, fragment);
+        }
+        return fragment;
+    }
+
     @Override
     public String toString() {
         return String.format("GoDashboardPipeline{name='%s',groupName='%s'}", name(), groupName);
@@ -20,7 +20,10 @@ import com.thoughtworks.go.domain.PipelineTimelineEntry;
 import com.thoughtworks.go.server.persistence.PipelineRepository;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.jetbrains.annotations.TestOnly;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
@@ -35,9 +38,12 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  */
 @Component
 public class PipelineTimeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineTimeline.class);
+
     private final PipelineRepository pipelineRepository;
     private final TransactionTemplate transactionTemplate;
     private final TransactionSynchronizationManager transactionSynchronizationManager;
+    private final PipelineTimelineSnapshot snapshot;
 
     private final Map<CaseInsensitiveString, NavigableSet<PipelineTimelineEntry>> naturalOrderPmm = new HashMap<>();
     private final Map<CaseInsensitiveString, List<PipelineTimelineEntry>> scheduleOrderPmm = new HashMap<>();
@@ -47,10 +53,21 @@ public class PipelineTimeline {
     private final AtomicLong maximumId = new AtomicLong(-1);
 
     @Autowired
+    public PipelineTimeline(PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate, TransactionSynchronizationManager transactionSynchronizationManager, SystemEnvironment systemEnvironment) {
+        this(pipelineRepository, transactionTemplate, transactionSynchronizationManager,
+            systemEnvironment.get(SystemEnvironment.PIPELINE_TIMELINE_SNAPSHOT_ENABLED) ? new PipelineTimelineSnapshot(systemEnvironment.getPipelineTimelineSnapshotFile().toPath()) : null);
+    }
+
+    @TestOnly
     public PipelineTimeline(PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate, TransactionSynchronizationManager transactionSynchronizationManager) {
+        this(pipelineRepository, transactionTemplate, transactionSynchronizationManager, (PipelineTimelineSnapshot) null);
+    }
+
+    PipelineTimeline(PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate, TransactionSynchronizationManager transactionSynchronizationManager, PipelineTimelineSnapshot snapshot) {
         this.pipelineRepository = pipelineRepository;
         this.transactionTemplate = transactionTemplate;
         this.transactionSynchronizationManager = transactionSynchronizationManager;
+        this.snapshot = snapshot;
     }
 
     @TestOnly
@@ -130,14 +147,59 @@ public class PipelineTimeline {
 
     /**
      * This is called on system init and is called by Spring. Hence, this is not done in a transaction. At any other time, the method update should be used
+     * <p>
+     * When a snapshot of the timeline was written by a previous run, it is loaded first, so that only pipelines scheduled since need to be read from the
+     * database. The timeline is written back to the snapshot once it is up-to-date.
      */
     public void updateTimelineOnInit() {
+        List<PipelineTimelineEntry> entries;
         acquireAllWriteLocks();
         try {
+            if (snapshot != null) {
+                loadSnapshot();
+            }
             pipelineRepository.updatePipelineTimeline(this, new ArrayList<>());
+            entries = snapshot == null ? null : entriesInOrderOfId();
         } finally {
             releaseAllWriteLocks();
         }
+
+        if (entries != null) {
+            snapshot.saveQuietly(entries);
+        }
+    }
+
+    private void loadSnapshot() {
+        List<PipelineTimelineEntry> entries = snapshot.load();
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        // the database may have been restored from a backup, or replaced, since the snapshot was written
+        PipelineTimelineEntry last = entries.getLast();
+        if (!pipelineRepository.hasPipelineInstance(last.getId(), last.getPipelineName(), last.getCounter())) {
+            LOGGER.info("Ignoring pipeline timeline snapshot as it does not match the database.");
+            return;
+        }
+
+        try {
+            for (PipelineTimelineEntry entry : entries) {
+                add(entry);
+            }
+            LOGGER.info("Loaded {} pipeline timeline entries from snapshot", entries.size());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Ignoring pipeline timeline snapshot which could not be loaded, the timeline will be loaded from the database.", e);
+            naturalOrderPmm.clear();
+            scheduleOrderPmm.clear();
+            maximumId.set(-1);
+        }
+    }
+
+    private List<PipelineTimelineEntry> entriesInOrderOfId() {
+        List<PipelineTimelineEntry> entries = new ArrayList<>();
+        scheduleOrderPmm.values().forEach(entries::addAll);
+        entries.sort(Comparator.comparingLong(PipelineTimelineEntry::getId));
+        return entries;
     }
 
     /**
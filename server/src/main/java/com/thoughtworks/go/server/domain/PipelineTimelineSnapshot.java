@@ -0,0 +1,169 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * A copy of the pipeline timeline persisted on disk, so that a booting server only has to read the pipelines scheduled
+ * after the snapshot was taken from the database, instead of replaying the whole timeline query.
+ * <p>
+ * Entries are written in the order of their ids, which is the order they were added to the timeline in, so that adding
+ * them again links them up with the same natural order as before. Pipeline names and material fingerprints are written
+ * once into a string table and referred to by position, and are interned when read back.
+ */
+class PipelineTimelineSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineTimelineSnapshot.class);
+
+    private static final int MAGIC = 0x474f5054; // "GOPT"
+    private static final int VERSION = 1;
+
+    private final Path file;
+
+    PipelineTimelineSnapshot(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the entries in the snapshot ordered by id, or an empty list if there is no snapshot or it is unreadable
+     */
+    List<PipelineTimelineEntry> load() {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return List.of();
+            }
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(in).intern();
+            }
+
+            int entryCount = in.readInt();
+            List<PipelineTimelineEntry> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++) {
+                String pipelineName = strings[in.readInt()];
+                long id = in.readLong();
+                int counter = in.readInt();
+                double naturalOrder = in.readDouble();
+                int fingerprintCount = in.readInt();
+                Map<String, List<PipelineTimelineEntry.Revision>> revisions = HashMap.newHashMap(fingerprintCount);
+                for (int j = 0; j < fingerprintCount; j++) {
+                    String fingerprint = strings[in.readInt()];
+                    int revisionCount = in.readInt();
+                    List<PipelineTimelineEntry.Revision> revisionsOfMaterial = new ArrayList<>(revisionCount);
+                    for (int k = 0; k < revisionCount; k++) {
+                        Date date = new Date(in.readLong());
+                        String revision = readString(in);
+                        revisionsOfMaterial.add(new PipelineTimelineEntry.Revision(date, revision, in.readLong()));
+                    }
+                    revisions.put(fingerprint, revisionsOfMaterial);
+                }
+                entries.add(new PipelineTimelineEntry(pipelineName, id, counter, revisions, naturalOrder));
+            }
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring unreadable pipeline timeline snapshot [{}], the timeline will be loaded from the database.", file, e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Writes the given entries, replacing any previous snapshot. Failures are logged and ignored, as the timeline can
+     * always be loaded from the database.
+     *
+     * @param entries the entries of the timeline, ordered by id
+     */
+    void saveQuietly(List<PipelineTimelineEntry> entries) {
+        Map<String, Integer> stringTable = new LinkedHashMap<>();
+        for (PipelineTimelineEntry entry : entries) {
+            stringTable.putIfAbsent(entry.getPipelineName(), stringTable.size());
+            for (String fingerprint : entry.revisions().keySet()) {
+                stringTable.putIfAbsent(fingerprint, stringTable.size());
+            }
+        }
+
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(stringTable.size());
+                    for (String string : stringTable.keySet()) {
+                        writeString(out, string);
+                    }
+
+                    out.writeInt(entries.size());
+                    for (PipelineTimelineEntry entry : entries) {
+                        out.writeInt(stringTable.get(entry.getPipelineName()));
+                        out.writeLong(entry.getId());
+                        out.writeInt(entry.getCounter());
+                        out.writeDouble(entry.naturalOrder());
+                        out.writeInt(entry.revisions().size());
+                        for (Map.Entry<String, List<PipelineTimelineEntry.Revision>> revisionsOfMaterial : entry.revisions().entrySet()) {
+                            out.writeInt(stringTable.get(revisionsOfMaterial.getKey()));
+                            out.writeInt(revisionsOfMaterial.getValue().size());
+                            for (PipelineTimelineEntry.Revision revision : revisionsOfMaterial.getValue()) {
+                                out.writeLong(revision.date().getTime());
+                                writeString(out, revision.revision());
+                                out.writeLong(revision.id());
+                            }
+                        }
+                    }
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write pipeline timeline snapshot [{}].", file, e);
+        }
+    }
+
+    // revisions can be longer than what DataOutput#writeUTF allows
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -35,6 +35,7 @@ import com.thoughtworks.go.server.service.support.ResourceMonitoring;
 import com.thoughtworks.go.server.service.support.toggle.FeatureToggleService;
 import com.thoughtworks.go.server.service.support.toggle.Toggles;
 import com.thoughtworks.go.server.util.ServletHelper;
+import com.thoughtworks.go.server.valuestreammap.ValueStreamMapCache;
 import com.thoughtworks.go.service.ConfigRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -76,6 +77,7 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
     @Autowired private FeatureToggleService featureToggleService;
     @Autowired private CcTrayActivityListener ccTrayActivityListener;
     @Autowired private GoDashboardActivityListener dashboardActivityListener;
+    @Autowired private ValueStreamMapCache valueStreamMapCache;
     @Autowired private EntityHashingService entityHashingService;
     @Autowired private DependencyMaterialUpdateNotifier dependencyMaterialUpdateNotifier;
     @Autowired private SCMMaterialSource scmMaterialSource;
@@ -138,6 +140,7 @@ public class ApplicationInitializer implements ApplicationListener<ContextRefres
             railsAssetsService.initialize();
             ccTrayActivityListener.initialize();
             dashboardActivityListener.initialize();
+            valueStreamMapCache.initialize();
 
             ServletHelper.init();
             // initialize static accessors
@@ -0,0 +1,108 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.domain.materials.Material;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Understands how long to wait before polling a material again, going by how often it has changed and how long it takes
+ * to update.
+ * <p>
+ * A material whose last update found a new revision is polled again after the usual material update interval. Every
+ * update which finds nothing new doubles the wait, up to a maximum, and a quiet material which is slow to update waits
+ * at least {@value #COST_MULTIPLIER} times as long as its last update took. A failed update resets the wait. Materials which are due are ordered by how
+ * overdue they are for their own interval, so that materials which change often get to the front of the update queue.
+ */
+class AdaptivePollingSchedule {
+    static final int COST_MULTIPLIER = 10;
+
+    private final long baseIntervalMillis;
+    private final long maxIntervalMillis;
+    private final ConcurrentMap<Material, History> histories = new ConcurrentHashMap<>();
+
+    AdaptivePollingSchedule(long baseIntervalMillis, long maxIntervalMillis) {
+        this.baseIntervalMillis = Math.max(baseIntervalMillis, 1);
+        this.maxIntervalMillis = Math.max(maxIntervalMillis, this.baseIntervalMillis);
+    }
+
+    /**
+     * @return the materials which are due to be polled, most overdue first
+     */
+    Set<Material> due(Collection<Material> materials, long now) {
+        PriorityQueue<Overdue> due = new PriorityQueue<>(Math.max(1, materials.size()), Comparator.comparingDouble(Overdue::ratio).reversed());
+        for (Material material : materials) {
+            History history = histories.get(material);
+            double ratio = history == null ? Double.MAX_VALUE : history.overdueRatio(now);
+            if (ratio >= 0) {
+                due.add(new Overdue(material, ratio));
+            }
+        }
+
+        Set<Material> ordered = new LinkedHashSet<>();
+        Overdue next;
+        while ((next = due.poll()) != null) {
+            ordered.add(next.material());
+        }
+        return ordered;
+    }
+
+    /**
+     * @param latestRevision       the latest known revision of the material after the update
+     * @param updateDurationMillis how long the update took, or null if that is not known
+     */
+    void updated(Material material, long now, String latestRevision, Long updateDurationMillis) {
+        histories.compute(material, (key, history) -> {
+            if (history == null || !Objects.equals(history.latestRevision, latestRevision)) {
+                return new History(now, baseIntervalMillis, latestRevision);
+            }
+            long interval = Math.min(history.intervalMillis * 2, maxIntervalMillis);
+            if (updateDurationMillis != null) {
+                interval = Math.max(interval, Math.min(updateDurationMillis * COST_MULTIPLIER, maxIntervalMillis));
+            }
+            return new History(now, interval, latestRevision);
+        });
+    }
+
+    /**
+     * A failed update says nothing about how often the material changes, so the material goes back to being polled
+     * after the usual interval.
+     */
+    void failed(Material material, long now) {
+        histories.compute(material, (key, history) -> new History(now, baseIntervalMillis, history == null ? null : history.latestRevision));
+    }
+
+    void retainOnly(Set<Material> materials) {
+        histories.keySet().retainAll(materials);
+    }
+
+    long intervalMillis(Material material) {
+        History history = histories.get(material);
+        return history == null ? baseIntervalMillis : history.intervalMillis;
+    }
+
+    private record History(long lastUpdatedAt, long intervalMillis, String latestRevision) {
+        private double overdueRatio(long now) {
+            return (now - lastUpdatedAt - intervalMillis) / (double) intervalMillis;
+        }
+    }
+
+    private record Overdue(Material material, double ratio) {
+    }
+}
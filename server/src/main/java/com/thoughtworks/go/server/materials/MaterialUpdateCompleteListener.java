@@ -20,4 +20,12 @@ import com.thoughtworks.go.domain.materials.Material;
 
 public interface MaterialUpdateCompleteListener {
     void onMaterialUpdate(Material material);
+
+    /**
+     * Called instead of {@link #onMaterialUpdate(Material)} when the update failed. Unless overridden, a failed update
+     * is treated like any other completed update.
+     */
+    default void onMaterialUpdateFailed(Material material) {
+        onMaterialUpdate(material);
+    }
 }
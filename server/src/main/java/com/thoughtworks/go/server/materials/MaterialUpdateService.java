@@ -243,7 +243,11 @@ public class MaterialUpdateService implements GoMessageListener<MaterialUpdateCo
             }
 
             for (MaterialUpdateCompleteListener listener : materialUpdateCompleteListeners) {
-                listener.onMaterialUpdate(message.getMaterial());
+                if (message instanceof MaterialUpdateFailedMessage) {
+                    listener.onMaterialUpdateFailed(message.getMaterial());
+                } else {
+                    listener.onMaterialUpdate(message.getMaterial());
+                }
             }
         } finally {
             mduPerformanceLogger.completionMessageForMaterialReceived(message.trackingId(), message.getMaterial());
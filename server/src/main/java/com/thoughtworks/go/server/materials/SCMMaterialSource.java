@@ -19,12 +19,15 @@ import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
+import com.thoughtworks.go.domain.MaterialRevision;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.packagerepository.PackageDefinition;
 import com.thoughtworks.go.domain.packagerepository.PackageRepository;
 import com.thoughtworks.go.domain.scm.SCM;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.server.perf.MDUPerformanceLogger;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
 import com.thoughtworks.go.util.SystemEnvironment;
@@ -40,6 +43,8 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 /**
  * Provides a list of unique SCMMaterials to be updated which will be consumed by MaterialUpdateService
@@ -56,15 +61,24 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     private final long materialUpdateInterval;
     private final TimeProvider timeProvider;
     private final AtomicReference<Set<Material>> schedulableMaterials = new AtomicReference<>();
+    private final MaterialRepository materialRepository;
+    private final MDUPerformanceLogger mduPerformanceLogger;
+    private final AdaptivePollingSchedule pollingSchedule;
 
     @Autowired
     public SCMMaterialSource(GoConfigService goConfigService, SystemEnvironment systemEnvironment,
-                             MaterialConfigConverter materialConfigConverter, MaterialUpdateService materialUpdateService, TimeProvider timeProvider) {
+                             MaterialConfigConverter materialConfigConverter, MaterialUpdateService materialUpdateService, TimeProvider timeProvider,
+                             MaterialRepository materialRepository, MDUPerformanceLogger mduPerformanceLogger) {
         this.goConfigService = goConfigService;
         this.materialConfigConverter = materialConfigConverter;
         this.materialUpdateService = materialUpdateService;
         this.materialUpdateInterval = systemEnvironment.getMaterialUpdateIdleInterval();
         this.timeProvider = timeProvider;
+        this.materialRepository = materialRepository;
+        this.mduPerformanceLogger = mduPerformanceLogger;
+        this.pollingSchedule = systemEnvironment.get(SystemEnvironment.MATERIAL_UPDATE_ADAPTIVE_INTERVAL)
+            ? new AdaptivePollingSchedule(materialUpdateInterval, systemEnvironment.get(SystemEnvironment.MATERIAL_UPDATE_ADAPTIVE_MAX_INTERVAL_IN_MILLIS))
+            : null;
     }
 
     public void initialize() {
@@ -90,6 +104,19 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     public void onMaterialUpdate(Material material) {
         if (!(material instanceof DependencyMaterial)) {
             updateLastUpdateTimeForScmMaterial(material);
+            if (pollingSchedule != null) {
+                pollingSchedule.updated(material, timeProvider.currentTimeMillis(), latestRevisions(material), mduPerformanceLogger.lastUpdateDurationMillis(material));
+            }
+        }
+    }
+
+    @Override
+    public void onMaterialUpdateFailed(Material material) {
+        if (!(material instanceof DependencyMaterial)) {
+            updateLastUpdateTimeForScmMaterial(material);
+            if (pollingSchedule != null) {
+                pollingSchedule.failed(material, timeProvider.currentTimeMillis());
+            }
         }
     }
 
@@ -114,6 +141,9 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
     }
 
     private Set<Material> materialsWithUpdateIntervalElapsed() {
+        if (pollingSchedule != null) {
+            return pollingSchedule.due(schedulableMaterials.get(), timeProvider.currentTimeMillis());
+        }
         Set<Material> materialsForUpdate = new HashSet<>();
         for (Material material : schedulableMaterials.get()) {
             if (hasUpdateIntervalElapsedForScmMaterial(material)) {
@@ -138,10 +168,19 @@ public class SCMMaterialSource extends EntityConfigChangedListener<ConfigRepoCon
         materialLastUpdateTimeMap.put(material, timeProvider.currentTimeMillis());
     }
 
+    private String latestRevisions(Material material) {
+        return StreamSupport.stream(materialRepository.findLatestModification(material).spliterator(), false)
+            .map(MaterialRevision::getLatestRevisionString)
+            .collect(Collectors.joining(","));
+    }
+
     private void updateSchedulableMaterials(boolean forceLoad) {
         Set<Material> materials = schedulableMaterials.get();
         if (materials == null || forceLoad) {
             schedulableMaterials.compareAndSet(materials, materialConfigConverter.toMaterials(goConfigService.getSchedulableSCMMaterials()));
+            if (pollingSchedule != null) {
+                pollingSchedule.retainOnly(schedulableMaterials.get());
+            }
         }
     }
 
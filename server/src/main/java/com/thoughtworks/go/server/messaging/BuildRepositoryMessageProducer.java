@@ -56,6 +56,20 @@ public class BuildRepositoryMessageProducer implements BuildRepositoryRemote {
         return work;
     }
 
+    /**
+     * @see WorkAssignments#awaitWork(AgentRuntimeInfo, long)
+     */
+    public Work awaitWork(AgentRuntimeInfo runtimeInfo, long waitMillis) {
+        long startTime = System.currentTimeMillis();
+
+        Work work = workAssignments.awaitWork(runtimeInfo, waitMillis);
+
+        if (work != null) {
+            workAssignmentPerformanceLogger.retrievedWorkForAgent(runtimeInfo, work, startTime, System.currentTimeMillis());
+        }
+        return work;
+    }
+
     @Override
     public void reportCurrentStatus(AgentRuntimeInfo agentRuntimeInfo, JobIdentifier jobIdentifier, JobState jobState) {
         buildRepository.reportCurrentStatus(agentRuntimeInfo, jobIdentifier, jobState);
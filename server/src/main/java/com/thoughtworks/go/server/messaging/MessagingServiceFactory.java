@@ -0,0 +1,88 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging;
+
+import com.thoughtworks.go.server.messaging.activemq.ActiveMqMessagingService;
+import com.thoughtworks.go.server.messaging.inmemory.InMemoryMessagingService;
+import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
+import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the {@link MessagingService} chosen with {@link SystemEnvironment#GO_MESSAGING_SERVICE}: the embedded
+ * ActiveMQ broker ({@value #ACTIVEMQ}, the default) or the in-process buffers ({@value #IN_MEMORY}).
+ */
+@Component
+public class MessagingServiceFactory implements FactoryBean<MessagingService<GoMessage>>, DisposableBean {
+    private static final Logger LOG = LoggerFactory.getLogger(MessagingServiceFactory.class);
+
+    public static final String ACTIVEMQ = "activemq";
+    public static final String IN_MEMORY = "in-memory";
+
+    private final DaemonThreadStatsCollector daemonThreadStatsCollector;
+    private final SystemEnvironment systemEnvironment;
+    private final ServerHealthService serverHealthService;
+    private MessagingService<GoMessage> messagingService;
+
+    @Autowired
+    public MessagingServiceFactory(DaemonThreadStatsCollector daemonThreadStatsCollector, SystemEnvironment systemEnvironment, ServerHealthService serverHealthService) {
+        this.daemonThreadStatsCollector = daemonThreadStatsCollector;
+        this.systemEnvironment = systemEnvironment;
+        this.serverHealthService = serverHealthService;
+    }
+
+    @Override
+    public synchronized MessagingService<GoMessage> getObject() throws Exception {
+        if (messagingService == null) {
+            messagingService = create(systemEnvironment.get(SystemEnvironment.GO_MESSAGING_SERVICE));
+        }
+        return messagingService;
+    }
+
+    private MessagingService<GoMessage> create(String implementation) throws Exception {
+        if (IN_MEMORY.equalsIgnoreCase(implementation)) {
+            LOG.info("Using the in-memory messaging service.");
+            return new InMemoryMessagingService(daemonThreadStatsCollector, systemEnvironment, serverHealthService);
+        }
+        if (!ACTIVEMQ.equalsIgnoreCase(implementation)) {
+            LOG.warn("Unknown messaging service [{}], using [{}] instead.", implementation, ACTIVEMQ);
+        }
+        return new ActiveMqMessagingService(daemonThreadStatsCollector, systemEnvironment, serverHealthService);
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return MessagingService.class;
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return true;
+    }
+
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (messagingService != null) {
+            messagingService.stop();
+        }
+    }
+}
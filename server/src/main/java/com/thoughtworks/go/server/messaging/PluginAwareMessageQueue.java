@@ -15,8 +15,6 @@
  */
 package com.thoughtworks.go.server.messaging;
 
-import com.thoughtworks.go.server.messaging.activemq.JMSMessageListenerAdapter;
-import jakarta.jms.JMSException;
 import org.jetbrains.annotations.TestOnly;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,29 +26,29 @@ import java.util.stream.IntStream;
 public class PluginAwareMessageQueue<T extends PluginAwareMessage> extends GoMessageQueue<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(PluginAwareMessageQueue.class.getName());
 
-    private final List<JMSMessageListenerAdapter<T>> jmsListeners = new CopyOnWriteArrayList<>();
+    private final List<MessageListenerHandle> listeners = new CopyOnWriteArrayList<>();
 
     public PluginAwareMessageQueue(MessagingService<GoMessage> messaging, String queueName, int numberOfListeners, ListenerFactory<T> listenerFactory) {
         super(messaging, queueName);
 
-        IntStream.range(0, numberOfListeners).forEach(i -> jmsListeners.add(this.addListener(listenerFactory.create())));
+        IntStream.range(0, numberOfListeners).forEach(i -> listeners.add(this.addListener(listenerFactory.create())));
     }
 
     @Override
     public void stop() {
         super.stop();
-        for (JMSMessageListenerAdapter<T> jmsListener : jmsListeners) {
+        for (MessageListenerHandle listener : listeners) {
             try {
-                jmsListener.stop();
-            } catch (JMSException e) {
-                LOGGER.warn("Unable to stop listener for {} {}, ERROR: {}", queueName, jmsListener.listenerThreadName(), e.getMessage(), e);
+                listener.stop();
+            } catch (Exception e) {
+                LOGGER.warn("Unable to stop listener for {} {}, ERROR: {}", queueName, listener.listenerThreadName(), e.getMessage(), e);
             }
         }
-        jmsListeners.clear();
+        listeners.clear();
     }
 
     @TestOnly
     public int numberListeners() {
-        return jmsListeners.size();
+        return listeners.size();
     }
 }
@@ -17,6 +17,7 @@ package com.thoughtworks.go.server.messaging.activemq;
 
 import com.thoughtworks.go.server.messaging.GoMessage;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
+import com.thoughtworks.go.server.messaging.MessageListenerHandle;
 import com.thoughtworks.go.server.messaging.MessageSender;
 import com.thoughtworks.go.server.messaging.MessagingService;
 import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
@@ -32,15 +33,11 @@ import org.apache.activemq.command.ActiveMQQueue;
 import org.apache.activemq.util.BrokerSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
 
-import javax.annotation.PreDestroy;
 import java.util.List;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
-@Component
 public class ActiveMqMessagingService implements MessagingService<GoMessage> {
     private static final Logger LOG = LoggerFactory.getLogger(ActiveMqMessagingService.class);
 
@@ -52,7 +49,6 @@ public class ActiveMqMessagingService implements MessagingService<GoMessage> {
     private final SystemEnvironment systemEnvironment;
     private final ServerHealthService serverHealthService;
 
-    @Autowired
     public ActiveMqMessagingService(DaemonThreadStatsCollector daemonThreadStatsCollector, SystemEnvironment systemEnvironment, ServerHealthService serverHealthService) throws Exception {
         this.daemonThreadStatsCollector = daemonThreadStatsCollector;
         this.systemEnvironment = systemEnvironment;
@@ -87,7 +83,7 @@ public class ActiveMqMessagingService implements MessagingService<GoMessage> {
     }
 
     @Override
-    public JMSMessageListenerAdapter<GoMessage> addListener(String topic, final GoMessageListener<GoMessage> listener) {
+    public MessageListenerHandle addListener(String topic, final GoMessageListener<GoMessage> listener) {
         try {
             Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
             MessageConsumer consumer = session.createConsumer(session.createTopic(topic));
@@ -110,7 +106,7 @@ public class ActiveMqMessagingService implements MessagingService<GoMessage> {
     }
 
     @Override
-    public JMSMessageListenerAdapter<GoMessage> addQueueListener(String queueName, final GoMessageListener<GoMessage> listener) {
+    public MessageListenerHandle addQueueListener(String queueName, final GoMessageListener<GoMessage> listener) {
         try {
             Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
             MessageConsumer consumer = session.createConsumer(session.createQueue(queueName));
@@ -138,7 +134,6 @@ public class ActiveMqMessagingService implements MessagingService<GoMessage> {
         }
     }
 
-    @PreDestroy
     @Override
     public void stop() throws Exception {
         try {
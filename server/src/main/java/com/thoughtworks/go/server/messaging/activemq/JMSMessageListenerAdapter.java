@@ -17,6 +17,7 @@ package com.thoughtworks.go.server.messaging.activemq;
 
 import com.thoughtworks.go.server.messaging.GoMessage;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
+import com.thoughtworks.go.server.messaging.MessageListenerHandle;
 import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
@@ -31,7 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import static com.thoughtworks.go.serverhealth.HealthStateScope.GLOBAL;
 
-public class JMSMessageListenerAdapter<T extends GoMessage> implements Runnable {
+public class JMSMessageListenerAdapter<T extends GoMessage> implements Runnable, MessageListenerHandle {
     private static final Logger LOG = LoggerFactory.getLogger(JMSMessageListenerAdapter.class);
 
     private final MessageConsumer consumer;
@@ -64,6 +65,7 @@ public class JMSMessageListenerAdapter<T extends GoMessage> implements Runnable
         }
     }
 
+    @Override
     public void stop() throws JMSException {
         consumer.close();
     }
@@ -108,6 +110,7 @@ public class JMSMessageListenerAdapter<T extends GoMessage> implements Runnable
         return new JMSMessageListenerAdapter<>(consumer, listener, daemonThreadStatsCollector, systemEnvironment, serverHealthService);
     }
 
+    @Override
     public String listenerThreadName() {
         return thread.getName();
     }
@@ -0,0 +1,139 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.inmemory;
+
+import com.thoughtworks.go.server.messaging.GoMessage;
+import com.thoughtworks.go.server.messaging.GoMessageListener;
+import com.thoughtworks.go.server.messaging.MessageListenerHandle;
+import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
+import com.thoughtworks.go.serverhealth.HealthStateType;
+import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+
+import static com.thoughtworks.go.serverhealth.HealthStateScope.GLOBAL;
+
+/**
+ * Hands the messages in a {@link MessageBuffer} to a listener, one at a time, on a thread of its own. Like
+ * {@link com.thoughtworks.go.server.messaging.activemq.JMSMessageListenerAdapter}, errors thrown by the listener are
+ * logged and the next message is handed over, while errors taking messages from the buffer are reported as a server
+ * health error and followed by a back off, rather than retried straight away.
+ */
+class BufferedMessageListener implements Runnable, MessageListenerHandle {
+    private static final Logger LOG = LoggerFactory.getLogger(BufferedMessageListener.class);
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private final MessageBuffer buffer;
+    private final GoMessageListener<GoMessage> listener;
+    private final DaemonThreadStatsCollector daemonThreadStatsCollector;
+    private final SystemEnvironment systemEnvironment;
+    private final ServerHealthService serverHealthService;
+    private final Consumer<BufferedMessageListener> onStop;
+    private final Thread thread;
+    private volatile boolean stopped;
+
+    BufferedMessageListener(MessageBuffer buffer, GoMessageListener<GoMessage> listener, DaemonThreadStatsCollector daemonThreadStatsCollector,
+                            SystemEnvironment systemEnvironment, ServerHealthService serverHealthService, Consumer<BufferedMessageListener> onStop) {
+        this.buffer = buffer;
+        this.listener = listener;
+        this.daemonThreadStatsCollector = daemonThreadStatsCollector;
+        this.systemEnvironment = systemEnvironment;
+        this.serverHealthService = serverHealthService;
+        this.onStop = onStop;
+
+        thread = new Thread(this);
+        thread.setName(String.format("MessageListener-%s-%s", listener.getClass().getSimpleName(), thread.getName()));
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        buffer.listenerStarted();
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!stopped && !buffer.isClosed()) {
+                MessageBuffer.Envelope envelope = take();
+                if (envelope != null) {
+                    deliver(envelope);
+                }
+            }
+            LOG.debug("Message listener {} was stopped.", listenerThreadName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            buffer.listenerStopped();
+        }
+    }
+
+    private MessageBuffer.Envelope take() throws InterruptedException {
+        try {
+            return buffer.take(POLL_INTERVAL_MILLIS);
+        } catch (RuntimeException e) {
+            slowDownAndWarnAboutPossibleProblems(e);
+            return null;
+        }
+    }
+
+    private void slowDownAndWarnAboutPossibleProblems(RuntimeException e) {
+        LOG.warn("Error receiving message. Message receiving will continue despite this error. Backing off for a few seconds. This error is unexpected and should be reported to https://github.com/gocd/gocd/issues", e);
+
+        serverHealthService.update(ServerHealthState.error("Message queue closed",
+                "It looks like a message queue has been closed. This is an unrecoverable error and should be reported to https://github.com/gocd/gocd/issues",
+                HealthStateType.general(GLOBAL)));
+
+        try {
+            Thread.sleep(systemEnvironment.get(SystemEnvironment.JMS_LISTENER_BACKOFF_TIME_IN_MILLIS));
+        } catch (InterruptedException e1) {
+            LOG.error("Failed to slow down", e1);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean isListeningTo(MessageBuffer buffer) {
+        return this.buffer == buffer;
+    }
+
+    private void deliver(MessageBuffer.Envelope envelope) {
+        long start = System.nanoTime();
+        try {
+            daemonThreadStatsCollector.captureStats(thread.threadId());
+            listener.onMessage(envelope.message());
+        } catch (Exception e) {
+            LOG.error("Exception thrown in message handling by listener {}", listener, e);
+        } finally {
+            daemonThreadStatsCollector.clearStats(thread.threadId());
+            buffer.handled(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+        onStop.accept(this);
+    }
+
+    @Override
+    public String listenerThreadName() {
+        return thread.getName();
+    }
+}
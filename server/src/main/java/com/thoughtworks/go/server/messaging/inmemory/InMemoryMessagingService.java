@@ -0,0 +1,168 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.inmemory;
+
+import com.thoughtworks.go.server.messaging.*;
+import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
+import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.jetbrains.annotations.VisibleForTesting;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Moves messages between the threads of the server without going through a message broker.
+ * <p>
+ * Every queue, and every listener of a topic, has a bounded buffer of its own which listeners take messages from on
+ * their own thread, the same way they receive them from the embedded ActiveMQ broker: a message posted to a topic is
+ * delivered to each of its listeners, while a message posted to a queue is delivered to one of the listeners of the
+ * queue. A sender waits for space when a buffer is full, much like ActiveMQ's producer flow control.
+ */
+public class InMemoryMessagingService implements MessagingService<GoMessage> {
+    private final DaemonThreadStatsCollector daemonThreadStatsCollector;
+    private final SystemEnvironment systemEnvironment;
+    private final ServerHealthService serverHealthService;
+    private final int bufferSize;
+    private final ConcurrentMap<String, List<MessageBuffer>> topics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, MessageBuffer> queues = new ConcurrentHashMap<>();
+    private final List<BufferedMessageListener> listeners = new CopyOnWriteArrayList<>();
+
+    public InMemoryMessagingService(DaemonThreadStatsCollector daemonThreadStatsCollector, SystemEnvironment systemEnvironment, ServerHealthService serverHealthService) {
+        this.daemonThreadStatsCollector = daemonThreadStatsCollector;
+        this.systemEnvironment = systemEnvironment;
+        this.serverHealthService = serverHealthService;
+        this.bufferSize = systemEnvironment.get(SystemEnvironment.IN_MEMORY_MESSAGING_BUFFER_SIZE);
+    }
+
+    @Override
+    public MessageSender createSender(String topic) {
+        List<MessageBuffer> subscriptions = subscriptionsTo(topic);
+        return new MessageSender() {
+            @Override
+            public void sendMessage(GoMessage goMessage) {
+                sendMessage(goMessage, 0);
+            }
+
+            @Override
+            public void sendMessage(GoMessage goMessage, long timeToLive) {
+                for (MessageBuffer subscription : subscriptions) {
+                    subscription.put(goMessage, timeToLive);
+                }
+            }
+        };
+    }
+
+    @Override
+    public MessageListenerHandle addListener(String topic, GoMessageListener<GoMessage> listener) {
+        List<MessageBuffer> subscriptions = subscriptionsTo(topic);
+        MessageBuffer subscription = new MessageBuffer(topic + "/" + listener.getClass().getSimpleName(), bufferSize);
+        subscriptions.add(subscription);
+        return start(subscription, listener, () -> {
+            subscriptions.remove(subscription);
+            subscription.close();
+        });
+    }
+
+    @Override
+    public MessageSender createQueueSender(String queueName) {
+        // the queue is looked up on every send, as it is created again after being removed
+        return new MessageSender() {
+            @Override
+            public void sendMessage(GoMessage goMessage) {
+                sendMessage(goMessage, 0);
+            }
+
+            @Override
+            public void sendMessage(GoMessage goMessage, long timeToLive) {
+                queue(queueName).put(goMessage, timeToLive);
+            }
+        };
+    }
+
+    @Override
+    public MessageListenerHandle addQueueListener(String queueName, GoMessageListener<GoMessage> listener) {
+        return start(queue(queueName), listener, () -> {});
+    }
+
+    @Override
+    public void removeQueue(String queueName) {
+        MessageBuffer queue = queues.remove(queueName);
+        if (queue != null) {
+            listeners.stream().filter(listener -> listener.isListeningTo(queue)).forEach(BufferedMessageListener::stop);
+            queue.close();
+        }
+    }
+
+    @Override
+    public void stop() {
+        listeners.forEach(BufferedMessageListener::stop);
+        queues.values().forEach(MessageBuffer::close);
+        queues.clear();
+        topics.values().forEach(subscriptions -> subscriptions.forEach(MessageBuffer::close));
+        topics.clear();
+    }
+
+    /**
+     * @return the depth of every buffer, and how long messages waited in it and took to be handled
+     */
+    public Map<String, Object> statistics() {
+        Map<String, Object> queueStatistics = new TreeMap<>();
+        queues.forEach((name, queue) -> queueStatistics.put(name, queue.statistics()));
+
+        Map<String, Object> topicStatistics = new TreeMap<>();
+        topics.forEach((name, subscriptions) -> {
+            List<Map<String, Object>> subscriptionStatistics = new ArrayList<>();
+            for (MessageBuffer subscription : subscriptions) {
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("Subscription", subscription.name());
+                json.putAll(subscription.statistics());
+                subscriptionStatistics.add(json);
+            }
+            topicStatistics.put(name, subscriptionStatistics);
+        });
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Queues", queueStatistics);
+        json.put("Topics", topicStatistics);
+        return json;
+    }
+
+    @VisibleForTesting
+    int activeListeners() {
+        return listeners.size();
+    }
+
+    private List<MessageBuffer> subscriptionsTo(String topic) {
+        return topics.computeIfAbsent(topic, name -> new CopyOnWriteArrayList<>());
+    }
+
+    private MessageBuffer queue(String queueName) {
+        return queues.computeIfAbsent(queueName, name -> new MessageBuffer(name, bufferSize));
+    }
+
+    private MessageListenerHandle start(MessageBuffer buffer, GoMessageListener<GoMessage> listener, Runnable onStop) {
+        BufferedMessageListener messageListener = new BufferedMessageListener(buffer, listener, daemonThreadStatsCollector, systemEnvironment, serverHealthService, stopped -> {
+            listeners.remove(stopped);
+            onStop.run();
+        });
+        listeners.add(messageListener);
+        messageListener.start();
+        return messageListener;
+    }
+}
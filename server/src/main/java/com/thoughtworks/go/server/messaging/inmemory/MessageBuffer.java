@@ -0,0 +1,147 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.inmemory;
+
+import com.thoughtworks.go.server.messaging.GoMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.thoughtworks.go.util.ExceptionUtils.bomb;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A bounded buffer of messages waiting to be taken by the listeners of a queue, or by a single listener of a topic,
+ * along with how deep it is and how long messages spend in it.
+ */
+class MessageBuffer {
+    private static final Logger LOG = LoggerFactory.getLogger(MessageBuffer.class);
+
+    private final String name;
+    private final BlockingQueue<Envelope> messages;
+    private final AtomicInteger listeners = new AtomicInteger();
+    private final LongAdder posted = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder totalHandlingNanos = new LongAdder();
+    private final AtomicLong maxHandlingNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    MessageBuffer(String name, int capacity) {
+        this.name = name;
+        this.messages = new ArrayBlockingQueue<>(capacity);
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * Adds a message to the buffer, waiting for the listeners to make space for it if the buffer is full. Messages
+     * added to a closed buffer are dropped.
+     *
+     * @param timeToLive how many milliseconds the message is worth delivering for, or 0 if it never expires
+     */
+    void put(GoMessage message, long timeToLive) {
+        Envelope envelope = new Envelope(message, System.nanoTime(), timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE);
+        try {
+            if (!messages.offer(envelope)) {
+                LOG.warn("Message buffer [{}] is full, waiting for its listeners to catch up.", name);
+                while (!messages.offer(envelope, 1, SECONDS)) {
+                    if (closed) {
+                        return;
+                    }
+                }
+            }
+            posted.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw bomb(e);
+        }
+    }
+
+    /**
+     * @return the oldest message which has not expired, or null if there was none within the timeout
+     */
+    Envelope take(long timeoutMillis) throws InterruptedException {
+        Envelope envelope;
+        while ((envelope = messages.poll(timeoutMillis, MILLISECONDS)) != null && envelope.hasExpired()) {
+            expired.increment();
+        }
+        if (envelope != null) {
+            long waitNanos = System.nanoTime() - envelope.postedAtNanos();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        }
+        return envelope;
+    }
+
+    void handled(long handlingNanos) {
+        delivered.increment();
+        totalHandlingNanos.add(handlingNanos);
+        maxHandlingNanos.accumulateAndGet(handlingNanos, Math::max);
+    }
+
+    void listenerStarted() {
+        listeners.incrementAndGet();
+    }
+
+    void listenerStopped() {
+        listeners.decrementAndGet();
+    }
+
+    void close() {
+        closed = true;
+        messages.clear();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    Map<String, Object> statistics() {
+        long deliveredCount = delivered.sum();
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("Depth", messages.size());
+        json.put("Capacity", messages.size() + messages.remainingCapacity());
+        json.put("Listeners", listeners.get());
+        json.put("Posted", posted.sum());
+        json.put("Delivered", deliveredCount);
+        json.put("Expired", expired.sum());
+        json.put("AverageWait(ms)", deliveredCount == 0 ? 0 : NANOSECONDS.toMillis(totalWaitNanos.sum() / deliveredCount));
+        json.put("MaxWait(ms)", NANOSECONDS.toMillis(maxWaitNanos.get()));
+        json.put("AverageHandling(ms)", deliveredCount == 0 ? 0 : NANOSECONDS.toMillis(totalHandlingNanos.sum() / deliveredCount));
+        json.put("MaxHandling(ms)", NANOSECONDS.toMillis(maxHandlingNanos.get()));
+        return json;
+    }
+
+    record Envelope(GoMessage message, long postedAtNanos, long expiresAtMillis) {
+        boolean hasExpired() {
+            return System.currentTimeMillis() > expiresAtMillis;
+        }
+    }
+}
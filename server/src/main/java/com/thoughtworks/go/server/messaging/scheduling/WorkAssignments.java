@@ -21,24 +21,38 @@ import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.messaging.GoMessageChannel;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import com.thoughtworks.go.server.service.BuildAssignmentService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 @Service
 public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
     private GoMessageChannel<IdleAgentMessage> idleAgentsTopic;
     private ConcurrentMap<AgentIdentifier, Work> assignments;
+    private final ConcurrentMap<AgentIdentifier, AgentRuntimeInfo> waitingAgents = new ConcurrentHashMap<>();
+    private final Semaphore waitingSlots;
+    private final long maxWaitMillis;
     private static final NoWork NO_WORK = new NoWork();
 
     @Autowired
     public WorkAssignments(IdleAgentTopic idleAgentsTopic,
-                           WorkAssignedTopic assignedWorkTopic) {
+                           WorkAssignedTopic assignedWorkTopic,
+                           BuildAssignmentService buildAssignmentService,
+                           SystemEnvironment systemEnvironment) {
         this.idleAgentsTopic = idleAgentsTopic;
         assignedWorkTopic.addListener(this);
+        buildAssignmentService.registerNewJobsListener(this::workMayBeAvailable);
         this.assignments = new ConcurrentHashMap<>();
+        this.waitingSlots = new Semaphore(systemEnvironment.get(SystemEnvironment.GET_WORK_MAX_WAITING_AGENTS));
+        this.maxWaitMillis = systemEnvironment.get(SystemEnvironment.GET_WORK_MAX_WAIT_IN_MILLIS);
     }
 
     public Work getWork(AgentRuntimeInfo runtimeInfo) {
@@ -59,6 +73,65 @@ public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
         }
     }
 
+    /**
+     * Like {@link #getWork(AgentRuntimeInfo)}, but holds on to the request until work is assigned to the agent, or
+     * the wait (capped at {@link SystemEnvironment#GET_WORK_MAX_WAIT_IN_MILLIS}) has elapsed. While the agent waits,
+     * it is offered work again whenever new jobs are scheduled.
+     *
+     * @return the work assigned to the agent, {@link NoWork} if there was none by the end of the wait, or null if too
+     * many agents are already waiting and the agent should be answered with {@link #getWork(AgentRuntimeInfo)}
+     */
+    public Work awaitWork(AgentRuntimeInfo runtimeInfo, long waitMillis) {
+        if (!waitingSlots.tryAcquire()) {
+            return null;
+        }
+        try {
+            AgentIdentifier agent = runtimeInfo.getIdentifier();
+            long deadline = System.nanoTime() + MILLISECONDS.toNanos(Math.min(waitMillis, maxWaitMillis));
+            Object mutex = agentMutex(agent);
+            synchronized (mutex) {
+                waitingAgents.put(agent, runtimeInfo);
+                try {
+                    Work work = getWork(runtimeInfo);
+                    long remaining;
+                    while (work instanceof NoWork && (remaining = deadline - System.nanoTime()) > 0) {
+                        NANOSECONDS.timedWait(mutex, remaining);
+                        work = takeAssignedWork(agent);
+                    }
+                    return work;
+                } finally {
+                    waitingAgents.remove(agent);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return NO_WORK;
+        } finally {
+            waitingSlots.release();
+        }
+    }
+
+    private Work takeAssignedWork(AgentIdentifier agent) {
+        Work work = assignments.get(agent);
+        if (work == null || work instanceof NoWork) {
+            return NO_WORK;
+        }
+        return assignments.remove(agent);
+    }
+
+    /**
+     * Offers work again to the waiting agents which were last found to have nothing to do.
+     */
+    void workMayBeAvailable() {
+        waitingAgents.forEach((agent, runtimeInfo) -> {
+            synchronized (agentMutex(agent)) {
+                if (assignments.putIfAbsent(agent, NO_WORK) == null) {
+                    idleAgentsTopic.post(new IdleAgentMessage(runtimeInfo));
+                }
+            }
+        });
+    }
+
     private String agentMutex(AgentIdentifier agent) {
         return agent.getUuid().intern();
     }
@@ -67,14 +140,14 @@ public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
     public void onMessage(WorkAssignedMessage message) {
         AgentIdentifier agentIdentifier = message.getAgent();
         Work work = message.getWork();
-        if (work instanceof NoWork) {
-            synchronized (agentMutex(agentIdentifier)) {
+        Object mutex = agentMutex(agentIdentifier);
+        synchronized (mutex) {
+            if (work instanceof NoWork) {
                 assignments.remove(agentIdentifier);
-            }
-        } else {
-            synchronized (agentMutex(agentIdentifier)) {
+            } else {
                 assignments.replace(agentIdentifier, NO_WORK, work);
             }
+            mutex.notifyAll();
         }
     }
 
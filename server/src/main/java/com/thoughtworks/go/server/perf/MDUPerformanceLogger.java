@@ -20,12 +20,16 @@ import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class MDUPerformanceLogger {
     private final Logger performanceLogger;
     private final AtomicLong currentTrackingId = new AtomicLong(0);
+    private final ConcurrentMap<Long, Long> updateStartTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> lastUpdateDurations = new ConcurrentHashMap<>();
 
     @Autowired
     public MDUPerformanceLogger(PerformanceLogger performanceLogger) {
@@ -41,18 +45,24 @@ public class MDUPerformanceLogger {
     }
 
     public void pickedUpMaterialForMDU(long trackingId, Material material) {
+        updateStartTimes.put(trackingId, System.currentTimeMillis());
         if (performanceLogger.isDebugEnabled()) {
             performanceLogger.debug("MDU-START {} {} {}", trackingId, material.getFingerprint(), material.getDisplayName());
         }
     }
 
     public void postingMessageAboutMDUCompletion(long trackingId, Material material) {
+        Long startTime = updateStartTimes.remove(trackingId);
+        if (startTime != null) {
+            lastUpdateDurations.put(material.getFingerprint(), System.currentTimeMillis() - startTime);
+        }
         if (performanceLogger.isDebugEnabled()) {
             performanceLogger.debug("MDU-DONE {} {} {}", trackingId, material.getFingerprint(), material.getDisplayName());
         }
     }
 
     public void postingMessageAboutMDUFailure(long trackingId, Material material) {
+        updateStartTimes.remove(trackingId);
         if (performanceLogger.isDebugEnabled()) {
             performanceLogger.debug("MDU-FAIL {} {} {}", trackingId, material.getFingerprint(), material.getDisplayName());
         }
@@ -64,4 +74,11 @@ public class MDUPerformanceLogger {
         }
     }
 
+    /**
+     * @return how long the last successful update of the material took, or null if it has not been updated since the
+     * server started
+     */
+    public Long lastUpdateDurationMillis(Material material) {
+        return lastUpdateDurations.get(material.getFingerprint());
+    }
 }
@@ -27,6 +27,7 @@ import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.dao.FeedModifier;
 import com.thoughtworks.go.server.database.Database;
 import com.thoughtworks.go.server.database.QueryExtensions;
+import com.thoughtworks.go.server.database.RevisionSearchQuery;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
 import com.thoughtworks.go.server.service.MaterialExpansionService;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
@@ -53,6 +54,13 @@ import org.springframework.transaction.support.TransactionSynchronizationAdapter
 
 import java.io.File;
 import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -71,6 +79,8 @@ public class MaterialRepository extends HibernateDaoSupport {
     private static final Logger LOGGER = LoggerFactory.getLogger(MaterialRepository.class.getName());
     private static final int BATCH_SIZE_NUM_PIPELINES_TO_GET_PIPELINE_MATERIAL_REVISIONS = 500;
     private static final int BATCH_SIZE_NUM_PIPELINE_MATERIAL_REVISION_To_GET_MODIFICATIONS = 100;
+    private static final String INSERT_MODIFICATION_SQL = "INSERT INTO modifications (revision, comment, emailAddress, modifiedTime, userName, pipelineLabel, pipelineId, additionalData, materialId) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_MODIFIED_FILE_SQL = "INSERT INTO modifiedFiles (action, fileName, folderName, modificationId) VALUES (?, ?, ?, ?)";
 
     private final GoCache goCache;
     private final TransactionSynchronizationManager transactionSynchronizationManager;
@@ -751,9 +761,16 @@ public class MaterialRepository extends HibernateDaoSupport {
         }
 
         try {
-            checkAndRemoveDuplicates(materialInstance, newChanges, list);
-            for (Modification modification : list) {
-                getHibernateTemplate().saveOrUpdate(modification);
+            int batchSize = new SystemEnvironment().get(SystemEnvironment.MODIFICATIONS_INSERT_BATCH_SIZE);
+            for (List<Modification> chunk : ListUtils.partition(list, Math.max(batchSize, 1))) {
+                List<Modification> toSave = withoutDuplicates(materialInstance, chunk);
+                if (batchSize > 0) {
+                    insertInBatches(toSave, batchSize);
+                } else {
+                    for (Modification modification : toSave) {
+                        getHibernateTemplate().saveOrUpdate(modification);
+                    }
+                }
             }
         } catch (Exception e) {
             String message = "Cannot save modification: ";
@@ -765,35 +782,113 @@ public class MaterialRepository extends HibernateDaoSupport {
         removeCachedModificationsFor(materialInstance);
     }
 
-    private void checkAndRemoveDuplicates(MaterialInstance materialInstance,
-                                          List<Modification> newChanges,
-                                          List<Modification> list) {
+    private List<Modification> withoutDuplicates(MaterialInstance materialInstance, List<Modification> modifications) {
         if (!new SystemEnvironment().get(SystemEnvironment.CHECK_AND_REMOVE_DUPLICATE_MODIFICATIONS)) {
-            return;
+            return modifications;
         }
         DetachedCriteria criteria = DetachedCriteria.forClass(Modification.class);
         criteria.setProjection(Projections.projectionList().add(Projections.property("revision")));
         criteria.add(Restrictions.eq("materialInstance.id", materialInstance.getId()));
         List<String> revisions = new ArrayList<>();
-        for (Modification modification : newChanges) {
+        for (Modification modification : modifications) {
             revisions.add(modification.getRevision());
         }
         criteria.add(Restrictions.in("revision", revisions));
         @SuppressWarnings("unchecked") List<String> matchingRevisionsFromDb = (List<String>) getHibernateTemplate().findByCriteria(criteria);
-        if (!matchingRevisionsFromDb.isEmpty()) {
-            for (final String revision : matchingRevisionsFromDb) {
-                Modification modification = list.stream().filter(item -> item.getRevision().equals(revision)).findFirst().orElse(null);
-                list.remove(modification);
-            }
+        if (matchingRevisionsFromDb.isEmpty()) {
+            return modifications;
         }
-        if (!newChanges.isEmpty() && list.isEmpty()) {
+
+        Set<String> duplicates = new HashSet<>(matchingRevisionsFromDb);
+        List<Modification> remaining = modifications.stream().filter(modification -> !duplicates.contains(modification.getRevision())).toList();
+        if (remaining.isEmpty()) {
             LOGGER.debug("All modifications already exist in db [{}]", revisions);
         }
-        if (!matchingRevisionsFromDb.isEmpty()) {
-            LOGGER.info("Saving revisions for material [{}] after removing the following duplicates {}",
-                materialInstance.toOldMaterial(null, null, null).getLongDescription(), matchingRevisionsFromDb);
+        LOGGER.info("Saving revisions for material [{}] after removing the following duplicates {}",
+            materialInstance.toOldMaterial(null, null, null).getLongDescription(), matchingRevisionsFromDb);
+        return remaining;
+    }
+
+    /**
+     * Inserts new modifications and their files using JDBC batches on the connection of the current session, rather
+     * than one statement per entity as Hibernate does for identity generated ids. The generated ids are set back on the
+     * modifications and files, just as saving them through Hibernate would.
+     */
+    private void insertInBatches(List<Modification> modifications, int batchSize) {
+        List<Modification> unsaved = new ArrayList<>();
+        for (Modification modification : modifications) {
+            if (modification.hasId()) {
+                getHibernateTemplate().saveOrUpdate(modification);
+            } else {
+                unsaved.add(modification);
+            }
+        }
+        if (unsaved.isEmpty()) {
+            return;
+        }
+
+        getHibernateTemplate().execute(session -> {
+            session.flush();
+            session.doWork(connection -> {
+                insertModifications(connection, unsaved);
+                insertModifiedFiles(connection, unsaved, batchSize);
+            });
+            return null;
+        });
+    }
+
+    private void insertModifications(Connection connection, List<Modification> modifications) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_MODIFICATION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (Modification modification : modifications) {
+                statement.setString(1, modification.getRevision());
+                statement.setString(2, modification.getComment());
+                statement.setString(3, modification.getEmailAddress());
+                statement.setTimestamp(4, modification.getModifiedTime() == null ? null : new Timestamp(modification.getModifiedTime().getTime()));
+                statement.setString(5, modification.getUserName());
+                statement.setString(6, modification.getPipelineLabel());
+                statement.setObject(7, modification.getPipelineId(), Types.BIGINT);
+                statement.setString(8, modification.getAdditionalData());
+                statement.setLong(9, modification.getMaterialInstance().getId());
+                statement.addBatch();
+            }
+            executeBatchAndSetIds(statement, modifications);
+        }
+    }
+
+    private void insertModifiedFiles(Connection connection, List<Modification> modifications, int batchSize) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_MODIFIED_FILE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            List<ModifiedFile> batch = new ArrayList<>();
+            for (Modification modification : modifications) {
+                for (ModifiedFile file : modification.getModifiedFiles()) {
+                    file.setModificationId(modification.getId());
+                    statement.setString(1, file.getAction() == null ? null : file.getAction().name());
+                    statement.setString(2, file.getFileName());
+                    statement.setString(3, file.getFolderName());
+                    statement.setLong(4, modification.getId());
+                    statement.addBatch();
+                    batch.add(file);
+                    if (batch.size() == batchSize) {
+                        executeBatchAndSetIds(statement, batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                executeBatchAndSetIds(statement, batch);
+            }
         }
+    }
 
+    private static void executeBatchAndSetIds(PreparedStatement statement, List<? extends PersistentObject> inserted) throws SQLException {
+        statement.executeBatch();
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            for (PersistentObject object : inserted) {
+                if (!generatedKeys.next()) {
+                    throw new SQLException("Expected a generated id for each of the " + inserted.size() + " rows inserted in the batch");
+                }
+                object.setId(generatedKeys.getLong(1));
+            }
+        }
     }
 
     public Modification findModificationWithRevision(@NotNull Material material, final String revision) {
@@ -884,20 +979,12 @@ public class MaterialRepository extends HibernateDaoSupport {
     @SuppressWarnings("unchecked")
     public List<MatchedRevision> findRevisionsMatching(final MaterialConfig materialConfig, final String searchString) {
         return getHibernateTemplate().execute(session -> {
-            String sql = """
-                SELECT m.* \
-                FROM modifications AS m \
-                    INNER JOIN materials mat ON mat.id = m.materialId \
-                WHERE mat.fingerprint = :finger_print \
-                    AND (m.revision || ' ' || COALESCE(m.username, '') || ' ' || COALESCE(m.comment, '') LIKE :search_string OR m.pipelineLabel LIKE :search_string) \
-                ORDER BY m.id DESC \
-                LIMIT 5 \
-                """;
-            SQLQuery query = session.createSQLQuery(sql);
+            RevisionSearchQuery search = queryExtensions.queryRevisionsMatching(searchString);
+            SQLQuery query = session.createSQLQuery(search.sql());
             query.addEntity("m", Modification.class);
             Material material = materialConfigConverter.toMaterial(materialConfig);
             query.setString("finger_print", material.getFingerprint());
-            query.setString("search_string", "%" + searchString + "%");
+            search.parameters().forEach(query::setString);
             final List<MatchedRevision> list = new ArrayList<>();
             for (Modification mod : (List<Modification>) query.list()) {
                 list.add(material.createMatchedRevision(mod, searchString));
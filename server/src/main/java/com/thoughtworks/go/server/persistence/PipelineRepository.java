@@ -119,24 +119,22 @@ public class PipelineRepository extends HibernateDaoSupport {
 
             private List<PipelineTimelineEntry> populateFrom(List<Object[]> matches) {
                 List<PipelineTimelineEntry> newPipelines = new ArrayList<>();
-                if (matches.isEmpty()) {
-                    return newPipelines;
-                }
-
-                BigInteger lastId = null;
-                PipelineTimelineEntry lastEntry = null;
-
-                for (Object[] row : matches) {
-                    BigInteger id = id(row);
-
-                    // New row
-                    if (!id.equals(lastId)) {
-                        lastId = id;
-                        lastEntry = new PipelineTimelineEntry(pipelineName(row), lastId.longValue(), counter(row), new HashMap<>(), naturalOrder(row));
-                        newPipelines.add(lastEntry);
+                int start = 0;
+                while (start < matches.size()) {
+                    Object[] first = matches.get(start);
+                    BigInteger id = id(first);
+                    int end = start + 1;
+                    while (end < matches.size() && id.equals(id(matches.get(end)))) {
+                        end++;
                     }
 
-                    lastEntry.addRevision(fingerprint(row), rev(row));
+                    // sized for the rows of this pipeline, and sharing the names of pipelines and materials, as the timeline holds every pipeline ever run
+                    PipelineTimelineEntry entry = new PipelineTimelineEntry(pipelineName(first).intern(), id.longValue(), counter(first), HashMap.newHashMap(end - start), naturalOrder(first));
+                    for (int i = start; i < end; i++) {
+                        entry.addRevision(fingerprint(matches.get(i)).intern(), rev(matches.get(i)));
+                    }
+                    newPipelines.add(entry);
+                    start = end;
                 }
                 return newPipelines;
             }
@@ -183,6 +181,16 @@ public class PipelineRepository extends HibernateDaoSupport {
         });
     }
 
+    public boolean hasPipelineInstance(final long id, final String pipelineName, final int counter) {
+        return getHibernateTemplate().execute(session -> {
+            SQLQuery query = session.createSQLQuery("SELECT COUNT(*) FROM pipelines WHERE id = :id AND name = :name AND counter = :counter");
+            query.setLong("id", id);
+            query.setString("name", pipelineName);
+            query.setInteger("counter", counter);
+            return ((Number) query.uniqueResult()).longValue() > 0;
+        });
+    }
+
     private void addEntriesToPipelineTimeline(List<PipelineTimelineEntry> newEntries, PipelineTimeline pipelineTimeline, List<PipelineTimelineEntry> tempEntriesForRollback) {
         for (PipelineTimelineEntry newEntry : newEntries) {
             tempEntriesForRollback.add(newEntry);
@@ -32,6 +32,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 import java.util.zip.ZipInputStream;
 
 import static java.lang.String.format;
@@ -96,6 +103,80 @@ public class ArtifactsService implements ArtifactUrlReader {
         }
     }
 
+    /**
+     * Extracts a zip streamed by an agent into the given destination, verifying the checksums the agent sent along as
+     * the {@link GoConstants#ZIP_STREAM_CHECKSUM_ENTRY} entry against the files as they are written. The checksums must
+     * be sent, and must list exactly the files in the zip. The zip is extracted next to the destination first, and its
+     * files are only moved into the destination once all of them have matched their checksums.
+     *
+     * @param destPath the path the artifact was uploaded to, relative to the artifacts of the job
+     * @return the checksums of the extracted files, as listed in the checksum file of the job, or null if the zip could
+     * not be saved or did not match its checksums
+     */
+    public Properties saveStreamedZip(File dest, String destPath, InputStream stream, int attempt) {
+        String destAbsolutePath = dest.getAbsolutePath();
+        File staging = null;
+        try {
+            LOGGER.trace("Saving streamed zip to [{}]", destAbsolutePath);
+            Path parent = dest.getAbsoluteFile().toPath().getParent();
+            Files.createDirectories(parent);
+            staging = Files.createTempDirectory(parent, "." + dest.getName() + "-").toFile();
+            Properties expected = new Properties();
+            AtomicBoolean checksumsSent = new AtomicBoolean();
+            Map<String, String> actual = zipUtil.unzipWithChecksums(new ZipInputStream(new BufferedInputStream(stream)), staging,
+                GoConstants.ZIP_STREAM_CHECKSUM_ENTRY, (entry, in) -> {
+                    expected.load(in);
+                    checksumsSent.set(true);
+                });
+            if (!checksumsSent.get()) {
+                LOGGER.error("Streamed zip saved to [{}] did not contain the checksums of its files.", destAbsolutePath);
+                return null;
+            }
+
+            Properties checksums = new Properties();
+            actual.forEach((entryName, md5) -> checksums.setProperty(ArtifactUtil.checksumPath(destPath, entryName), md5));
+            if (!expected.stringPropertyNames().equals(checksums.stringPropertyNames())) {
+                LOGGER.error("Files saved to [{}] do not match the files the agent sent checksums for.", destAbsolutePath);
+                return null;
+            }
+            for (String path : checksums.stringPropertyNames()) {
+                if (!expected.getProperty(path).equals(checksums.getProperty(path))) {
+                    LOGGER.error("Checksum of [{}] saved to [{}] does not match the checksum sent by the agent.", path, destAbsolutePath);
+                    return null;
+                }
+            }
+            moveInto(staging.toPath(), dest.toPath());
+            LOGGER.trace("Streamed zip saved to [{}].", destAbsolutePath);
+            return checksums;
+        } catch (IOException e) {
+            final String message = format("Failed to save the file to: [%s]", destAbsolutePath);
+            if (attempt < GoConstants.PUBLISH_MAX_RETRIES) {
+                LOGGER.warn(message, e);
+            } else {
+                LOGGER.error(message, e);
+            }
+            return null;
+        } catch (IllegalPathException e) {
+            LOGGER.error(format("Failed to save the file to: [%s]", destAbsolutePath), e);
+            return null;
+        } finally {
+            FileUtils.deleteQuietly(staging);
+        }
+    }
+
+    private static void moveInto(Path from, Path to) throws IOException {
+        try (Stream<Path> paths = Files.walk(from)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path target = to.resolve(from.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.move(path, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
     public boolean saveOrAppendFile(File dest, InputStream stream) {
         String destPath = dest.getAbsolutePath();
         try {
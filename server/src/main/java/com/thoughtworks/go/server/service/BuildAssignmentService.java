@@ -27,6 +27,7 @@ import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.plugin.access.exceptions.SecretResolutionFailureException;
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.work.*;
+import com.thoughtworks.go.server.domain.JobStatusListener;
 import com.thoughtworks.go.server.exceptions.RulesViolationException;
 import com.thoughtworks.go.server.materials.StaleMaterialsOnBuildCause;
 import com.thoughtworks.go.server.messaging.JobStatusMessage;
@@ -41,10 +42,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 
 import static com.thoughtworks.go.util.command.EnvironmentVariableContext.GO_ENVIRONMENT_NAME;
 import static java.lang.String.format;
@@ -54,6 +53,18 @@ import static java.util.stream.StreamSupport.stream;
 
 /**
  * Understands how to assign work to agents
+ * <p>
+ * Agents look for work concurrently. Matching scans a snapshot of the scheduled job plans without holding the service
+ * monitor, and a matching job is claimed atomically (see {@link #claim(JobPlan)}) so that it is handed to exactly one
+ * agent. Only replacing or pruning the job plans synchronizes on the service.
+ * <p>
+ * Agents do not scan every scheduled job. Each reload indexes the job plans by environment and by what they require
+ * of an agent (see {@link ScheduledJobIndex}), and an agent only looks at the jobs it is able to run.
+ * <p>
+ * The scheduled jobs are kept up to date incrementally. Job status changes add newly scheduled jobs and drop jobs
+ * which are no longer scheduled as soon as they are committed. The timer only compares the ids of the scheduled jobs
+ * with the ones already known, and only loads the plans of jobs it has not seen. All the plans are reloaded every
+ * {@link SystemEnvironment#JOB_PLANS_FULL_RELOAD_INTERVAL_IN_MILLIS} as a safety net.
  */
 @Service
 public class BuildAssignmentService implements ConfigChangedListener {
@@ -79,7 +90,22 @@ public class BuildAssignmentService implements ConfigChangedListener {
     private final JobStatusTopic jobStatusTopic;
     private final ConsoleService consoleService;
 
-    private List<JobPlan> jobPlans = new ArrayList<>();
+    private volatile List<JobPlan> jobPlans = new CopyOnWriteArrayList<>();
+    private volatile ScheduledJobIndex jobIndex = new ScheduledJobIndex(List.of(), pipelineName -> null);
+    /**
+     * Ids of jobs which have been claimed by an agent, mapped to whether the assignment has since finished. Entries are
+     * kept until a reload which started after the assignment finished, so that a reload can never bring back a job
+     * whose assignment it might not have seen in the database.
+     */
+    private final ConcurrentMap<Long, Boolean> claimedJobs = new ConcurrentHashMap<>();
+    private final Queue<JobInstance> jobStatusChanges = new ConcurrentLinkedQueue<>();
+    private final ExecutorService jobStatusChangeApplier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-plan-updater");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Runnable> newJobsListeners = new CopyOnWriteArrayList<>();
+    private long lastFullReload;
 
     @Autowired
     public BuildAssignmentService(GoConfigService goConfigService, JobInstanceService jobInstanceService,
@@ -110,6 +136,22 @@ public class BuildAssignmentService implements ConfigChangedListener {
     public void initialize() {
         goConfigService.register(this);
         goConfigService.register(pipelineConfigChangedListener());
+        jobInstanceService.registerJobStateChangeListener(jobStatusListener());
+    }
+
+    /**
+     * Registers a listener to be told when jobs which were not scheduled before can be assigned, so that agents waiting
+     * for work can be offered them.
+     */
+    public void registerNewJobsListener(Runnable listener) {
+        newJobsListeners.add(listener);
+    }
+
+    protected JobStatusListener jobStatusListener() {
+        return job -> {
+            jobStatusChanges.add(job);
+            jobStatusChangeApplier.execute(this::applyJobStatusChanges);
+        };
     }
 
 
@@ -172,15 +214,11 @@ public class BuildAssignmentService implements ConfigChangedListener {
             return new DeniedAgentWork(agent.getUuid());
         }
 
-        synchronized (this) {
-//          check to ensure agent is not disabled after entering the synchronized block
-            if (agent.isDisabled()) {
-                return new DeniedAgentWork(agent.getUuid());
-            }
-            //check if agent already has assigned build, if so, reschedule it
-            scheduleService.rescheduleAbandonedBuildIfNecessary(agent.getAgentIdentifier());
-            final JobPlan job = findMatchingJob(agent);
-            if (job != null) {
+        //check if agent already has assigned build, if so, reschedule it
+        scheduleService.rescheduleAbandonedBuildIfNecessary(agent.getAgentIdentifier());
+        final JobPlan job = findMatchingJob(agent);
+        if (job != null) {
+            try {
                 Work buildWork = createWork(agent, job);
                 AgentBuildingInfo buildingInfo = new AgentBuildingInfo(job.getIdentifier().buildLocatorForDisplay(), job.getIdentifier().buildLocator());
                 agentService.building(agent.getUuid(), buildingInfo);
@@ -188,6 +226,8 @@ public class BuildAssignmentService implements ConfigChangedListener {
                     LOGGER.info("[Agent Assignment] Assigned job [{}] to agent [{}]", job.getIdentifier(), agent.getAgent().getAgentIdentifier());
                 }
                 return buildWork;
+            } finally {
+                assignmentFinished(job);
             }
         }
         return NO_WORK;
@@ -195,34 +235,65 @@ public class BuildAssignmentService implements ConfigChangedListener {
 
     @VisibleForTesting
     JobPlan findMatchingJob(AgentInstance agent) {
-        List<JobPlan> filteredJobPlans = environmentConfigService.filterJobsByAgent(jobPlans, agent.getUuid());
-        JobPlan match = null;
+        Set<String> agentEnvironments = ScheduledJobIndex.environmentKeys(environmentConfigService.getAgentEnvironmentNames(agent.getUuid()));
         if (!agent.isElastic()) {
-            match = agent.firstMatching(filteredJobPlans);
-        } else {
-            for (JobPlan jobPlan : filteredJobPlans) {
-                try {
-                    if (jobPlan.requiresElasticAgent() && elasticAgentPluginService.shouldAssignWork(agent.elasticAgentMetadata(), environmentConfigService.envForPipeline(jobPlan.getPipelineName()), jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier())) {
-                        match = jobPlan;
-                        break;
-                    }
-                } catch (RulesViolationException | SecretResolutionFailureException e) {
-                    JobInstance instance = jobInstanceService.buildById(jobPlan.getJobId());
-                    JobIdentifier jobIdentifier = jobPlan.getIdentifier();
-                    String failureMessage = format("""
-                        
-                        This job was failed by GoCD. This job is configured to run on an elastic agent, there were errors while resolving secrets for the the associated elastic configurations.
-                        Reasons: %s""", e.getMessage());
-                    consoleService.appendToConsoleLogSafe(jobIdentifier, failureMessage);
-                    scheduleService.failJob(instance);
-                    jobStatusTopic.post(new JobStatusMessage(jobIdentifier, instance.getState(), agent.getUuid()));
-                }
-            }
+            return jobIndex.firstMatching(agent.getUuid(), agent.getResourceNames(), agentEnvironments,
+                jobPlan -> canRunIn(jobPlan, agentEnvironments) && claimFor(agent, jobPlan));
+        }
+        return jobIndex.firstElasticMatching(agentEnvironments,
+            jobPlan -> canRunIn(jobPlan, agentEnvironments) && assignToElasticAgent(agent, jobPlan));
+    }
+
+    /**
+     * The index is only rebuilt on reloads and config changes, so the environment of the pipeline is checked again
+     * before a job is handed out.
+     */
+    private boolean canRunIn(JobPlan jobPlan, Set<String> agentEnvironments) {
+        return agentEnvironments.contains(ScheduledJobIndex.environmentKey(environmentConfigService.envForPipeline(jobPlan.getPipelineName())));
+    }
+
+    private boolean assignToElasticAgent(AgentInstance agent, JobPlan jobPlan) {
+        try {
+            return elasticAgentPluginService.shouldAssignWork(agent.elasticAgentMetadata(), environmentConfigService.envForPipeline(jobPlan.getPipelineName()), jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier()) && claimFor(agent, jobPlan);
+        } catch (RulesViolationException | SecretResolutionFailureException e) {
+            JobInstance instance = jobInstanceService.buildById(jobPlan.getJobId());
+            JobIdentifier jobIdentifier = jobPlan.getIdentifier();
+            String failureMessage = format("""
+                
+                This job was failed by GoCD. This job is configured to run on an elastic agent, there were errors while resolving secrets for the the associated elastic configurations.
+                Reasons: %s""", e.getMessage());
+            consoleService.appendToConsoleLogSafe(jobIdentifier, failureMessage);
+            scheduleService.failJob(instance);
+            jobStatusTopic.post(new JobStatusMessage(jobIdentifier, instance.getState(), agent.getUuid()));
+            return false;
+        }
+    }
+
+    /**
+     * Checks again that the agent has not been disabled while it was looking for work, right before claiming the job.
+     */
+    private boolean claimFor(AgentInstance agent, JobPlan jobPlan) {
+        return !agent.isDisabled() && claim(jobPlan);
+    }
+
+    /**
+     * Atomically hands a job plan to the calling agent. Fails if another agent claimed it first, or if it is no longer
+     * scheduled because it has been removed by a reload or a config change since the caller took its snapshot.
+     */
+    private boolean claim(JobPlan jobPlan) {
+        if (claimedJobs.putIfAbsent(jobPlan.getJobId(), Boolean.FALSE) != null) {
+            return false;
         }
-        if (match != null) {
-            jobPlans.remove(match);
+        jobIndex.remove(jobPlan);
+        if (!jobPlans.remove(jobPlan)) {
+            claimedJobs.remove(jobPlan.getJobId());
+            return false;
         }
-        return match;
+        return true;
+    }
+
+    private void assignmentFinished(JobPlan jobPlan) {
+        claimedJobs.replace(jobPlan.getJobId(), Boolean.TRUE);
     }
 
     @SuppressWarnings("unused") // used by spring scheduler
@@ -237,18 +308,147 @@ public class BuildAssignmentService implements ConfigChangedListener {
 
     private void reloadJobPlans() {
         synchronized (this) {
-            if (jobPlans == null) {
-                jobPlans = jobInstanceService.orderedScheduledBuilds();
-                elasticAgentPluginService.createAgentsFor(jobPlans, new ArrayList<>());
-            } else {
-                List<JobPlan> old = jobPlans;
-                List<JobPlan> newPlan = jobInstanceService.orderedScheduledBuilds();
+            // Assignments which finished before the query are visible in its results, any others have to be filtered out
+            Set<Long> finishedAssignments = finishedAssignments();
+            List<JobPlan> old = jobPlans;
+            List<JobPlan> newPlan = isFullReloadDue() ? fullReload(finishedAssignments) : reloadChangedJobPlans(old, finishedAssignments);
+            if (!haveSameJobs(old, newPlan)) {
                 jobPlans = newPlan;
-                elasticAgentPluginService.createAgentsFor(old, newPlan);
+                jobIndex = indexOf(newPlan);
+            }
+            finishedAssignments.forEach(claimedJobs::remove);
+            elasticAgentPluginService.createAgentsFor(old, newPlan);
+            if (hasNewJobs(old, newPlan)) {
+                notifyNewJobs();
             }
         }
     }
 
+    private boolean isFullReloadDue() {
+        return System.currentTimeMillis() - lastFullReload >= systemEnvironment.get(SystemEnvironment.JOB_PLANS_FULL_RELOAD_INTERVAL_IN_MILLIS);
+    }
+
+    private List<JobPlan> fullReload(Set<Long> finishedAssignments) {
+        lastFullReload = System.currentTimeMillis();
+        List<JobPlan> newPlan = new ArrayList<>(jobInstanceService.orderedScheduledBuilds());
+        newPlan.removeIf(jobPlan -> isBeingAssigned(jobPlan.getJobId(), finishedAssignments));
+        return new CopyOnWriteArrayList<>(newPlan);
+    }
+
+    /**
+     * Keeps the plans of jobs which are still scheduled, and only loads the plans of jobs which are not known yet.
+     */
+    private List<JobPlan> reloadChangedJobPlans(List<JobPlan> current, Set<Long> finishedAssignments) {
+        Map<Long, JobPlan> known = new HashMap<>();
+        current.forEach(jobPlan -> known.put(jobPlan.getJobId(), jobPlan));
+
+        List<JobPlan> newPlan = new ArrayList<>();
+        for (Long jobId : jobInstanceService.orderedScheduledBuildIds()) {
+            if (isBeingAssigned(jobId, finishedAssignments)) {
+                continue;
+            }
+            JobPlan jobPlan = known.containsKey(jobId) ? known.get(jobId) : jobInstanceService.scheduledPlan(jobId);
+            if (jobPlan != null) {
+                newPlan.add(jobPlan);
+            }
+        }
+        return new CopyOnWriteArrayList<>(newPlan);
+    }
+
+    private boolean isBeingAssigned(long jobId, Set<Long> finishedAssignments) {
+        return claimedJobs.containsKey(jobId) && !finishedAssignments.contains(jobId);
+    }
+
+    private static boolean haveSameJobs(List<JobPlan> old, List<JobPlan> newPlan) {
+        if (old.size() != newPlan.size()) {
+            return false;
+        }
+        for (int i = 0; i < old.size(); i++) {
+            if (old.get(i) != newPlan.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasNewJobs(List<JobPlan> old, List<JobPlan> newPlan) {
+        Set<Long> known = new HashSet<>();
+        old.forEach(jobPlan -> known.add(jobPlan.getJobId()));
+        return newPlan.stream().anyMatch(jobPlan -> !known.contains(jobPlan.getJobId()));
+    }
+
+    private void notifyNewJobs() {
+        for (Runnable listener : newJobsListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                LOGGER.warn("Unable to notify listener about newly scheduled jobs.", e);
+            }
+        }
+    }
+
+    /**
+     * Brings the scheduled jobs up to date with the job status changes committed since the last time, so that agents
+     * and elastic agent plugins do not have to wait for the timer to see a newly scheduled job.
+     */
+    @VisibleForTesting
+    void applyJobStatusChanges() {
+        synchronized (this) {
+            List<JobPlan> scheduled = new ArrayList<>();
+            JobInstance job;
+            while ((job = jobStatusChanges.poll()) != null) {
+                try {
+                    if (job.getState() == JobState.Scheduled) {
+                        JobPlan jobPlan = addScheduledJob(job.getId());
+                        if (jobPlan != null) {
+                            scheduled.add(jobPlan);
+                        }
+                    } else if (jobIndex.contains(job.getId())) {
+                        removeJob(job.getId());
+                    }
+                } catch (Exception e) {
+                    LOGGER.warn("Unable to update the scheduled jobs for job {}, they will be reloaded by the timer.", job, e);
+                }
+            }
+            if (!scheduled.isEmpty()) {
+                elasticAgentPluginService.createAgentsFor(List.of(), scheduled);
+                notifyNewJobs();
+            }
+        }
+    }
+
+    private JobPlan addScheduledJob(long jobId) {
+        if (maintenanceModeService.isMaintenanceMode() || claimedJobs.containsKey(jobId) || jobIndex.contains(jobId)) {
+            return null;
+        }
+        JobPlan jobPlan = jobInstanceService.scheduledPlan(jobId);
+        if (jobPlan != null) {
+            jobPlans.add(jobPlan);
+            jobIndex.add(jobPlan, environmentConfigService.envForPipeline(jobPlan.getPipelineName()));
+        }
+        return jobPlan;
+    }
+
+    private void removeJob(long jobId) {
+        for (JobPlan jobPlan : jobPlans) {
+            if (jobPlan.getJobId() == jobId) {
+                jobPlans.remove(jobPlan);
+                jobIndex.remove(jobPlan);
+                return;
+            }
+        }
+    }
+
+    private Set<Long> finishedAssignments() {
+        Set<Long> finished = new HashSet<>();
+        claimedJobs.forEach((jobId, isFinished) -> {
+            if (isFinished) {
+                finished.add(jobId);
+            }
+        });
+        return finished;
+    }
+
     @Override
     public void onConfigChange(CruiseConfig cruiseConfig) {
         synchronized (this) {
@@ -263,10 +463,16 @@ public class BuildAssignmentService implements ConfigChangedListener {
                 }
             }
             jobsToRemove.forEach(this::tryRemoveJob);
+            // environments may have changed along with the pipelines
+            jobIndex = indexOf(jobPlans);
         }
     }
 
-    private void removeJobIfNotPresentInCruiseConfig(CruiseConfig cruiseConfig, JobPlan jobPlan) {
+    private ScheduledJobIndex indexOf(List<JobPlan> orderedJobPlans) {
+        return new ScheduledJobIndex(orderedJobPlans, environmentConfigService::envForPipeline);
+    }
+
+    private synchronized void removeJobIfNotPresentInCruiseConfig(CruiseConfig cruiseConfig, JobPlan jobPlan) {
         if (!cruiseConfig.hasBuildPlan(new CaseInsensitiveString(jobPlan.getPipelineName()), new CaseInsensitiveString(jobPlan.getStageName()), jobPlan.getName(), true)) {
             tryRemoveJob(jobPlan);
         }
@@ -275,6 +481,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
     private void tryRemoveJob(JobPlan jobPlan) {
         try {
             jobPlans.remove(jobPlan);
+            jobIndex.remove(jobPlan);
             LOGGER.info("Removing job plan {} that no longer exists in the config", jobPlan);
             JobInstance instance = jobInstanceService.buildByIdWithTransitions(jobPlan.getJobId());
             //#2846 - remove this hack
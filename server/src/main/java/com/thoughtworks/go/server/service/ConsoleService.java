@@ -16,15 +16,18 @@
 package com.thoughtworks.go.server.service;
 
 import com.thoughtworks.go.domain.ConsoleConsumer;
+import com.thoughtworks.go.domain.ConsoleLogLineIndex;
 import com.thoughtworks.go.domain.ConsoleStreamer;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.domain.LocatableEntity;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
+import com.thoughtworks.go.server.domain.ConsoleLogAppendListener;
 import com.thoughtworks.go.server.view.artifacts.ArtifactDirectoryChooser;
 import com.thoughtworks.go.server.view.artifacts.BuildIdArtifactLocator;
 import com.thoughtworks.go.server.view.artifacts.PathBasedArtifactsLocator;
 import com.thoughtworks.go.util.ArtifactUtil;
 import com.thoughtworks.go.util.FileUtil;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.io.FileUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.VisibleForTesting;
@@ -36,6 +39,10 @@ import org.springframework.stereotype.Component;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Component
 public class ConsoleService {
@@ -43,16 +50,20 @@ public class ConsoleService {
 
     private final ArtifactDirectoryChooser chooser;
     private final ArtifactsDirHolder artifactsDirHolder;
+    private final SystemEnvironment systemEnvironment;
+    private final List<ConsoleLogAppendListener> appendListeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<Path, ConsoleLogLineIndex> runningLogIndexes = new ConcurrentHashMap<>();
 
     @Autowired
-    public ConsoleService(ArtifactsDirHolder artifactsDirHolder) {
-        this(new ArtifactDirectoryChooser(), artifactsDirHolder);
+    public ConsoleService(ArtifactsDirHolder artifactsDirHolder, SystemEnvironment systemEnvironment) {
+        this(new ArtifactDirectoryChooser(), artifactsDirHolder, systemEnvironment);
     }
 
     @VisibleForTesting
-    ConsoleService(ArtifactDirectoryChooser chooser, ArtifactsDirHolder artifactsDirHolder) {
+    ConsoleService(ArtifactDirectoryChooser chooser, ArtifactsDirHolder artifactsDirHolder, SystemEnvironment systemEnvironment) {
         this.chooser = chooser;
         this.artifactsDirHolder = artifactsDirHolder;
+        this.systemEnvironment = systemEnvironment;
     }
 
     public void initialize() {
@@ -60,9 +71,71 @@ public class ConsoleService {
         chooser.add(new BuildIdArtifactLocator(artifactsDirHolder.getArtifactsDir()));
     }
 
+    public void registerAppendListener(ConsoleLogAppendListener listener) {
+        appendListeners.add(listener);
+    }
+
     public ConsoleConsumer getStreamer(long startingLine, JobIdentifier identifier) throws IllegalArtifactLocationException {
-        Path path = consoleLogFile(identifier).toPath();
-        return new ConsoleStreamer(path, startingLine);
+        File log = consoleLogFile(identifier);
+        return new ConsoleStreamer(log.toPath(), startingLine, seekPositionFor(identifier, log, startingLine));
+    }
+
+    private ConsoleLogLineIndex.Position seekPositionFor(LocatableEntity locatableEntity, File log, long startingLine) {
+        if (startingLine <= 0 || !isLineIndexEnabled() || !log.exists()) {
+            return ConsoleLogLineIndex.Position.START;
+        }
+
+        try {
+            return lineIndexFor(locatableEntity, log).seek(startingLine);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read line index of console log at : [{}], reading from the start instead", log, e);
+            return ConsoleLogLineIndex.Position.START;
+        }
+    }
+
+    private void updateLineIndex(LocatableEntity locatableEntity, File consoleLog) {
+        if (!isLineIndexEnabled()) {
+            return;
+        }
+
+        try {
+            lineIndexFor(locatableEntity, consoleLog);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to update line index of console log at : [{}]", consoleLog.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * The index of the console log of a running job is only kept in memory, as the log changes with every append.
+     * Once the log has been moved to the artifacts of the job, its index is saved by {@link #moveConsoleArtifacts}, or
+     * dropped by {@link #discardLineIndex} if the job will not complete.
+     */
+    private ConsoleLogLineIndex lineIndexFor(LocatableEntity locatableEntity, File log) throws IOException {
+        if (log.equals(chooser.temporaryConsoleFile(locatableEntity))) {
+            ConsoleLogLineIndex index = runningLogIndexes.computeIfAbsent(log.toPath(), path -> ConsoleLogLineIndex.empty());
+            index.update(log.toPath());
+            return index;
+        }
+        File savedIndex = chooser.consoleLogLineIndexFile(locatableEntity);
+        if (savedIndex == null) {
+            ConsoleLogLineIndex index = ConsoleLogLineIndex.empty();
+            index.update(log.toPath());
+            return index;
+        }
+        return ConsoleLogLineIndex.forLog(log.toPath(), savedIndex.toPath());
+    }
+
+    public void discardLineIndex(LocatableEntity locatableEntity) {
+        runningLogIndexes.remove(chooser.temporaryConsoleFile(locatableEntity).toPath());
+    }
+
+    @VisibleForTesting
+    int runningLineIndexes() {
+        return runningLogIndexes.size();
+    }
+
+    private boolean isLineIndexEnabled() {
+        return systemEnvironment.get(SystemEnvironment.CONSOLE_LOG_LINE_INDEX_ENABLED) && ConsoleLogLineIndex.supports(systemEnvironment.consoleLogCharset());
     }
 
     public boolean doesLogExist(JobIdentifier jobIdentifier) {
@@ -91,10 +164,10 @@ public class ConsoleService {
     }
 
     public void appendToConsoleLogIoSafe(JobIdentifier jobIdentifier, String text) throws IllegalArtifactLocationException {
-        appendToConsoleLogIoSafe(consoleLogFile(jobIdentifier), new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        appendToConsoleLogIoSafe(jobIdentifier, consoleLogFile(jobIdentifier), new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
     }
 
-    public boolean appendToConsoleLogIoSafe(File dest, InputStream in) {
+    public boolean appendToConsoleLogIoSafe(JobIdentifier jobIdentifier, File dest, InputStream in) {
         FileUtil.mkdirsParentQuietly(dest);
         try (OutputStream out = new FileOutputStream(dest, dest.exists())) {
             in.transferTo(out);
@@ -102,9 +175,21 @@ public class ConsoleService {
             LOGGER.error("Failed to update console log at : [{}]", dest.getAbsolutePath(), e);
             return false;
         }
+        updateLineIndex(jobIdentifier, dest);
+        notifyAppendListeners(jobIdentifier);
         return true;
     }
 
+    private void notifyAppendListeners(JobIdentifier jobIdentifier) {
+        for (ConsoleLogAppendListener listener : appendListeners) {
+            try {
+                listener.consoleLogAppended(jobIdentifier);
+            } catch (Exception e) {
+                LOGGER.error("Error notifying listener of console log update for job {}", jobIdentifier, e);
+            }
+        }
+    }
+
     void appendToConsoleLogSafe(JobIdentifier jobIdentifier, String errorMessage) {
         try {
             appendToConsoleLogIoSafe(jobIdentifier, errorMessage);
@@ -124,6 +209,7 @@ public class ConsoleService {
     public void moveConsoleArtifacts(LocatableEntity locatableEntity) {
         File from = chooser.temporaryConsoleFile(locatableEntity);
         File to = consoleLogArtifactUnchecked(locatableEntity);
+        ConsoleLogLineIndex index = runningLogIndexes.remove(from.toPath());
         try {
             // Job cancellation can skip temporary file creation. Force create one if it does not exist.
             FileUtils.touch(from);
@@ -131,5 +217,23 @@ public class ConsoleService {
         } catch (IOException e) {
             throw new RuntimeException("Unexpected error moving console log from temporary location [%s] to permanent artifact location [%s]".formatted(from, to), e);
         }
+        saveLineIndex(locatableEntity, index, to);
+    }
+
+    private void saveLineIndex(LocatableEntity locatableEntity, ConsoleLogLineIndex index, File log) {
+        File savedIndex = chooser.consoleLogLineIndexFile(locatableEntity);
+        if (!isLineIndexEnabled() || savedIndex == null) {
+            return;
+        }
+        try {
+            if (index == null) {
+                index = ConsoleLogLineIndex.empty();
+            }
+            index.update(log.toPath());
+            index.saveQuietly(savedIndex.toPath());
+        } catch (IOException e) {
+            // the index is rebuilt from the log on demand, so there is no need to fail the job over it
+            LOGGER.warn("Failed to save line index of console log at : [{}], it will be rebuilt when needed", log, e);
+        }
     }
 }
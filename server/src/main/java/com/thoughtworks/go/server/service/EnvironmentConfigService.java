@@ -173,8 +173,9 @@ public class EnvironmentConfigService implements ConfigChangedListener, AgentCha
     }
 
     public List<EnvironmentConfig> getAllMergedEnvironments() {
+        // only ever rendered, so there is no need to hand out copies of the merged environments
         return getEnvironmentNames().stream()
-            .map(env -> getMergedEnvironmentforDisplay(env, new HttpLocalizedOperationResult()).getConfigElement())
+            .map(this::getEnvironmentConfig)
             .collect(toList());
     }
 
@@ -105,6 +105,18 @@ public class GoDashboardService {
         return dashboardCurrentStateLoader.hasEverLoadedCurrentState();
     }
 
+    public Collection<GoDashboardPipeline> allPipelines() {
+        return cache.allEntries().getPipelines();
+    }
+
+    public void addListener(GoDashboardCacheListener listener) {
+        cache.addListener(listener);
+    }
+
+    public void removeListener(GoDashboardCacheListener listener) {
+        cache.removeListener(listener);
+    }
+
     private GoDashboardEnvironment dashboardEnvironmentFor(EnvironmentConfig environment, DashboardFilter filter, Username user, Users allowedUsers, GoDashboardPipelines allPipelines) {
         List<CaseInsensitiveString> pipelinesInEnv = environment.getPipelineNames();
         GoDashboardEnvironment env = new GoDashboardEnvironment(environment.name().toString(), allowedUsers, !pipelinesInEnv.isEmpty());
@@ -169,6 +169,14 @@ public class JobInstanceService implements JobPlanLoader, ConfigChangedListener
         return jobInstanceDao.orderedScheduledBuilds();
     }
 
+    public List<Long> orderedScheduledBuildIds() {
+        return jobInstanceDao.orderedScheduledBuildIds();
+    }
+
+    public JobPlan scheduledPlan(long jobId) {
+        return jobInstanceDao.scheduledPlan(jobId);
+    }
+
     public List<WaitingJobPlan> waitingJobPlans(Username username) {
         List<JobPlan> jobPlans = orderedScheduledBuilds();
         return jobPlans.stream()
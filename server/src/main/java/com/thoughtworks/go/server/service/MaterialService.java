@@ -41,6 +41,7 @@ import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.util.Pair;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -68,6 +69,7 @@ public class MaterialService {
     private final SCMExtension scmExtension;
     private final TransactionTemplate transactionTemplate;
     private final SecretParamResolver secretParamResolver;
+    private final SystemEnvironment systemEnvironment;
     private final Map<Class<? extends Material>, MaterialPoller<? extends Material>> materialPollerMap = new HashMap<>();
 
     @Autowired
@@ -77,7 +79,8 @@ public class MaterialService {
                            PackageRepositoryExtension packageRepositoryExtension,
                            SCMExtension scmExtension,
                            TransactionTemplate transactionTemplate,
-                           SecretParamResolver secretParamResolver) {
+                           SecretParamResolver secretParamResolver,
+                           SystemEnvironment systemEnvironment) {
         this.materialRepository = materialRepository;
         this.goConfigService = goConfigService;
         this.securityService = securityService;
@@ -85,11 +88,12 @@ public class MaterialService {
         this.scmExtension = scmExtension;
         this.transactionTemplate = transactionTemplate;
         this.secretParamResolver = secretParamResolver;
+        this.systemEnvironment = systemEnvironment;
         populatePollerImplementations();
     }
 
     private void populatePollerImplementations() {
-        materialPollerMap.put(GitMaterial.class, new GitPoller());
+        materialPollerMap.put(GitMaterial.class, systemEnvironment.get(SystemEnvironment.GO_SERVER_GIT_POLLER_IN_PROCESS) ? new JGitPoller(new GitPoller()) : new GitPoller());
         materialPollerMap.put(HgMaterial.class, new HgPoller());
         materialPollerMap.put(SvnMaterial.class, new SvnPoller());
         materialPollerMap.put(TfsMaterial.class, new TfsPoller());
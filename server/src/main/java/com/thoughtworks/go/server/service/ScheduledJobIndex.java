@@ -0,0 +1,236 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.domain.JobPlan;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Understands how to find the oldest scheduled job an agent can run, without looking at every scheduled job.
+ * <p>
+ * Job plans are partitioned by the environment of their pipeline, and within an environment they are bucketed by what
+ * they need from an agent: a particular agent, an elastic agent, or a set of resources (kept as a bit set over every
+ * resource required by a scheduled job). An agent only visits the buckets of its environments whose requirements it
+ * satisfies, and merges them in the order the jobs were scheduled in, so it sees the same job
+ * {@link com.thoughtworks.go.domain.AgentInstance#firstMatching(List)} would have found.
+ * <p>
+ * The index is built on each reload of the scheduled jobs which changed them. In between, newly scheduled jobs are
+ * appended by a single writer, while agents look up and remove job plans concurrently.
+ */
+class ScheduledJobIndex {
+    static final String NO_ENVIRONMENT = "";
+
+    private final Map<String, Integer> resourceBits = new ConcurrentHashMap<>();
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    private int nextSequence;
+
+    /**
+     * @param orderedJobPlans      the scheduled job plans, in the order they should be handed out
+     * @param environmentOfPipeline the name of the environment a pipeline belongs to, or null if it is in none
+     */
+    ScheduledJobIndex(List<JobPlan> orderedJobPlans, Function<String, String> environmentOfPipeline) {
+        for (JobPlan jobPlan : orderedJobPlans) {
+            add(jobPlan, environmentOfPipeline.apply(jobPlan.getPipelineName()));
+        }
+    }
+
+    static String environmentKey(String environmentName) {
+        return isBlank(environmentName) ? NO_ENVIRONMENT : environmentName.toLowerCase();
+    }
+
+    static Set<String> environmentKeys(Set<String> agentEnvironments) {
+        if (agentEnvironments == null || agentEnvironments.isEmpty()) {
+            return Set.of(NO_ENVIRONMENT);
+        }
+        Set<String> keys = new HashSet<>();
+        agentEnvironments.forEach(name -> keys.add(environmentKey(name)));
+        return keys;
+    }
+
+    /**
+     * Offers a regular (non-elastic) agent the job plans it can run, oldest first, until one is taken.
+     *
+     * @param agentUuid         the uuid of the agent
+     * @param agentResources    the resources of the agent
+     * @param agentEnvironments the names of the environments the agent belongs to
+     * @param taker             decides whether to take the offered job plan, for instance by claiming it
+     * @return the job plan which was taken, or null if there was none
+     */
+    JobPlan firstMatching(String agentUuid, Stream<String> agentResources, Set<String> agentEnvironments, Predicate<JobPlan> taker) {
+        BitSet agentBits = new BitSet();
+        agentResources.forEach(resource -> {
+            Integer bit = resourceBits.get(resource.toLowerCase());
+            if (bit != null) {
+                agentBits.set(bit);
+            }
+        });
+
+        List<Bucket> candidates = new ArrayList<>();
+        for (String environment : environmentKeys(agentEnvironments)) {
+            Partition partition = partitions.get(environment);
+            if (partition == null) {
+                continue;
+            }
+            partition.byResources.forEach((required, bucket) -> {
+                if (isSubset(required, agentBits)) {
+                    candidates.add(bucket);
+                }
+            });
+            Bucket pinned = agentUuid == null ? null : partition.byAgent.get(agentUuid);
+            if (pinned != null) {
+                candidates.add(pinned);
+            }
+        }
+        return offerInOrder(candidates, taker);
+    }
+
+    /**
+     * Offers an elastic agent the job plans requiring an elastic agent in its environments, oldest first, until one is
+     * taken.
+     */
+    JobPlan firstElasticMatching(Set<String> agentEnvironments, Predicate<JobPlan> taker) {
+        List<Bucket> candidates = new ArrayList<>();
+        for (String environment : environmentKeys(agentEnvironments)) {
+            Partition partition = partitions.get(environment);
+            if (partition != null) {
+                candidates.add(partition.elastic);
+            }
+        }
+        return offerInOrder(candidates, taker);
+    }
+
+    /**
+     * Adds a job plan after all the job plans already in the index. Must not be called concurrently with itself.
+     *
+     * @param jobPlan     the job plan
+     * @param environment the name of the environment the pipeline of the job belongs to, or null if it is in none
+     */
+    void add(JobPlan jobPlan, String environment) {
+        Partition partition = partitions.computeIfAbsent(environmentKey(environment), key -> new Partition());
+        Bucket bucket;
+        if (jobPlan.requiresElasticAgent()) {
+            bucket = partition.elastic;
+        } else if (jobPlan.getAgentUuid() != null) {
+            bucket = partition.byAgent.computeIfAbsent(jobPlan.getAgentUuid(), uuid -> new Bucket());
+        } else {
+            bucket = partition.byResources.computeIfAbsent(requiredResources(jobPlan), resources -> new Bucket());
+        }
+        int sequence = nextSequence++;
+        slots.put(jobPlan.getJobId(), new Slot(bucket, sequence));
+        bucket.plans.put(sequence, jobPlan);
+    }
+
+    boolean contains(long jobId) {
+        return slots.containsKey(jobId);
+    }
+
+    void remove(JobPlan jobPlan) {
+        Slot slot = slots.remove(jobPlan.getJobId());
+        if (slot != null) {
+            slot.bucket.plans.remove(slot.sequence);
+        }
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    private JobPlan offerInOrder(List<Bucket> buckets, Predicate<JobPlan> taker) {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, buckets.size()), Comparator.comparingInt(Cursor::sequence));
+        for (Bucket bucket : buckets) {
+            Cursor cursor = new Cursor(bucket.plans.entrySet().iterator());
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        Cursor cursor;
+        while ((cursor = cursors.poll()) != null) {
+            JobPlan jobPlan = cursor.current.getValue();
+            if (taker.test(jobPlan)) {
+                return jobPlan;
+            }
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return null;
+    }
+
+    private BitSet requiredResources(JobPlan jobPlan) {
+        BitSet bits = new BitSet();
+        for (String resource : jobPlan.getResources().toResourceConfigs().resourceNames()) {
+            String name = resource.toLowerCase();
+            Integer bit = resourceBits.get(name);
+            if (bit == null) {
+                bit = resourceBits.size();
+                resourceBits.put(name, bit);
+            }
+            bits.set(bit);
+        }
+        return bits;
+    }
+
+    private static boolean isSubset(BitSet required, BitSet available) {
+        BitSet missing = (BitSet) required.clone();
+        missing.andNot(available);
+        return missing.isEmpty();
+    }
+
+    private static class Partition {
+        private final Map<BitSet, Bucket> byResources = new ConcurrentHashMap<>();
+        private final Map<String, Bucket> byAgent = new ConcurrentHashMap<>();
+        private final Bucket elastic = new Bucket();
+    }
+
+    private static class Bucket {
+        private final ConcurrentSkipListMap<Integer, JobPlan> plans = new ConcurrentSkipListMap<>();
+    }
+
+    private record Slot(Bucket bucket, int sequence) {
+    }
+
+    private static class Cursor {
+        private final Iterator<Map.Entry<Integer, JobPlan>> iterator;
+        private Map.Entry<Integer, JobPlan> current;
+
+        private Cursor(Iterator<Map.Entry<Integer, JobPlan>> iterator) {
+            this.iterator = iterator;
+        }
+
+        private boolean advance() {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            current = iterator.next();
+            return true;
+        }
+
+        private int sequence() {
+            return current.getKey();
+        }
+    }
+}
@@ -38,17 +38,17 @@ import com.thoughtworks.go.server.service.result.LocalizedOperationResult;
 import com.thoughtworks.go.server.valuestreammap.DownstreamInstancePopulator;
 import com.thoughtworks.go.server.valuestreammap.RunStagesPopulator;
 import com.thoughtworks.go.server.valuestreammap.UnrunStagesPopulator;
+import com.thoughtworks.go.server.valuestreammap.ValueStreamMapCache;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
+import org.jetbrains.annotations.TestOnly;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Supplier;
 
 @Service
 public class ValueStreamMapService {
@@ -60,11 +60,18 @@ public class ValueStreamMapService {
     private final RunStagesPopulator runStagesPopulator;
     private final UnrunStagesPopulator unrunStagePopulator;
     private final SecurityService securityService;
+    private final ValueStreamMapCache valueStreamMapCache;
     private static final Logger LOGGER = LoggerFactory.getLogger(ValueStreamMapService.class);
 
-    @Autowired
+    @TestOnly
     public ValueStreamMapService(PipelineService pipelineService, MaterialRepository materialRepository, GoConfigService goConfigService, DownstreamInstancePopulator downstreamInstancePopulator,
                                  RunStagesPopulator runStagesPopulator, UnrunStagesPopulator unrunStagePopulator, SecurityService securityService) {
+        this(pipelineService, materialRepository, goConfigService, downstreamInstancePopulator, runStagesPopulator, unrunStagePopulator, securityService, null);
+    }
+
+    @Autowired
+    public ValueStreamMapService(PipelineService pipelineService, MaterialRepository materialRepository, GoConfigService goConfigService, DownstreamInstancePopulator downstreamInstancePopulator,
+                                 RunStagesPopulator runStagesPopulator, UnrunStagesPopulator unrunStagePopulator, SecurityService securityService, ValueStreamMapCache valueStreamMapCache) {
         this.pipelineService = pipelineService;
         this.materialRepository = materialRepository;
         this.goConfigService = goConfigService;
@@ -72,6 +79,7 @@ public class ValueStreamMapService {
         this.runStagesPopulator = runStagesPopulator;
         this.unrunStagePopulator = unrunStagePopulator;
         this.securityService = securityService;
+        this.valueStreamMapCache = valueStreamMapCache;
     }
 
     public ValueStreamMapPresentationModel getValueStreamMap(CaseInsensitiveString pipelineName, int counter, Username username, LocalizedOperationResult result) {
@@ -80,11 +88,12 @@ public class ValueStreamMapService {
                 result.forbidden(LocalizedMessage.forbiddenToViewPipeline(pipelineName), HealthStateType.general(HealthStateScope.forPipeline(pipelineName.toString())));
                 return null;
             }
-            ValueStreamMap valueStreamMap = buildValueStreamMap(pipelineName, counter, username, result);
-            if (valueStreamMap == null) {
-                return null;
-            }
-            return valueStreamMap.presentationModel();
+            CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
+            ValueStreamMapPresentationModel layout = cached(ValueStreamMapCache.Key.forPipeline(pipelineName, counter, cruiseConfig), () -> {
+                ValueStreamMap valueStreamMap = buildValueStreamMap(cruiseConfig, pipelineName, counter, result);
+                return valueStreamMap == null ? null : valueStreamMap.presentationModel();
+            });
+            return layout == null ? null : withPermissionsAndCurrentConfig(layout, username);
         } catch (Exception e) {
             result.internalServerError("Value Stream Map of pipeline '" + pipelineName + "' with counter '" + counter + "' can not be rendered. Please check the server log for details.");
             LOGGER.error("[Value Stream Map] Pipeline {} with counter {} could not be rendered.", pipelineName, counter, e);
@@ -92,8 +101,7 @@ public class ValueStreamMapService {
         }
     }
 
-    private ValueStreamMap buildValueStreamMap(CaseInsensitiveString pipelineName, int counter, Username username, LocalizedOperationResult result) {
-        CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
+    private ValueStreamMap buildValueStreamMap(CruiseConfig cruiseConfig, CaseInsensitiveString pipelineName, int counter, LocalizedOperationResult result) {
         BuildCause buildCauseForPipeline;
         try {
             pipelineName = pipelineNameWithSameCaseAsConfig(pipelineName, cruiseConfig);
@@ -115,7 +123,6 @@ public class ValueStreamMapService {
             return null;
         }
         addInstanceInformationToTheGraph(valueStreamMap);
-        removeRevisionsBasedOnPermissionAndCurrentConfig(valueStreamMap, username);
 
         valueStreamMap.addWarningIfBuiltFromInCompatibleRevisions();
 
@@ -171,7 +178,10 @@ public class ValueStreamMapService {
                 return null;
             }
 
-            return buildValueStreamMap(material, materialInstance, modification, downstreamPipelines, username).presentationModel();
+            CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
+            ValueStreamMapPresentationModel layout = cached(ValueStreamMapCache.Key.forMaterial(materialFingerprint, revision, cruiseConfig),
+                () -> buildValueStreamMap(cruiseConfig, material, materialInstance, modification, downstreamPipelines).presentationModel());
+            return withPermissionsAndCurrentConfig(layout, username);
         } catch (Exception e) {
             result.internalServerError("Value Stream Map of material with fingerprint '" + materialFingerprint + "' with revision '" + revision + "' can not be rendered. Please check the server log for details.");
             LOGGER.error("[Value Stream Map] Material {} with revision {} could not be rendered.", materialFingerprint, revision, e);
@@ -179,38 +189,58 @@ public class ValueStreamMapService {
         }
     }
 
-    private ValueStreamMap buildValueStreamMap(Material material, MaterialInstance materialInstance, Modification modification, List<PipelineConfig> downstreamPipelines, Username username) {
-        CruiseConfig cruiseConfig = goConfigService.currentCruiseConfig();
+    private ValueStreamMap buildValueStreamMap(CruiseConfig cruiseConfig, Material material, MaterialInstance materialInstance, Modification modification, List<PipelineConfig> downstreamPipelines) {
         ValueStreamMap valueStreamMap = new ValueStreamMap(material, materialInstance, modification);
         Map<CaseInsensitiveString, List<PipelineConfig>> pipelineToDownstreamMap = cruiseConfig.generatePipelineVsDownstreamMap();
 
         traverseDownstream(new CaseInsensitiveString(material.getFingerprint()), downstreamPipelines, pipelineToDownstreamMap, valueStreamMap, new ArrayList<>());
 
         addInstanceInformationToTheGraph(valueStreamMap);
-        removeRevisionsBasedOnPermissionAndCurrentConfig(valueStreamMap, username);
         return valueStreamMap;
     }
 
-    private void removeRevisionsBasedOnPermissionAndCurrentConfig(ValueStreamMap valueStreamMap, Username username) {
-        for (Node node : valueStreamMap.allNodes()) {
-            if (node instanceof PipelineDependencyNode pipelineDependencyNode) {
-                String pipelineName = node.getName();
+    private ValueStreamMapPresentationModel cached(ValueStreamMapCache.Key key, Supplier<ValueStreamMapPresentationModel> builder) {
+        return valueStreamMapCache == null ? builder.get() : valueStreamMapCache.computeIfAbsent(key, builder);
+    }
 
-                if (!goConfigService.hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
-                    pipelineDependencyNode.setDeleted();
-                } else if (!securityService.hasViewPermissionForPipeline(username, pipelineName)) {
-                    pipelineDependencyNode.setNoPermission();
+    // the layout may be shared with other requests, so the pipelines in it are copied before being changed for this user
+    private ValueStreamMapPresentationModel withPermissionsAndCurrentConfig(ValueStreamMapPresentationModel layout, Username username) {
+        Map<CaseInsensitiveString, Node> pipelineNodes = new HashMap<>();
+        List<List<Node>> nodesAtEachLevel = new ArrayList<>();
+        for (List<Node> level : layout.getNodesAtEachLevel()) {
+            List<Node> nodes = new ArrayList<>(level.size());
+            for (Node node : level) {
+                if (node instanceof PipelineDependencyNode pipelineDependencyNode) {
+                    PipelineDependencyNode copy = pipelineDependencyNode.copy();
+                    removeRevisionsBasedOnPermissionAndCurrentConfig(copy, username);
+                    pipelineNodes.put(copy.getId(), copy);
+                    node = copy;
                 }
-
-                pipelineDependencyNode.setCanEdit(goConfigService.canEditPipeline(pipelineName, username, new HttpLocalizedOperationResult()));
-                pipelineDependencyNode.setTemplateName(
-                        Optional.ofNullable(goConfigService.findPipelineByName(new CaseInsensitiveString(pipelineName)))
-                                .map(PipelineConfig::getTemplateName)
-                                .map(CaseInsensitiveString::toString)
-                                .orElse(null)
-                );
+                nodes.add(node);
             }
+            nodesAtEachLevel.add(nodes);
         }
+
+        Node currentPipeline = layout.getCurrentPipeline() == null ? null : pipelineNodes.getOrDefault(layout.getCurrentPipeline().getId(), layout.getCurrentPipeline());
+        return new ValueStreamMapPresentationModel(currentPipeline, layout.getCurrentMaterial(), nodesAtEachLevel);
+    }
+
+    private void removeRevisionsBasedOnPermissionAndCurrentConfig(PipelineDependencyNode pipelineDependencyNode, Username username) {
+        String pipelineName = pipelineDependencyNode.getName();
+
+        if (!goConfigService.hasPipelineNamed(new CaseInsensitiveString(pipelineName))) {
+            pipelineDependencyNode.setDeleted();
+        } else if (!securityService.hasViewPermissionForPipeline(username, pipelineName)) {
+            pipelineDependencyNode.setNoPermission();
+        }
+
+        pipelineDependencyNode.setCanEdit(goConfigService.canEditPipeline(pipelineName, username, new HttpLocalizedOperationResult()));
+        pipelineDependencyNode.setTemplateName(
+                Optional.ofNullable(goConfigService.findPipelineByName(new CaseInsensitiveString(pipelineName)))
+                        .map(PipelineConfig::getTemplateName)
+                        .map(CaseInsensitiveString::toString)
+                        .orElse(null)
+        );
     }
 
     private void traverseUpstream(CaseInsensitiveString pipelineName, BuildCause buildCause, ValueStreamMap graph, List<MaterialRevision> visitedNodes) {
@@ -0,0 +1,277 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.materials;
+
+import com.thoughtworks.go.config.materials.SubprocessExecutionContext;
+import com.thoughtworks.go.config.materials.git.GitMaterial;
+import com.thoughtworks.go.config.materials.git.RefSpecHelper;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.domain.materials.ModifiedAction;
+import com.thoughtworks.go.domain.materials.Revision;
+import com.thoughtworks.go.domain.materials.git.GitLogStreamParser;
+import com.thoughtworks.go.domain.materials.svn.MaterialUrl;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static com.thoughtworks.go.util.ExceptionUtils.bomb;
+import static com.thoughtworks.go.util.FileUtil.mkdirsParentQuietly;
+import static java.lang.String.format;
+
+/**
+ * Polls git materials in-process with JGit, rather than forking a git process for every fetch, log and diff. Pack
+ * files are read through the process wide JGit window cache, so they are shared between all the materials polled.
+ * <p>
+ * The working copy is laid out the same way as the one {@link GitPoller} clones, so the two can take turns on the same
+ * folder. Only plain branches fetched over http(s) or from the local file system are polled in-process; ssh and git
+ * transports, refspecs, submodule folders and shallow clones are left to {@link GitPoller}, as is the checkout.
+ */
+public class JGitPoller implements MaterialPoller<GitMaterial> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JGitPoller.class);
+    private static final Set<String> SUPPORTED_SCHEMES = Set.of("http", "https", "file");
+    private static final String REMOTE = Constants.DEFAULT_REMOTE_NAME;
+
+    private final GitPoller gitPoller;
+
+    public JGitPoller(GitPoller gitPoller) {
+        this.gitPoller = gitPoller;
+    }
+
+    @Override
+    public List<Modification> latestModification(GitMaterial material, File baseDir, SubprocessExecutionContext execCtx) {
+        if (!canPollInProcess(material, baseDir, execCtx)) {
+            return gitPoller.latestModification(material, baseDir, execCtx);
+        }
+        try (Repository repository = fetch(material, baseDir);
+             RevWalk walk = new RevWalk(repository)) {
+            return latestModification(repository, remoteHead(repository, walk, material));
+        } catch (IOException | URISyntaxException | GitAPIException e) {
+            throw bomb(format("Failed to poll git material %s", material.getUriForDisplay()), e);
+        }
+    }
+
+    @Override
+    public List<Modification> modificationsSince(GitMaterial material, File baseDir, Revision revision, SubprocessExecutionContext execCtx) {
+        if (!canPollInProcess(material, baseDir, execCtx)) {
+            return gitPoller.modificationsSince(material, baseDir, revision, execCtx);
+        }
+        if (isRemoteHeadAt(material, revision)) {
+            return new ArrayList<>();
+        }
+        try (Repository repository = fetch(material, baseDir);
+             RevWalk walk = new RevWalk(repository)) {
+            RevCommit head = remoteHead(repository, walk, material);
+            RevCommit since = findCommit(walk, revision.getRevision());
+            if (since == null || !walk.isMergedInto(since, head)) {
+                return latestModification(repository, head);
+            }
+
+            walk.reset();
+            walk.markStart(head);
+            walk.markUninteresting(since);
+            List<Modification> modifications = new ArrayList<>();
+            for (RevCommit commit : walk) {
+                modifications.add(toModification(repository, commit));
+            }
+            return modifications;
+        } catch (IOException | URISyntaxException | GitAPIException e) {
+            throw bomb(format("Failed to poll git material %s", material.getUriForDisplay()), e);
+        }
+    }
+
+    @Override
+    public void checkout(GitMaterial material, File baseDir, Revision revision, SubprocessExecutionContext execCtx) {
+        gitPoller.checkout(material, baseDir, revision, execCtx);
+    }
+
+    private boolean canPollInProcess(GitMaterial material, File workingDir, SubprocessExecutionContext execCtx) {
+        if (material.getSubmoduleFolder() != null || RefSpecHelper.hasRefSpec(material.getBranch()) || execCtx.isGitShallowClone()
+            || new File(workingDir, ".git/shallow").exists()) {
+            return false;
+        }
+        try {
+            URIish uri = new URIish(material.urlForCommandLine());
+            return uri.getScheme() == null ? uri.getHost() == null : SUPPORTED_SCHEMES.contains(uri.getScheme());
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    // Like GitMaterial, asks the remote for its head before fetching, since nothing has changed on most polls
+    private static boolean isRemoteHeadAt(GitMaterial material, Revision revision) {
+        String url = material.urlForCommandLine();
+        try {
+            Ref head = Git.lsRemoteRepository()
+                .setRemote(url)
+                .setCredentialsProvider(credentialsFor(new URIish(url)))
+                .callAsMap()
+                .get(RefSpecHelper.fullUpstreamRef(material.getBranch()));
+            return head != null && head.getObjectId() != null && head.getObjectId().name().equals(revision.getRevision());
+        } catch (GitAPIException | URISyntaxException | RuntimeException e) {
+            LOGGER.debug("Unable to find the remote head of {}", material.getUriForDisplay(), e);
+            return false;
+        }
+    }
+
+    private Repository fetch(GitMaterial material, File workingDir) throws IOException, URISyntaxException, GitAPIException {
+        String url = material.urlForCommandLine();
+        CredentialsProvider credentials = credentialsFor(new URIish(url));
+        if (isWorkingCopyOf(material, workingDir)) {
+            Git git = Git.open(workingDir);
+            try {
+                git.fetch().setRemote(REMOTE).setRemoveDeletedRefs(true).setCredentialsProvider(credentials).call();
+            } catch (GitAPIException | RuntimeException e) {
+                git.close();
+                throw e;
+            }
+            return git.getRepository();
+        }
+
+        FileUtils.deleteDirectory(workingDir);
+        mkdirsParentQuietly(workingDir);
+        Repository repository = Git.cloneRepository()
+            .setURI(url)
+            .setDirectory(workingDir)
+            .setBranch(material.getBranch())
+            .setNoCheckout(true)
+            .setCredentialsProvider(credentials)
+            .call()
+            .getRepository();
+        checkoutLocalBranch(repository, material.getBranch());
+        return repository;
+    }
+
+    // Leaves the working copy on a local branch, as `git clone --no-checkout --branch` does, which GitMaterial checks
+    private static void checkoutLocalBranch(Repository repository, String branch) throws IOException {
+        String localBranch = Constants.R_HEADS + branch;
+        ObjectId remoteHead = repository.resolve(Constants.R_REMOTES + REMOTE + "/" + branch);
+        if (remoteHead != null && repository.exactRef(localBranch) == null) {
+            RefUpdate update = repository.updateRef(localBranch);
+            update.setNewObjectId(remoteHead);
+            update.update();
+        }
+        repository.updateRef(Constants.HEAD).link(localBranch);
+    }
+
+    private boolean isWorkingCopyOf(GitMaterial material, File workingDir) {
+        if (!new File(workingDir, ".git").isDirectory()) {
+            return false;
+        }
+        try (Git git = Git.open(workingDir)) {
+            String workingUrl = git.getRepository().getConfig().getString("remote", REMOTE, "url");
+            return workingUrl != null && MaterialUrl.sameUrl(material.urlForCommandLine(), workingUrl);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static CredentialsProvider credentialsFor(URIish uri) {
+        if (uri.getUser() == null) {
+            return null;
+        }
+        return new UsernamePasswordCredentialsProvider(uri.getUser(), uri.getPass() == null ? "" : uri.getPass());
+    }
+
+    private static RevCommit remoteHead(Repository repository, RevWalk walk, GitMaterial material) throws IOException {
+        ObjectId head = repository.resolve(Constants.R_REMOTES + REMOTE + "/" + material.getBranch());
+        if (head == null) {
+            throw bomb(format("The ref %s could not be found.", RefSpecHelper.fullUpstreamRef(material.getBranch())));
+        }
+        return walk.parseCommit(head);
+    }
+
+    private static RevCommit findCommit(RevWalk walk, String revision) throws IOException {
+        if (!ObjectId.isId(revision)) {
+            return null;
+        }
+        try {
+            return walk.parseCommit(ObjectId.fromString(revision));
+        } catch (MissingObjectException | IncorrectObjectTypeException e) {
+            return null;
+        }
+    }
+
+    private static List<Modification> latestModification(Repository repository, RevCommit head) throws IOException {
+        List<Modification> modifications = new ArrayList<>();
+        modifications.add(toModification(repository, head));
+        return modifications;
+    }
+
+    private static Modification toModification(Repository repository, RevCommit commit) throws IOException {
+        PersonIdent author = commit.getAuthorIdent();
+        Modification modification = new Modification(
+            format("%s <%s>", author.getName(), author.getEmailAddress()),
+            GitLogStreamParser.stripTrailingNewlines(commit.getFullMessage()),
+            null,
+            Date.from(author.getWhenAsInstant()),
+            commit.name());
+        addModifiedFiles(repository, commit, modification);
+        return modification;
+    }
+
+    // Like `git diff-tree --root -r`, which lists no files for merge commits
+    private static void addModifiedFiles(Repository repository, RevCommit commit, Modification modification) throws IOException {
+        if (commit.getParentCount() > 1) {
+            return;
+        }
+        try (RevWalk walk = new RevWalk(repository);
+             TreeWalk treeWalk = new TreeWalk(repository)) {
+            if (commit.getParentCount() == 0) {
+                treeWalk.addTree(new EmptyTreeIterator());
+            } else {
+                treeWalk.addTree(walk.parseCommit(commit.getParent(0)).getTree());
+            }
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(TreeFilter.ANY_DIFF);
+
+            for (DiffEntry entry : DiffEntry.scan(treeWalk)) {
+                switch (entry.getChangeType()) {
+                    case ADD -> modification.createModifiedFile(entry.getNewPath(), null, ModifiedAction.added);
+                    case DELETE -> modification.createModifiedFile(entry.getOldPath(), null, ModifiedAction.deleted);
+                    default -> modification.createModifiedFile(entry.getNewPath(), null, ModifiedAction.modified);
+                }
+            }
+        }
+    }
+}
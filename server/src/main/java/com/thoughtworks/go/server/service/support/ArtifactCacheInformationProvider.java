@@ -0,0 +1,63 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.support;
+
+import com.thoughtworks.go.server.cache.ArtifactCache;
+import com.thoughtworks.go.server.cache.ZipArtifactCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class ArtifactCacheInformationProvider implements ServerInfoProvider {
+
+    private final ZipArtifactCache zipArtifactCache;
+
+    @Autowired
+    public ArtifactCacheInformationProvider(ZipArtifactCache zipArtifactCache) {
+        this.zipArtifactCache = zipArtifactCache;
+    }
+
+    @Override
+    public double priority() {
+        return 11.75;
+    }
+
+    @Override
+    public Map<String, Object> asJsonCompatibleMap() {
+        ArtifactCache.Statistics statistics = zipArtifactCache.statistics();
+        long requests = statistics.hits() + statistics.misses();
+
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        json.put("Hits", statistics.hits());
+        json.put("Misses", statistics.misses());
+        json.put("Hit ratio", requests == 0 ? 0.0 : (double) statistics.hits() / requests);
+        json.put("Rejected", statistics.rejected());
+        json.put("Created", statistics.created());
+        json.put("Average creation time (ms)", statistics.created() == 0 ? 0 : statistics.creationTimeInMillis() / statistics.created());
+        json.put("Evicted", statistics.evicted());
+        json.put("Being prepared", statistics.pending());
+        json.put("Waiting to be prepared", statistics.queued());
+        return json;
+    }
+
+    @Override
+    public String name() {
+        return "Artifact Zip Cache";
+    }
+}
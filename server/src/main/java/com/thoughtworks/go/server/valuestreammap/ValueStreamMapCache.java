@@ -0,0 +1,176 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.valuestreammap;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.CruiseConfig;
+import com.thoughtworks.go.config.remote.PartialConfig;
+import com.thoughtworks.go.config.remote.RepoConfigOrigin;
+import com.thoughtworks.go.domain.Stage;
+import com.thoughtworks.go.domain.valuestreammap.DependencyNodeType;
+import com.thoughtworks.go.domain.valuestreammap.Node;
+import com.thoughtworks.go.domain.valuestreammap.PipelineDependencyNode;
+import com.thoughtworks.go.domain.valuestreammap.PipelineRevision;
+import com.thoughtworks.go.domain.valuestreammap.Revision;
+import com.thoughtworks.go.server.domain.StageStatusListener;
+import com.thoughtworks.go.server.initializers.Initializer;
+import com.thoughtworks.go.server.presentation.models.ValueStreamMapPresentationModel;
+import com.thoughtworks.go.server.service.StageService;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the laid out value stream maps of pipeline instances and material revisions whose pipeline instances have all
+ * completed, as those only change when a stage of one of the pipelines in them runs, or when the configuration changes. Layouts
+ * are kept against the version of the configuration, including the revisions of any config repos, they were built from.
+ * <p>
+ * Layouts are kept before any permissions of the user asking for them are applied. They are shared between requests
+ * and must not be changed.
+ */
+@Component
+public class ValueStreamMapCache implements Initializer, StageStatusListener {
+    private final StageService stageService;
+    private final int maximumSize;
+    private final Map<Key, Entry> entries;
+    private long generation;
+
+    @Autowired
+    public ValueStreamMapCache(StageService stageService, SystemEnvironment systemEnvironment) {
+        this(stageService, systemEnvironment.get(SystemEnvironment.VALUE_STREAM_MAP_CACHE_SIZE));
+    }
+
+    ValueStreamMapCache(StageService stageService, int maximumSize) {
+        this.stageService = stageService;
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > ValueStreamMapCache.this.maximumSize;
+            }
+        };
+    }
+
+    @Override
+    public void initialize() {
+        stageService.addStageStatusListener(this);
+    }
+
+    /**
+     * @param key     identifies the value stream map, along with the configuration it was built from
+     * @param builder builds the layout when it is not cached, returning null if it could not be built
+     * @return the cached layout, or the one built
+     */
+    public ValueStreamMapPresentationModel computeIfAbsent(Key key, Supplier<ValueStreamMapPresentationModel> builder) {
+        if (maximumSize <= 0) {
+            return builder.get();
+        }
+
+        long generationBeforeBuilding;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                return entry.layout;
+            }
+            generationBeforeBuilding = generation;
+        }
+
+        ValueStreamMapPresentationModel layout = builder.get();
+        if (layout == null || !allPipelineInstancesCompleted(layout)) {
+            return layout;
+        }
+
+        Set<CaseInsensitiveString> pipelines = pipelinesIn(layout);
+        synchronized (this) {
+            // a stage which changed while this layout was being built may not be reflected in it
+            if (generation == generationBeforeBuilding) {
+                entries.put(key, new Entry(layout, pipelines));
+            }
+        }
+        return layout;
+    }
+
+    @Override
+    public void stageStatusChanged(Stage stage) {
+        CaseInsensitiveString pipelineName = new CaseInsensitiveString(stage.getIdentifier().getPipelineName());
+        synchronized (this) {
+            generation++;
+            entries.values().removeIf(entry -> entry.pipelines.contains(pipelineName));
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static boolean allPipelineInstancesCompleted(ValueStreamMapPresentationModel layout) {
+        for (List<Node> level : layout.getNodesAtEachLevel()) {
+            for (Node node : level) {
+                if (!(node instanceof PipelineDependencyNode)) {
+                    continue;
+                }
+                for (Revision revision : node.revisions()) {
+                    if (revision instanceof PipelineRevision pipelineRevision && pipelineRevision.getStages().stream().anyMatch(Stage::isActive)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Set<CaseInsensitiveString> pipelinesIn(ValueStreamMapPresentationModel layout) {
+        Set<CaseInsensitiveString> pipelines = new HashSet<>();
+        for (List<Node> level : layout.getNodesAtEachLevel()) {
+            for (Node node : level) {
+                if (node instanceof PipelineDependencyNode) {
+                    pipelines.add(new CaseInsensitiveString(node.getName()));
+                }
+            }
+        }
+        return pipelines;
+    }
+
+    public record Key(DependencyNodeType type, CaseInsensitiveString id, String revision, String configVersion) {
+        public static Key forPipeline(CaseInsensitiveString pipelineName, int counter, CruiseConfig cruiseConfig) {
+            return new Key(DependencyNodeType.PIPELINE, pipelineName, String.valueOf(counter), versionOf(cruiseConfig));
+        }
+
+        public static Key forMaterial(String fingerprint, String revision, CruiseConfig cruiseConfig) {
+            return new Key(DependencyNodeType.MATERIAL, new CaseInsensitiveString(fingerprint), revision, versionOf(cruiseConfig));
+        }
+
+        // the md5 of a merged config is that of the main config alone, so the revisions of the config repos are added to it
+        static String versionOf(CruiseConfig cruiseConfig) {
+            StringBuilder version = new StringBuilder(String.valueOf(cruiseConfig.getMd5()));
+            for (PartialConfig partial : cruiseConfig.getPartials()) {
+                version.append(',');
+                if (partial.getOrigin() instanceof RepoConfigOrigin origin && origin.getMaterial() != null) {
+                    version.append(origin.getMaterial().getFingerprint()).append('@').append(origin.getRevision());
+                } else {
+                    version.append(partial.getOrigin());
+                }
+            }
+            return version.toString();
+        }
+    }
+
+    private record Entry(ValueStreamMapPresentationModel layout, Set<CaseInsensitiveString> pipelines) {
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.view.artifacts;
 
+import com.thoughtworks.go.domain.ConsoleLogLineIndex;
 import com.thoughtworks.go.domain.LocatableEntity;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
 import com.thoughtworks.go.util.FileUtil;
@@ -27,6 +28,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.thoughtworks.go.util.ArtifactUtil.CONSOLE_LOG_FILE_RELATIVE_PATH;
 import static java.lang.String.format;
 
 public class ArtifactDirectoryChooser {
@@ -75,6 +77,15 @@ public class ArtifactDirectoryChooser {
         return null;
     }
 
+    /**
+     * @return where the line index of the console log of a completed job is kept, alongside cached artifacts rather
+     * than among the artifacts of the job, or null if there is nowhere to keep it
+     */
+    public @Nullable File consoleLogLineIndexFile(LocatableEntity locatableEntity) {
+        File cachedArtifacts = locators.isEmpty() ? null : locators.getFirst().findCachedArtifact(locatableEntity);
+        return cachedArtifacts == null ? null : new File(cachedArtifacts, CONSOLE_LOG_FILE_RELATIVE_PATH + ConsoleLogLineIndex.FILE_EXTENSION);
+    }
+
     public File temporaryConsoleFile(LocatableEntity locatableEntity) {
         return new File("data/console", format("%s.log", DigestUtils.md5Hex(locatableEntity.entityLocator())));
     }
@@ -17,42 +17,101 @@ package com.thoughtworks.go.server.websocket;
 
 import com.thoughtworks.go.domain.ConsoleConsumer;
 import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.JobInstance;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
 import com.thoughtworks.go.server.dao.JobInstanceDao;
+import com.thoughtworks.go.server.domain.ConsoleLogAppendListener;
+import com.thoughtworks.go.server.domain.JobStatusListener;
 import com.thoughtworks.go.server.service.ConsoleService;
 import com.thoughtworks.go.server.util.Retryable;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.io.output.ProxyOutputStream;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.jetbrains.annotations.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPOutputStream;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Streams console logs to websockets. Logs of completed jobs are sent in full by the requesting thread. For running
+ * jobs, each socket is first caught up from its requested start line, after which it is subscribed to a single
+ * {@link JobConsoleTail} per job that reads newly appended lines once and sends the same (possibly gzipped) chunks to
+ * every subscribed socket. Tails are woken by {@link ConsoleService} appends and finished by job completion events
+ * (this is registered with {@code JobInstanceService} as a {@link JobStatusListener}), rather than each socket polling
+ * the file and the database.
+ * <p>
+ * Tails never write to sockets while holding their lock, or block on a socket at all. Each subscribed socket has its
+ * own bounded queue of chunks, sent one at a time without blocking, so a slow socket only holds up itself. A socket
+ * which falls too far behind is closed, so that the browser reconnects from the last line it received.
+ */
 @Component
-public class ConsoleLogSender {
+public class ConsoleLogSender implements ConsoleLogAppendListener, JobStatusListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleLogSender.class);
 
     private static final int LOG_DOES_NOT_EXIST = 4004;
     private static final int LOG_FILE_DOES_NOT_EXIST = 4410;
+    private static final int TOO_FAR_BEHIND = LOG_DOES_NOT_EXIST; // makes the browser reconnect from where it got to
     private static final int BUF_SIZE = 1024 * 1024; // 1MB
     private static final int FILL_INTERVAL_MILLIS = 500;
+    private static final int RECONCILE_INTERVAL_MILLIS = 5000;
 
     private final Charset charset;
     private final ConsoleService consoleService;
     private final JobInstanceDao jobInstanceDao;
+    private final ScheduledExecutorService executor;
+    private final int maxPendingBytes;
+    private final ConcurrentMap<String, JobConsoleTail> tails = new ConcurrentHashMap<>();
 
     @Autowired
     ConsoleLogSender(ConsoleService consoleService, JobInstanceDao jobInstanceDao, SystemEnvironment systemEnvironment) {
+        this(consoleService, jobInstanceDao, systemEnvironment, createExecutor(systemEnvironment));
+    }
+
+    @VisibleForTesting
+    ConsoleLogSender(ConsoleService consoleService, JobInstanceDao jobInstanceDao, SystemEnvironment systemEnvironment, ScheduledExecutorService executor) {
         this.consoleService = consoleService;
         this.jobInstanceDao = jobInstanceDao;
         this.charset = systemEnvironment.consoleLogCharset();
+        this.maxPendingBytes = systemEnvironment.get(SystemEnvironment.CONSOLE_LOG_SUBSCRIBER_MAX_PENDING_BYTES);
+        this.executor = executor;
+    }
+
+    private static ScheduledExecutorService createExecutor(SystemEnvironment systemEnvironment) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(systemEnvironment.get(SystemEnvironment.CONSOLE_LOG_BROADCAST_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "console-log-broadcaster-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    @PostConstruct
+    public void init() {
+        consoleService.registerAppendListener(this);
     }
 
     public void process(final SocketEndpoint webSocket, JobIdentifier jobIdentifier, long start) throws IllegalArtifactLocationException, IOException {
@@ -68,8 +127,6 @@ public class ConsoleLogSender {
             return;
         }
 
-        boolean isRunningBuild = !detectCompleted;
-
         // Sometimes the log file may not have been created yet; leave it up to the client to handle reconnect logic.
         try {
             waitForLogToExist(webSocket, jobIdentifier);
@@ -78,48 +135,101 @@ public class ConsoleLogSender {
             return;
         }
 
+        if (detectCompleted) {
+            sendCompletedLog(webSocket, jobIdentifier, start);
+        } else {
+            subscribe(webSocket, jobIdentifier, start);
+        }
+    }
+
+    private void sendCompletedLog(SocketEndpoint webSocket, JobIdentifier jobIdentifier, long start) throws IllegalArtifactLocationException, IOException {
         try (ConsoleConsumer streamer = consoleService.getStreamer(start, jobIdentifier)) {
-            do {
-                start += sendLogs(webSocket, streamer, jobIdentifier);
-
-                // allow buffers to fill to avoid sending 1 line at a time for running builds
-                if (isRunningBuild) {
-                    try {
-                        //noinspection BusyWait
-                        Thread.sleep(FILL_INTERVAL_MILLIS);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                }
-            } while (webSocket.isOpen() && !detectCompleted(jobIdentifier) && !Thread.currentThread().isInterrupted());
+            start += sendLogs(webSocket, streamer, jobIdentifier);
 
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Sent {} log lines for {} from {}", streamer.totalLinesConsumed(), jobIdentifier, consoleService.consoleLogFile(jobIdentifier).toPath());
-            }
-            // empty the tail end of the file because the build could have been marked completed, and exited the
-            // loop before we've seen the last content update
-            if (isRunningBuild) {
-                sendLogs(webSocket, streamer, jobIdentifier);
+                LOGGER.debug("Sent {} log lines for {} from {}", start, jobIdentifier, consoleService.consoleLogFile(jobIdentifier).toPath());
             }
+        } finally {
+            webSocket.close();
+        }
+    }
+
+    /**
+     * Catches the socket up to the current end of the log using its own streamer, and then hands it over to the shared
+     * tail of the job. The tail is brought up to date before the hand over, so that lines appended while the socket was
+     * catching up are sent exactly once, either as part of the catch-up or by the tail. Lines the socket still misses
+     * at that point are queued for it along with the ones read by the tail, rather than sent while holding the tail.
+     */
+    private void subscribe(SocketEndpoint webSocket, JobIdentifier jobIdentifier, long start) throws IllegalArtifactLocationException, IOException {
+        ConsoleConsumer catchUp = consoleService.getStreamer(start, jobIdentifier);
+        try {
+            long line = start + sendLogs(webSocket, catchUp, jobIdentifier);
+            Subscriber subscriber = new Subscriber(webSocket);
+
+            while (webSocket.isOpen()) {
+                JobConsoleTail tail = tails.computeIfAbsent(key(jobIdentifier), key -> new JobConsoleTail(key, jobIdentifier));
+                List<Subscriber> toFlush;
+                synchronized (tail) {
+                    if (tail.finished) {
+                        // lost a race with the tail being torn down, it has already been removed, so just try again
+                        continue;
+                    }
+
+                    if (tail.streamer == null) {
+                        tail.start(catchUp, line);
+                        catchUp = null;
+                    } else {
+                        tail.broadcast();
+                        if (line < tail.line) {
+                            streamInChunks(catchUp, jobIdentifier, tail.line - line, subscriber::offer);
+                        }
+                    }
+                    tail.subscribers.add(subscriber);
+                    toFlush = List.copyOf(tail.subscribers);
 
-            //send the remaining logs if any
-            if (detectCompleted(jobIdentifier)) {
-                try (ConsoleConsumer consoleFileStreamer = consoleService.getStreamer(start, jobIdentifier)) {
-                    start += sendLogs(webSocket, consoleFileStreamer, jobIdentifier);
                     if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug("Sent {} log lines for {} from {}", streamer.totalLinesConsumed(), jobIdentifier, consoleService.consoleLogFile(jobIdentifier).toPath());
+                        LOGGER.debug("Subscribed {} to log updates for {} at line {}", webSocket.key(), jobIdentifier, tail.line);
                     }
                 }
-            }
-
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Sent {} log lines for {} from all sources", start, jobIdentifier);
+                toFlush.forEach(Subscriber::flush);
+                return;
             }
         } finally {
-            webSocket.close();
+            if (catchUp != null) {
+                catchUp.close();
+            }
         }
     }
 
+    @Override
+    public void consoleLogAppended(JobIdentifier jobIdentifier) {
+        JobConsoleTail tail = tails.get(key(jobIdentifier));
+        if (tail != null) {
+            tail.appended();
+        }
+    }
+
+    @Override
+    public void jobStatusChanged(JobInstance job) {
+        if (!job.isCompleted()) {
+            return;
+        }
+        JobConsoleTail tail = tails.get(key(job.getIdentifier()));
+        if (tail != null) {
+            executor.execute(tail::completed);
+        }
+    }
+
+    @VisibleForTesting
+    int activeTails() {
+        return tails.size();
+    }
+
+    private static String key(JobIdentifier jobIdentifier) {
+        // the same key ConsoleService uses to locate the temporary console log of a running job
+        return jobIdentifier.entityLocator();
+    }
+
     private boolean doesLogExists(JobIdentifier jobIdentifier) {
         return consoleService.doesLogExist(jobIdentifier);
     }
@@ -133,8 +243,20 @@ public class ConsoleLogSender {
     }
 
     private long sendLogs(final SocketEndpoint webSocket, final ConsoleConsumer console, final JobIdentifier jobIdentifier) throws IOException {
+        return sendLogs(webSocket, console, jobIdentifier, Long.MAX_VALUE);
+    }
+
+    private long sendLogs(final SocketEndpoint webSocket, final ConsoleConsumer console, final JobIdentifier jobIdentifier, long maxLines) throws IOException {
+        return streamInChunks(console, jobIdentifier, maxLines, chunk -> webSocket.send(ByteBuffer.wrap(chunk)));
+    }
+
+    /**
+     * Reads up to {@code maxLines} lines from the console, hands them to the sink in chunks of at most {@link #BUF_SIZE}
+     * bytes, each gzipped if large enough, and returns the number of lines read.
+     */
+    private long streamInChunks(final ConsoleConsumer console, final JobIdentifier jobIdentifier, long maxLines, ChunkSink sink) throws IOException {
         final ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUF_SIZE);
-        final OutputStream proxyOutputStream = new AutoFlushingStream(buffer, webSocket, BUF_SIZE);
+        final OutputStream proxyOutputStream = new AutoFlushingStream(buffer, sink, BUF_SIZE);
         long linesProcessed = console.stream(line -> {
             try {
                 byte[] bytes = line.getBytes(charset);
@@ -145,17 +267,17 @@ public class ConsoleLogSender {
             } catch (IOException e) {
                 LOGGER.error("Failed to send log line {} for {}", console.totalLinesConsumed(), jobIdentifier, e);
             }
-        });
+        }, maxLines);
 
-        flushBuffer(buffer, webSocket);
+        flushBuffer(buffer, sink);
         return linesProcessed;
     }
 
-    private void flushBuffer(ByteArrayOutputStream buffer, SocketEndpoint webSocket) throws IOException {
+    private void flushBuffer(ByteArrayOutputStream buffer, ChunkSink sink) throws IOException {
         if (buffer.size() == 0) {
             return;
         }
-        webSocket.send(ByteBuffer.wrap(maybeGzipIfLargeEnough(buffer.toByteArray())));
+        sink.accept(maybeGzipIfLargeEnough(buffer.toByteArray()));
         buffer.reset();
     }
 
@@ -173,16 +295,275 @@ public class ConsoleLogSender {
         return gzipBytes.toByteArray();
     }
 
+    private interface ChunkSink {
+        void accept(byte[] chunk) throws IOException;
+    }
+
+    /**
+     * The single reader of the log of a running job, shared by every socket viewing it. All state is guarded by the
+     * tail's monitor, which is never held while writing to sockets: chunks are queued for each subscriber under the
+     * monitor, and the subscribers are flushed once it has been released.
+     */
+    private class JobConsoleTail {
+        private final String key;
+        private final JobIdentifier jobIdentifier;
+        private final List<Subscriber> subscribers = new ArrayList<>();
+
+        private ConsoleConsumer streamer;
+        private long line;
+        private boolean finished;
+        private boolean broadcastScheduled;
+        private ScheduledFuture<?> reconciliation;
+
+        private JobConsoleTail(String key, JobIdentifier jobIdentifier) {
+            this.key = key;
+            this.jobIdentifier = jobIdentifier;
+        }
+
+        private synchronized void start(ConsoleConsumer streamer, long line) {
+            this.streamer = streamer;
+            this.line = line;
+            // safety net for appends which bypass ConsoleService and for completions which raced with subscription
+            this.reconciliation = executor.scheduleWithFixedDelay(this::reconcile, RECONCILE_INTERVAL_MILLIS, RECONCILE_INTERVAL_MILLIS, MILLISECONDS);
+        }
+
+        /**
+         * Coalesces bursts of appends into a single read, allowing the buffer to fill rather than sending 1 line at a time.
+         */
+        private synchronized void appended() {
+            if (finished || broadcastScheduled) {
+                return;
+            }
+            broadcastScheduled = true;
+            executor.schedule(() -> {
+                List<Subscriber> toFlush;
+                synchronized (this) {
+                    broadcastScheduled = false;
+                    toFlush = broadcastToOpenSubscribers();
+                }
+                toFlush.forEach(Subscriber::flush);
+            }, FILL_INTERVAL_MILLIS, MILLISECONDS);
+        }
+
+        private void reconcile() {
+            List<Subscriber> toFlush;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                toFlush = broadcastToOpenSubscribers();
+            }
+            toFlush.forEach(Subscriber::flush);
+            if (!isFinished() && detectCompleted(jobIdentifier)) {
+                completed();
+            }
+        }
+
+        /**
+         * Sends any remaining lines and closes all subscribers once they have been sent. The log may have been moved to
+         * its final location once the job completed, so whatever the open streamer could not see is read from wherever
+         * the log is now.
+         */
+        private void completed() {
+            List<Subscriber> toClose;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                broadcastQuietly();
+                try (ConsoleConsumer remaining = consoleService.getStreamer(line, jobIdentifier)) {
+                    line += broadcastFrom(remaining);
+                } catch (IllegalArtifactLocationException | IOException | UncheckedIOException e) {
+                    LOGGER.error("Failed to send the remaining log lines for {}", jobIdentifier, e);
+                }
+
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Sent {} log lines for {} to {} subscribers", line, jobIdentifier, subscribers.size());
+                }
+                toClose = List.copyOf(subscribers);
+                finish();
+            }
+            toClose.forEach(Subscriber::closeOnceSent);
+        }
+
+        private synchronized boolean isFinished() {
+            return finished;
+        }
+
+        private void broadcast() throws IOException {
+            line += broadcastFrom(streamer);
+        }
+
+        private void broadcastQuietly() {
+            try {
+                broadcast();
+            } catch (IOException | UncheckedIOException e) {
+                LOGGER.error("Failed to read log lines for {}", jobIdentifier, e);
+            }
+        }
+
+        /**
+         * @return the subscribers which were queued lines, to be flushed once the monitor has been released
+         */
+        private List<Subscriber> broadcastToOpenSubscribers() {
+            broadcastQuietly();
+            List<Subscriber> toFlush = List.copyOf(subscribers);
+            subscribers.removeIf(subscriber -> !subscriber.isOpen());
+            if (subscribers.isEmpty()) {
+                finish();
+            }
+            return toFlush;
+        }
+
+        private long broadcastFrom(ConsoleConsumer console) throws IOException {
+            return streamInChunks(console, jobIdentifier, Long.MAX_VALUE, chunk -> {
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.offer(chunk);
+                }
+            });
+        }
+
+        private void finish() {
+            finished = true;
+            tails.remove(key, this);
+            if (reconciliation != null) {
+                reconciliation.cancel(false);
+            }
+            if (streamer != null) {
+                streamer.close();
+            }
+            subscribers.clear();
+        }
+    }
+
+    /**
+     * A socket subscribed to a tail along with the chunks queued for it, which are sent one at a time without blocking.
+     * Once more than {@link #maxPendingBytes} are waiting to be sent, the queue is dropped and the socket is closed.
+     */
+    private class Subscriber implements WriteCallback {
+        private final SocketEndpoint socket;
+        private final Deque<ByteBuffer> pending = new ArrayDeque<>();
+        private long pendingBytes;
+        private boolean writing;
+        private boolean flushing;
+        private boolean closing;
+        private boolean tooFarBehind;
+        private boolean closed;
+
+        private Subscriber(SocketEndpoint socket) {
+            this.socket = socket;
+        }
+
+        private synchronized void offer(byte[] chunk) {
+            if (closing) {
+                return;
+            }
+            if (pendingBytes + chunk.length > maxPendingBytes) {
+                pending.clear();
+                pendingBytes = 0;
+                tooFarBehind = true;
+                closing = true;
+                return;
+            }
+            pending.add(ByteBuffer.wrap(chunk).asReadOnlyBuffer());
+            pendingBytes += chunk.length;
+        }
+
+        private void closeOnceSent() {
+            synchronized (this) {
+                closing = true;
+            }
+            flush();
+        }
+
+        private boolean isOpen() {
+            synchronized (this) {
+                if (tooFarBehind || closed) {
+                    return false;
+                }
+            }
+            return socket.isOpen();
+        }
+
+        /**
+         * Starts sending the queued chunks, unless a chunk is already being sent. Writes which complete straight away
+         * are followed up by this loop rather than from their callback, so as not to recurse. A socket which fell too
+         * far behind is closed straight away, without waiting for a write which may never complete.
+         */
+        private void flush() {
+            synchronized (this) {
+                if (flushing) {
+                    return;
+                }
+                flushing = true;
+            }
+            while (true) {
+                ByteBuffer next;
+                synchronized (this) {
+                    if (closed || (writing && !tooFarBehind)) {
+                        flushing = false;
+                        return;
+                    }
+                    next = tooFarBehind ? null : pending.poll();
+                    if (next == null) {
+                        flushing = false;
+                        if (!closing) {
+                            return;
+                        }
+                        closed = true;
+                    } else {
+                        pendingBytes -= next.remaining();
+                        writing = true;
+                    }
+                }
+
+                if (next == null) {
+                    if (tooFarBehind) {
+                        LOGGER.debug("{} fell too far behind the console log, closing it", socket.key());
+                        socket.close(TOO_FAR_BEHIND, "Console log updates were not being received fast enough");
+                    } else {
+                        socket.close();
+                    }
+                    return;
+                }
+                socket.send(next, this);
+            }
+        }
+
+        @Override
+        public void writeSuccess() {
+            synchronized (this) {
+                writing = false;
+                if (flushing) {
+                    return;
+                }
+            }
+            flush();
+        }
+
+        @Override
+        public void writeFailed(Throwable x) {
+            synchronized (this) {
+                writing = false;
+                closed = true;
+                pending.clear();
+                pendingBytes = 0;
+            }
+            LOGGER.debug("Failed to send log lines to {}, closing it", socket.key(), x);
+            socket.close();
+        }
+    }
+
     // Flushes stream just before it becomes larger than `bufSize`
     private class AutoFlushingStream extends ProxyOutputStream {
         private final ByteArrayOutputStream buffer;
-        private final SocketEndpoint webSocket;
+        private final ChunkSink sink;
         private final int bufSize;
 
-        public AutoFlushingStream(ByteArrayOutputStream buffer, SocketEndpoint webSocket, int bufSize) {
+        public AutoFlushingStream(ByteArrayOutputStream buffer, ChunkSink sink, int bufSize) {
             super(buffer);
             this.buffer = buffer;
-            this.webSocket = webSocket;
+            this.sink = sink;
             this.bufSize = bufSize;
         }
 
@@ -198,7 +579,7 @@ public class ConsoleLogSender {
 
         private void maybeFlush(int n) throws IOException {
             if (buffer.size() + n >= bufSize) {
-                flushBuffer(buffer, webSocket);
+                flushBuffer(buffer, sink);
             }
         }
     }
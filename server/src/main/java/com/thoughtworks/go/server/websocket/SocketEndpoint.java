@@ -15,12 +15,19 @@
  */
 package com.thoughtworks.go.server.websocket;
 
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
 public interface SocketEndpoint {
     void send(ByteBuffer data) throws IOException;
 
+    /**
+     * Sends without blocking, calling back once the data has been written or the write has failed.
+     */
+    void send(ByteBuffer data, WriteCallback callback);
+
     void ping() throws IOException;
 
     boolean isOpen();
@@ -29,6 +29,7 @@ import com.thoughtworks.go.server.service.*;
 import com.thoughtworks.go.server.transaction.TransactionCallback;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -135,7 +136,7 @@ public class MaterialDatabaseUpdaterIntegrationTest {
     private class MaterialServiceWhichSlowsDownFirstTimeModificationCheck extends MaterialService {
         public MaterialServiceWhichSlowsDownFirstTimeModificationCheck(MaterialRepository materialRepository, GoConfigService goConfigService, SecurityService securityService,
                                                                        PackageRepositoryExtension packageRepositoryExtension, SCMExtension scmExtension) {
-            super(materialRepository, goConfigService, securityService, packageRepositoryExtension, scmExtension, transactionTemplate, secretParamResolver);
+            super(materialRepository, goConfigService, securityService, packageRepositoryExtension, scmExtension, transactionTemplate, secretParamResolver, new SystemEnvironment());
         }
 
         @Override
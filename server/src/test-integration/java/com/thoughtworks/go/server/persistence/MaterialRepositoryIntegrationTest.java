@@ -1236,6 +1236,32 @@ public class MaterialRepositoryIntegrationTest {
         assertThat(goCache.get(key, subKey)).isNotNull();
     }
 
+    @Test
+    public void shouldSetGeneratedIdsAndPersistModifiedFilesWhenSavingModificationsInBatches() {
+        GitMaterial material = new GitMaterial(UUID.randomUUID().toString(), "branch");
+        final MaterialInstance materialInstance = repo.findOrCreateFrom(material);
+        final List<Modification> modifications = getModifications(1500);
+        modifications.get(0).createModifiedFile("newest.txt", "folder", ModifiedAction.modified);
+        modifications.get(1499).createModifiedFile("oldest.txt", null, ModifiedAction.added);
+        modifications.get(1499).createModifiedFile("gone.txt", "folder", ModifiedAction.deleted);
+        transactionTemplate.execute(status -> {
+            repo.saveModifications(materialInstance, modifications);
+            return null;
+        });
+
+        assertThat(repo.getTotalModificationsFor(materialInstance)).isEqualTo(1500L);
+        assertThat(modifications).allMatch(Modification::hasId);
+        assertThat(modifications.get(0).getId()).isGreaterThan(modifications.get(1499).getId());
+
+        Modification oldest = repo.findModificationWithRevision(material, "r1499");
+        assertThat(oldest.getId()).isEqualTo(modifications.get(1499).getId());
+        assertThat(oldest.getModifiedFiles()).containsExactly(
+            new ModifiedFile("oldest.txt", null, ModifiedAction.added),
+            new ModifiedFile("gone.txt", "folder", ModifiedAction.deleted));
+        assertThat(repo.findModificationWithRevision(material, "r0").getModifiedFiles()).containsExactly(
+            new ModifiedFile("newest.txt", "folder", ModifiedAction.modified));
+    }
+
     //Slow test - takes ~1 min to run. Will remove if it causes issues. - Jyoti
     @Test
     public void shouldBeAbleToHandleLargeNumberOfModifications() {
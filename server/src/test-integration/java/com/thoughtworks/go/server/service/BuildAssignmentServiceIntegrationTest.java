@@ -76,7 +76,8 @@ import static com.thoughtworks.go.helper.MaterialConfigsMother.hg;
 import static com.thoughtworks.go.helper.ModificationsMother.modifyNoFiles;
 import static com.thoughtworks.go.helper.ModificationsMother.modifySomeFiles;
 import static com.thoughtworks.go.util.GoConstants.DEFAULT_APPROVED_BY;
-import static com.thoughtworks.go.util.TestUtils.sleepQuietly;
+import static com.thoughtworks.go.util.TestUtils.doInterruptiblyQuietlyRethrowInterrupt;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -381,7 +382,7 @@ public class BuildAssignmentServiceIntegrationTest {
     }
 
     @Test
-    public void shouldNotReloadScheduledJobPlansWhenAgentWorkAssignmentIsInProgress() throws Exception {
+    public void shouldNotBringBackAClaimedJobPlanWhenReloadingWhileItsAssignmentIsInProgress() throws Exception {
         pipelineFixture.createPipelineWithFirstStageScheduled();
         Pipeline pipeline = pipelineDao.mostRecentPipeline(pipelineFixture.pipelineName);
         JobInstance job = pipeline.getFirstStage().getJobInstances().getFirst();
@@ -389,17 +390,19 @@ public class BuildAssignmentServiceIntegrationTest {
         final JobInstanceService mockJobInstanceService = mock(JobInstanceService.class);
 
         final Pipeline pipeline1 = pipeline;
-        final Semaphore sem = new Semaphore(1);
-        sem.acquire();
+        final Semaphore claimed = new Semaphore(0);
+        final Semaphore reloaded = new Semaphore(0);
         when(mockJobInstanceService.orderedScheduledBuilds()).thenReturn(jobInstanceService.orderedScheduledBuilds());
+        when(mockJobInstanceService.orderedScheduledBuildIds()).thenReturn(jobInstanceService.orderedScheduledBuildIds());
+        when(mockJobInstanceService.scheduledPlan(job.getId())).thenReturn(jobInstanceService.scheduledPlan(job.getId()));
         when(mockJobInstanceService.buildByIdWithTransitions(job.getId())).thenReturn(jobInstanceService.buildByIdWithTransitions(job.getId()));
 
         ScheduledPipelineLoader scheduledPipelineLoader = new ScheduledPipelineLoader(null, null, null, null, null, null, null) {
             @Override
             public Pipeline pipelineWithPasswordAwareBuildCauseByBuildId(long buildId) {
-                sem.release();
-                sleepQuietly(1000);
-                verify(mockJobInstanceService, times(1)).orderedScheduledBuilds();
+                // the job has been claimed, but its assignment is not in the database yet
+                claimed.release();
+                doInterruptiblyQuietlyRethrowInterrupt(() -> assertThat(reloaded.tryAcquire(10, SECONDS)).isTrue());
                 return pipeline1;
             }
         };
@@ -410,6 +413,7 @@ public class BuildAssignmentServiceIntegrationTest {
 
         final Throwable[] fromThread = new Throwable[1];
         buildAssignmentServiceUnderTest.onTimer();
+        assertThat(buildAssignmentServiceUnderTest.jobPlans()).extracting(JobPlan::getJobId).containsExactly(job.getId());
 
         Thread assigner = new Thread(() -> {
             try {
@@ -422,10 +426,14 @@ public class BuildAssignmentServiceIntegrationTest {
         }, "assignmentThread");
         assigner.start();
 
-        sem.acquire();
-        buildAssignmentServiceUnderTest.onTimer();
-
-        assigner.join();
+        try {
+            assertThat(claimed.tryAcquire(10, SECONDS)).isTrue();
+            buildAssignmentServiceUnderTest.onTimer();
+            assertThat(buildAssignmentServiceUnderTest.jobPlans()).extracting(JobPlan::getJobId).doesNotContain(job.getId());
+        } finally {
+            reloaded.release();
+            assigner.join();
+        }
         assertThat(fromThread[0]).isNull();
     }
 
@@ -33,6 +33,7 @@ import java.util.Date;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 public class FullConfigSaveNormalFlowTest {
@@ -137,4 +138,35 @@ public class FullConfigSaveNormalFlowTest {
         inOrder.verify(fileWriter).writeToConfigXmlFile(any());
         inOrder.verify(cachedGoPartials).markAsValid(partials);
     }
+
+    @Test
+    public void shouldOnlyValidateChangesSinceTheLastSaveWhenIncrementalValidationIsEnabled() throws Exception {
+        flow = new FullConfigSaveNormalFlow(loader, writer, configElementImplementationRegistry, timeProvider,
+                configRepository, cachedGoPartials, fileWriter, true, 1000);
+        CruiseConfig fullyValidated = new BasicCruiseConfig();
+        when(loader.preprocessAndValidate(configForEdit)).thenReturn(fullyValidated);
+        when(loader.preprocessAndValidate(configForEdit, fullyValidated)).thenReturn(new BasicCruiseConfig());
+        when(timeProvider.currentTimeMillis()).thenReturn(5000L, 5999L, 6000L);
+
+        flow.execute(updateConfigCommand, partials, null);
+        flow.execute(updateConfigCommand, partials, null);
+        verify(loader).preprocessAndValidate(configForEdit);
+        verify(loader).preprocessAndValidate(configForEdit, fullyValidated);
+
+        flow.execute(updateConfigCommand, partials, null);
+        verify(loader, times(2)).preprocessAndValidate(configForEdit);
+    }
+
+    @Test
+    public void shouldValidateTheWholeConfigAgainAfterAFailedSave() throws Exception {
+        flow = new FullConfigSaveNormalFlow(loader, writer, configElementImplementationRegistry, timeProvider,
+                configRepository, cachedGoPartials, fileWriter, true, 1000);
+        when(loader.preprocessAndValidate(configForEdit)).thenThrow(new RuntimeException("invalid")).thenReturn(new BasicCruiseConfig());
+
+        assertThatThrownBy(() -> flow.execute(updateConfigCommand, partials, null)).hasMessage("invalid");
+        flow.execute(updateConfigCommand, partials, null);
+
+        verify(loader, times(2)).preprocessAndValidate(configForEdit);
+        verify(loader, never()).preprocessAndValidate(eq(configForEdit), any());
+    }
 }
@@ -59,6 +59,14 @@ public class ConsoleLogArtifactHandlerTest {
         verify(consoleService, never()).moveConsoleArtifacts(buildingJobInstance.getIdentifier());
     }
 
+    @Test
+    public void shouldDiscardLineIndexOfConsoleLogWhenJobIsRescheduled() {
+        JobInstance rescheduledJobInstance = JobInstanceMother.rescheduled("job", "agent");
+        handler.jobStatusChanged(rescheduledJobInstance);
+        verify(consoleService).discardLineIndex(rescheduledJobInstance.getIdentifier());
+        verify(consoleService, never()).moveConsoleArtifacts(rescheduledJobInstance.getIdentifier());
+    }
+
     @Test
     public void shouldNotMoveConsoleArtifactWhenJobIsNotYetCompleted() {
         completedJobInstance.setOriginalJobId(null);
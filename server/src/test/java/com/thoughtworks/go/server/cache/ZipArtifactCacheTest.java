@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.cache;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
 import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TestFileUtil;
 import com.thoughtworks.go.util.ZipUtil;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,10 +28,12 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 import static com.thoughtworks.go.util.TestUtils.doInterruptiblyQuietlyRethrowInterrupt;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -42,6 +45,8 @@ public class ZipArtifactCacheTest {
     private static final String JOB_FOLDERS = "pipelines/pipeline-name/label-111/stage-name/1/job-name/666";
 
     private ZipArtifactCache zipArtifactCache;
+    private ArtifactsDirHolder artifactsDirHolder;
+    private SystemEnvironment systemEnvironment;
     @TempDir
     File folder;
     private ArtifactFolder artifactFolder;
@@ -53,9 +58,14 @@ public class ZipArtifactCacheTest {
         TestFileUtil.createTestFolder(artifact, "dir");
         TestFileUtil.createTestFile(artifact, "dir/file1");
 
-        ArtifactsDirHolder artifactsDirHolder = mock(ArtifactsDirHolder.class);
+        artifactsDirHolder = mock(ArtifactsDirHolder.class);
         when(artifactsDirHolder.getArtifactsDir()).thenReturn(folder);
-        zipArtifactCache = new ZipArtifactCache(artifactsDirHolder, new ZipUtil());
+        systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_CREATION_THREADS)).thenReturn(2);
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_CREATION_QUEUE_SIZE)).thenReturn(20);
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_MAX_SIZE_IN_BYTES)).thenReturn(Long.MAX_VALUE);
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_EVICTION_GRACE_PERIOD_IN_MILLIS)).thenReturn(0L);
+        zipArtifactCache = new ZipArtifactCache(artifactsDirHolder, new ZipUtil(), systemEnvironment);
         artifactFolder = new ArtifactFolder(JOB_IDENTIFIER, new File(artifact, "dir"), "dir");
     }
 
@@ -111,7 +121,102 @@ public class ZipArtifactCacheTest {
         assertThat(new File(cacheDir, "dir/file1")).exists();
     }
 
+    @Test
+    public void shouldEvictLeastRecentlyUsedZipsWhenCacheGrowsBeyondMaxSize() throws Exception {
+        ArtifactFolder first = anotherArtifactFolder("a");
+        ArtifactFolder second = anotherArtifactFolder("b");
+        ArtifactFolder third = anotherArtifactFolder("c");
+        ArtifactFolder fourth = anotherArtifactFolder("d");
+        waitForCacheCreated(first);
+        waitForCacheCreated(second);
+        waitForCacheCreated(third);
+        assertThat(zipArtifactCache.cacheCreated(first)).isTrue();
+
+        long zipSize = zipArtifactCache.cachedFile(first).length();
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_MAX_SIZE_IN_BYTES)).thenReturn(3 * zipSize + zipSize / 2);
+        waitForCacheCreated(fourth);
+
+        assertThat(zipArtifactCache.cachedFile(second)).doesNotExist();
+        assertThat(zipArtifactCache.cachedFile(first)).exists();
+        assertThat(zipArtifactCache.cachedFile(third)).exists();
+        assertThat(zipArtifactCache.cachedFile(fourth)).exists();
+        assertThat(zipArtifactCache.statistics().evicted()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotEvictZipsUsedWithinTheGracePeriodAsTheyMayBeAboutToBeDownloaded() throws Exception {
+        ArtifactFolder first = anotherArtifactFolder("a");
+        ArtifactFolder second = anotherArtifactFolder("b");
+        ArtifactFolder third = anotherArtifactFolder("c");
+        waitForCacheCreated(first);
+        waitForCacheCreated(second);
+
+        long zipSize = zipArtifactCache.cachedFile(first).length();
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_MAX_SIZE_IN_BYTES)).thenReturn(zipSize + zipSize / 2);
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_EVICTION_GRACE_PERIOD_IN_MILLIS)).thenReturn(MINUTES.toMillis(1));
+        waitForCacheCreated(third);
+
+        assertThat(zipArtifactCache.cachedFile(first)).exists();
+        assertThat(zipArtifactCache.cachedFile(second)).exists();
+        assertThat(zipArtifactCache.cachedFile(third)).exists();
+        assertThat(zipArtifactCache.statistics().evicted()).isZero();
+    }
+
+    @Test
+    public void shouldCountZipsCachedBeforeTheServerStartedTowardsTheMaxSize() throws Exception {
+        ArtifactFolder first = anotherArtifactFolder("a");
+        ArtifactFolder second = anotherArtifactFolder("b");
+        waitForCacheCreated(first);
+        long zipSize = zipArtifactCache.cachedFile(first).length();
+
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_MAX_SIZE_IN_BYTES)).thenReturn(zipSize + zipSize / 2);
+        zipArtifactCache = new ZipArtifactCache(artifactsDirHolder, new ZipUtil(), systemEnvironment);
+        waitForCacheCreated(second);
+
+        assertThat(zipArtifactCache.cachedFile(first)).doesNotExist();
+        assertThat(zipArtifactCache.cachedFile(second)).exists();
+        assertThat(zipArtifactCache.statistics().evicted()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldTurnAwayRequestsWhileAllCreatorsAndTheQueueAreBusy() throws Exception {
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_CREATION_THREADS)).thenReturn(1);
+        when(systemEnvironment.get(SystemEnvironment.ARTIFACT_ZIP_CACHE_CREATION_QUEUE_SIZE)).thenReturn(1);
+        CountDownLatch release = new CountDownLatch(1);
+        zipArtifactCache = new ZipArtifactCache(artifactsDirHolder, new ZipUtil(), systemEnvironment) {
+            @Override
+            void createCachedFile(ArtifactFolder artifactFolder) throws IOException {
+                doInterruptiblyQuietlyRethrowInterrupt(release::await);
+                super.createCachedFile(artifactFolder);
+            }
+        };
+        ArtifactFolder queued = anotherArtifactFolder("a");
+        ArtifactFolder turnedAway = anotherArtifactFolder("b");
+
+        assertThat(zipArtifactCache.cacheCreated(artifactFolder)).isFalse();
+        assertThat(zipArtifactCache.cacheCreated(queued)).isFalse();
+        assertThat(zipArtifactCache.cacheCreated(turnedAway)).isFalse();
+
+        assertThat(zipArtifactCache.statistics().rejected()).isEqualTo(1);
+        assertThat(zipArtifactCache.statistics().pending()).isEqualTo(2);
+
+        release.countDown();
+        waitForCacheCreated(turnedAway);
+        assertThat(zipArtifactCache.statistics().misses()).isEqualTo(3);
+    }
+
+    private ArtifactFolder anotherArtifactFolder(String name) throws IOException {
+        File artifact = new File(folder, JOB_FOLDERS);
+        TestFileUtil.createTestFolder(artifact, name);
+        TestFileUtil.createTestFile(artifact, name + "/file1");
+        return new ArtifactFolder(JOB_IDENTIFIER, new File(artifact, name), name);
+    }
+
     private void waitForCacheCreated() throws Exception {
+        waitForCacheCreated(artifactFolder);
+    }
+
+    private void waitForCacheCreated(ArtifactFolder artifactFolder) throws Exception {
         long waitUntil = System.currentTimeMillis() + SECONDS.toMillis(2);
         while (System.currentTimeMillis() <= waitUntil && !zipArtifactCache.cacheCreated(artifactFolder)) {
             Thread.sleep(10);
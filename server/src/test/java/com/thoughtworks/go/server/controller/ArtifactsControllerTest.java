@@ -33,8 +33,11 @@ import org.springframework.mock.web.MockMultipartHttpServletRequest;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.Properties;
 
 import static com.thoughtworks.go.remote.StandardHeaders.REQUEST_CONFIRM_MODIFICATION;
 import static com.thoughtworks.go.util.GoConstants.*;
@@ -77,7 +80,7 @@ public class ArtifactsControllerTest {
         String path = "cruise-output/console.log";
         File artifactFile = new File("junk");
         when(consoleService.consoleLogFile(jobIdentifier)).thenReturn(artifactFile);
-        when(consoleService.appendToConsoleLogIoSafe(eq(artifactFile), any())).thenReturn(true);
+        when(consoleService.appendToConsoleLogIoSafe(eq(jobIdentifier), eq(artifactFile), any())).thenReturn(true);
         assertThat(((ResponseCodeView) artifactsController.putArtifact("pipeline", "10", "stage", "2", "build", 103L, path, "agent-id", request).getView()).getStatusCode()).isEqualTo(HttpURLConnection.HTTP_OK);
         verify(consoleActivityMonitor).consoleUpdatedFor(jobIdentifier);
     }
@@ -117,6 +120,62 @@ public class ArtifactsControllerTest {
         assertThat(view.getContent()).isEqualTo("Error saving checksum file for the artifact at path 'some-path'");
     }
 
+    @Test
+    public void shouldSaveAStreamedArtifactAndAppendItsChecksumsToTheChecksumFile() throws Exception {
+        File artifactFile = new File("junk");
+        JobIdentifier jobIdentifier = new JobIdentifier("pipeline-1", 1, "1", "stage-1", "2", "job-1", 122L);
+        when(restfulService.findJob("pipeline-1", "1", "stage-1", "2", "job-1", 122L)).thenReturn(jobIdentifier);
+        when(artifactService.findArtifact(any(), eq("some-path"))).thenReturn(artifactFile);
+        Properties checksums = new Properties();
+        checksums.setProperty("some-path/file.txt", "md5");
+        when(artifactService.saveStreamedZip(eq(artifactFile), eq("some-path"), any(InputStream.class), eq(2))).thenReturn(checksums);
+        when(artifactService.saveOrAppendFile(any(), any())).thenAnswer(invocation -> {
+            Properties appended = new Properties();
+            appended.load(invocation.<InputStream>getArgument(1));
+            return appended.equals(checksums);
+        });
+
+        ModelAndView modelAndView = artifactsController.postStreamedArtifact("pipeline-1", "1", "stage-1", "2", "job-1", 122L, "some-path", 2, newStreamedZipRequest());
+
+        assertThat(((ResponseCodeView) modelAndView.getView()).getStatusCode()).isEqualTo(HTTP_CREATED);
+        verify(artifactService).saveOrAppendFile(any(), any(ByteArrayInputStream.class));
+    }
+
+    @Test
+    public void shouldReturnHttpErrorCodeForTheAgentToRetryWhenAStreamedArtifactDoesNotMatchItsChecksums() throws Exception {
+        File artifactFile = new File("junk");
+        JobIdentifier jobIdentifier = new JobIdentifier("pipeline-1", 1, "1", "stage-1", "2", "job-1", 122L);
+        when(restfulService.findJob("pipeline-1", "1", "stage-1", "2", "job-1", 122L)).thenReturn(jobIdentifier);
+        when(artifactService.findArtifact(any(), eq("some-path"))).thenReturn(artifactFile);
+        when(artifactService.saveStreamedZip(eq(artifactFile), eq("some-path"), any(InputStream.class), eq(1))).thenReturn(null);
+
+        ModelAndView modelAndView = artifactsController.postStreamedArtifact("pipeline-1", "1", "stage-1", "2", "job-1", 122L, "some-path", 1, newStreamedZipRequest());
+
+        ResponseCodeView view = (ResponseCodeView) modelAndView.getView();
+        assertThat(view.getStatusCode()).isEqualTo(HTTP_INTERNAL_ERROR);
+        assertThat(view.getContent()).isEqualTo("Error saving file some-path");
+        verify(artifactService, never()).saveOrAppendFile(any(), any());
+    }
+
+    @Test
+    public void shouldReturnBadRequestIfRequiredHeadersAreMissingOnAStreamedArtifactRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContentType(ZIP_STREAM_CONTENT_TYPE);
+
+        ModelAndView modelAndView = artifactsController.postStreamedArtifact("pipeline-1", "1", "stage-1", "2", "job-1", 122L, "some-path", 1, request);
+
+        assertThat(((ResponseCodeView) modelAndView.getView()).getStatusCode()).isEqualTo(HTTP_BAD_REQUEST);
+        verifyNoInteractions(artifactService);
+    }
+
+    private static MockHttpServletRequest newStreamedZipRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(REQUEST_CONFIRM_MODIFICATION, true);
+        request.setContentType(ZIP_STREAM_CONTENT_TYPE);
+        request.setContent("zip-content".getBytes());
+        return request;
+    }
+
     private static MockMultipartHttpServletRequest newMultiPartRequest() {
         MockMultipartHttpServletRequest mockMultipartHttpServletRequest = new MockMultipartHttpServletRequest();
         mockMultipartHttpServletRequest.addHeader(REQUEST_CONFIRM_MODIFICATION, true);
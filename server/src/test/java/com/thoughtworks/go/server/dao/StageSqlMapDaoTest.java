@@ -20,8 +20,7 @@ import com.rits.cloning.Cloner;
 import com.thoughtworks.go.domain.Stage;
 import com.thoughtworks.go.domain.StageIdentifier;
 import com.thoughtworks.go.helper.StageMother;
-import com.thoughtworks.go.presentation.pipelinehistory.StageHistoryEntry;
-import com.thoughtworks.go.presentation.pipelinehistory.StageHistoryPage;
+import com.thoughtworks.go.presentation.pipelinehistory.*;
 import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.server.domain.StageIdentity;
 import com.thoughtworks.go.server.service.StubGoCache;
@@ -97,8 +96,10 @@ class StageSqlMapDaoTest {
         when(function.get()).thenReturn(pagination);
         StageSqlMapDao spy = spy(stageSqlMapDao);
         StageHistoryEntry topOfThisPage = mock(StageHistoryEntry.class);
+        when(topOfThisPage.copy()).thenReturn(topOfThisPage);
         List<StageHistoryEntry> expectedStageHistoryEntriesList = List.of(topOfThisPage);
         StageHistoryEntry bottomOfLastPage = mock(StageHistoryEntry.class);
+        when(bottomOfLastPage.copy()).thenReturn(bottomOfLastPage);
         doReturn(expectedStageHistoryEntriesList).when(spy).findStages(pagination, pipelineName, stageName);
         doReturn(bottomOfLastPage).when(spy).findImmediateChronologicallyForwardStageHistoryEntry(topOfThisPage);
 
@@ -111,6 +112,20 @@ class StageSqlMapDaoTest {
         verify(spy, times(1)).findImmediateChronologicallyForwardStageHistoryEntry(expectedStageHistoryEntriesList.getFirst());
     }
 
+    @Test
+    void shouldShareCachedStageInstanceModelsAcrossCallsForStageHistoryViaCursor() {
+        StageInstanceModel stageInstanceModel = new StageInstanceModel("stage", "1", new JobHistory());
+        doReturn(List.of(stageInstanceModel)).when(sqlMapClientTemplate).queryForList(eq("getStageHistoryViaCursor"), any());
+
+        StageInstanceModels first = stageSqlMapDao.findDetailedStageHistoryViaCursor("pipeline", "stage", FeedModifier.Latest, 0, 10);
+        first.clear();
+        StageInstanceModels second = stageSqlMapDao.findDetailedStageHistoryViaCursor("pipeline", "stage", FeedModifier.Latest, 0, 10);
+
+        assertThat(second).hasSize(1);
+        assertThat(second.getFirst()).isSameAs(stageInstanceModel);
+        verify(sqlMapClientTemplate, times(1)).queryForList(eq("getStageHistoryViaCursor"), any());
+    }
+
     @Test
     void shouldLoadTheStageHistoryEntryNextInTimeFromAGivenStageHistoryEntry() {
         StageIdentifier stageIdentifier = mock(StageIdentifier.class);
@@ -18,13 +18,14 @@ package com.thoughtworks.go.server.dashboard;
 import com.thoughtworks.go.config.CaseInsensitiveString;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 
 import java.util.List;
 
 import static com.thoughtworks.go.server.dashboard.GoDashboardPipelineMother.pipeline;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNull;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.*;
 
 public class GoDashboardCacheTest {
     private GoDashboardCache cache;
@@ -84,6 +85,25 @@ public class GoDashboardCacheTest {
         assertThat(cache.allEntries().find(cis("pipeline5"))).isSameAs(pipeline5);
     }
 
+    @Test
+    public void shouldTellListenersAboutChangesUntilTheyAreRemoved() {
+        GoDashboardCacheListener listener = mock(GoDashboardCacheListener.class);
+        GoDashboardPipeline pipeline1 = pipeline("pipeline1");
+        cache.addListener(listener);
+
+        cache.put(pipeline1);
+        cache.remove(cis("pipeline1"));
+        cache.replaceAllEntriesInCacheWith(List.of(pipeline("pipeline2")));
+        cache.removeListener(listener);
+        cache.put(pipeline("pipeline3"));
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).pipelineUpdated(pipeline1);
+        inOrder.verify(listener).pipelineRemoved(cis("pipeline1"));
+        inOrder.verify(listener).allPipelinesReplaced();
+        verifyNoMoreInteractions(listener);
+    }
+
     private CaseInsensitiveString cis(String value) {
         return new CaseInsensitiveString(value);
     }
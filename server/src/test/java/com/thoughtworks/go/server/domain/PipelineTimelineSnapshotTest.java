@@ -0,0 +1,111 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import com.thoughtworks.go.helper.PipelineTimelineEntryMother;
+import com.thoughtworks.go.server.persistence.PipelineRepository;
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PipelineTimelineSnapshotTest {
+    private final ZonedDateTime now = ZonedDateTime.now();
+    private final List<String> materials = List.of("first", "second");
+    @TempDir
+    Path tempDir;
+    private PipelineRepository pipelineRepository;
+    private PipelineTimelineSnapshot snapshot;
+    private PipelineTimelineEntry first;
+    private PipelineTimelineEntry second;
+    private PipelineTimelineEntry third;
+
+    @BeforeEach
+    public void setUp() {
+        pipelineRepository = mock(PipelineRepository.class);
+        snapshot = new PipelineTimelineSnapshot(tempDir.resolve("pipeline-timeline.snapshot"));
+        first = PipelineTimelineEntryMother.timelineEntry(1, materials, List.of(now, now.plusMinutes(1)), 1, "111");
+        second = PipelineTimelineEntryMother.timelineEntry(2, materials, List.of(now.plusMinutes(2), now), 2, "222");
+        third = PipelineTimelineEntryMother.timelineEntry(3, materials, List.of(now.plusMinutes(1), now.plusMinutes(1)), 3, "333");
+    }
+
+    @Test
+    public void shouldOnlyLoadPipelinesNewerThanTheSnapshotFromTheDatabase() {
+        PipelineTimeline previousRun = timeline();
+        stubRepository(previousRun, -1, first, second);
+        previousRun.updateTimelineOnInit();
+
+        PipelineTimeline timeline = timeline();
+        when(pipelineRepository.hasPipelineInstance(2, "pipeline", 2)).thenReturn(true);
+        stubRepository(timeline, 2, third);
+        timeline.updateTimelineOnInit();
+
+        assertThat(timeline.maximumId()).isEqualTo(3L);
+        assertThat(timeline.getEntriesFor("pipeline")).containsExactly(first, second, third);
+        PipelineTimelineEntry loadedSecond = timeline.instanceFor(new CaseInsensitiveString("pipeline"), 1);
+        assertThat(loadedSecond.revisions()).isEqualTo(second.revisions());
+        assertThat(loadedSecond.naturalOrder()).isEqualTo(second.naturalOrder());
+        assertThat(timeline.runBefore(3, new CaseInsensitiveString("pipeline"))).isEqualTo(second);
+    }
+
+    @Test
+    public void shouldIgnoreSnapshotWhichDoesNotMatchTheDatabase() {
+        PipelineTimeline previousRun = timeline();
+        stubRepository(previousRun, -1, first, second);
+        previousRun.updateTimelineOnInit();
+
+        PipelineTimelineEntry onlyPipelineInDatabase = PipelineTimelineEntryMother.timelineEntry(1, materials, List.of(now, now), 1, "111");
+        PipelineTimeline timeline = timeline();
+        stubRepository(timeline, -1, onlyPipelineInDatabase);
+        timeline.updateTimelineOnInit();
+
+        assertThat(timeline.getEntriesFor("pipeline")).containsExactly(onlyPipelineInDatabase);
+        assertThat(snapshot.load()).containsExactly(onlyPipelineInDatabase);
+    }
+
+    @Test
+    public void shouldIgnoreCorruptSnapshot() throws Exception {
+        Files.writeString(tempDir.resolve("pipeline-timeline.snapshot"), "garbage");
+
+        assertThat(snapshot.load()).isEmpty();
+    }
+
+    private PipelineTimeline timeline() {
+        return new PipelineTimeline(pipelineRepository, mock(TransactionTemplate.class), mock(TransactionSynchronizationManager.class), snapshot);
+    }
+
+    private void stubRepository(PipelineTimeline timeline, long expectedMaximumId, PipelineTimelineEntry... entries) {
+        doAnswer(invocation -> {
+            assertThat(timeline.maximumId()).isEqualTo(expectedMaximumId);
+            for (PipelineTimelineEntry entry : entries) {
+                timeline.add(entry);
+            }
+            return null;
+        }).when(pipelineRepository).updatePipelineTimeline(eq(timeline), anyList());
+    }
+}
@@ -34,6 +34,7 @@ import com.thoughtworks.go.server.service.*;
 import com.thoughtworks.go.server.service.support.ResourceMonitoring;
 import com.thoughtworks.go.server.service.support.toggle.FeatureToggleService;
 import com.thoughtworks.go.server.service.support.toggle.Toggles;
+import com.thoughtworks.go.server.valuestreammap.ValueStreamMapCache;
 import com.thoughtworks.go.service.ConfigRepository;
 import com.thoughtworks.go.util.ReflectionUtil;
 import org.junit.jupiter.api.BeforeEach;
@@ -112,6 +113,8 @@ public class ApplicationInitializerTest {
     @Mock
     private GoDashboardActivityListener dashboardActivityListener;
     @Mock
+    private ValueStreamMapCache valueStreamMapCache;
+    @Mock
     private ConsoleService consoleService;
     @Mock
     private ContextRefreshedEvent contextRefreshedEvent;
@@ -0,0 +1,109 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.materials;
+
+import com.thoughtworks.go.domain.materials.Material;
+import com.thoughtworks.go.helper.MaterialsMother;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptivePollingScheduleTest {
+    private static final long BASE = 60_000;
+    private static final long MAX = 16 * BASE;
+
+    private final Material quiet = MaterialsMother.gitMaterial("http://quiet.repo");
+    private final Material busy = MaterialsMother.gitMaterial("http://busy.repo");
+    private final AdaptivePollingSchedule schedule = new AdaptivePollingSchedule(BASE, MAX);
+
+    @Test
+    public void shouldPollMaterialsWhichHaveNeverBeenUpdated() {
+        assertThat(schedule.due(List.of(quiet, busy), 0)).containsExactlyInAnyOrder(quiet, busy);
+    }
+
+    @Test
+    public void shouldDoubleTheIntervalEachTimeNothingChangedUpToTheMaximum() {
+        long now = 0;
+        schedule.updated(quiet, now, "r1", null);
+        for (int i = 0; i < 10; i++) {
+            now += schedule.intervalMillis(quiet);
+            assertThat(schedule.due(List.of(quiet), now)).containsExactly(quiet);
+            schedule.updated(quiet, now, "r1", null);
+        }
+
+        assertThat(schedule.intervalMillis(quiet)).isEqualTo(MAX);
+        assertThat(schedule.due(List.of(quiet), now + MAX - 1)).isEmpty();
+    }
+
+    @Test
+    public void shouldGoBackToTheBaseIntervalWhenTheMaterialChanges() {
+        schedule.updated(busy, 0, "r1", null);
+        schedule.updated(busy, BASE, "r1", null);
+        assertThat(schedule.intervalMillis(busy)).isEqualTo(2 * BASE);
+
+        schedule.updated(busy, 3 * BASE, "r2", null);
+
+        assertThat(schedule.intervalMillis(busy)).isEqualTo(BASE);
+    }
+
+    @Test
+    public void shouldGoBackToTheBaseIntervalWhenAnUpdateFails() {
+        schedule.updated(quiet, 0, "r1", null);
+        schedule.updated(quiet, BASE, "r1", null);
+        schedule.updated(quiet, 3 * BASE, "r1", null);
+        assertThat(schedule.intervalMillis(quiet)).isEqualTo(4 * BASE);
+
+        schedule.failed(quiet, 7 * BASE);
+
+        assertThat(schedule.intervalMillis(quiet)).isEqualTo(BASE);
+        assertThat(schedule.due(List.of(quiet), 8 * BASE)).containsExactly(quiet);
+
+        schedule.updated(quiet, 8 * BASE, "r1", null);
+        assertThat(schedule.intervalMillis(quiet)).isEqualTo(2 * BASE);
+    }
+
+    @Test
+    public void shouldWaitLongerBeforePollingQuietMaterialsWhichAreSlowToUpdate() {
+        schedule.updated(quiet, 0, "r1", null);
+        schedule.updated(quiet, BASE, "r1", 30_000L);
+
+        assertThat(schedule.intervalMillis(quiet)).isEqualTo(30_000L * AdaptivePollingSchedule.COST_MULTIPLIER);
+    }
+
+    @Test
+    public void shouldOrderDueMaterialsByHowOverdueTheyAreForTheirInterval() {
+        schedule.updated(quiet, 0, "r1", null);
+        schedule.updated(quiet, BASE, "r1", null);
+        schedule.updated(busy, BASE, "r1", null);
+
+        long now = 4 * BASE;
+
+        assertThat(schedule.due(List.of(quiet, busy), now)).containsExactly(busy, quiet);
+    }
+
+    @Test
+    public void shouldForgetMaterialsWhichAreNoLongerPolled() {
+        schedule.updated(quiet, 0, "r1", null);
+        schedule.updated(quiet, BASE, "r1", null);
+
+        schedule.retainOnly(Set.of(busy));
+
+        assertThat(schedule.intervalMillis(quiet)).isEqualTo(BASE);
+    }
+}
@@ -471,6 +471,17 @@ public class MaterialUpdateServiceTest {
         verify(scmMaterialSource).onMaterialUpdate(material);
     }
 
+    @Test
+    void shouldTellAllMaterialUpdateCompleteListenersThatAnUpdateFailed() {
+        Material material = mock(Material.class);
+
+        service.onMessage(new MaterialUpdateFailedMessage(material, 0, new RuntimeException("boom")));
+
+        verify(dependencyMaterialUpdateNotifier).onMaterialUpdateFailed(material);
+        verify(scmMaterialSource).onMaterialUpdateFailed(material);
+        verify(scmMaterialSource, never()).onMaterialUpdate(material);
+    }
+
     @Test
     void shouldRemoveFromInProgressOnMaterialUpdateSkippedMessage() {
         when(scmMaterialSource.materialsForUpdate()).thenReturn(Set.of(svnMaterial));
@@ -19,13 +19,18 @@ import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.materials.git.GitMaterialConfig;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
+import com.thoughtworks.go.domain.MaterialRevision;
+import com.thoughtworks.go.domain.MaterialRevisions;
 import com.thoughtworks.go.domain.materials.Material;
 import com.thoughtworks.go.domain.materials.MaterialConfig;
+import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.domain.packagerepository.PackageDefinition;
 import com.thoughtworks.go.domain.packagerepository.PackageRepository;
 import com.thoughtworks.go.domain.scm.SCM;
 import com.thoughtworks.go.helper.MaterialsMother;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
+import com.thoughtworks.go.server.perf.MDUPerformanceLogger;
+import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.server.service.MaterialConfigConverter;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
@@ -38,6 +43,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.time.Instant;
+import java.util.Date;
 import java.util.Set;
 
 import static java.util.Collections.emptySet;
@@ -55,6 +61,8 @@ public class SCMMaterialSourceTest {
     private MaterialConfigConverter materialConfigConverter;
     private MaterialUpdateService materialUpdateService;
     private TimeProvider timeProvider;
+    private MaterialRepository materialRepository;
+    private MDUPerformanceLogger mduPerformanceLogger;
 
     @BeforeEach
     public void setUp() {
@@ -64,13 +72,16 @@ public class SCMMaterialSourceTest {
         materialConfigConverter = mock(MaterialConfigConverter.class);
         materialUpdateService = mock(MaterialUpdateService.class);
         timeProvider = mock(TimeProvider.class);
+        materialRepository = mock(MaterialRepository.class);
+        mduPerformanceLogger = mock(MDUPerformanceLogger.class);
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService, timeProvider);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService, timeProvider, materialRepository, mduPerformanceLogger);
     }
 
     @AfterEach
     public void tearDown() {
         systemEnvironment.reset(SystemEnvironment.MATERIAL_UPDATE_INACTIVE_TIMEOUT_IN_MINUTES);
+        systemEnvironment.reset(SystemEnvironment.MATERIAL_UPDATE_ADAPTIVE_INTERVAL);
     }
 
     @Test
@@ -107,6 +118,109 @@ public class SCMMaterialSourceTest {
         assertTrue(materials.contains(gitMaterial));
     }
 
+    @Test
+    public void shouldBackOffFromPollingAMaterialWhoseUpdatesFindNothingNew_whenPollingIntervalIsAdaptive() {
+        long now = Instant.now().toEpochMilli();
+        Set<MaterialConfig> schedulableMaterialConfigs = Set.of(svnMaterial.config(), gitMaterial.config());
+
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "60000");
+        systemEnvironment.set(SystemEnvironment.MATERIAL_UPDATE_ADAPTIVE_INTERVAL, true);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService, timeProvider, materialRepository, mduPerformanceLogger);
+        when(goConfigService.getSchedulableSCMMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(Set.of(svnMaterial, gitMaterial));
+        when(materialRepository.findLatestModification(gitMaterial)).thenReturn(latestRevision(gitMaterial, "revision-1"));
+        when(mduPerformanceLogger.lastUpdateDurationMillis(gitMaterial)).thenReturn(1000L);
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now - 120_000);
+        source.onMaterialUpdate(gitMaterial);
+        when(timeProvider.currentTimeMillis()).thenReturn(now - 60_000);
+        source.onMaterialUpdate(gitMaterial);
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now);
+        assertThat(source.materialsForUpdate()).containsExactly(svnMaterial);
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now + 60_000);
+        assertThat(source.materialsForUpdate()).containsExactlyInAnyOrder(svnMaterial, gitMaterial);
+        verify(materialRepository, times(2)).findLatestModification(gitMaterial);
+        verify(mduPerformanceLogger, times(2)).lastUpdateDurationMillis(gitMaterial);
+    }
+
+    @Test
+    public void shouldWaitLongerBeforePollingAQuietMaterialWhichIsSlowToUpdate_whenPollingIntervalIsAdaptive() {
+        long now = Instant.now().toEpochMilli();
+        Set<MaterialConfig> schedulableMaterialConfigs = Set.of(gitMaterial.config());
+
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "60000");
+        systemEnvironment.set(SystemEnvironment.MATERIAL_UPDATE_ADAPTIVE_INTERVAL, true);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService, timeProvider, materialRepository, mduPerformanceLogger);
+        when(goConfigService.getSchedulableSCMMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(Set.of(gitMaterial));
+        when(materialRepository.findLatestModification(gitMaterial)).thenReturn(latestRevision(gitMaterial, "revision-1"));
+        when(mduPerformanceLogger.lastUpdateDurationMillis(gitMaterial)).thenReturn(30_000L);
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now - 120_000);
+        source.onMaterialUpdate(gitMaterial);
+        when(timeProvider.currentTimeMillis()).thenReturn(now);
+        source.onMaterialUpdate(gitMaterial);
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now + 120_000);
+        assertThat(source.materialsForUpdate()).isEmpty();
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now + 300_000);
+        assertThat(source.materialsForUpdate()).containsExactly(gitMaterial);
+    }
+
+    @Test
+    public void shouldPollAMaterialWhichFoundANewRevisionAfterTheUsualInterval_whenPollingIntervalIsAdaptive() {
+        long now = Instant.now().toEpochMilli();
+        Set<MaterialConfig> schedulableMaterialConfigs = Set.of(gitMaterial.config());
+
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "60000");
+        systemEnvironment.set(SystemEnvironment.MATERIAL_UPDATE_ADAPTIVE_INTERVAL, true);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService, timeProvider, materialRepository, mduPerformanceLogger);
+        when(goConfigService.getSchedulableSCMMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(Set.of(gitMaterial));
+        when(materialRepository.findLatestModification(gitMaterial))
+            .thenReturn(latestRevision(gitMaterial, "revision-1"))
+            .thenReturn(latestRevision(gitMaterial, "revision-2"));
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now - 120_000);
+        source.onMaterialUpdate(gitMaterial);
+        when(timeProvider.currentTimeMillis()).thenReturn(now - 60_000);
+        source.onMaterialUpdate(gitMaterial);
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now);
+        assertThat(source.materialsForUpdate()).containsExactly(gitMaterial);
+    }
+
+    @Test
+    public void shouldNotBackOffFromPollingAMaterialWhoseUpdateFailed_whenPollingIntervalIsAdaptive() {
+        long now = Instant.now().toEpochMilli();
+        Set<MaterialConfig> schedulableMaterialConfigs = Set.of(gitMaterial.config());
+
+        systemEnvironment.setProperty(SystemEnvironment.MATERIAL_UPDATE_IDLE_INTERVAL_PROPERTY, "60000");
+        systemEnvironment.set(SystemEnvironment.MATERIAL_UPDATE_ADAPTIVE_INTERVAL, true);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, materialConfigConverter, materialUpdateService, timeProvider, materialRepository, mduPerformanceLogger);
+        when(goConfigService.getSchedulableSCMMaterials()).thenReturn(schedulableMaterialConfigs);
+        when(materialConfigConverter.toMaterials(schedulableMaterialConfigs)).thenReturn(Set.of(gitMaterial));
+        when(materialRepository.findLatestModification(gitMaterial)).thenReturn(latestRevision(gitMaterial, "revision-1"));
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now - 180_000);
+        source.onMaterialUpdate(gitMaterial);
+        when(timeProvider.currentTimeMillis()).thenReturn(now - 120_000);
+        source.onMaterialUpdate(gitMaterial);
+        when(timeProvider.currentTimeMillis()).thenReturn(now - 60_000);
+        source.onMaterialUpdateFailed(gitMaterial);
+
+        when(timeProvider.currentTimeMillis()).thenReturn(now);
+        assertThat(source.materialsForUpdate()).containsExactly(gitMaterial);
+        verify(materialRepository, times(2)).findLatestModification(gitMaterial);
+    }
+
+    private static MaterialRevisions latestRevision(Material material, String revision) {
+        return new MaterialRevisions(new MaterialRevision(material, new Modification("user", "comment", null, new Date(), revision)));
+    }
+
     @Test
     public void shouldListenToConfigChange() {
         source = spy(source);
@@ -127,7 +241,7 @@ public class SCMMaterialSourceTest {
                 .thenReturn(emptySet())
                 .thenReturn(Set.of(gitMaterial));
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, timeProvider);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, timeProvider, materialRepository, mduPerformanceLogger);
         source.initialize();
 
         EntityConfigChangedListener<PipelineConfig> entityConfigChangedListener = captor.getAllValues().get(1);
@@ -154,7 +268,7 @@ public class SCMMaterialSourceTest {
                 .thenReturn(Set.of(gitMaterial));
 
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, timeProvider);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, timeProvider, materialRepository, mduPerformanceLogger);
         source.initialize();
 
         EntityConfigChangedListener<PackageDefinition> entityConfigChangedListener = captor.getAllValues().get(1);
@@ -180,7 +294,7 @@ public class SCMMaterialSourceTest {
                 .thenReturn(emptySet())
                 .thenReturn(Set.of(gitMaterial));
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, timeProvider);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, timeProvider, materialRepository, mduPerformanceLogger);
         source.initialize();
 
         EntityConfigChangedListener<PackageRepository> entityConfigChangedListener = captor.getAllValues().get(1);
@@ -206,7 +320,7 @@ public class SCMMaterialSourceTest {
                 .thenReturn(emptySet())
                 .thenReturn(Set.of(gitMaterial));
 
-        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, timeProvider);
+        source = new SCMMaterialSource(goConfigService, systemEnvironment, new MaterialConfigConverter(), materialUpdateService, timeProvider, materialRepository, mduPerformanceLogger);
         source.initialize();
 
         EntityConfigChangedListener<SCM> entityConfigChangedListener = captor.getAllValues().get(1);
@@ -19,8 +19,6 @@ package com.thoughtworks.go.server.messaging;
 import com.thoughtworks.go.plugin.access.common.settings.GoPluginExtension;
 import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
-import com.thoughtworks.go.server.messaging.activemq.JMSMessageListenerAdapter;
-import jakarta.jms.JMSException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -41,7 +39,7 @@ public class PluginAwareMessageQueueHandlerTest {
     @Mock
     private MessagingService<GoMessage> messaging;
     @Mock
-    private JMSMessageListenerAdapter<GoMessage> listenerAdapter;
+    private MessageListenerHandle listenerAdapter;
     @Captor
     private ArgumentCaptor<GoMessageListener<GoMessage>> argumentCaptor;
 
@@ -71,7 +69,7 @@ public class PluginAwareMessageQueueHandlerTest {
     }
 
     @Test
-    public void shouldRemoveListenerWhenAPluginIsUnloaded() throws JMSException {
+    public void shouldRemoveListenerWhenAPluginIsUnloaded() throws Exception {
         String pluginId = PLUGIN_ID;
         String queueName = QUEUE_NAME_PREFIX + pluginId;
         when(extension.canHandlePlugin(pluginId)).thenReturn(true);
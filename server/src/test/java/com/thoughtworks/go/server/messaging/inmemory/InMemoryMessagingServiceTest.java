@@ -0,0 +1,211 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.inmemory;
+
+import com.thoughtworks.go.server.messaging.GoMessageQueue;
+import com.thoughtworks.go.server.messaging.GoMessageTopic;
+import com.thoughtworks.go.server.messaging.GoTextMessage;
+import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
+import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class InMemoryMessagingServiceTest {
+    private InMemoryMessagingService messaging;
+    private ServerHealthService serverHealthService;
+
+    @BeforeEach
+    public void setUp() {
+        serverHealthService = mock(ServerHealthService.class);
+        messaging = new InMemoryMessagingService(new DaemonThreadStatsCollector(), new SystemEnvironment(), serverHealthService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        messaging.stop();
+    }
+
+    @Test
+    public void shouldDeliverMessagesPostedToATopicToEveryListener() {
+        GoMessageTopic<GoTextMessage> topic = new GoMessageTopic<>(messaging, "topic-name");
+        Queue<String> first = new ConcurrentLinkedQueue<>();
+        Queue<String> second = new ConcurrentLinkedQueue<>();
+        topic.addListener(message -> first.add(message.getText()));
+        topic.addListener(message -> second.add(message.getText()));
+
+        topic.post(new GoTextMessage("Hello World!"));
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(first).containsExactly("Hello World!");
+            assertThat(second).containsExactly("Hello World!");
+        });
+    }
+
+    @Test
+    public void shouldSupportCompetingConsumers() throws Exception {
+        CountDownLatch hanging = new CountDownLatch(1);
+        Queue<String> fast = new ConcurrentLinkedQueue<>();
+
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<>(messaging, "queue-name");
+        queue.addListener(message -> {
+            try {
+                hanging.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        queue.addListener(message -> fast.add(message.getText()));
+
+        try {
+            for (int i = 1; i <= 5; i++) {
+                queue.post(new GoTextMessage("Hello World" + i));
+            }
+            await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(fast).hasSize(4));
+        } finally {
+            hanging.countDown();
+        }
+    }
+
+    @Test
+    public void shouldStillReceiveMessagesIfAnExceptionIsThrown() {
+        Queue<String> received = new ConcurrentLinkedQueue<>();
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<>(messaging, "queue-name");
+        queue.addListener(message -> {
+            received.add(message.getText());
+            throw new RuntimeException("boom");
+        });
+
+        for (int i = 1; i <= 5; i++) {
+            queue.post(new GoTextMessage("Hello World" + i));
+        }
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(received).hasSize(5));
+    }
+
+    @Test
+    public void shouldKeepMessagesPostedToAQueueUntilThereIsAListener() {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<>(messaging, "queue-name");
+        queue.post(new GoTextMessage("Hello World!"));
+
+        Queue<String> received = new ConcurrentLinkedQueue<>();
+        queue.addListener(message -> received.add(message.getText()));
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(received).containsExactly("Hello World!"));
+    }
+
+    @Test
+    public void shouldNotDeliverMessagesWhichHaveExpired() throws Exception {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<>(messaging, "queue-name");
+        queue.post(new GoTextMessage("expired"), 1);
+        queue.post(new GoTextMessage("live"));
+        Thread.sleep(10);
+
+        Queue<String> received = new ConcurrentLinkedQueue<>();
+        queue.addListener(message -> received.add(message.getText()));
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(received).containsExactly("live"));
+        assertThat(queueStatistics("queue-name")).containsEntry("Expired", 1L);
+    }
+
+    @Test
+    public void shouldStartAfreshWhenARemovedQueueIsPostedToAgain() {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<>(messaging, "queue-name");
+        queue.addListener(message -> {});
+
+        queue.stop();
+
+        await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(queues()).doesNotContainKey("queue-name"));
+        queue.post(new GoTextMessage("Hello World!"));
+        assertThat(queueStatistics("queue-name")).containsEntry("Depth", 1).containsEntry("Listeners", 0);
+    }
+
+    @Test
+    public void shouldStopTheListenersOfARemovedQueue() {
+        Queue<String> received = new ConcurrentLinkedQueue<>();
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<>(messaging, "queue-name");
+        queue.addListener(message -> received.add(message.getText()));
+        assertThat(messaging.activeListeners()).isEqualTo(1);
+
+        messaging.removeQueue("queue-name");
+
+        assertThat(messaging.activeListeners()).isZero();
+        queue.post(new GoTextMessage("Hello World!"));
+        assertThat(queueStatistics("queue-name")).containsEntry("Depth", 1).containsEntry("Listeners", 0);
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    public void shouldBackOffAndReportServerHealthWhenMessagesCannotBeTaken() throws Exception {
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(SystemEnvironment.JMS_LISTENER_BACKOFF_TIME_IN_MILLIS)).thenReturn(10L);
+        MessageBuffer buffer = mock(MessageBuffer.class);
+        when(buffer.take(anyLong())).thenThrow(new IllegalStateException("boom"));
+
+        BufferedMessageListener listener = new BufferedMessageListener(buffer, message -> {}, new DaemonThreadStatsCollector(),
+            systemEnvironment, serverHealthService, stopped -> {});
+        listener.start();
+        try {
+            await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> {
+                verify(serverHealthService, atLeast(2)).update(any(ServerHealthState.class));
+                verify(systemEnvironment, atLeast(2)).get(SystemEnvironment.JMS_LISTENER_BACKOFF_TIME_IN_MILLIS);
+            });
+        } finally {
+            listener.stop();
+        }
+    }
+
+    @Test
+    public void shouldReportTheDepthOfEveryBuffer() {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<>(messaging, "queue-name");
+        queue.post(new GoTextMessage("one"));
+        queue.post(new GoTextMessage("two"));
+        new GoMessageTopic<GoTextMessage>(messaging, "topic-name").addListener(message -> {});
+
+        assertThat(queueStatistics("queue-name"))
+            .containsEntry("Depth", 2)
+            .containsEntry("Posted", 2L)
+            .containsEntry("Listeners", 0);
+        @SuppressWarnings("unchecked") Map<String, Object> topics = (Map<String, Object>) messaging.statistics().get("Topics");
+        assertThat(topics).containsOnlyKeys("topic-name");
+        assertThat((List<?>) topics.get("topic-name")).hasSize(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> queues() {
+        return (Map<String, Object>) messaging.statistics().get("Queues");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> queueStatistics(String queueName) {
+        return (Map<String, Object>) queues().get(queueName);
+    }
+}
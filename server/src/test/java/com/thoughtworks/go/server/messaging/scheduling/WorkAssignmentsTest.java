@@ -20,12 +20,18 @@ import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.work.NoWork;
 import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import com.thoughtworks.go.server.service.BuildAssignmentService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.work.FakeWork;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CompletableFuture;
 
 import static com.thoughtworks.go.util.SystemUtil.currentWorkingDirectory;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -39,12 +45,18 @@ public class WorkAssignmentsTest {
     private IdleAgentTopic idleAgentsTopic;
     private AgentIdentifier agentIdentifier;
     private WorkAssignedTopic assignedWorkTopic;
+    private BuildAssignmentService buildAssignmentService;
+    private SystemEnvironment systemEnvironment;
 
     @BeforeEach
     public void setup() {
         idleAgentsTopic = mock(IdleAgentTopic.class, "idle_topic");
         assignedWorkTopic = mock(WorkAssignedTopic.class, "assigned_work_topic");
-        assignments = new WorkAssignments(idleAgentsTopic, assignedWorkTopic);
+        buildAssignmentService = mock(BuildAssignmentService.class);
+        systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(SystemEnvironment.GET_WORK_MAX_WAITING_AGENTS)).thenReturn(1);
+        when(systemEnvironment.get(SystemEnvironment.GET_WORK_MAX_WAIT_IN_MILLIS)).thenReturn(60_000L);
+        assignments = new WorkAssignments(idleAgentsTopic, assignedWorkTopic, buildAssignmentService, systemEnvironment);
         agentIdentifier = new AgentIdentifier("localhost", "127.0.0.1", "uuid");
         agent = new AgentRuntimeInfo(agentIdentifier, AgentRuntimeStatus.Idle, currentWorkingDirectory(), "cookie");
     }
@@ -100,4 +112,45 @@ public class WorkAssignmentsTest {
         assertThat(assignments.getWork(agent)).isEqualTo(NO_WORK);
         verify(idleAgentsTopic, times(2)).post(new IdleAgentMessage(agent));
     }
+
+    @Test
+    public void shouldGiveAWaitingAgentWorkAsSoonAsItIsAllocated() throws Exception {
+        CompletableFuture<Work> work = CompletableFuture.supplyAsync(() -> assignments.awaitWork(agent, 60_000));
+        verify(idleAgentsTopic, timeout(5_000)).post(new IdleAgentMessage(agent));
+
+        assignments.onMessage(new WorkAssignedMessage(agentIdentifier, REAL_WORK));
+
+        assertThat(work.get(5, SECONDS)).isEqualTo(REAL_WORK);
+    }
+
+    @Test
+    public void shouldReturnNoWorkWhenNoWorkIsAllocatedBeforeTheWaitElapses() {
+        assertThat(assignments.awaitWork(agent, 50)).isEqualTo(NO_WORK);
+        verify(idleAgentsTopic).post(new IdleAgentMessage(agent));
+    }
+
+    @Test
+    public void shouldOfferWorkAgainToAWaitingAgentWhenNewJobsAreScheduled() throws Exception {
+        ArgumentCaptor<Runnable> newJobsListener = ArgumentCaptor.forClass(Runnable.class);
+        verify(buildAssignmentService).registerNewJobsListener(newJobsListener.capture());
+
+        CompletableFuture<Work> work = CompletableFuture.supplyAsync(() -> assignments.awaitWork(agent, 60_000));
+        verify(idleAgentsTopic, timeout(5_000)).post(new IdleAgentMessage(agent));
+        assignments.onMessage(new WorkAssignedMessage(agentIdentifier, NO_WORK));
+
+        newJobsListener.getValue().run();
+        verify(idleAgentsTopic, times(2)).post(new IdleAgentMessage(agent));
+        assignments.onMessage(new WorkAssignedMessage(agentIdentifier, REAL_WORK));
+
+        assertThat(work.get(5, SECONDS)).isEqualTo(REAL_WORK);
+    }
+
+    @Test
+    public void shouldNotWaitWhenTooManyAgentsAreAlreadyWaiting() {
+        when(systemEnvironment.get(SystemEnvironment.GET_WORK_MAX_WAITING_AGENTS)).thenReturn(0);
+        WorkAssignments noWaitingAllowed = new WorkAssignments(idleAgentsTopic, mock(WorkAssignedTopic.class), buildAssignmentService, systemEnvironment);
+
+        assertThat(noWaitingAllowed.awaitWork(agent, 60_000)).isNull();
+        verifyNoInteractions(idleAgentsTopic);
+    }
 }
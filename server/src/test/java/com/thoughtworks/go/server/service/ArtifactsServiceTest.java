@@ -26,6 +26,7 @@ import com.thoughtworks.go.util.LogFixture;
 import com.thoughtworks.go.util.ReflectionUtil;
 import com.thoughtworks.go.util.TempDirUtils;
 import com.thoughtworks.go.util.ZipUtil;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,6 +38,7 @@ import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.event.Level;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -45,10 +47,15 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static com.thoughtworks.go.util.GoConstants.PUBLISH_MAX_RETRIES;
+import static com.thoughtworks.go.util.GoConstants.ZIP_STREAM_CHECKSUM_ENTRY;
 import static com.thoughtworks.go.util.LogFixture.logFixtureFor;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -155,6 +162,83 @@ public class ArtifactsServiceTest {
         }
     }
 
+    @Test
+    void shouldSaveAStreamedZipAndReturnTheChecksumsOfItsFiles() throws IOException {
+        File dest = tempDir.resolve("dest").toFile();
+        Properties sent = checksums(Map.of("dest/artifact/log.txt", DigestUtils.md5Hex("some log")));
+
+        ArtifactsService artifactsService = new ArtifactsService(resolverService, stageService, artifactsDirHolder, new ZipUtil());
+        Properties saved = artifactsService.saveStreamedZip(dest, "dest", streamedZip(Map.of("artifact/log.txt", "some log"), sent), 1);
+
+        assertThat(saved).isEqualTo(sent);
+        assertThat(new File(dest, "artifact/log.txt")).hasContent("some log");
+    }
+
+    @Test
+    void shouldNotSaveAStreamedZipWhoseFilesDoNotMatchTheirChecksums() throws IOException {
+        File dest = tempDir.resolve("job/dest").toFile();
+        Properties sent = checksums(Map.of("dest/artifact/log.txt", DigestUtils.md5Hex("another log")));
+
+        ArtifactsService artifactsService = new ArtifactsService(resolverService, stageService, artifactsDirHolder, new ZipUtil());
+        Properties saved = artifactsService.saveStreamedZip(dest, "dest", streamedZip(Map.of("artifact/log.txt", "some log"), sent), 1);
+
+        assertThat(saved).isNull();
+        assertThat(dest.getParentFile().list()).isEmpty();
+    }
+
+    @Test
+    void shouldLeaveFilesAlreadyInTheDestinationAloneWhenAStreamedZipDoesNotMatchItsChecksums() throws IOException {
+        File dest = tempDir.resolve("job/dest").toFile();
+        FileUtils.writeStringToFile(new File(dest, "artifact/log.txt"), "earlier log", UTF_8);
+        Properties sent = checksums(Map.of(
+            "dest/artifact/log.txt", DigestUtils.md5Hex("some log"),
+            "dest/artifact/other.txt", DigestUtils.md5Hex("another file")));
+
+        ArtifactsService artifactsService = new ArtifactsService(resolverService, stageService, artifactsDirHolder, new ZipUtil());
+        Properties saved = artifactsService.saveStreamedZip(dest, "dest", streamedZip(Map.of("artifact/log.txt", "some log", "artifact/other.txt", "a different file"), sent), 1);
+
+        assertThat(saved).isNull();
+        assertThat(new File(dest, "artifact/log.txt")).hasContent("earlier log");
+        assertThat(new File(dest, "artifact/other.txt")).doesNotExist();
+        assertThat(dest.getParentFile().list()).containsExactly("dest");
+    }
+
+    @Test
+    void shouldNotSaveAStreamedZipWithoutChecksums() throws IOException {
+        ArtifactsService artifactsService = new ArtifactsService(resolverService, stageService, artifactsDirHolder, new ZipUtil());
+        Properties saved = artifactsService.saveStreamedZip(tempDir.resolve("dest").toFile(), "dest", streamedZip(Map.of("artifact/log.txt", "some log"), null), 1);
+
+        assertThat(saved).isNull();
+    }
+
+    @Test
+    void shouldNotSaveAStreamedZipWhoseChecksumsAreForOtherFiles() throws IOException {
+        Properties sent = checksums(Map.of(
+            "dest/artifact/log.txt", DigestUtils.md5Hex("some log"),
+            "dest/artifact/missing.txt", DigestUtils.md5Hex("never sent")));
+
+        ArtifactsService artifactsService = new ArtifactsService(resolverService, stageService, artifactsDirHolder, new ZipUtil());
+        Properties saved = artifactsService.saveStreamedZip(tempDir.resolve("dest").toFile(), "dest", streamedZip(Map.of("artifact/log.txt", "some log"), sent), 1);
+
+        assertThat(saved).isNull();
+    }
+
+    @Test
+    void shouldWarnIfFailedToSaveStreamedZipUntilAttemptHitsMaxAttempts() throws IOException {
+        File dest = tempDir.resolve("dest").toFile();
+        when(zipUtil.unzipWithChecksums(any(ZipInputStream.class), any(File.class), eq(ZIP_STREAM_CHECKSUM_ENTRY), any())).thenThrow(new IOException("connection reset"));
+        ArtifactsService artifactsService = new ArtifactsService(resolverService, stageService, artifactsDirHolder, zipUtil);
+
+        try (LogFixture logFixture = logFixtureFor(ArtifactsService.class, Level.DEBUG)) {
+            assertThat(artifactsService.saveStreamedZip(dest, "dest", new ByteArrayInputStream(new byte[0]), 1)).isNull();
+            assertThat(logFixture.contains(Level.WARN, "Failed to save the file to:")).isTrue();
+            assertThat(logFixture.contains(Level.ERROR, "Failed to save the file to:")).isFalse();
+
+            assertThat(artifactsService.saveStreamedZip(dest, "dest", new ByteArrayInputStream(new byte[0]), PUBLISH_MAX_RETRIES)).isNull();
+            assertThat(logFixture.contains(Level.ERROR, "Failed to save the file to:")).isTrue();
+        }
+    }
+
     @Test
     void shouldConvertArtifactPathToFileSystemLocation() throws Exception {
         File artifactsRoot = TempDirUtils.createRandomDirectoryIn(tempDir).toFile();
@@ -374,6 +458,29 @@ public class ArtifactsServiceTest {
         verify(stageService).markArtifactsDeletedFor(stage);
     }
 
+    private static Properties checksums(Map<String, String> md5s) {
+        Properties checksums = new Properties();
+        checksums.putAll(md5s);
+        return checksums;
+    }
+
+    private static InputStream streamedZip(Map<String, String> files, Properties checksums) throws IOException {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                out.putNextEntry(new ZipEntry(file.getKey()));
+                out.write(file.getValue().getBytes(UTF_8));
+                out.closeEntry();
+            }
+            if (checksums != null) {
+                out.putNextEntry(new ZipEntry(ZIP_STREAM_CHECKSUM_ENTRY));
+                checksums.store(out, null);
+                out.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(zip.toByteArray());
+    }
+
     private void assumeArtifactsRoot(final File artifactsRoot) {
         when(artifactsDirHolder.getArtifactsDir()).thenReturn(artifactsRoot);
     }
@@ -123,6 +123,7 @@ class BuildAssignmentServiceTest {
         lenient().when(environmentConfigService.filterJobsByAgent(ArgumentMatchers.eq(jobPlans), any(String.class))).thenReturn(jobPlans);
         lenient().when(environmentConfigService.envForPipeline(any(String.class))).thenReturn("");
         lenient().when(maintenanceModeService.isMaintenanceMode()).thenReturn(false);
+        lenient().when(systemEnvironment.get(SystemEnvironment.JOB_PLANS_FULL_RELOAD_INTERVAL_IN_MILLIS)).thenReturn(300_000L);
     }
 
     @Test
@@ -184,6 +185,109 @@ class BuildAssignmentServiceTest {
         verify(elasticAgentPluginService, never()).shouldAssignWork(any(ElasticAgentMetadata.class), any(String.class), any(ElasticProfile.class), any(ClusterProfile.class), any(JobIdentifier.class));
     }
 
+    @Test
+    void shouldHandAScheduledJobToOnlyOneOfTheAgentsLookingForWork() {
+        PipelineConfig pipeline = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
+        pipeline.getFirst().getJobs().add(JobConfigMother.jobWithNoResourceRequirement());
+        JobPlan regularJobPlan = new InstanceFactory().createJobPlan(pipeline.getFirst().getJobs().getLast(), schedulingContext);
+        jobPlans.add(regularJobPlan);
+        buildAssignmentService.onTimer();
+        AgentInstance anotherAgentInstance = AgentInstance.createFromAgent(AgentMother.approvedAgent(), new SystemEnvironment(), null);
+
+        assertThat(buildAssignmentService.findMatchingJob(regularAgentInstance)).isEqualTo(regularJobPlan);
+        assertThat(buildAssignmentService.findMatchingJob(anotherAgentInstance)).isNull();
+    }
+
+    @Test
+    void shouldNotClaimAJobForAnAgentWhichWasDisabledWhileLookingForWork() {
+        PipelineConfig pipeline = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
+        pipeline.getFirst().getJobs().add(JobConfigMother.jobWithNoResourceRequirement());
+        JobPlan regularJobPlan = new InstanceFactory().createJobPlan(pipeline.getFirst().getJobs().getLast(), schedulingContext);
+        jobPlans.add(regularJobPlan);
+        buildAssignmentService.onTimer();
+        Agent agent = AgentMother.approvedAgent();
+        agent.disable();
+        AgentInstance disabledAgentInstance = AgentInstance.createFromAgent(agent, new SystemEnvironment(), null);
+
+        assertThat(buildAssignmentService.findMatchingJob(disabledAgentInstance)).isNull();
+        assertThat(buildAssignmentService.jobPlans()).containsExactly(regularJobPlan);
+    }
+
+    @Test
+    void shouldNotBringBackAJobWhichIsBeingAssignedWhenReloadingJobPlans() {
+        PipelineConfig pipeline = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
+        pipeline.getFirst().getJobs().add(JobConfigMother.jobWithNoResourceRequirement());
+        JobPlan regularJobPlan = new InstanceFactory().createJobPlan(pipeline.getFirst().getJobs().getLast(), schedulingContext);
+        jobPlans.add(regularJobPlan);
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.findMatchingJob(regularAgentInstance)).isEqualTo(regularJobPlan);
+
+        // the assignment has not been committed yet, so the job is still reported as scheduled
+        when(jobInstanceService.orderedScheduledBuildIds()).thenReturn(List.of(regularJobPlan.getJobId()));
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.jobPlans()).isEmpty();
+    }
+
+    @Test
+    void shouldHandOutANewlyScheduledJobWithoutWaitingForTheTimer() {
+        buildAssignmentService.onTimer();
+        JobPlan jobPlan = jobPlanWithId(42);
+        when(jobInstanceService.scheduledPlan(42)).thenReturn(jobPlan);
+
+        buildAssignmentService.jobStatusListener().jobStatusChanged(jobInstance(42, JobState.Scheduled));
+        buildAssignmentService.applyJobStatusChanges();
+
+        assertThat(buildAssignmentService.jobPlans()).containsExactly(jobPlan);
+        verify(elasticAgentPluginService).createAgentsFor(List.of(), List.of(jobPlan));
+        assertThat(buildAssignmentService.findMatchingJob(regularAgentInstance)).isEqualTo(jobPlan);
+    }
+
+    @Test
+    void shouldTellListenersAboutNewlyScheduledJobs() {
+        Runnable newJobsListener = mock(Runnable.class);
+        buildAssignmentService.registerNewJobsListener(newJobsListener);
+        buildAssignmentService.onTimer();
+        verifyNoInteractions(newJobsListener);
+
+        when(jobInstanceService.scheduledPlan(42)).thenReturn(jobPlanWithId(42));
+        buildAssignmentService.jobStatusListener().jobStatusChanged(jobInstance(42, JobState.Scheduled));
+        buildAssignmentService.applyJobStatusChanges();
+
+        verify(newJobsListener).run();
+    }
+
+    @Test
+    void shouldDropAJobAsSoonAsItIsNoLongerScheduled() {
+        JobPlan jobPlan = jobPlanWithId(42);
+        jobPlans.add(jobPlan);
+        buildAssignmentService.onTimer();
+
+        buildAssignmentService.jobStatusListener().jobStatusChanged(jobInstance(42, JobState.Completed));
+        buildAssignmentService.applyJobStatusChanges();
+
+        assertThat(buildAssignmentService.jobPlans()).isEmpty();
+        assertThat(buildAssignmentService.findMatchingJob(regularAgentInstance)).isNull();
+    }
+
+    @Test
+    void shouldOnlyLoadThePlansOfJobsItHasNotSeenOnTimer() {
+        JobPlan first = jobPlanWithId(1);
+        JobPlan second = jobPlanWithId(2);
+        jobPlans.add(first);
+        buildAssignmentService.onTimer();
+
+        when(jobInstanceService.orderedScheduledBuildIds()).thenReturn(List.of(1L, 2L));
+        when(jobInstanceService.scheduledPlan(2)).thenReturn(second);
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.jobPlans()).containsExactly(first, second);
+        verify(jobInstanceService, times(1)).orderedScheduledBuilds();
+        verify(jobInstanceService, never()).scheduledPlan(1);
+        verify(elasticAgentPluginService).createAgentsFor(List.of(first), List.of(first, second));
+    }
+
     @Test
     void shouldNotMatchJobsDuringMaintenanceMode() {
         when(maintenanceModeService.isMaintenanceMode()).thenReturn(true);
@@ -288,9 +392,8 @@ class BuildAssignmentServiceTest {
 
             when(agentInstance.isRegistered()).thenReturn(true);
             when(agentInstance.getAgent()).thenReturn(agent);
-            when(agentInstance.firstMatching(anyList())).thenReturn(jobPlan1);
+            schedule(jobPlan1);
             when(pipeline.getBuildCause()).thenReturn(BuildCause.createNeverRun());
-            when(environmentConfigService.filterJobsByAgent(any(), any())).thenReturn(List.of(jobPlan1));
             when(scheduledPipelineLoader.pipelineWithPasswordAwareBuildCauseByBuildId(anyLong())).thenReturn(pipeline);
             lenient().when(scheduleService.updateAssignedInfo(anyString(), any())).thenReturn(false);
             when(goConfigService.artifactStores()).thenReturn(new ArtifactStores());
@@ -328,9 +431,8 @@ class BuildAssignmentServiceTest {
 
             when(agentInstance.isRegistered()).thenReturn(true);
             when(agentInstance.getAgent()).thenReturn(mock(Agent.class));
-            when(agentInstance.firstMatching(anyList())).thenReturn(jobPlan1);
+            schedule(jobPlan1);
             when(pipeline.getBuildCause()).thenReturn(BuildCause.createWithModifications(materialRevisions, "bob"));
-            when(environmentConfigService.filterJobsByAgent(any(), any())).thenReturn(List.of(jobPlan1));
             when(scheduledPipelineLoader.pipelineWithPasswordAwareBuildCauseByBuildId(anyLong())).thenReturn(pipeline);
             lenient().when(scheduleService.updateAssignedInfo(anyString(), any())).thenReturn(false);
             when(goConfigService.artifactStores()).thenReturn(new ArtifactStores());
@@ -362,7 +464,7 @@ class BuildAssignmentServiceTest {
             JobInstance jobInstance = mock(JobInstance.class);
 
             when(agentInstance.isRegistered()).thenReturn(true);
-            when(agentInstance.firstMatching(anyList())).thenReturn(jobPlan1);
+            schedule(jobPlan1);
             when(agentInstance.getAgent()).thenReturn(mock(Agent.class));
             when(pipeline.getBuildCause()).thenReturn(BuildCause.createWithModifications(materialRevisions, "bob"));
             when(scheduledPipelineLoader.pipelineWithPasswordAwareBuildCauseByBuildId(anyLong())).thenReturn(pipeline);
@@ -394,8 +496,7 @@ class BuildAssignmentServiceTest {
             when(jobInstance.getState()).thenReturn(JobState.Completed);
             when(agentInstance.isRegistered()).thenReturn(true);
             when(agentInstance.getUuid()).thenReturn("agent_uuid");
-            when(agentInstance.firstMatching(anyList())).thenReturn(jobPlan1);
-            when(environmentConfigService.filterJobsByAgent(any(), any())).thenReturn(List.of(jobPlan1));
+            schedule(jobPlan1);
             when(scheduledPipelineLoader.pipelineWithPasswordAwareBuildCauseByBuildId(anyLong())).thenReturn(pipeline);
             when(scheduleService.updateAssignedInfo(anyString(), any())).thenReturn(false);
             when(environmentConfigService.environmentForPipeline(anyString())).thenReturn(new BasicEnvironmentConfig());
@@ -436,9 +537,8 @@ class BuildAssignmentServiceTest {
 
             when(agentInstance.isRegistered()).thenReturn(true);
             when(agentInstance.getAgent()).thenReturn(mock(Agent.class));
-            when(agentInstance.firstMatching(anyList())).thenReturn(jobPlan1);
+            schedule(jobPlan1);
             when(pipeline.getBuildCause()).thenReturn(BuildCause.createWithModifications(materialRevisions, "bob"));
-            when(environmentConfigService.filterJobsByAgent(any(), any())).thenReturn(List.of(jobPlan1));
             when(scheduledPipelineLoader.pipelineWithPasswordAwareBuildCauseByBuildId(anyLong())).thenReturn(pipeline);
             lenient().when(scheduleService.updateAssignedInfo(anyString(), any())).thenReturn(false);
             when(goConfigService.artifactStores()).thenReturn(new ArtifactStores());
@@ -565,6 +665,26 @@ class BuildAssignmentServiceTest {
         inOrder.verify(jobStatusTopic).post(new JobStatusMessage(jobPlan.getIdentifier(), JobState.Scheduled, elasticAgentInstance.getUuid()));
     }
 
+    private JobPlan jobPlanWithId(long jobId) {
+        PipelineConfig pipeline = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
+        pipeline.getFirst().getJobs().add(JobConfigMother.jobWithNoResourceRequirement());
+        DefaultJobPlan jobPlan = (DefaultJobPlan) new InstanceFactory().createJobPlan(pipeline.getFirst().getJobs().getLast(), schedulingContext);
+        jobPlan.setJobId(jobId);
+        return jobPlan;
+    }
+
+    private JobInstance jobInstance(long jobId, JobState state) {
+        JobInstance jobInstance = JobInstanceMother.scheduled("job");
+        jobInstance.setId(jobId);
+        jobInstance.setState(state);
+        return jobInstance;
+    }
+
+    private void schedule(JobPlan jobPlan) {
+        jobPlans.add(jobPlan);
+        buildAssignmentService.onTimer();
+    }
+
     private JobPlan getJobPlan(CaseInsensitiveString pipelineName, CaseInsensitiveString stageName, JobConfig job) {
         JobPlan jobPlan = new InstanceFactory().createJobPlan(job, schedulingContext);
 
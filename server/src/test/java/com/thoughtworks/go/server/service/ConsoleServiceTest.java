@@ -15,15 +15,20 @@
  */
 package com.thoughtworks.go.server.service;
 
+import com.thoughtworks.go.domain.ConsoleConsumer;
+import com.thoughtworks.go.domain.ConsoleLogLineIndex;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.helper.JobIdentifierMother;
 import com.thoughtworks.go.server.view.artifacts.ArtifactDirectoryChooser;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.io.FileExistsException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -41,7 +46,7 @@ public class ConsoleServiceTest {
     @BeforeEach
     public void setUp() {
         chooser = mock(ArtifactDirectoryChooser.class);
-        service = new ConsoleService(chooser, mock(ArtifactsDirHolder.class));
+        service = new ConsoleService(chooser, mock(ArtifactsDirHolder.class), new SystemEnvironment());
     }
 
     @Test
@@ -132,6 +137,82 @@ public class ConsoleServiceTest {
         assertThat(finalConsoleLog.exists()).isTrue();
     }
 
+    @Test
+    public void shouldKeepLineIndexOfRunningJobInMemoryAndSaveItOutsideArtifactsOnceMoved(@TempDir Path testFolder) throws Exception {
+        JobIdentifier jobIdentifier = JobIdentifierMother.anyBuildIdentifier();
+
+        File temporaryConsoleLog = testFolder.resolve("temporary/console.log").toFile();
+        File finalConsoleLog = testFolder.resolve("artifacts/cruise-output/console.log").toFile();
+        File savedIndex = testFolder.resolve("cache/cruise-output/console.log.idx").toFile();
+
+        when(chooser.temporaryConsoleFile(jobIdentifier)).thenReturn(temporaryConsoleLog);
+        when(chooser.findArtifact(jobIdentifier, CONSOLE_LOG_FILE_RELATIVE_PATH)).thenReturn(finalConsoleLog);
+        when(chooser.consoleLogLineIndexFile(jobIdentifier)).thenReturn(savedIndex);
+
+        service.appendToConsoleLogIoSafe(jobIdentifier, "line\n".repeat(2500));
+        assertThat(temporaryConsoleLog.getParentFile().list()).containsExactly("console.log");
+        assertThat(savedIndex).doesNotExist();
+
+        service.moveConsoleArtifacts(jobIdentifier);
+
+        assertThat(finalConsoleLog.getParentFile().list()).containsExactly("console.log");
+        assertThat(savedIndex).exists();
+        assertThat(ConsoleLogLineIndex.forLog(finalConsoleLog.toPath(), savedIndex.toPath()).seek(2100).line()).isEqualTo(2000);
+    }
+
+    @Test
+    public void shouldNotKeepLineIndexOfACompletedJobInMemoryWhenThereIsNowhereToSaveIt(@TempDir Path testFolder) throws Exception {
+        JobIdentifier jobIdentifier = JobIdentifierMother.anyBuildIdentifier();
+
+        File temporaryConsoleLog = testFolder.resolve("temporary/console.log").toFile();
+        File finalConsoleLog = testFolder.resolve("artifacts/cruise-output/console.log").toFile();
+        Files.createDirectories(finalConsoleLog.getParentFile().toPath());
+        Files.writeString(finalConsoleLog.toPath(), "line\n".repeat(2500));
+
+        when(chooser.temporaryConsoleFile(jobIdentifier)).thenReturn(temporaryConsoleLog);
+        when(chooser.findArtifact(jobIdentifier, CONSOLE_LOG_FILE_RELATIVE_PATH)).thenReturn(finalConsoleLog);
+        when(chooser.consoleLogLineIndexFile(jobIdentifier)).thenReturn(null);
+
+        try (ConsoleConsumer streamer = service.getStreamer(2100, jobIdentifier)) {
+            assertThat(streamer.stream(line -> {})).isEqualTo(400);
+        }
+
+        assertThat(service.runningLineIndexes()).isZero();
+    }
+
+    @Test
+    public void shouldDiscardLineIndexOfARunningJobWhichWillNotComplete(@TempDir Path testFolder) throws Exception {
+        JobIdentifier jobIdentifier = JobIdentifierMother.anyBuildIdentifier();
+
+        File temporaryConsoleLog = testFolder.resolve("temporary/console.log").toFile();
+        File finalConsoleLog = testFolder.resolve("artifacts/cruise-output/console.log").toFile();
+
+        when(chooser.temporaryConsoleFile(jobIdentifier)).thenReturn(temporaryConsoleLog);
+        when(chooser.findArtifact(jobIdentifier, CONSOLE_LOG_FILE_RELATIVE_PATH)).thenReturn(finalConsoleLog);
+
+        service.appendToConsoleLogIoSafe(jobIdentifier, "line\n".repeat(2500));
+        assertThat(service.runningLineIndexes()).isEqualTo(1);
+
+        service.discardLineIndex(jobIdentifier);
+
+        assertThat(service.runningLineIndexes()).isZero();
+    }
+
+    @Test
+    public void shouldForgetLineIndexOfARunningJobEvenIfItsLogCannotBeMoved(@TempDir Path testFolder) throws Exception {
+        JobIdentifier jobIdentifier = JobIdentifierMother.anyBuildIdentifier();
+
+        File temporaryConsoleLog = testFolder.resolve("temporary_console.log").toFile();
+        File finalConsoleLog = Files.createFile(testFolder.resolve("final_console.log")).toFile();
+
+        when(chooser.temporaryConsoleFile(jobIdentifier)).thenReturn(temporaryConsoleLog);
+        when(chooser.findArtifact(jobIdentifier, CONSOLE_LOG_FILE_RELATIVE_PATH)).thenReturn(finalConsoleLog);
+        service.appendToConsoleLogIoSafe(jobIdentifier, temporaryConsoleLog, new ByteArrayInputStream("line\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertThatThrownBy(() -> service.moveConsoleArtifacts(jobIdentifier)).isInstanceOf(RuntimeException.class);
+        assertThat(service.runningLineIndexes()).isZero();
+    }
+
     @Test
     public void shouldReturnUsefulErrorIfMoveConsoleArtifactsFails(@TempDir Path testFolder) throws Exception {
         JobIdentifier jobIdentifier = JobIdentifierMother.anyBuildIdentifier();
@@ -51,6 +51,7 @@ import com.thoughtworks.go.server.dao.FeedModifier;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.server.service.materials.GitPoller;
+import com.thoughtworks.go.server.service.materials.JGitPoller;
 import com.thoughtworks.go.server.service.materials.MaterialPoller;
 import com.thoughtworks.go.server.service.materials.PluggableSCMMaterialPoller;
 import com.thoughtworks.go.server.service.result.LocalizedOperationResult;
@@ -59,6 +60,7 @@ import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.util.Dates;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.jspecify.annotations.NonNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -114,7 +116,23 @@ public class MaterialServiceTest {
     @BeforeEach
     public void setUp() {
         materialService = new MaterialService(materialRepository, goConfigService, securityService,
-                packageRepositoryExtension, scmExtension, transactionTemplate, secretParamResolver);
+                packageRepositoryExtension, scmExtension, transactionTemplate, secretParamResolver, new SystemEnvironment());
+    }
+
+    @Test
+    public void shouldPollGitMaterialsWithTheGitCommandLineByDefault() {
+        assertThat(materialService.getPollerImplementation(new GitMaterial("https://example.com"))).isExactlyInstanceOf(GitPoller.class);
+    }
+
+    @Test
+    public void shouldPollGitMaterialsInProcessWhenToggledOn() {
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(SystemEnvironment.GO_SERVER_GIT_POLLER_IN_PROCESS)).thenReturn(true);
+
+        MaterialService service = new MaterialService(materialRepository, goConfigService, securityService,
+                packageRepositoryExtension, scmExtension, transactionTemplate, secretParamResolver, systemEnvironment);
+
+        assertThat(service.getPollerImplementation(new GitMaterial("https://example.com"))).isInstanceOf(JGitPoller.class);
     }
 
     @Test
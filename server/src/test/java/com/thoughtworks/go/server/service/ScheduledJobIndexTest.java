@@ -0,0 +1,109 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.config.elastic.ElasticProfile;
+import com.thoughtworks.go.domain.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScheduledJobIndexTest {
+    private long nextJobId = 1;
+
+    @Test
+    void shouldOfferTheOldestJobWhoseResourcesAreAllProvidedByTheAgent() {
+        JobPlan needsFirefox = job("up42", "firefox", null, null);
+        JobPlan needsLinux = job("up42", "Linux", null, null);
+        JobPlan needsLinuxAndJava = job("up42", "linux, java", null, null);
+        ScheduledJobIndex index = new ScheduledJobIndex(List.of(needsFirefox, needsLinux, needsLinuxAndJava), pipeline -> null);
+
+        assertThat(takeFirst(index, "agent", Stream.of("java", "LINUX"))).isEqualTo(needsLinux);
+        assertThat(takeFirst(index, "agent", Stream.of("java", "LINUX"))).isEqualTo(needsLinuxAndJava);
+        assertThat(takeFirst(index, "agent", Stream.of("java", "LINUX"))).isNull();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldInterleaveJobsPinnedToTheAgentWithOtherJobsInTheOrderTheyWereScheduled() {
+        JobPlan pinnedToOtherAgent = job("up42", null, "other", null);
+        JobPlan anyAgent = job("up42", null, null, null);
+        JobPlan pinnedToAgent = job("up42", "resource-the-agent-does-not-have", "agent", null);
+        JobPlan anyAgentLater = job("up42", null, null, null);
+        ScheduledJobIndex index = new ScheduledJobIndex(List.of(pinnedToOtherAgent, anyAgent, pinnedToAgent, anyAgentLater), pipeline -> null);
+
+        assertThat(takeFirst(index, "agent", Stream.empty())).isEqualTo(anyAgent);
+        assertThat(takeFirst(index, "agent", Stream.empty())).isEqualTo(pinnedToAgent);
+        assertThat(takeFirst(index, "agent", Stream.empty())).isEqualTo(anyAgentLater);
+        assertThat(takeFirst(index, "agent", Stream.empty())).isNull();
+    }
+
+    @Test
+    void shouldOnlyOfferJobsFromTheEnvironmentsOfTheAgent() {
+        JobPlan inUat = job("uat-pipeline", null, null, null);
+        JobPlan inNoEnvironment = job("plain-pipeline", null, null, null);
+        Map<String, String> environments = Map.of("uat-pipeline", "UAT");
+        ScheduledJobIndex index = new ScheduledJobIndex(List.of(inUat, inNoEnvironment), environments::get);
+
+        assertThat(index.firstMatching("agent", Stream.empty(), Set.of("prod"), jobPlan -> true)).isNull();
+        assertThat(index.firstMatching("agent", Stream.empty(), Set.of("uat"), jobPlan -> true)).isEqualTo(inUat);
+        assertThat(index.firstMatching("agent", Stream.empty(), Set.of(), jobPlan -> true)).isEqualTo(inNoEnvironment);
+    }
+
+    @Test
+    void shouldOnlyOfferJobsRequiringAnElasticAgentToElasticAgents() {
+        JobPlan regular = job("up42", null, null, null);
+        JobPlan elastic = job("up42", null, null, new ElasticProfile("docker", "prod-cluster"));
+        ScheduledJobIndex index = new ScheduledJobIndex(List.of(elastic, regular), pipeline -> null);
+
+        assertThat(index.firstMatching("agent", Stream.empty(), Set.of(), jobPlan -> true)).isEqualTo(regular);
+        assertThat(index.firstElasticMatching(Set.of(), jobPlan -> true)).isEqualTo(elastic);
+    }
+
+    @Test
+    void shouldKeepOfferingYoungerJobsWhenTheTakerDeclinesAJob() {
+        JobPlan declined = job("up42", null, null, null);
+        JobPlan accepted = job("up42", "linux", null, null);
+        ScheduledJobIndex index = new ScheduledJobIndex(List.of(declined, accepted), pipeline -> null);
+
+        List<JobPlan> offered = new ArrayList<>();
+        JobPlan taken = index.firstMatching("agent", Stream.of("linux"), Set.of(), jobPlan -> offered.add(jobPlan) && jobPlan == accepted);
+
+        assertThat(taken).isEqualTo(accepted);
+        assertThat(offered).containsExactly(declined, accepted);
+    }
+
+    private JobPlan takeFirst(ScheduledJobIndex index, String agentUuid, Stream<String> resources) {
+        JobPlan jobPlan = index.firstMatching(agentUuid, resources, Set.of(), plan -> true);
+        if (jobPlan != null) {
+            index.remove(jobPlan);
+        }
+        return jobPlan;
+    }
+
+    private JobPlan job(String pipelineName, String resources, String agentUuid, ElasticProfile elasticProfile) {
+        long jobId = nextJobId++;
+        JobIdentifier identifier = new JobIdentifier(pipelineName, 1, "1", "stage", "1", "job-" + jobId, jobId);
+        return new DefaultJobPlan(resources == null ? new Resources() : new Resources(resources), new ArrayList<>(), jobId, identifier,
+            agentUuid, new EnvironmentVariables(), new EnvironmentVariables(), elasticProfile, null);
+    }
+}
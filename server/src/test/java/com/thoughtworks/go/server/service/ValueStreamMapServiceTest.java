@@ -20,6 +20,10 @@ import com.thoughtworks.go.config.materials.MaterialConfigs;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterial;
 import com.thoughtworks.go.config.materials.dependency.DependencyMaterialConfig;
 import com.thoughtworks.go.config.materials.git.GitMaterial;
+import com.thoughtworks.go.config.remote.ConfigRepoConfig;
+import com.thoughtworks.go.config.remote.ConfigReposConfig;
+import com.thoughtworks.go.config.remote.PartialConfig;
+import com.thoughtworks.go.config.remote.RepoConfigOrigin;
 import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.buildcause.BuildCause;
 import com.thoughtworks.go.domain.materials.Material;
@@ -30,6 +34,7 @@ import com.thoughtworks.go.domain.materials.git.GitMaterialInstance;
 import com.thoughtworks.go.domain.valuestreammap.*;
 import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.helper.ModificationsMother;
+import com.thoughtworks.go.helper.PartialConfigMother;
 import com.thoughtworks.go.helper.PipelineConfigMother;
 import com.thoughtworks.go.helper.PipelineMother;
 import com.thoughtworks.go.server.domain.Username;
@@ -40,6 +45,8 @@ import com.thoughtworks.go.server.service.result.LocalizedOperationResult;
 import com.thoughtworks.go.server.valuestreammap.DownstreamInstancePopulator;
 import com.thoughtworks.go.server.valuestreammap.RunStagesPopulator;
 import com.thoughtworks.go.server.valuestreammap.UnrunStagesPopulator;
+import com.thoughtworks.go.server.valuestreammap.ValueStreamMapCache;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -838,6 +845,86 @@ public class ValueStreamMapServiceTest {
         assertThat(node.getMessage()).isEqualTo("Pipeline has been deleted.");
     }
 
+    @Test
+    public void shouldApplyPermissionsOfEachUserToTheCachedValueStreamMap() {
+        /*
+         * g --> p1 --> p3
+         */
+
+        GitMaterial git = new GitMaterial("git");
+        BuildCause p3buildCause = createBuildCause(List.of("p1"), new ArrayList<>());
+        BuildCause p1buildCause = createBuildCause(new ArrayList<>(), List.of(git));
+
+        when(pipelineService.buildCauseFor("p3", 1)).thenReturn(p3buildCause);
+        when(pipelineService.buildCauseFor("p1", 1)).thenReturn(p1buildCause);
+
+        PipelineConfig p1Config = PipelineConfigMother.pipelineConfig("p1", new MaterialConfigs(git("test")));
+        PipelineConfig p3Config = PipelineConfigMother.pipelineConfig("p3", new MaterialConfigs(new DependencyMaterialConfig(p1Config.name(), p1Config.getFirstStageConfig().name())));
+        CruiseConfig cruiseConfig = new BasicCruiseConfig(new BasicPipelineConfigs(p1Config, p3Config));
+
+        when(goConfigService.currentCruiseConfig()).thenReturn(cruiseConfig);
+        when(pipelineService.findPipelineByNameAndCounter("p3", 1)).thenReturn(new Pipeline("p3", "p3-label", p3buildCause, new EnvironmentVariables()));
+        Username otherUser = new Username(new CaseInsensitiveString("other"));
+        when(securityService.hasViewPermissionForPipeline(otherUser, "p3")).thenReturn(true);
+        when(securityService.hasViewPermissionForPipeline(otherUser, "p1")).thenReturn(false);
+
+        valueStreamMapService = new ValueStreamMapService(pipelineService, materialRepository, goConfigService, downstreaminstancepopulator, runStagesPopulator, unrunStagesPopulator, securityService,
+            new ValueStreamMapCache(mock(StageService.class), new SystemEnvironment()));
+
+        PipelineDependencyNode p1ForUser = (PipelineDependencyNode) valueStreamMapService.getValueStreamMap(new CaseInsensitiveString("p3"), 1, user, result).findNode(new CaseInsensitiveString("p1"));
+        PipelineDependencyNode p1ForOtherUser = (PipelineDependencyNode) valueStreamMapService.getValueStreamMap(new CaseInsensitiveString("p3"), 1, otherUser, result).findNode(new CaseInsensitiveString("p1"));
+        PipelineDependencyNode p1ForUserAgain = (PipelineDependencyNode) valueStreamMapService.getValueStreamMap(new CaseInsensitiveString("p3"), 1, user, result).findNode(new CaseInsensitiveString("p1"));
+
+        assertThat(p1ForUser.revisions()).hasSize(1);
+        assertThat(p1ForUser.getViewType()).isNull();
+        assertThat(p1ForOtherUser.revisions()).isEmpty();
+        assertThat(p1ForOtherUser.getViewType()).isEqualTo(VSMViewType.NO_PERMISSION);
+        assertThat(p1ForUserAgain.revisions()).isEqualTo(p1ForUser.revisions());
+        assertThat(p1ForUserAgain.getViewType()).isNull();
+        verify(pipelineService, times(1)).buildCauseFor("p3", 1);
+    }
+
+    @Test
+    public void shouldRebuildTheCachedValueStreamMapWhenOnlyAConfigRepoChanges() {
+        /*
+         * g --> p1 --> p3 --> p4 (added by a config repo)
+         */
+
+        GitMaterial git = new GitMaterial("git");
+        BuildCause p3buildCause = createBuildCause(List.of("p1"), new ArrayList<>());
+        BuildCause p1buildCause = createBuildCause(new ArrayList<>(), List.of(git));
+
+        when(pipelineService.buildCauseFor("p3", 1)).thenReturn(p3buildCause);
+        when(pipelineService.buildCauseFor("p1", 1)).thenReturn(p1buildCause);
+        when(pipelineService.findPipelineByNameAndCounter("p3", 1)).thenReturn(new Pipeline("p3", "p3-label", p3buildCause, new EnvironmentVariables()));
+
+        PipelineConfig p1Config = PipelineConfigMother.pipelineConfig("p1", new MaterialConfigs(git("test")));
+        PipelineConfig p3Config = PipelineConfigMother.pipelineConfig("p3", new MaterialConfigs(new DependencyMaterialConfig(p1Config.name(), p1Config.getFirstStageConfig().name())));
+        ConfigRepoConfig configRepo = ConfigRepoConfig.createConfigRepoConfig(git("config-repo"), "plugin", "config-repo");
+        CruiseConfig beforeConfigRepoChange = mergedConfig(configRepo, PartialConfigMother.withPipeline("elsewhere", new RepoConfigOrigin(configRepo, "r1")), p1Config, p3Config);
+        CruiseConfig afterConfigRepoChange = mergedConfig(configRepo, PartialConfigMother.pipelineWithDependencyMaterial("p4", p3Config, new RepoConfigOrigin(configRepo, "r2")), p1Config, p3Config);
+        assertThat(afterConfigRepoChange.getMd5()).isEqualTo(beforeConfigRepoChange.getMd5());
+
+        valueStreamMapService = new ValueStreamMapService(pipelineService, materialRepository, goConfigService, downstreaminstancepopulator, runStagesPopulator, unrunStagesPopulator, securityService,
+            new ValueStreamMapCache(mock(StageService.class), new SystemEnvironment()));
+
+        when(goConfigService.currentCruiseConfig()).thenReturn(beforeConfigRepoChange);
+        ValueStreamMapPresentationModel before = valueStreamMapService.getValueStreamMap(new CaseInsensitiveString("p3"), 1, user, result);
+        when(goConfigService.currentCruiseConfig()).thenReturn(afterConfigRepoChange);
+        ValueStreamMapPresentationModel after = valueStreamMapService.getValueStreamMap(new CaseInsensitiveString("p3"), 1, user, result);
+
+        assertThat(before.findNode(new CaseInsensitiveString("p4"))).isNull();
+        assertThat(after.findNode(new CaseInsensitiveString("p4"))).isNotNull();
+        verify(pipelineService, times(2)).buildCauseFor("p3", 1);
+    }
+
+    private static CruiseConfig mergedConfig(ConfigRepoConfig configRepo, PartialConfig partial, PipelineConfig... pipelines) {
+        BasicCruiseConfig main = new BasicCruiseConfig(new BasicPipelineConfigs(pipelines));
+        main.setConfigRepos(new ConfigReposConfig(configRepo));
+        main.setPartials(List.of(partial));
+        return main.mergedWith(main.getPartials(), false);
+    }
+
     @Test
     public void shouldPopulateErrorWhenPipelineNameAndCounterAreMultiple() {
 
@@ -0,0 +1,120 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service.materials;
+
+import com.thoughtworks.go.config.materials.git.GitMaterial;
+import com.thoughtworks.go.domain.materials.Modification;
+import com.thoughtworks.go.domain.materials.ModifiedAction;
+import com.thoughtworks.go.domain.materials.ModifiedFile;
+import com.thoughtworks.go.domain.materials.TestSubprocessExecutionContext;
+import com.thoughtworks.go.domain.materials.git.GitTestRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class JGitPollerTest {
+    @TempDir
+    Path tempDir;
+
+    private GitMaterial material;
+    private File workingDir;
+    private JGitPoller poller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        GitTestRepo gitRepo = new GitTestRepo(tempDir);
+        material = new GitMaterial(gitRepo.projectRepositoryUrl());
+        workingDir = tempDir.resolve("working-dir").toFile();
+        poller = new JGitPoller(new GitPoller());
+    }
+
+    @Test
+    void shouldFindTheSameModificationsSinceARevisionAsTheGitCommandLine() {
+        List<Modification> modifications = poller.modificationsSince(material, workingDir, GitTestRepo.REVISION_0, new TestSubprocessExecutionContext());
+        List<Modification> expected = material.modificationsSince(tempDir.resolve("cli-working-dir").toFile(), GitTestRepo.REVISION_0, new TestSubprocessExecutionContext());
+
+        assertThat(modifications).hasSize(4);
+        for (int i = 0; i < expected.size(); i++) {
+            assertSameModification(modifications.get(i), expected.get(i));
+        }
+    }
+
+    @Test
+    void shouldFindModifiedFilesOfEachCommit() {
+        List<Modification> modifications = poller.modificationsSince(material, workingDir, GitTestRepo.REVISION_0, new TestSubprocessExecutionContext());
+
+        List<ModifiedFile> files = modifications.getFirst().getModifiedFiles();
+        assertThat(files).hasSize(1);
+        assertThat(files.getFirst().getFileName()).isEqualTo("build.xml");
+        assertThat(files.getFirst().getAction()).isEqualTo(ModifiedAction.modified);
+    }
+
+    @Test
+    void shouldFindTheLatestModificationWhenTheRevisionIsNotOnTheBranch() {
+        List<Modification> modifications = poller.modificationsSince(material, workingDir, GitTestRepo.NON_EXISTENT_REVISION, new TestSubprocessExecutionContext());
+
+        assertThat(modifications).hasSize(1);
+        assertThat(modifications.getFirst().getRevision()).isEqualTo(GitTestRepo.REVISION_4.getRevision());
+    }
+
+    @Test
+    void shouldNotFetchWhenTheRemoteHeadIsStillAtTheRevision() {
+        List<Modification> modifications = poller.modificationsSince(material, workingDir, GitTestRepo.REVISION_4, new TestSubprocessExecutionContext());
+
+        assertThat(modifications).isEmpty();
+        assertThat(workingDir).doesNotExist();
+    }
+
+    @Test
+    void shouldShareTheWorkingCopyWithTheGitCommandLine() {
+        poller.latestModification(material, workingDir, new TestSubprocessExecutionContext());
+
+        List<Modification> modifications = material.modificationsSince(workingDir, GitTestRepo.REVISION_3, new TestSubprocessExecutionContext());
+
+        assertThat(new File(workingDir, ".git")).isDirectory();
+        assertThat(modifications).extracting(Modification::getRevision).containsExactly(GitTestRepo.REVISION_4.getRevision());
+    }
+
+    @Test
+    void shouldLeaveMaterialsWhichCannotBePolledInProcessToTheGitCommandLine() {
+        GitPoller gitPoller = mock(GitPoller.class);
+        GitMaterial overSsh = new GitMaterial("git@example.com:gocd/gocd.git");
+        TestSubprocessExecutionContext execCtx = new TestSubprocessExecutionContext();
+
+        new JGitPoller(gitPoller).latestModification(overSsh, workingDir, execCtx);
+
+        verify(gitPoller).latestModification(eq(overSsh), eq(workingDir), any());
+        assertThat(workingDir).doesNotExist();
+    }
+
+    private void assertSameModification(Modification actual, Modification expected) {
+        assertThat(actual.getRevision()).isEqualTo(expected.getRevision());
+        assertThat(actual.getUserName()).isEqualTo(expected.getUserName());
+        assertThat(actual.getComment()).isEqualTo(expected.getComment());
+        assertThat(actual.getModifiedTime()).isEqualTo(expected.getModifiedTime());
+        assertThat(actual.getModifiedFiles()).hasSameSizeAs(expected.getModifiedFiles());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright Thoughtworks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.valuestreammap;
+
+import com.thoughtworks.go.config.BasicCruiseConfig;
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.domain.Stage;
+import com.thoughtworks.go.domain.valuestreammap.Node;
+import com.thoughtworks.go.domain.valuestreammap.PipelineDependencyNode;
+import com.thoughtworks.go.domain.valuestreammap.PipelineRevision;
+import com.thoughtworks.go.helper.StageMother;
+import com.thoughtworks.go.server.presentation.models.ValueStreamMapPresentationModel;
+import com.thoughtworks.go.server.service.StageService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ValueStreamMapCacheTest {
+    private final ValueStreamMapCache cache = new ValueStreamMapCache(mock(StageService.class), 2);
+    private final AtomicInteger builds = new AtomicInteger();
+
+    @Test
+    void shouldReuseLayoutOnceAllPipelineInstancesInItHaveCompleted() {
+        ValueStreamMapPresentationModel layout = layout(passed("up42", 1), passed("down42", 3));
+
+        assertThat(cache.computeIfAbsent(key("up42", 1), () -> built(layout))).isSameAs(layout);
+        assertThat(cache.computeIfAbsent(key("UP42", 1), () -> built(layout(passed("up42", 1))))).isSameAs(layout);
+        assertThat(builds).hasValue(1);
+    }
+
+    @Test
+    void shouldNotKeepLayoutWhileAStageInItIsStillActive() {
+        ValueStreamMapPresentationModel layout = layout(passed("up42", 1), StageMother.scheduledStage("down42", 3, "dev", 1, "unit"));
+
+        cache.computeIfAbsent(key("up42", 1), () -> built(layout));
+        cache.computeIfAbsent(key("up42", 1), () -> built(layout));
+
+        assertThat(builds).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldForgetLayoutsContainingAPipelineWhoseStageChanged() {
+        cache.computeIfAbsent(key("up42", 1), () -> built(layout(passed("up42", 1), passed("down42", 3))));
+        cache.computeIfAbsent(key("other", 1), () -> built(layout(passed("other", 1))));
+
+        cache.stageStatusChanged(passed("DOWN42", 4));
+
+        assertThat(cache.size()).isEqualTo(1);
+        cache.computeIfAbsent(key("other", 1), () -> built(layout(passed("other", 1))));
+        assertThat(builds).hasValue(2);
+    }
+
+    @Test
+    void shouldNotKeepLayoutBuiltWhileAStageChanged() {
+        cache.computeIfAbsent(key("up42", 1), () -> {
+            cache.stageStatusChanged(passed("unrelated", 1));
+            return built(layout(passed("up42", 1)));
+        });
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedLayoutWhenFull() {
+        cache.computeIfAbsent(key("first", 1), () -> built(layout(passed("first", 1))));
+        cache.computeIfAbsent(key("second", 1), () -> built(layout(passed("second", 1))));
+        cache.computeIfAbsent(key("first", 1), () -> built(layout(passed("first", 1))));
+        cache.computeIfAbsent(key("third", 1), () -> built(layout(passed("third", 1))));
+
+        cache.computeIfAbsent(key("first", 1), () -> built(layout(passed("first", 1))));
+        assertThat(builds).hasValue(3);
+        cache.computeIfAbsent(key("second", 1), () -> built(layout(passed("second", 1))));
+        assertThat(builds).hasValue(4);
+    }
+
+    @Test
+    void shouldListenToStageChangesOnceInitialized() {
+        StageService stageService = mock(StageService.class);
+        ValueStreamMapCache cache = new ValueStreamMapCache(stageService, 2);
+
+        cache.initialize();
+
+        verify(stageService).addStageStatusListener(cache);
+    }
+
+    private ValueStreamMapPresentationModel built(ValueStreamMapPresentationModel layout) {
+        builds.incrementAndGet();
+        return layout;
+    }
+
+    private static ValueStreamMapCache.Key key(String pipelineName, int counter) {
+        return ValueStreamMapCache.Key.forPipeline(new CaseInsensitiveString(pipelineName), counter, new BasicCruiseConfig());
+    }
+
+    private static Stage passed(String pipelineName, int pipelineCounter) {
+        return StageMother.createPassedStage(pipelineName, pipelineCounter, "dev", 1, "unit", Instant.now());
+    }
+
+    private static ValueStreamMapPresentationModel layout(Stage... stages) {
+        List<Node> nodes = new ArrayList<>();
+        for (Stage stage : stages) {
+            String pipelineName = stage.getIdentifier().getPipelineName();
+            PipelineDependencyNode node = new PipelineDependencyNode(new CaseInsensitiveString(pipelineName), pipelineName);
+            PipelineRevision revision = new PipelineRevision(pipelineName, stage.getIdentifier().getPipelineCounter(), "label");
+            revision.addStage(stage);
+            node.addRevision(revision);
+            nodes.add(node);
+        }
+        return new ValueStreamMapPresentationModel(nodes.getFirst(), null, List.of(nodes));
+    }
+}
@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.web;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.server.cache.ZipArtifactCache;
 import com.thoughtworks.go.server.view.artifacts.PreparingArtifactFile;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -61,7 +62,7 @@ public class ZipArtifactFolderViewFactoryTest {
     }
 
     private ZipArtifactCache cacheAlreadyCreated() {
-        return new ZipArtifactCache(null, null) {
+        return new ZipArtifactCache(null, null, new SystemEnvironment()) {
             @Override
             public boolean cacheCreated(ArtifactFolder artifactFolder) {
                 return true;
@@ -75,7 +76,7 @@ public class ZipArtifactFolderViewFactoryTest {
     }
 
     private ZipArtifactCache cacheNotCreated() {
-        return new ZipArtifactCache(null, null) {
+        return new ZipArtifactCache(null, null, new SystemEnvironment()) {
             @Override
             public boolean cacheCreated(ArtifactFolder artifactFolder) {
                 return false;
@@ -15,14 +15,16 @@
  */
 package com.thoughtworks.go.server.websocket;
 
-import com.thoughtworks.go.domain.ConsoleConsumer;
 import com.thoughtworks.go.domain.ConsoleStreamer;
 import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.JobInstance;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
+import com.thoughtworks.go.helper.JobIdentifierMother;
 import com.thoughtworks.go.server.dao.JobInstanceDao;
 import com.thoughtworks.go.server.service.ConsoleService;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -32,7 +34,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
-import java.util.function.Consumer;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -46,6 +50,7 @@ public class ConsoleLogSenderTest {
     private JobIdentifier jobIdentifier;
     private JobInstanceDao jobInstanceDao;
     private SystemEnvironment systemEnvironment;
+    private ScheduledExecutorService executor;
 
 
     @BeforeEach
@@ -54,9 +59,20 @@ public class ConsoleLogSenderTest {
         jobInstanceDao = mock(JobInstanceDao.class);
         socket = mock(SocketEndpoint.class);
         when(socket.isOpen()).thenReturn(true);
+        completeWritesImmediately(socket);
         systemEnvironment = mock(SystemEnvironment.class);
         when(systemEnvironment.consoleLogCharset()).thenReturn(UTF_8);
-        consoleLogSender = new ConsoleLogSender(consoleService, jobInstanceDao, systemEnvironment);
+        when(systemEnvironment.get(SystemEnvironment.CONSOLE_LOG_SUBSCRIBER_MAX_PENDING_BYTES)).thenReturn(1024 * 1024);
+        executor = mock(ScheduledExecutorService.class);
+        when(executor.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        });
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(executor).execute(any(Runnable.class));
+        consoleLogSender = new ConsoleLogSender(consoleService, jobInstanceDao, systemEnvironment, executor);
         jobIdentifier = mock(JobIdentifier.class);
     }
 
@@ -94,55 +110,125 @@ public class ConsoleLogSenderTest {
     }
 
     @Test
-    public void shouldSendConsoleLogInMultipleMessagesIfBuildInProgress() throws Exception {
-        File fakeFile = mock(File.class);
-        when(consoleService.consoleLogFile(jobIdentifier)).thenReturn(fakeFile);
+    public void shouldKeepSocketOpenAndSendAppendedLinesWhileBuildIsInProgress() throws Exception {
+        JobIdentifier runningJob = JobIdentifierMother.anyBuildIdentifier();
+        File console = runningConsoleFile(runningJob, "First Output\n");
 
-        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false).thenReturn(true);
-        when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
+        consoleLogSender.process(socket, runningJob, 0L);
 
-        when(consoleService.getStreamer(anyLong(), eq(jobIdentifier)))
-            .thenReturn(new FakeConsoleStreamer("First Output", "Second Output"));
+        verify(socket).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("First Output\n".getBytes(UTF_8))));
+        verify(socket, never()).close();
 
-        consoleLogSender.process(socket, jobIdentifier, 0L);
+        Files.writeString(console.toPath(), "Second Output\n", StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(runningJob);
 
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("First Output\n".getBytes(UTF_8))));
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("Second Output\n".getBytes(UTF_8))));
+        verify(socket).send(eq(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("Second Output\n".getBytes(UTF_8)))), any(WriteCallback.class));
+        verify(jobInstanceDao, times(1)).isJobCompleted(runningJob);
     }
 
     @Test
-    public void shouldSendConsoleLogEvenAfterBuildCompletion() throws Exception {
-        File fakeFile = mock(File.class);
-        when(consoleService.consoleLogFile(jobIdentifier)).thenReturn(fakeFile);
+    public void shouldReadAppendedLinesOnceForAllSocketsViewingTheSameJob() throws Exception {
+        JobIdentifier runningJob = JobIdentifierMother.anyBuildIdentifier();
+        File console = runningConsoleFile(runningJob, "First Output\n");
+        SocketEndpoint anotherSocket = mock(SocketEndpoint.class);
+        when(anotherSocket.isOpen()).thenReturn(true);
+        completeWritesImmediately(anotherSocket);
+
+        consoleLogSender.process(socket, runningJob, 0L);
+        consoleLogSender.process(anotherSocket, runningJob, 1L);
+
+        Files.writeString(console.toPath(), "Second Output\n", StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(runningJob);
+
+        ByteBuffer appended = ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("Second Output\n".getBytes(UTF_8)));
+        verify(socket).send(eq(appended), any(WriteCallback.class));
+        verify(anotherSocket).send(eq(appended), any(WriteCallback.class));
+        verify(anotherSocket, never()).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("First Output\n".getBytes(UTF_8))));
+        verify(consoleService, times(2)).getStreamer(anyLong(), eq(runningJob));
+        assertThat(consoleLogSender.activeTails()).isEqualTo(1);
+    }
 
-        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false).thenReturn(true);
-        when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
+    @Test
+    public void shouldSendRemainingLinesAndCloseSocketsWhenJobCompletes() throws Exception {
+        JobIdentifier runningJob = JobIdentifierMother.anyBuildIdentifier();
+        File console = runningConsoleFile(runningJob, "First Output\n");
 
-        when(consoleService.getStreamer(0L, jobIdentifier))
-            .thenReturn(new FakeConsoleStreamer("First Output", "Second Output"));
-        when(consoleService.getStreamer(1L, jobIdentifier))
-            .thenReturn(new FakeConsoleStreamer("More Output"));
+        consoleLogSender.process(socket, runningJob, 0L);
+        Files.writeString(console.toPath(), "Last Output\n", StandardOpenOption.APPEND);
 
-        consoleLogSender.process(socket, jobIdentifier, 0L);
+        JobInstance completedJob = mock(JobInstance.class);
+        when(completedJob.isCompleted()).thenReturn(true);
+        when(completedJob.getIdentifier()).thenReturn(runningJob);
+        consoleLogSender.jobStatusChanged(completedJob);
 
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("First Output\n".getBytes(UTF_8))));
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("Second Output\n".getBytes(UTF_8))));
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("More Output\n".getBytes(UTF_8))));
+        verify(socket).send(eq(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("Last Output\n".getBytes(UTF_8)))), any(WriteCallback.class));
+        verify(socket).close();
+        assertThat(consoleLogSender.activeTails()).isZero();
     }
 
     @Test
-    public void shouldNotSendMessagesWhenOutputHasNotAdvanced() throws Exception {
-        File console = makeConsoleFile("First Output");
-        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false).thenReturn(true);
-        when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
+    public void shouldStopTailingOnceAllSocketsHaveDisconnected() throws Exception {
+        JobIdentifier runningJob = JobIdentifierMother.anyBuildIdentifier();
+        File console = runningConsoleFile(runningJob, "First Output\n");
 
-        when(consoleService.getStreamer(anyLong(), eq(jobIdentifier)))
-            .thenReturn(new ConsoleStreamer(console.toPath(), 0L));
+        consoleLogSender.process(socket, runningJob, 0L);
+        when(socket.isOpen()).thenReturn(false);
 
-        consoleLogSender.process(socket, jobIdentifier, 0L);
+        Files.writeString(console.toPath(), "Second Output\n", StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(runningJob);
 
-        verify(jobInstanceDao, times(3)).isJobCompleted(jobIdentifier);
-        verify(socket, times(1)).send(any());
+        assertThat(consoleLogSender.activeTails()).isZero();
+    }
+
+    @Test
+    public void shouldKeepSendingToOtherSocketsWhileOneIsStillWriting() throws Exception {
+        JobIdentifier runningJob = JobIdentifierMother.anyBuildIdentifier();
+        File console = runningConsoleFile(runningJob, "First Output\n");
+        SocketEndpoint stalledSocket = mock(SocketEndpoint.class);
+        when(stalledSocket.isOpen()).thenReturn(true);
+
+        consoleLogSender.process(socket, runningJob, 0L);
+        consoleLogSender.process(stalledSocket, runningJob, 0L);
+
+        Files.writeString(console.toPath(), "Second Output\n", StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(runningJob);
+        Files.writeString(console.toPath(), "Third Output\n", StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(runningJob);
+
+        ByteBuffer second = ByteBuffer.wrap("Second Output\n".getBytes(UTF_8));
+        ByteBuffer third = ByteBuffer.wrap("Third Output\n".getBytes(UTF_8));
+        verify(socket).send(eq(second), any(WriteCallback.class));
+        verify(socket).send(eq(third), any(WriteCallback.class));
+        verify(stalledSocket).send(eq(second), any(WriteCallback.class));
+        verify(stalledSocket, never()).send(eq(third), any(WriteCallback.class));
+        verify(stalledSocket, never()).close(anyInt(), anyString());
+    }
+
+    @Test
+    public void shouldCloseSocketWhichFallsTooFarBehindWithoutHoldingUpOthers() throws Exception {
+        when(systemEnvironment.get(SystemEnvironment.CONSOLE_LOG_SUBSCRIBER_MAX_PENDING_BYTES)).thenReturn(64);
+        consoleLogSender = new ConsoleLogSender(consoleService, jobInstanceDao, systemEnvironment, executor);
+        JobIdentifier runningJob = JobIdentifierMother.anyBuildIdentifier();
+        File console = runningConsoleFile(runningJob, "First Output\n");
+        SocketEndpoint stalledSocket = mock(SocketEndpoint.class);
+        when(stalledSocket.isOpen()).thenReturn(true);
+
+        consoleLogSender.process(socket, runningJob, 0L);
+        consoleLogSender.process(stalledSocket, runningJob, 0L);
+
+        String line = "x".repeat(39) + "\n";
+        for (int i = 0; i < 3; i++) {
+            Files.writeString(console.toPath(), line, StandardOpenOption.APPEND);
+            consoleLogSender.consoleLogAppended(runningJob);
+        }
+
+        verify(stalledSocket).close(4004, "Console log updates were not being received fast enough");
+        verify(socket, times(3)).send(eq(ByteBuffer.wrap(line.getBytes(UTF_8))), any(WriteCallback.class));
+
+        Files.writeString(console.toPath(), line, StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(runningJob);
+        verify(socket, times(4)).send(eq(ByteBuffer.wrap(line.getBytes(UTF_8))), any(WriteCallback.class));
+        verify(stalledSocket, times(1)).send(any(ByteBuffer.class), any(WriteCallback.class));
     }
 
     @Test
@@ -180,44 +266,31 @@ public class ConsoleLogSenderTest {
         assertThat(bytes).isEqualTo(byteArrayOutputStream.toByteArray());
     }
 
-    private File makeConsoleFile(String message) throws IOException, IllegalArtifactLocationException {
+    private static void completeWritesImmediately(SocketEndpoint socket) {
+        doAnswer(invocation -> {
+            invocation.<WriteCallback>getArgument(1).writeSuccess();
+            return null;
+        }).when(socket).send(any(ByteBuffer.class), any(WriteCallback.class));
+    }
+
+    private File runningConsoleFile(JobIdentifier runningJob, String content) throws IOException, IllegalArtifactLocationException {
         File console = File.createTempFile("console", ".log");
         console.deleteOnExit();
-        when(consoleService.consoleLogFile(jobIdentifier)).thenReturn(console);
+        Files.writeString(console.toPath(), content);
 
-        Files.write(console.toPath(), message.getBytes());
+        when(jobInstanceDao.isJobCompleted(runningJob)).thenReturn(false);
+        when(consoleService.doesLogExist(runningJob)).thenReturn(true);
+        when(consoleService.consoleLogFile(runningJob)).thenReturn(console);
+        when(consoleService.getStreamer(anyLong(), eq(runningJob))).thenAnswer(invocation -> new ConsoleStreamer(console.toPath(), invocation.<Long>getArgument(0)));
         return console;
     }
 
-    /**
-     * allows us to simulate log appending by doing reads with multiple invocations to stream()
-     */
-    private static class FakeConsoleStreamer implements ConsoleConsumer {
-
-        private final String[] mockedLines;
-        private int count = 0;
-
-        FakeConsoleStreamer(String... mockedLines) {
-            this.mockedLines = mockedLines;
-        }
-
-        @Override
-        public long stream(Consumer<String> action) {
-            // this is necessary for showing no logs has been missed out even after job completion
-            if (mockedLines.length <= count) {
-                return mockedLines.length;
-            }
-            action.accept(mockedLines[count]);
-            return ++count;
-        }
-
-        @Override
-        public long totalLinesConsumed() {
-            return count;
-        }
+    private File makeConsoleFile(String message) throws IOException, IllegalArtifactLocationException {
+        File console = File.createTempFile("console", ".log");
+        console.deleteOnExit();
+        when(consoleService.consoleLogFile(jobIdentifier)).thenReturn(console);
 
-        @Override
-        public void close() {
-        }
+        Files.write(console.toPath(), message.getBytes());
+        return console;
     }
 }
@@ -397,6 +397,12 @@ public class JsonOutputWriter {
                 });
                 return this;
             }
+
+            @Override
+            public JsonOutputListWriter addRawJson(String json) {
+                parentWriter.withExceptionHandling(jacksonWriter -> jacksonWriter.writeRawValue(json));
+                return this;
+            }
         }
 
 
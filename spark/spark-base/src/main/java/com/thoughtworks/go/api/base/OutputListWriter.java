@@ -21,4 +21,9 @@ public interface OutputListWriter {
     OutputListWriter value(String value);
 
     OutputListWriter addChild(Consumer<OutputWriter> consumer);
+
+    /**
+     * Adds an element which has already been serialized, such as a JSON object rendered earlier and cached.
+     */
+    OutputListWriter addRawJson(String json);
 }
@@ -144,6 +144,7 @@ public class Routes {
 
     public static class Dashboard {
         public static final String SELF = "/api/dashboard";
+        public static final String STREAM = "/api/dashboard/stream";
         public static final String DOC = "https://api.gocd.org/current/#dashboard";
     }
 